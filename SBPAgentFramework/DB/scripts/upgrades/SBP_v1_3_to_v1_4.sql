@@ -0,0 +1,103 @@
+-- -----------------------------------------------------
+-- Changes for table SCF_DOC_OBJECT
+-- -----------------------------------------------------
+alter table SCF_DOC_OBJECT add REQUEST_ATTEMPTS INTEGER NULL;
+alter table SCF_DOC_OBJECT add NEXT_REQUEST_DATE DATETIME NULL;
+
+-- Objects that have been requested before the upgrade count as requested once and are due to be requested again.
+update SCF_DOC_OBJECT set REQUEST_ATTEMPTS = 1, NEXT_REQUEST_DATE = REQUEST_DATE where REQUESTED = 1;
+update SCF_DOC_OBJECT set REQUEST_ATTEMPTS = 0 where REQUESTED = 0 or REQUESTED is null;
+
+-- -----------------------------------------------------
+-- Table SCF_ID_GENERATOR
+-- -----------------------------------------------------
+CREATE  TABLE IF NOT EXISTS SCF_ID_GENERATOR (
+  SEQUENCE_NAME VARCHAR(45) NOT NULL ,
+  NEXT_VAL INTEGER NOT NULL ,
+  PRIMARY KEY (SEQUENCE_NAME) );
+
+-- The next IDs must be above the IDs already in use by at least one block of IDs (50, see DOC.hbm.xml).
+INSERT INTO SCF_ID_GENERATOR (SEQUENCE_NAME, NEXT_VAL) SELECT 'SCF_DO_CACHE', COALESCE(MAX(DO_CACHE_ID), 0) + 51 FROM SCF_DO_CACHE;
+INSERT INTO SCF_ID_GENERATOR (SEQUENCE_NAME, NEXT_VAL) SELECT 'SCF_DOC_OBJECT', COALESCE(MAX(DOC_OBJECT_ID), 0) + 51 FROM SCF_DOC_OBJECT;
+
+-- -----------------------------------------------------
+-- Unique key of SCF_DOC_OBJECT
+-- -----------------------------------------------------
+-- The unique index and the merge below only match rows whose key columns are all set (NULL never equals NULL). Dependent
+-- objects without an application or zone take the ones of the cached objects waiting for them. Rows that still miss a
+-- key column can't be matched by the agent and are removed.
+UPDATE SCF_DOC_OBJECT SET APPLICATION_ID = 
+  (SELECT MIN(c.APPLICATION_ID) FROM SCF_DO_CACHE c JOIN SCF_DOC_OBJECT_LIST l ON l.DO_CACHE_ID = c.DO_CACHE_ID WHERE l.DEPENDENT_OBJECT_ID = SCF_DOC_OBJECT.DOC_OBJECT_ID)
+ WHERE APPLICATION_ID IS NULL;
+UPDATE SCF_DOC_OBJECT SET ZONE_ID = 
+  (SELECT MIN(c.ZONE_ID) FROM SCF_DO_CACHE c JOIN SCF_DOC_OBJECT_LIST l ON l.DO_CACHE_ID = c.DO_CACHE_ID WHERE l.DEPENDENT_OBJECT_ID = SCF_DOC_OBJECT.DOC_OBJECT_ID)
+ WHERE ZONE_ID IS NULL;
+
+DELETE FROM SCF_DOC_OBJECT_LIST WHERE DEPENDENT_OBJECT_ID IN 
+  (SELECT DOC_OBJECT_ID FROM SCF_DOC_OBJECT WHERE SIF_OBJECT_NAME IS NULL OR OBJECT_KEY_VALUE IS NULL OR APPLICATION_ID IS NULL OR ZONE_ID IS NULL);
+DELETE FROM SCF_DOC_OBJECT WHERE SIF_OBJECT_NAME IS NULL OR OBJECT_KEY_VALUE IS NULL OR APPLICATION_ID IS NULL OR ZONE_ID IS NULL;
+
+-- Concurrent subscribers may have created the same dependent object more than once. Link the cached objects to the
+-- first of these rows and remove the others before the index is made unique.
+INSERT INTO SCF_DOC_OBJECT_LIST (DO_CACHE_ID, DEPENDENT_OBJECT_ID)
+SELECT DISTINCT l.DO_CACHE_ID, k.FIRST_ID
+  FROM SCF_DOC_OBJECT_LIST l
+  JOIN SCF_DOC_OBJECT d ON d.DOC_OBJECT_ID = l.DEPENDENT_OBJECT_ID
+  JOIN (SELECT SIF_OBJECT_NAME, OBJECT_KEY_VALUE, APPLICATION_ID, ZONE_ID, MIN(DOC_OBJECT_ID) FIRST_ID FROM SCF_DOC_OBJECT
+         GROUP BY SIF_OBJECT_NAME, OBJECT_KEY_VALUE, APPLICATION_ID, ZONE_ID HAVING COUNT(*) > 1) k
+    ON k.SIF_OBJECT_NAME = d.SIF_OBJECT_NAME AND k.OBJECT_KEY_VALUE = d.OBJECT_KEY_VALUE AND k.APPLICATION_ID = d.APPLICATION_ID AND k.ZONE_ID = d.ZONE_ID
+ WHERE d.DOC_OBJECT_ID <> k.FIRST_ID
+   AND NOT EXISTS (SELECT 1 FROM SCF_DOC_OBJECT_LIST x WHERE x.DO_CACHE_ID = l.DO_CACHE_ID AND x.DEPENDENT_OBJECT_ID = k.FIRST_ID);
+
+DELETE FROM SCF_DOC_OBJECT_LIST WHERE DEPENDENT_OBJECT_ID IN 
+  (SELECT d.DOC_OBJECT_ID FROM SCF_DOC_OBJECT d WHERE d.DOC_OBJECT_ID > 
+    (SELECT MIN(f.DOC_OBJECT_ID) FROM SCF_DOC_OBJECT f WHERE f.SIF_OBJECT_NAME = d.SIF_OBJECT_NAME AND f.OBJECT_KEY_VALUE = d.OBJECT_KEY_VALUE AND f.APPLICATION_ID = d.APPLICATION_ID AND f.ZONE_ID = d.ZONE_ID));
+
+DELETE FROM SCF_DOC_OBJECT WHERE DOC_OBJECT_ID > 
+  (SELECT MIN(f.DOC_OBJECT_ID) FROM SCF_DOC_OBJECT f WHERE f.SIF_OBJECT_NAME = SCF_DOC_OBJECT.SIF_OBJECT_NAME AND f.OBJECT_KEY_VALUE = SCF_DOC_OBJECT.OBJECT_KEY_VALUE AND f.APPLICATION_ID = SCF_DOC_OBJECT.APPLICATION_ID AND f.ZONE_ID = SCF_DOC_OBJECT.ZONE_ID);
+
+UPDATE SCF_DO_CACHE SET DEPENENCY_REMAINING = (SELECT COUNT(*) FROM SCF_DOC_OBJECT_LIST l WHERE l.DO_CACHE_ID = SCF_DO_CACHE.DO_CACHE_ID);
+
+-- SQLite can't change a column to NOT NULL, so the table is recreated with NOT NULL key columns and the unique index.
+-- Foreign keys must not be enforced while this is done (default of SQLite).
+CREATE  TABLE SCF_DOC_OBJECT_NEW (
+  DOC_OBJECT_ID INTEGER PRIMARY KEY AUTOINCREMENT ,
+  SIF_OBJECT_NAME VARCHAR(45) NOT NULL ,
+  OBJECT_KEY_VALUE VARCHAR(256) NOT NULL ,
+  AGENT_ID VARCHAR(45) NULL ,
+  APPLICATION_ID VARCHAR(45) NOT NULL ,
+  ZONE_ID VARCHAR(45) NOT NULL ,
+  REQUESTED TINYINT(1)  NULL ,
+  REQUEST_DATE DATETIME NULL ,
+  REQUEST_ATTEMPTS INTEGER  NULL ,
+  NEXT_REQUEST_DATE DATETIME NULL ,
+  CONSTRAINT fk_SCF_DEPENDENT_OBJECT_SCF_OBJECT1
+    FOREIGN KEY (SIF_OBJECT_NAME )
+    REFERENCES SCF_OBJECT (SIF_OBJECT_NAME )
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION);
+
+INSERT INTO SCF_DOC_OBJECT_NEW (DOC_OBJECT_ID, SIF_OBJECT_NAME, OBJECT_KEY_VALUE, AGENT_ID, APPLICATION_ID, ZONE_ID, REQUESTED, REQUEST_DATE, REQUEST_ATTEMPTS, NEXT_REQUEST_DATE)
+SELECT DOC_OBJECT_ID, SIF_OBJECT_NAME, OBJECT_KEY_VALUE, AGENT_ID, APPLICATION_ID, ZONE_ID, REQUESTED, REQUEST_DATE, REQUEST_ATTEMPTS, NEXT_REQUEST_DATE FROM SCF_DOC_OBJECT;
+
+DROP TABLE SCF_DOC_OBJECT;
+ALTER TABLE SCF_DOC_OBJECT_NEW RENAME TO SCF_DOC_OBJECT;
+
+CREATE INDEX fk_SCF_DEPENDENT_OBJECT_SCF_OBJECT1 ON SCF_DOC_OBJECT (SIF_OBJECT_NAME ASC) ;
+
+CREATE UNIQUE INDEX IX_DOC_OBJECT_NAME_KEY ON SCF_DOC_OBJECT (SIF_OBJECT_NAME ASC, OBJECT_KEY_VALUE ASC, APPLICATION_ID ASC, ZONE_ID ASC) ;
+
+CREATE INDEX IX_DOC_OBJECT_NAME_APPID ON SCF_DOC_OBJECT (SIF_OBJECT_NAME ASC, APPLICATION_ID ASC) ;
+
+-- -----------------------------------------------------
+-- Table SCF_DELIVERED_KEY
+-- -----------------------------------------------------
+CREATE  TABLE IF NOT EXISTS SCF_DELIVERED_KEY (
+  SIF_OBJECT_NAME VARCHAR(45) NOT NULL ,
+  OBJECT_KEY_VALUE VARCHAR(256) NOT NULL ,
+  APPLICATION_ID VARCHAR(45) NOT NULL ,
+  ZONE_ID VARCHAR(45) NOT NULL ,
+  DELIVERED_DATE DATETIME NULL ,
+  PRIMARY KEY (SIF_OBJECT_NAME, OBJECT_KEY_VALUE, APPLICATION_ID, ZONE_ID) );
+
+COMMIT;
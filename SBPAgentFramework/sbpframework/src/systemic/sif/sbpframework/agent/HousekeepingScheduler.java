@@ -0,0 +1,304 @@
+/*
+ * HousekeepingScheduler.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class runs the background housekeeping tasks of the SBP Agent (expiry check, requesting of dependent objects,
+ * processing of objects with resolved dependencies etc.) on a pool of threads. Each task is scheduled with a fixed
+ * delay between the end of one run and the start of the next run. This means a task never overlaps with itself and
+ * a slow run does not cause a burst of catch-up runs. Tasks are scheduled per subscriber so that different
+ * subscribers are served in parallel up to the number of threads of the pool and one subscriber with a large backlog
+ * doesn't hold up the others.<p><p>
+ *
+ * For each task the number of runs, the run duration and the lag (how much later than planned a run started) are
+ * recorded. The statistics are logged when the scheduler is shut down.
+ */
+public class HousekeepingScheduler
+{
+	protected static final Logger logger = Logger.getLogger(HousekeepingScheduler.class);
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final List<TaskStatistics> statistics = new CopyOnWriteArrayList<TaskStatistics>();
+
+	/**
+	 * Creates a scheduler with the given number of threads.
+	 *
+	 * @param numThreads The maximum number of tasks that can run in parallel. Must be at least 1.
+	 */
+	public HousekeepingScheduler(int numThreads)
+	{
+		this("SBPHousekeeping", numThreads);
+	}
+
+	/**
+	 * Creates a scheduler with the given number of threads. Separate schedulers are used for tasks that must not hold
+	 * up each other.
+	 *
+	 * @param threadName The name of the threads of the pool. A sequence number is appended.
+	 * @param numThreads The maximum number of tasks that can run in parallel. Must be at least 1.
+	 */
+	public HousekeepingScheduler(String threadName, int numThreads)
+	{
+		executor = new ScheduledThreadPoolExecutor(Math.max(1, numThreads), new HousekeepingThreadFactory(threadName));
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/**
+	 * Schedules the given task. The first run starts after the initial delay. Each following run starts 'delay'
+	 * milliseconds after the previous run has finished. Exceptions thrown by the task are logged and don't stop
+	 * further runs.
+	 *
+	 * @param taskName Name of the task used in log entries and statistics.
+	 * @param task The task to run.
+	 * @param initialDelayMillis Delay in milliseconds before the first run.
+	 * @param delayMillis Delay in milliseconds between the end of a run and the start of the next run.
+	 */
+	public void scheduleTask(String taskName, Runnable task, long initialDelayMillis, long delayMillis)
+	{
+		TaskStatistics taskStatistics = new TaskStatistics(taskName, delayMillis, System.currentTimeMillis() + initialDelayMillis);
+		statistics.add(taskStatistics);
+		executor.scheduleWithFixedDelay(new ManagedTask(taskName, task, taskStatistics), initialDelayMillis, delayMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs the given task once as soon as a thread of the pool is available. This is used for work that is triggered
+	 * by an event rather than by time (i.e. release of resolved objects). Exceptions thrown by the task are logged.
+	 * If the scheduler is already shut down the task is not run.
+	 *
+	 * @param taskName Name of the task used in log entries.
+	 * @param task The task to run.
+	 *
+	 * @return TRUE if the task will be run, FALSE if the scheduler is already shut down.
+	 */
+	public boolean runTask(String taskName, Runnable task)
+	{
+		try
+		{
+			executor.execute(new ManagedTask(taskName, task, null));
+			return true;
+		}
+		catch (RejectedExecutionException ex)
+		{
+			logger.debug("Housekeeping task "+taskName+" not run because the scheduler is shut down.");
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the statistics of all scheduled tasks.
+	 */
+	public List<TaskStatistics> getStatistics()
+	{
+		return new ArrayList<TaskStatistics>(statistics);
+	}
+
+	/**
+	 * Stops all tasks. No new runs are started. Runs in progress are given the timeout to finish after which they are
+	 * interrupted. The statistics of all tasks are logged.
+	 *
+	 * @param timeoutMillis The time in milliseconds to wait for runs in progress to finish.
+	 */
+	public void shutdown(long timeoutMillis)
+	{
+		executor.shutdown();
+		try
+		{
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS))
+			{
+				logger.warn("Housekeeping tasks did not finish within "+timeoutMillis+"ms. Interrupt them.");
+				executor.shutdownNow();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		for (TaskStatistics taskStatistics : statistics)
+		{
+			logger.info("Housekeeping task statistics: "+taskStatistics);
+		}
+	}
+
+	/**
+	 * Statistics of one scheduled task. All times are in milliseconds.
+	 */
+	public static class TaskStatistics
+	{
+		private final String taskName;
+		private final long delayMillis;
+		private volatile long nextPlannedStart;
+		private volatile int runCount = 0;
+		private volatile int failureCount = 0;
+		private volatile long lastDuration = 0;
+		private volatile long maxDuration = 0;
+		private volatile long totalDuration = 0;
+		private volatile long lastLag = 0;
+		private volatile long maxLag = 0;
+
+		TaskStatistics(String taskName, long delayMillis, long firstPlannedStart)
+		{
+			this.taskName = taskName;
+			this.delayMillis = delayMillis;
+			this.nextPlannedStart = firstPlannedStart;
+		}
+
+		/* Only ever called by the single thread running the task at that time. */
+		void recordRun(long startTime, long endTime, boolean failed)
+		{
+			long duration = endTime - startTime;
+			long lag = Math.max(0, startTime - nextPlannedStart);
+			runCount++;
+			if (failed)
+			{
+				failureCount++;
+			}
+			lastDuration = duration;
+			maxDuration = Math.max(maxDuration, duration);
+			totalDuration = totalDuration + duration;
+			lastLag = lag;
+			maxLag = Math.max(maxLag, lag);
+			nextPlannedStart = endTime + delayMillis;
+		}
+
+		public String getTaskName()
+		{
+			return this.taskName;
+		}
+
+		public int getRunCount()
+		{
+			return this.runCount;
+		}
+
+		public int getFailureCount()
+		{
+			return this.failureCount;
+		}
+
+		public long getLastDuration()
+		{
+			return this.lastDuration;
+		}
+
+		public long getMaxDuration()
+		{
+			return this.maxDuration;
+		}
+
+		public long getAverageDuration()
+		{
+			int runs = runCount;
+			return (runs == 0) ? 0 : totalDuration / runs;
+		}
+
+		public long getLastLag()
+		{
+			return this.lastLag;
+		}
+
+		public long getMaxLag()
+		{
+			return this.maxLag;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "task = "+taskName+", runs = "+runCount+", failures = "+failureCount+
+			       ", duration last/avg/max = "+lastDuration+"/"+getAverageDuration()+"/"+maxDuration+
+			       "ms, lag last/max = "+lastLag+"/"+maxLag+"ms";
+		}
+	}
+
+	/*---------------------*/
+	/*-- Private Classes --*/
+	/*---------------------*/
+
+	/*
+	 * Wraps a task to record its statistics. Nothing must escape, not even an error, as the executor would not run the
+	 * task again.
+	 * The statistics are null for tasks that are only run once.
+	 */
+	private static class ManagedTask implements Runnable
+	{
+		private final String taskName;
+		private final Runnable task;
+		private final TaskStatistics taskStatistics;
+
+		ManagedTask(String taskName, Runnable task, TaskStatistics taskStatistics)
+		{
+			this.taskName = taskName;
+			this.task = task;
+			this.taskStatistics = taskStatistics;
+		}
+
+		public void run()
+		{
+			long startTime = System.currentTimeMillis();
+			boolean failed = false;
+			try
+			{
+				task.run();
+			}
+			catch (Throwable ex)
+			{
+				failed = true;
+				logger.error("Housekeeping task "+taskName+" failed.", ex);
+			}
+			if (taskStatistics == null)
+			{
+				return;
+			}
+			taskStatistics.recordRun(startTime, System.currentTimeMillis(), failed);
+			if (logger.isDebugEnabled())
+			{
+				logger.debug("Housekeeping task statistics: "+taskStatistics);
+			}
+		}
+	}
+
+	private static class HousekeepingThreadFactory implements ThreadFactory
+	{
+		private final String threadName;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		HousekeepingThreadFactory(String threadName)
+		{
+			this.threadName = threadName;
+		}
+
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, threadName+"-"+threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -1,328 +1,620 @@
-/*
- * SBPSubscriberAgent.java
- * Created: 19/10/2011
- *
- * Copyright 2011 Systemic Pty Ltd
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License 
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied.
- * See the License for the specific language governing permissions and limitations under the License.
- */
-
-package systemic.sif.sbpframework.agent;
-
-import java.util.Date;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-
-import javax.persistence.PersistenceException;
-
-import systemic.sif.sbpframework.common.utils.DOCacheProperties;
-import systemic.sif.sbpframework.common.utils.SIFObjectMetadataCache;
-import systemic.sif.sbpframework.persist.common.HibernateUtil;
-import systemic.sif.sbpframework.persist.servcie.DOCService;
-import systemic.sif.sbpframework.subscriber.SBPBaseSubscriber;
-import systemic.sif.sifcommon.agent.SIFBaseAgent;
-import systemic.sif.sifcommon.subscriber.BaseSubscriber;
-import au.com.systemic.framework.utils.StringUtils;
-
-/**
- * This is an actual implementation of a subscribing agent for the SBP. In most cases one can use this agent out of the 
- * box. The main restriction it has is that it cannot deal with custom objects. If that should be required one must
- * write a new agent like this and implement the initCustomObjects() method of the SIFBaseAgent class.<p>
- * 
- * To start this agent the following command line statement is used:<p>
- * 
- * <code>
- * &lt;JAVA_HOME&gt;/bin/java &lt;JVM_SETTINGS&gt; -cp &lt;classpath&gt; systemic.sif.sbpframework.agent.SBPSubscriberAgent  &lt;agentID&gt; [ &lt;agent.properties&gt;]
- * <br><br>
- * 
- * &lt;agentID&gt;: Required. Must be an ID of an agent used in the &lt;agen&gt;.properties file.<br>
- * &lt;agent.properties&gt;: Optional. The name of the agent properties file. If not provided it is 
- *                           assumed to be called SIFAgent.properties. The directory of this file must be on 
- *                           the classpath.
- * </code>
- * 
- * @author Joerg Huber
- *
- */
-public class SBPSubscriberAgent extends SIFBaseAgent
-{
-	private static final int MILISEC = 1000;
-	private static final String BANNER = "\n+++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++\n";
-
-	private static DOCacheProperties cacheProperties = null;
-	
-	private static void usage(String[] args)
-	{
-		System.out.println("Usage <JAVA_HOME>/bin/java <JVM_SETTINGS> -cp <classpath> systemic.sif.sbpframework.agent.SBPSubscriberAgent <agentID> [<agent.properties>]");
-		System.out.println("   <agentID>         : Required. Must be an ID of an agent used in the <agent>.properties file.");
-		System.out.println("   <agent.properties>: Optional. The name of the agent properties file. If not provided it is assumed to be called SIFAgent.properties. This directory of this file must be on the classpath.");
-
-		System.out.println("\nProvided Values:");
-		for (int i = 0; i<args.length; i++)
-		{
-			System.out.println("Argument["+i+"]: "+args[i]);
-		}
-	}
-	
-	private static String getAgentIDParam(String[] args)
-	{
-		return args[0].trim();
-	}
-
-	private static String getPropertyFileNameParam(String[] args)
-	{
-		if (args.length>=2)
-		{
-			return args[1].trim();
-		}
-		else
-		{
-			return "SIFAgent";
-		}
-	}
-
-	public SBPSubscriberAgent(String agentID, String propertyFileName) throws Exception
-	{
-		super(agentID, propertyFileName);
-	}
-		
-    public String getApplicationID()
-    {
-        return getFrameworkProperties().getApplicationID(getAgentID(), null);
-    }
-    
-	/**
-	 * Default implementation does nothing. If custom objects are required then it is advised to
-	 * write a new agent that extends this agent and then override this method to the need of the agent.
-	 */
-	@Override
-    public void initCustomObjects(){}
-	
-	/**
-	 * Override the base agent's shutdown method. This is mainly required to free up resources used by the
-	 * SBP Agent such as Hibernate etc. Ensure that the super().shutdown is called first.
-	 */
-	@Override
-	public void stopAgent()
-	{
-		super.stopAgent();
-		HibernateUtil.shutdown();
-	}
-	
-	/**
-	 * Overrides the default start up method. Before this happens we want to ensure that the environment
-	 * for the SBP Agent is ready. At this stage this means we want to load the Object Metadata Cache before
-	 * we even attempt to do anything else. Most SBP Operations and behaviours rely on this cache. If it is not
-	 * available then the startup of this agent should not continue (i.e should fail).
-	 */
-	@Override
-    public void startAgent() throws Exception
-    {
-		// Try to read the DOCache.properties file. If that fails then stop the agent.
-		cacheProperties = DOCacheProperties.getDOCacheProperties();
-		if (cacheProperties == null)
-		{
-			throw new IllegalArgumentException("Cannot load DOCacheProperties from file for agent "+getAgentID()+". Agent cannot start.");						
-		}	
-		
-		SIFObjectMetadataCache metadataCache = SIFObjectMetadataCache.getCache();
-		if (metadataCache == null)
-		{
-			throw new PersistenceException("Cannot Initialise the SBP Metadata Cache. Agent cannot start.");
-		}
-		
-		// Test that this agent has an application ID assigned otherwise the SBP and its cache won't work.
-		if (StringUtils.isEmpty(getApplicationID()))
-		{
-			throw new IllegalArgumentException("No Application is defined for agent "+getAgentID()+". Set application id in SIFAgent.properties file. Agent cannot start.");			
-		}
-		
-		// If we get here then the metadata cache is initialised successfully and we can continue with the standard
-		// startup procedure.
-		super.startAgent();
-
-		// Start up all background house keeping processes
-		startupExpiredObjectManager();
-        pendingObjectRequestManager();
-        processObjectsWithoutDependenciesManager();
-    }
-
-    /*-----------------------------------------*/
-    /*-- Scheduled Background Threads/Taasks --*/
-    /*-----------------------------------------*/
-
-	/**
-	 * This method schedules the Expired Cache Object Cleanup task to be run at given intervals.
-	 */
-	private void startupExpiredObjectManager()
-	{
-		int delay = cacheProperties.getExpiryCheckStartupDelayInSec(60) * MILISEC;   // delay for some sec.
-		int period = cacheProperties.getExpiryCheckFreqMinutes(60) * 60 * MILISEC;  // repeat every so often (multiply with 60sec).
-        logger.info(BANNER+getClass().getSimpleName()+".startupExpiredObjectManager() for agent = '" + getAgentID() + "'. Startup Delay/Frequency in Millisec: "+delay+"/"+period+BANNER);
-
-		Timer timer = new Timer();
-		timer.scheduleAtFixedRate(
-			new TimerTask() 
-			{
-				public void run() 
-				{
-					cleanUpExpiredObjectsTask();
-				}
-			}, delay, period);
-	}
-	
-	
-    /*
-     * This method schedules the Request of Pending Object task to be run at given intervals.
-     * Note: Refer to comments in requestDependentObjects() method.
-     */
-    private void pendingObjectRequestManager()
-    {
-        int delay = cacheProperties.getRequestStartupDelayInSec(60) * MILISEC;   // delay for 15 sec.
-        int period = cacheProperties.getRequestFreqInSec(60) * MILISEC;  // repeat every 2 minutes.
-        logger.info(BANNER+getClass().getSimpleName()+".pendingObjectRequestManager(). Startup Delay/Frequency in Millisec: "+delay+"/"+period+BANNER);
-        
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(
-            new TimerTask() 
-            {
-                public void run() 
-                {
-                    pendingObjectRequestTask();
-                }
-            }, delay, period);
-    }
-    
-    
-    /*
-     * This method schedules the removal of Cache Object that have all dependencies removed. Run at given intervals.
-     * Note: Refer to comments in processObjectsWithoutDependencies() method.
-     */
-    private void processObjectsWithoutDependenciesManager()
-    {
-        int delay = cacheProperties.getResolvedStartupDelayInSec(60) * MILISEC;   // delay for 15 sec.
-        int period = cacheProperties.getResolvedFreqInSec(60) * MILISEC;  // repeat every 2 minutes.
-        logger.info(BANNER+getClass().getSimpleName()+".processObjectsWithoutDependenciesManager(). Startup Delay/Frequency in Millisec: "+delay+"/"+period+BANNER);
-
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(
-            new TimerTask() 
-            {
-                public void run() 
-                {
-                    processObjectsWithoutDependenciesTask();
-                }
-            }, delay, period);
-    }
-	
-	/*--------------------------------------*/
-	/*-- Private methods to run in a Task --*/
-	/*--------------------------------------*/
-	private void cleanUpExpiredObjectsTask()
-	{
-		try
-		{
-			logger.debug(BANNER+getAgentID()+" attempts to update/remove expired object in DOC: "+new Date()+BANNER);
-			DOCService service = new DOCService();
-			service.updateExpiredObjects(getApplicationID(), getAgentID());
-		}
-		catch (Exception ex)
-		{
-			logger.error("Failed to update/remove expired cached objects. See prvious error log entry for details.", ex);
-		}
-	}	
-	
-    /*
-     * This method iterates through all subscribers and calls the requestDependentObjects() method if the subscriber
-     * is a SBPBaseSubscriber.
-     * Note: Refer to comments in SBPBaseSubscriber.requestDependentObjects() method.
-     */
-    private void pendingObjectRequestTask()
-	{
-	    List<BaseSubscriber> subscribers = getInitialisedSubscribers();
-	    for (BaseSubscriber subsciber : subscribers)
-	    {
-	        if (subsciber instanceof SBPBaseSubscriber)
-	        {
-	            ((SBPBaseSubscriber)subsciber).requestDependentObjects();
-	        }
-	    }
-	}
-	
-    /*
-     * This method iterates through all subscribers and calls the processObjectsWithoutDependencies() method if the 
-     * subscriber is a SBPBaseSubscriber.
-     * Note: Refer to comments in SBPBaseSubscriber.processObjectsWithoutDependencies() method.
-     */
-    private void processObjectsWithoutDependenciesTask()
-	{
-        List<BaseSubscriber> subscribers = getInitialisedSubscribers();
-        for (BaseSubscriber subsciber : subscribers)
-        {
-            if (subsciber instanceof SBPBaseSubscriber)
-            {
-                ((SBPBaseSubscriber)subsciber).processObjectsWithoutDependencies();
-            }
-        }
-	}
-
-	/*---------------------*/
-	/*-- Main Executable --*/
-	/*---------------------*/
-	public static void main(String[] args)
-	{
-		if (args.length < 1)
-		{
-			System.out.println("ERROR Starting Agent: Agent ID missing.");
-
-			usage(args);
-			System.exit(0);
-		}
-		else
-		{
-			SBPSubscriberAgent agent = null;
-			try
-			{
-				agent = new SBPSubscriberAgent(getAgentIDParam(args), getPropertyFileNameParam(args));
-				agent.startAgent(); // this will block until CTRL-C is pressed.
-				// Put this agent to a blocking wait.....
-				try
-				{
-					Object semaphore = new Object();
-		            synchronized (semaphore)
-		            {
-		                semaphore.wait();
-		            }
-				}
-				catch (Exception ex)
-				{
-					System.out.println("Blocking wait in SBPSubscriberAgent interrupted: "+ex.getMessage());
-					ex.printStackTrace();
-				}
-			}
-			catch (Exception ex)
-			{
-				System.out.println("ERROR Starting Agent: SBPSubscriberAgent could not be started. See previous output for details.");
-				ex.printStackTrace();
-			}
-			finally	// If startup is successful then this will never be reached.
-			{
-				System.out.println("Exit SBPSubscriberAgent...");
-				if (agent != null)
-				{
-					agent.stopAgent();
-				}
-			}
-		}
-	}		
-}
+/*
+ * SBPSubscriberAgent.java
+ * Created: 19/10/2011
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License 
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.agent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import systemic.sif.sbpframework.common.utils.DOCacheProperties;
+import systemic.sif.sbpframework.common.utils.DOCKeyLocks;
+import systemic.sif.sbpframework.common.utils.DeliveredKeyIndex;
+import systemic.sif.sbpframework.common.utils.DependencyKeyFilter;
+import systemic.sif.sbpframework.common.utils.ResolvedObjectQueue;
+import systemic.sif.sbpframework.common.utils.SIFObjectMetadataCache;
+import systemic.sif.sbpframework.common.utils.SyncCoordinator;
+import systemic.sif.sbpframework.common.utils.SyncWindowRegistry;
+import systemic.sif.sbpframework.common.utils.TargetSystemCheckCache;
+import systemic.sif.sbpframework.common.utils.ZoneRequestDispatcher;
+import systemic.sif.sbpframework.persist.common.HibernateUtil;
+import systemic.sif.sbpframework.persist.servcie.DOCGroupCommitter;
+import systemic.sif.sbpframework.persist.servcie.DOCMemoryTier;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+import systemic.sif.sbpframework.persist.servcie.DeliveredKeyService;
+import systemic.sif.sbpframework.subscriber.SBPBaseSubscriber;
+import systemic.sif.sbpframework.subscriber.SyncSubscriber;
+import systemic.sif.sifcommon.agent.SIFBaseAgent;
+import systemic.sif.sifcommon.subscriber.BaseSubscriber;
+import au.com.systemic.framework.utils.StringUtils;
+
+/**
+ * This is an actual implementation of a subscribing agent for the SBP. In most cases one can use this agent out of the 
+ * box. The main restriction it has is that it cannot deal with custom objects. If that should be required one must
+ * write a new agent like this and implement the initCustomObjects() method of the SIFBaseAgent class.<p>
+ * 
+ * To start this agent the following command line statement is used:<p>
+ * 
+ * <code>
+ * &lt;JAVA_HOME&gt;/bin/java &lt;JVM_SETTINGS&gt; -cp &lt;classpath&gt; systemic.sif.sbpframework.agent.SBPSubscriberAgent  &lt;agentID&gt; [ &lt;agent.properties&gt;]
+ * <br><br>
+ * 
+ * &lt;agentID&gt;: Required. Must be an ID of an agent used in the &lt;agen&gt;.properties file.<br>
+ * &lt;agent.properties&gt;: Optional. The name of the agent properties file. If not provided it is 
+ *                           assumed to be called SIFAgent.properties. The directory of this file must be on 
+ *                           the classpath.
+ * </code>
+ * 
+ * @author Joerg Huber
+ *
+ */
+public class SBPSubscriberAgent extends SIFBaseAgent
+{
+	private static final int MILISEC = 1000;
+	private static final String BANNER = "\n+++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++\n";
+
+	private static DOCacheProperties cacheProperties = null;
+	
+	/* Runs all background housekeeping tasks. Null if the agent is not started. */
+	private volatile HousekeepingScheduler scheduler = null;
+	
+	/*
+	 * Runs the release of resolved objects triggered by the ResolvedObjectQueue. These tasks may block on full
+	 * processing queues, so they have their own threads and don't hold up the periodic tasks of the scheduler above.
+	 * Null if the agent is not started or the queue is disabled.
+	 */
+	private volatile HousekeepingScheduler releaseScheduler = null;
+	
+	/* The number of delivered keys read from the DOC with one query at startup. */
+	private static final int DELIVERED_KEY_PAGE_SIZE = 5000;
+	
+	private static void usage(String[] args)
+	{
+		System.out.println("Usage <JAVA_HOME>/bin/java <JVM_SETTINGS> -cp <classpath> systemic.sif.sbpframework.agent.SBPSubscriberAgent <agentID> [<agent.properties>]");
+		System.out.println("   <agentID>         : Required. Must be an ID of an agent used in the <agent>.properties file.");
+		System.out.println("   <agent.properties>: Optional. The name of the agent properties file. If not provided it is assumed to be called SIFAgent.properties. This directory of this file must be on the classpath.");
+
+		System.out.println("\nProvided Values:");
+		for (int i = 0; i<args.length; i++)
+		{
+			System.out.println("Argument["+i+"]: "+args[i]);
+		}
+	}
+	
+	private static String getAgentIDParam(String[] args)
+	{
+		return args[0].trim();
+	}
+
+	private static String getPropertyFileNameParam(String[] args)
+	{
+		if (args.length>=2)
+		{
+			return args[1].trim();
+		}
+		else
+		{
+			return "SIFAgent";
+		}
+	}
+
+	public SBPSubscriberAgent(String agentID, String propertyFileName) throws Exception
+	{
+		super(agentID, propertyFileName);
+	}
+		
+    public String getApplicationID()
+    {
+        return getFrameworkProperties().getApplicationID(getAgentID(), null);
+    }
+    
+	/**
+	 * Default implementation does nothing. If custom objects are required then it is advised to
+	 * write a new agent that extends this agent and then override this method to the need of the agent.
+	 */
+	@Override
+    public void initCustomObjects(){}
+	
+	/**
+	 * Override the base agent's shutdown method. This is mainly required to free up resources used by the
+	 * SBP Agent such as Hibernate etc. The housekeeping tasks are stopped before the super().shutdown is called.
+	 */
+	@Override
+	public void stopAgent()
+	{
+		// Stop the housekeeping tasks first so that they don't use the DOC or the zones while they are shut down.
+		if (scheduler != null)
+		{
+			HousekeepingScheduler currentScheduler = scheduler;
+			scheduler = null;
+			currentScheduler.shutdown(cacheProperties.getHousekeepingShutdownTimeoutInSec(60) * MILISEC);
+		}
+		if (releaseScheduler != null)
+		{
+			HousekeepingScheduler currentScheduler = releaseScheduler;
+			releaseScheduler = null;
+			currentScheduler.shutdown(cacheProperties.getHousekeepingShutdownTimeoutInSec(60) * MILISEC);
+		}
+		
+		// Process the objects still held back by sync windows or collected for batch processing while the zones and
+		// queues are still available.
+		for (SBPBaseSubscriber subscriber : getSBPSubscribers())
+		{
+			subscriber.closeSyncWindows();
+			subscriber.shutdownResolveBatcher();
+		}
+		ResolvedObjectQueue.removeQueue();
+		SyncCoordinator.removeCoordinator();
+		SyncWindowRegistry.removeRegistry();
+		TargetSystemCheckCache.removeCache();
+		
+		// Requests still waiting to be sent are dropped. Their objects are not marked as requested and are requested
+		// again after a restart.
+		if (cacheProperties != null)
+		{
+			ZoneRequestDispatcher.removeDispatcher(cacheProperties.getHousekeepingShutdownTimeoutInSec(60) * MILISEC);
+		}
+		
+		super.stopAgent();
+		
+		// Write all pending changes of the in-memory DOC tier or group commit (if enabled) before Hibernate is shut down.
+		if (cacheProperties != null)
+		{
+			DOCGroupCommitter.shutdownCommitter(cacheProperties.getMemoryTierDrainTimeoutInSec(60) * MILISEC);
+			DOCMemoryTier.shutdownTier(cacheProperties.getMemoryTierDrainTimeoutInSec(60) * MILISEC);
+		}
+		DependencyKeyFilter.removeFilter();
+		DOCKeyLocks.removeLocks();
+		
+		// Write the keys delivered since the last flush of the delivered key index (if enabled).
+		if (DeliveredKeyIndex.getIndex() != null)
+		{
+			flushDeliveredKeysTask();
+			DeliveredKeyIndex.removeIndex();
+		}
+		HibernateUtil.shutdown();
+	}
+	
+	/**
+	 * Overrides the default start up method. Before this happens we want to ensure that the environment
+	 * for the SBP Agent is ready. At this stage this means we want to load the Object Metadata Cache before
+	 * we even attempt to do anything else. Most SBP Operations and behaviours rely on this cache. If it is not
+	 * available then the startup of this agent should not continue (i.e should fail).
+	 */
+	@Override
+    public void startAgent() throws Exception
+    {
+		// Try to read the DOCache.properties file. If that fails then stop the agent.
+		cacheProperties = DOCacheProperties.getDOCacheProperties();
+		if (cacheProperties == null)
+		{
+			throw new IllegalArgumentException("Cannot load DOCacheProperties from file for agent "+getAgentID()+". Agent cannot start.");						
+		}	
+		
+		SIFObjectMetadataCache metadataCache = SIFObjectMetadataCache.getCache();
+		if (metadataCache == null)
+		{
+			throw new PersistenceException("Cannot Initialise the SBP Metadata Cache. Agent cannot start.");
+		}
+		
+		// Test that this agent has an application ID assigned otherwise the SBP and its cache won't work.
+		if (StringUtils.isEmpty(getApplicationID()))
+		{
+			throw new IllegalArgumentException("No Application is defined for agent "+getAgentID()+". Set application id in SIFAgent.properties file. Agent cannot start.");			
+		}
+		
+		// Load the optional in-memory tier of the DOC before any subscriber starts using the DOC.
+		if (cacheProperties.getMemoryTierEnabled())
+		{
+			logger.info(BANNER+"Starting in-memory tier of the DOC for agent = '" + getAgentID() + "'."+BANNER);
+			DOCMemoryTier.startTier(cacheProperties.getMemoryTierFlushIntervalMillis(500), cacheProperties.getMemoryTierFlushBatchSize(500));
+		}
+		else if (cacheProperties.getGroupCommitEnabled())
+		{
+			logger.info(BANNER+"Starting group commit of DOC changes for agent = '" + getAgentID() + "'."+BANNER);
+			DOCGroupCommitter.startCommitter(cacheProperties.getGroupCommitMaxWrites(50), cacheProperties.getGroupCommitMaxWaitMillis(5));
+		}
+		
+		// Build the optional dependency key filter from the DOC before any subscriber starts using the DOC.
+		if (cacheProperties.getDependencyFilterEnabled())
+		{
+			logger.info(BANNER+"Building dependency key filter of the DOC for agent = '" + getAgentID() + "'."+BANNER);
+			DependencyKeyFilter filter = DependencyKeyFilter.createFilter(cacheProperties.getDependencyFilterExpectedKeys(100000), cacheProperties.getDependencyFilterBitsPerKey(10));
+			new DOCService().populateDependencyKeyFilter(filter);
+		}
+		
+		// The DOC decisions of all subscribers are serialised per object key.
+		int keyLockStripes = cacheProperties.getKeyLockStripes(1024);
+		if (keyLockStripes > 0)
+		{
+			DOCKeyLocks.createLocks(keyLockStripes);
+		}
+		
+		// The syncs of the subscribers are handed to the coordinator when SIFCommon starts the subscribers. They are
+		// held back until the coordinator is started below.
+		if (cacheProperties.getOrderedSyncEnabled())
+		{
+			SyncCoordinator.createCoordinator(cacheProperties.getOrderedSyncMaxConcurrent(4), 
+				cacheProperties.getOrderedSyncResponseTimeoutInMinutes(30) * 60L * MILISEC, 
+				cacheProperties.getOrderedSyncParentWaitInMinutes(60) * 60L * MILISEC);
+		}
+		
+		// Subscribers with the sync window enabled record the keys of processed objects in the registry while their
+		// sync is running (see 'cache.sync.window.*' properties).
+		SyncWindowRegistry.createRegistry(cacheProperties.getSyncWindowMaxObjects(100000));
+		
+		// The results of doesObjectExistInTargetSystem() are remembered for all subscribers.
+		if (cacheProperties.getTargetCheckCacheEnabled())
+		{
+			TargetSystemCheckCache.createCache(cacheProperties.getTargetCheckMaxEntries(10000));
+		}
+		
+		// Load the keys of the objects delivered before the last shutdown before any subscriber starts using the DOC.
+		if (cacheProperties.getDeliveredIndexEnabled())
+		{
+			logger.info(BANNER+"Loading delivered key index for agent = '" + getAgentID() + "'."+BANNER);
+			DeliveredKeyIndex index = DeliveredKeyIndex.createIndex(getApplicationID(), cacheProperties.getDeliveredIndexMaxKeys(1000000), cacheProperties.getDeliveredIndexTTLInMinutes(1440));
+			int numKeys = index.load(new DeliveredKeyService(), DELIVERED_KEY_PAGE_SIZE);
+			logger.info("Loaded "+numKeys+" delivered keys for agent = '" + getAgentID() + "'.");
+		}
+		
+		// If we get here then the metadata cache is initialised successfully and we can continue with the standard
+		// startup procedure.
+		super.startAgent();
+		deliveredKeyIndexLoader();
+		syncCoordinatorManager(metadataCache);
+
+		// Start up all background house keeping processes
+		scheduler = new HousekeepingScheduler(cacheProperties.getHousekeepingThreads(4));
+		requestDispatcherManager();
+		startupExpiredObjectManager();
+        pendingObjectRequestManager();
+        processObjectsWithoutDependenciesManager();
+        resolvedObjectQueueManager();
+        metadataReloadManager();
+        deliveredKeyIndexManager();
+    }
+
+    /*-----------------------------------------*/
+    /*-- Scheduled Background Threads/Taasks --*/
+    /*-----------------------------------------*/
+
+	/**
+	 * This method schedules the Expired Cache Object Cleanup task to be run at given intervals.
+	 */
+	private void startupExpiredObjectManager()
+	{
+		int delay = cacheProperties.getExpiryCheckStartupDelayInSec(60) * MILISEC;   // delay for some sec.
+		int period = cacheProperties.getExpiryCheckFreqMinutes(60) * 60 * MILISEC;  // repeat every so often (multiply with 60sec).
+        logger.info(BANNER+getClass().getSimpleName()+".startupExpiredObjectManager() for agent = '" + getAgentID() + "'. Startup Delay/Frequency in Millisec: "+delay+"/"+period+BANNER);
+
+        scheduler.scheduleTask("ExpiredObjectCleanup", 
+        	new Runnable() 
+			{
+				public void run() 
+				{
+					cleanUpExpiredObjectsTask();
+				}
+			}, delay, period);
+	}
+	
+	
+    /*
+     * This method starts the coordinator of the syncs with the object types of all subscribers that sync, so that the
+     * syncs are run in the order of the dependencies between these objects. Subscribers with a sync frequency of 0
+     * never sync and are not waited for. Nothing is done if the ordered sync is disabled.
+     */
+    private void syncCoordinatorManager(SIFObjectMetadataCache metadataCache)
+    {
+        SyncCoordinator coordinator = SyncCoordinator.getCoordinator();
+        if (coordinator == null)
+        {
+            return;
+        }
+        
+        List<String> syncedObjectNames = new ArrayList<String>();
+        for (BaseSubscriber subscriber : getInitialisedSubscribers())
+        {
+            if ((subscriber instanceof SyncSubscriber) && (getFrameworkProperties().getSyncFrequencyInSeconds(getAgentID(), subscriber.getId(), 0) != 0))
+            {
+                syncedObjectNames.add(subscriber.getDtd().name());
+            }
+        }
+        logger.info(BANNER+getClass().getSimpleName()+".syncCoordinatorManager(). Syncs are ordered by object dependencies for: "+syncedObjectNames+BANNER);
+        coordinator.start(syncedObjectNames, metadataCache);
+    }
+    
+    /*
+     * This method adds the keys of the objects in the target system that the subscribers provide to the delivered key
+     * index, so that objects depending on them are not checked (see SBPBaseSubscriber.getObjectKeysInTargetSystem()).
+     * This is done before the syncs are started. Nothing is done if the index is disabled.
+     */
+    private void deliveredKeyIndexLoader()
+    {
+        if (DeliveredKeyIndex.getIndex() == null)
+        {
+            return;
+        }
+        for (SBPBaseSubscriber subscriber : getSBPSubscribers())
+        {
+            int numKeys = subscriber.loadObjectKeysInTargetSystem();
+            if (numKeys > 0)
+            {
+                logger.info(BANNER+getClass().getSimpleName()+".deliveredKeyIndexLoader(). Loaded "+numKeys+" keys of "+subscriber.getDtd().name()+" objects in the target system."+BANNER);
+            }
+        }
+    }
+    
+    /*
+     * This method creates the dispatcher that sends the queries for dependent objects to the zones. It must be created
+     * before the Request of Pending Object tasks run. Nothing is done if the dispatcher is disabled in which case the
+     * subscribers send their queries themselves.
+     */
+    private void requestDispatcherManager()
+    {
+        if (!cacheProperties.getRequestDispatcherEnabled())
+        {
+            return;
+        }
+        int maxInFlight = cacheProperties.getRequestDispatcherMaxInFlight(4);
+        int ratePerSec = cacheProperties.getRequestDispatcherRatePerSec(10);
+        logger.info(BANNER+getClass().getSimpleName()+".requestDispatcherManager(). Requests in flight/Rate per second per zone: "+maxInFlight+"/"+ratePerSec+BANNER);
+        
+        ZoneRequestDispatcher.createDispatcher(maxInFlight, cacheProperties.getRequestDispatcherQueueMaxSize(1000), ratePerSec, cacheProperties.getRequestDispatcherBurst(10));
+    }
+    
+    /*
+     * This method schedules the Request of Pending Object task to be run at given intervals. There is one task per
+     * SBPBaseSubscriber so that subscribers are served in parallel.
+     * Note: Refer to comments in requestDependentObjects() method.
+     */
+    private void pendingObjectRequestManager()
+    {
+        int delay = cacheProperties.getRequestStartupDelayInSec(60) * MILISEC;   // delay for 15 sec.
+        int period = cacheProperties.getRequestFreqInSec(60) * MILISEC;  // repeat every 2 minutes.
+        logger.info(BANNER+getClass().getSimpleName()+".pendingObjectRequestManager(). Startup Delay/Frequency in Millisec: "+delay+"/"+period+BANNER);
+        
+        for (final SBPBaseSubscriber subscriber : getSBPSubscribers())
+        {
+        	scheduler.scheduleTask("PendingObjectRequest["+subscriber.getDtd().name()+"]", 
+        		new Runnable() 
+	            {
+	                public void run() 
+	                {
+	                	subscriber.requestDependentObjects();
+	                }
+	            }, delay, period);
+        }
+    }
+    
+    
+    /*
+     * This method schedules the removal of Cache Object that have all dependencies removed. Run at given intervals.
+     * There is one task per SBPBaseSubscriber so that subscribers are served in parallel.
+     * Note: Refer to comments in processObjectsWithoutDependencies() method.
+     */
+    private void processObjectsWithoutDependenciesManager()
+    {
+        int delay = cacheProperties.getResolvedStartupDelayInSec(60) * MILISEC;   // delay for 15 sec.
+        int period = cacheProperties.getResolvedFreqInSec(60) * MILISEC;  // repeat every 2 minutes.
+        logger.info(BANNER+getClass().getSimpleName()+".processObjectsWithoutDependenciesManager(). Startup Delay/Frequency in Millisec: "+delay+"/"+period+BANNER);
+
+        for (final SBPBaseSubscriber subscriber : getSBPSubscribers())
+        {
+        	scheduler.scheduleTask("ProcessObjectsWithoutDependencies["+subscriber.getDtd().name()+"]", 
+        		new Runnable() 
+	            {
+	                public void run() 
+	                {
+	                	subscriber.processObjectsWithoutDependencies();
+	                }
+	            }, delay, period);
+        }
+    }
+	
+    /*
+     * This method creates the queue of resolved objects and registers a consumer for each SBPBaseSubscriber. Cached
+     * objects whose last dependency is removed are then processed by their subscriber straight away. The periodic
+     * processing of objects without dependencies remains as a safety net. Nothing is done if the queue is disabled.
+     * The release tasks run on their own threads (see releaseScheduler). The queue triggers the consumer of a
+     * subscriber again only once its queue is drained, so at most two release tasks per subscriber are waiting.
+     */
+    private void resolvedObjectQueueManager()
+    {
+        if (!cacheProperties.getReleaseQueueEnabled())
+        {
+            return;
+        }
+        logger.info(BANNER+getClass().getSimpleName()+".resolvedObjectQueueManager(). Resolved objects are released as soon as their last dependency is removed."+BANNER);
+        
+        ResolvedObjectQueue releaseQueue = ResolvedObjectQueue.createQueue(cacheProperties.getReleaseQueueMaxSize(10000));
+        releaseScheduler = new HousekeepingScheduler("SBPRelease", cacheProperties.getReleaseQueueThreads(2));
+        for (final SBPBaseSubscriber subscriber : getSBPSubscribers())
+        {
+        	final String taskName = "ProcessResolvedObjects["+subscriber.getDtd().name()+"]";
+        	final Runnable task = new Runnable()
+            {
+                public void run() 
+                {
+                	subscriber.processResolvedObjects();
+                }
+            };
+            releaseQueue.registerConsumer(subscriber.getDtd().name(), getApplicationID(), getAgentID(), 
+            	new Runnable()
+	            {
+	                public void run() 
+	                {
+	                	// The queue triggers the consumer again with the next resolved object if the task can't be run.
+	                	HousekeepingScheduler currentScheduler = releaseScheduler;
+	                	if ((currentScheduler == null) || !currentScheduler.runTask(taskName, task))
+	                	{
+	                		throw new IllegalStateException("Release scheduler is not running. Task "+taskName+" not run.");
+	                	}
+	                }
+	            });
+        }
+    }
+	
+    /*
+     * This method schedules the reload of the SIF Object Metadata Cache and the DOCache.properties file. Messages are
+     * processed with the previously loaded metadata until the reload has completed. No reload is scheduled if the
+     * reload frequency is 0.
+     */
+    private void metadataReloadManager()
+    {
+        int period = cacheProperties.getMetadataReloadFreqMinutes(0) * 60 * MILISEC;  // repeat every so often (multiply with 60sec).
+        if (period <= 0)
+        {
+            return;
+        }
+        logger.info(BANNER+getClass().getSimpleName()+".metadataReloadManager(). Startup Delay/Frequency in Millisec: "+period+"/"+period+BANNER);
+        
+        scheduler.scheduleTask("MetadataReload", 
+        	new Runnable() 
+            {
+                public void run() 
+                {
+                    SIFObjectMetadataCache.getCache().reload();
+                }
+            }, period, period);
+    }
+	
+    /*
+     * This method schedules the task that writes the keys added to and removed from the delivered key index to the
+     * DOC and removes the expired keys. Nothing is scheduled if the index is disabled.
+     */
+    private void deliveredKeyIndexManager()
+    {
+        if (DeliveredKeyIndex.getIndex() == null)
+        {
+            return;
+        }
+        int period = cacheProperties.getDeliveredIndexFlushInSec(10) * MILISEC;
+        logger.info(BANNER+getClass().getSimpleName()+".deliveredKeyIndexManager(). Startup Delay/Frequency in Millisec: "+period+"/"+period+BANNER);
+        
+        scheduler.scheduleTask("DeliveredKeyFlush", 
+        	new Runnable() 
+            {
+                public void run() 
+                {
+                    flushDeliveredKeysTask();
+                }
+            }, period, period);
+    }
+	
+	/*--------------------------------------*/
+	/*-- Private methods to run in a Task --*/
+	/*--------------------------------------*/
+	private void cleanUpExpiredObjectsTask()
+	{
+		try
+		{
+			logger.debug(BANNER+getAgentID()+" attempts to update/remove expired object in DOC: "+new Date()+BANNER);
+			DOCService service = new DOCService();
+			service.updateExpiredObjects(getApplicationID(), getAgentID());
+		}
+		catch (Exception ex)
+		{
+			logger.error("Failed to update/remove expired cached objects. See prvious error log entry for details.", ex);
+		}
+	}	
+	
+	private void flushDeliveredKeysTask()
+	{
+		DeliveredKeyIndex index = DeliveredKeyIndex.getIndex();
+		if (index != null)
+		{
+			DeliveredKeyService service = new DeliveredKeyService();
+			int numChanges = index.flush(service);
+			logger.debug(getAgentID()+" wrote "+numChanges+" changes of the delivered key index to the DOC.");
+			int numExpired = index.removeExpiredKeys(service);
+			if (numExpired > 0)
+			{
+				logger.debug(getAgentID()+" removed "+numExpired+" expired keys from the delivered key index.");
+			}
+		}
+	}
+	
+    /*
+     * This method returns all subscribers of this agent that are SBPBaseSubscribers.
+     */
+    private List<SBPBaseSubscriber> getSBPSubscribers()
+	{
+    	List<SBPBaseSubscriber> sbpSubscribers = new ArrayList<SBPBaseSubscriber>();
+	    for (BaseSubscriber subsciber : getInitialisedSubscribers())
+	    {
+	        if (subsciber instanceof SBPBaseSubscriber)
+	        {
+	        	sbpSubscribers.add((SBPBaseSubscriber)subsciber);
+	        }
+	    }
+	    return sbpSubscribers;
+	}
+
+	/*---------------------*/
+	/*-- Main Executable --*/
+	/*---------------------*/
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.out.println("ERROR Starting Agent: Agent ID missing.");
+
+			usage(args);
+			System.exit(0);
+		}
+		else
+		{
+			SBPSubscriberAgent agent = null;
+			try
+			{
+				agent = new SBPSubscriberAgent(getAgentIDParam(args), getPropertyFileNameParam(args));
+				agent.startAgent(); // this will block until CTRL-C is pressed.
+				// Put this agent to a blocking wait.....
+				try
+				{
+					Object semaphore = new Object();
+		            synchronized (semaphore)
+		            {
+		                semaphore.wait();
+		            }
+				}
+				catch (Exception ex)
+				{
+					System.out.println("Blocking wait in SBPSubscriberAgent interrupted: "+ex.getMessage());
+					ex.printStackTrace();
+				}
+			}
+			catch (Exception ex)
+			{
+				System.out.println("ERROR Starting Agent: SBPSubscriberAgent could not be started. See previous output for details.");
+				ex.printStackTrace();
+			}
+			finally	// If startup is successful then this will never be reached.
+			{
+				System.out.println("Exit SBPSubscriberAgent...");
+				if (agent != null)
+				{
+					agent.stopAgent();
+				}
+			}
+		}
+	}		
+}
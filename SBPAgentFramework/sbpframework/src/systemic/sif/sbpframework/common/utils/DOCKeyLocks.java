@@ -0,0 +1,165 @@
+/*
+ * DOCKeyLocks.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class serialises the DOC decisions (is the object cached, must it be cached, which cached objects depend on it,
+ * which cached objects are released) of all subscribers per SIF Object key. A key is made up of the object type, the
+ * flattened key of the object and the zone. Rather than one lock per key there is a fixed number of locks (stripes)
+ * and each key is mapped to one of them. Different keys may therefore share a lock, but the same key always uses the
+ * same lock. The locks are fair, so the decisions for the same key are made in the order the threads asked for them.<p><p>
+ *
+ * A thread that needs several keys must lock them all with one call of lock(). The stripes are then locked in
+ * ascending order, so two threads can't deadlock on the stripes. A thread that holds stripes must not call lock()
+ * again before it has called unlock().<p><p>
+ *
+ * The number of stripes is set with the property 'cache.key.lock.stripes' in the DOCache.properties file.
+ */
+public class DOCKeyLocks
+{
+	protected static final Logger logger = Logger.getLogger(DOCKeyLocks.class);
+
+	private static volatile DOCKeyLocks instance = null;
+
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Creates and publishes the locks. If the locks are already created then the existing locks are returned.
+	 *
+	 * @param numStripes The number of locks the keys are mapped to. Must be greater than 0.
+	 */
+	public static synchronized DOCKeyLocks createLocks(int numStripes)
+	{
+		if (instance == null)
+		{
+			instance = new DOCKeyLocks(numStripes);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the locks if they are enabled, null otherwise.
+	 */
+	public static DOCKeyLocks getLocks()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the locks. Threads that still hold stripes can still unlock them.
+	 */
+	public static synchronized void removeLocks()
+	{
+		instance = null;
+	}
+
+	/**
+	 * Returns the key of the given SIF Object as used by this class.
+	 *
+	 * @param sifObjectName The object type (i.e. StudentPersonal).
+	 * @param flatKey The flattened key of the object.
+	 * @param zoneId The zone the object has been received from or is requested from.
+	 */
+	public static String getKey(String sifObjectName, String flatKey, String zoneId)
+	{
+		return sifObjectName+"|"+flatKey+"|"+zoneId;
+	}
+
+	private DOCKeyLocks(int numStripes)
+	{
+		stripes = new ReentrantLock[Math.max(1, numStripes)];
+		for (int i=0; i<stripes.length; i++)
+		{
+			stripes[i] = new ReentrantLock(true);
+		}
+		logger.debug("DOC key locks created with "+stripes.length+" stripes.");
+	}
+
+	/**
+	 * Locks the stripes of all the given keys. The method blocks until all stripes are locked. The returned stripes
+	 * must be passed to unlock() once the decisions for the keys are made, typically in a finally block.
+	 *
+	 * @param keys The keys to lock (see getKey()). Null or duplicate keys are ignored.
+	 *
+	 * @return The locked stripes. Never null.
+	 */
+	public ReentrantLock[] lock(Collection<String> keys)
+	{
+		TreeSet<Integer> indexes = new TreeSet<Integer>();
+		if (keys != null)
+		{
+			for (String key : keys)
+			{
+				if (key != null)
+				{
+					indexes.add(getStripeIndex(key));
+				}
+			}
+		}
+
+		ReentrantLock[] lockedStripes = new ReentrantLock[indexes.size()];
+		int i = 0;
+		for (Integer index : indexes)
+		{
+			stripes[index].lock();
+			lockedStripes[i++] = stripes[index];
+		}
+		return lockedStripes;
+	}
+
+	/**
+	 * Unlocks the given stripes as returned by lock().
+	 */
+	public void unlock(ReentrantLock[] lockedStripes)
+	{
+		if (lockedStripes != null)
+		{
+			for (int i=lockedStripes.length-1; i>=0; i--)
+			{
+				lockedStripes[i].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of stripes.
+	 */
+	public int getNumStripes()
+	{
+		return stripes.length;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private int getStripeIndex(String key)
+	{
+		// Spread the hash code so that keys that only differ in their last characters use different stripes.
+		int hash = key.hashCode();
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		hash ^= (hash >>> 7) ^ (hash >>> 4);
+		return (hash & 0x7fffffff) % stripes.length;
+	}
+}
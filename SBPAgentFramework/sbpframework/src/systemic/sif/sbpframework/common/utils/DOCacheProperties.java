@@ -1,260 +1,564 @@
-/*
-* Copyright 2010-2011 Systemic Pty Ltd
-* 
-* Licensed under the Apache License, Version 2.0 (the "License");
-* you may not use this file except in compliance with the License.
-* You may obtain a copy of the License at
-*
-*    http://www.apache.org/licenses/LICENSE-2.0
-* 
-* Unless required by applicable law or agreed to in writing, software distributed under the License 
-* is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
-* or implied.
-* See the License for the specific language governing permissions and limitations under the License.
-*/
-package systemic.sif.sbpframework.common.utils;
-
-import java.util.Properties;
-
-import systemic.sif.sifcommon.agent.SIFBaseAgent;
-import au.com.systemic.framework.utils.StringUtils;
-
-/**
- * This class provides a number of handy methods to access the values of the DOCache.properties file. 
- * Name of the property file must be DOCache.properties. This is the file that holds all the configurable values
- * for the Metadata cache that can overwrite behaviour as well as delays and execution frequencies of various
- * task relating to the Dependent Object Cache. The property file must be on the classpath.
- * 
- * @author Joerg Huber
- *
- */
-public class DOCacheProperties
-{
-	private static final String FILE_NAME = "DOCache.properties";
-	
-	/* Known Expiry Strategies */
-	public static final String EXPIRE = "EXPIRE";
-	public static final String REQUEST = "REQUEST";
-	
-	private static final String DEFAULT = "default";
-	
-	private Properties properties = null;
-	
-	/* Singleton definition for SIFObjectMetadataCache object */
-	private static DOCacheProperties instance = null ;
-
-	public static DOCacheProperties getDOCacheProperties()
-	{
-		try
-		{
-			if (instance == null)
-			{
-				instance = new DOCacheProperties();
-			}
-		}
-		catch (Exception ex)
-		{
-			ex.printStackTrace();
-			instance = null;
-		}
-		
-		return instance;
-	}
-	
-	
-	/*-------------------------------------------------------------------------------*/
-	/*-- Properties that are at agent level, ie. not dependent on SIF Object Type. --*/
-    /*-------------------------------------------------------------------------------*/
-	
-	public int getExpiryCheckFreqMinutes(Integer defaultMinutes)
-	{
-		int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 60);
-		return getValue("cache.expiry.check.frequency.minutes", defaultIntValue);
-	}
-	
-	public int getExpiryCheckStartupDelayInSec(Integer defaultSeconds)
-	{
-		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-		return getValue("cache.expiry.startup.delay.seconds", defaultIntValue);
-	}
-
-    public int getRequestFreqInSec(Integer defaultSeconds)
-    {
-        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-        return getValue("cache.request.frequency.seconds", defaultIntValue);
-    }
-
-    public int getRequestStartupDelayInSec(Integer defaultSeconds)
-    {
-        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-        return getValue("cache.request.startup.delay.seconds", defaultIntValue);
-    }
-
-    public int getResolvedFreqInSec(Integer defaultSeconds)
-    {
-        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-        return getValue("cache.resolved.frequency.seconds", defaultIntValue);
-    }
-
-    public int getResolvedStartupDelayInSec(Integer defaultSeconds)
-    {
-        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-        return getValue("cache.resolved.startup.delay.seconds", defaultIntValue);
-    }
-
-    /*--------------------------------------------------------------------------------*/
-    /*-- Properties that are at SIF Object Level, ie. dependent on SIF Object Type. --*/
-    /*--------------------------------------------------------------------------------*/
-    public String getExpiryStrategy(String sifObjectName, String defautltStrategy)
-    {
-        defautltStrategy = StringUtils.isEmpty(defautltStrategy) ? EXPIRE : defautltStrategy.trim();
-        return getValueForSIFObject("cache.expiry.strategy", sifObjectName, defautltStrategy);
-    }
-    
-    public int getExpiryMinutes(String sifObjectName, Integer defaultMinutes)
-    {
-        int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 120);
-        return getValueForSIFObject("cache.expiry.minutes", sifObjectName, defaultIntValue);
-    }
-
-//    public int getRequestFreqInSec(String sifObjectName, Integer defaultSeconds)
-//	{
-//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-//		return getValueForSIFObject("cache.request.frequency.seconds", sifObjectName, defaultIntValue);
-//	}
-//
-//	public int getRequestStartupDelayInSec(String sifObjectName, Integer defaultSeconds)
-//	{
-//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-//		return getValueForSIFObject("cache.request.startup.delay.seconds", sifObjectName, defaultIntValue);
-//	}
-//
-//	public int getResolvedFreqInSec(String sifObjectName, Integer defaultSeconds)
-//	{
-//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-//		return getValueForSIFObject("cache.resolved.frequency.seconds", sifObjectName, defaultIntValue);
-//	}
-//
-//	public int getResolvedStartupDelayInSec(String sifObjectName, Integer defaultSeconds)
-//	{
-//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
-//		return getValueForSIFObject("cache.resolved.startup.delay.seconds", sifObjectName, defaultIntValue);
-//	}
-	
-    /*-----------------------*/
-    /*-- Other properties. --*/
-    /*-----------------------*/
-	public boolean getIgnoreDependency(String parentSifObjectName, String childSifObjectName)
-	{
-		if (StringUtils.isEmpty(parentSifObjectName) || StringUtils.isEmpty(childSifObjectName))
-		{
-			return false;
-		}
-		String value = getValue("cache.ignore."+parentSifObjectName+"."+childSifObjectName, "false");
-		if (StringUtils.isEmpty(value))
-		{
-			return false;
-		}
-		return StringUtils.toBoolean(value);
-	}
-
-	/*---------------------*/
-	/*-- Private Methods --*/
-	/*---------------------*/
-
-	/**
-	 * This method loads the DOCache.properties file.
-	 */
-	private DOCacheProperties() throws Exception
-	{
-		properties = null;
-        try
-        {
-        	properties = new Properties();
-        	properties.load(SIFBaseAgent.class.getClassLoader().getResourceAsStream(FILE_NAME));
-        }
-        catch (Exception ex)
-        {
-            System.out.println("Error accessing/loading " + FILE_NAME+". Ensure wile exists and is on classpath.");
-            throw ex;
-        } 
-	}
-
-	private Integer getValue(String propertyName, Integer defaultValue)
-	{
-		Integer intValue = null;
-		String value = getValue(propertyName, (defaultValue == null) ? (String)null : defaultValue.toString());
-		if (value != null)
-		{
-			try
-			{
-				intValue = Integer.valueOf(value);
-			}
-			catch (Exception ex)
-			{
-				intValue = null;
-			}
-		}
-		return intValue;
-	}
-	
-	/*
-	 * Gets the value for the given property and sifObjectName. If the property doesn't exists it will attempt to
-	 * find if a 'default' property is set and returns that value. If that doesn't exist either the passed in
-	 * default value will be returned.  
-	 */
-	private Integer getValueForSIFObject(String basePropertyName, String sifObjectName, Integer defaultValue)
-	{
-		Integer intValue = null;
-		String value = getValueForSIFObject(basePropertyName, sifObjectName, (defaultValue == null) ? (String)null : defaultValue.toString());
-		if (value != null)
-		{
-			try
-			{
-				intValue = Integer.valueOf(value);
-			}
-			catch (Exception ex)
-			{
-				intValue = null;
-			}
-		}
-		return intValue;
-	}
-
-	private String getValue(String propertyName, String defaultValue)
-	{
-		String value = properties.getProperty(propertyName);
-		
-		return (StringUtils.isEmpty(value)) ? defaultValue : value.trim();
-	}
-	
-	/*
-	 * Gets the value for the given property and sifObjectName. If the property doesn't exists it will attempt to
-	 * find if a 'default' property is set and returns that value. If that doesn't exist either the passed in
-	 * default value will be returned.  
-	 */
-	private String getValueForSIFObject(String basePropertyName, String sifObjectName, String defaultValue)
-	{
-		String value = null;
-		if (StringUtils.notEmpty(sifObjectName))
-		{
-			value = getValue(basePropertyName+"."+sifObjectName.trim(), (String)null);
-		}
-		if (StringUtils.isEmpty(value))
-		{
-			value = getValue(basePropertyName+"."+DEFAULT, defaultValue);
-		}
-		return value;	
-	}
-	
-	public int getNoneNullOrZeroInteger(Integer intValue, int defaultValue)
-	{
-		if (intValue == null)
-		{
-			return defaultValue;
-		}
-		
-		int value = intValue.intValue();
-		return value == 0 ? defaultValue : value;
-	}
-}
+/*
+* Copyright 2010-2011 Systemic Pty Ltd
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+* 
+* Unless required by applicable law or agreed to in writing, software distributed under the License 
+* is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+* or implied.
+* See the License for the specific language governing permissions and limitations under the License.
+*/
+package systemic.sif.sbpframework.common.utils;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+import systemic.sif.sifcommon.agent.SIFBaseAgent;
+import au.com.systemic.framework.utils.StringUtils;
+
+/**
+ * This class provides a number of handy methods to access the values of the DOCache.properties file. 
+ * Name of the property file must be DOCache.properties. This is the file that holds all the configurable values
+ * for the Metadata cache that can overwrite behaviour as well as delays and execution frequencies of various
+ * task relating to the Dependent Object Cache. The property file must be on the classpath.
+ * 
+ * @author Joerg Huber
+ *
+ */
+public class DOCacheProperties
+{
+	private static final String FILE_NAME = "DOCache.properties";
+	
+	/* Known Expiry Strategies */
+	public static final String EXPIRE = "EXPIRE";
+	public static final String REQUEST = "REQUEST";
+	
+	private static final String DEFAULT = "default";
+	
+	private volatile Properties properties = null;
+	
+	/* Singleton definition for SIFObjectMetadataCache object */
+	private static DOCacheProperties instance = null ;
+
+	public static DOCacheProperties getDOCacheProperties()
+	{
+		try
+		{
+			if (instance == null)
+			{
+				instance = new DOCacheProperties();
+			}
+		}
+		catch (Exception ex)
+		{
+			ex.printStackTrace();
+			instance = null;
+		}
+		
+		return instance;
+	}
+	
+	
+	/**
+	 * This method reloads the DOCache.properties file. If the file cannot be loaded the currently loaded
+	 * properties remain in use and the exception is re-thrown.
+	 */
+	public void reload() throws Exception
+	{
+		properties = loadProperties();
+	}
+	
+	/*-------------------------------------------------------------------------------*/
+	/*-- Properties that are at agent level, ie. not dependent on SIF Object Type. --*/
+    /*-------------------------------------------------------------------------------*/
+	
+	public int getExpiryCheckFreqMinutes(Integer defaultMinutes)
+	{
+		int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 60);
+		return getValue("cache.expiry.check.frequency.minutes", defaultIntValue);
+	}
+	
+	public int getExpiryCheckStartupDelayInSec(Integer defaultSeconds)
+	{
+		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+		return getValue("cache.expiry.startup.delay.seconds", defaultIntValue);
+	}
+
+    public int getExpiryPageSize(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 500);
+        return getValue("cache.expiry.page.size", defaultIntValue);
+    }
+
+    public int getRequestFreqInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+        return getValue("cache.request.frequency.seconds", defaultIntValue);
+    }
+
+    public int getRequestStartupDelayInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+        return getValue("cache.request.startup.delay.seconds", defaultIntValue);
+    }
+
+    public int getResolvedFreqInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+        return getValue("cache.resolved.frequency.seconds", defaultIntValue);
+    }
+
+    public int getResolvedStartupDelayInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+        return getValue("cache.resolved.startup.delay.seconds", defaultIntValue);
+    }
+
+    public int getResolvedPageSize(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 500);
+        return getValue("cache.resolved.page.size", defaultIntValue);
+    }
+
+    public int getResolveBatchSize(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 100);
+        return getValue("cache.resolve.batch.size", defaultIntValue);
+    }
+
+    public int getResolveBatchLingerMillis(Integer defaultMillis)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMillis, 50);
+        return getValue("cache.resolve.batch.linger.millis", defaultIntValue);
+    }
+
+    public boolean getUnitOfWorkEnabled()
+    {
+        return getBooleanValue("cache.unit.of.work.enabled", true);
+    }
+
+    public boolean getGroupCommitEnabled()
+    {
+        return getBooleanValue("cache.group.commit.enabled", false);
+    }
+
+    public int getGroupCommitMaxWrites(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 50);
+        return getValue("cache.group.commit.max.writes", defaultIntValue);
+    }
+
+    public int getGroupCommitMaxWaitMillis(Integer defaultMillis)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMillis, 5);
+        return getValue("cache.group.commit.max.wait.millis", defaultIntValue);
+    }
+
+    public boolean getMemoryTierEnabled()
+    {
+        return getBooleanValue("cache.memory.enabled", false);
+    }
+
+    public int getMemoryTierFlushIntervalMillis(Integer defaultMillis)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMillis, 500);
+        return getValue("cache.memory.flush.interval.millis", defaultIntValue);
+    }
+
+    public int getMemoryTierFlushBatchSize(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 500);
+        return getValue("cache.memory.flush.batch.size", defaultIntValue);
+    }
+
+    public int getMemoryTierDrainTimeoutInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+        return getValue("cache.memory.drain.timeout.seconds", defaultIntValue);
+    }
+
+    public int getHousekeepingThreads(Integer defaultThreads)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultThreads, 4);
+        return getValue("cache.housekeeping.threads", defaultIntValue);
+    }
+
+    public int getHousekeepingShutdownTimeoutInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+        return getValue("cache.housekeeping.shutdown.timeout.seconds", defaultIntValue);
+    }
+
+    public int getMetadataReloadFreqMinutes(Integer defaultMinutes)
+    {
+        // 0 is a valid value (no reload) and therefore is not replaced by the default.
+        return getValue("cache.metadata.reload.frequency.minutes", (defaultMinutes == null) ? 0 : defaultMinutes);
+    }
+
+    public boolean getReleaseQueueEnabled()
+    {
+        return getBooleanValue("cache.release.queue.enabled", false);
+    }
+
+    public int getReleaseQueueMaxSize(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 10000);
+        return getValue("cache.release.queue.max.size", defaultIntValue);
+    }
+
+    public int getReleaseQueueThreads(Integer defaultThreads)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultThreads, 2);
+        return getValue("cache.release.queue.threads", defaultIntValue);
+    }
+
+    public int getRequestRetryInitialDelayInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 300);
+        return getValue("cache.request.retry.initial.delay.seconds", defaultIntValue);
+    }
+
+    public int getRequestRetryMaxDelayInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 3600);
+        return getValue("cache.request.retry.max.delay.seconds", defaultIntValue);
+    }
+
+    public int getRequestRetryMaxAttempts(Integer defaultAttempts)
+    {
+        // 0 is a valid value (same as 1, never request again) and therefore is not replaced by the default.
+        return getValue("cache.request.retry.max.attempts", (defaultAttempts == null) ? 3 : defaultAttempts);
+    }
+
+    public boolean getRequestDispatcherEnabled()
+    {
+        return getBooleanValue("cache.request.dispatcher.enabled", false);
+    }
+
+    public int getRequestDispatcherMaxInFlight(Integer defaultRequests)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultRequests, 4);
+        return getValue("cache.request.dispatcher.max.in.flight", defaultIntValue);
+    }
+
+    public int getRequestDispatcherQueueMaxSize(Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 1000);
+        return getValue("cache.request.dispatcher.queue.max.size", defaultIntValue);
+    }
+
+    public int getRequestDispatcherRatePerSec(Integer defaultRate)
+    {
+        // 0 is a valid value (no rate limit) and therefore is not replaced by the default.
+        return getValue("cache.request.dispatcher.rate.per.second", (defaultRate == null) ? 10 : defaultRate);
+    }
+
+    public int getRequestDispatcherBurst(Integer defaultBurst)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultBurst, 10);
+        return getValue("cache.request.dispatcher.burst", defaultIntValue);
+    }
+
+    public boolean getDependencyFilterEnabled()
+    {
+        return getBooleanValue("cache.filter.enabled", false);
+    }
+
+    public int getDependencyFilterExpectedKeys(Integer defaultKeys)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultKeys, 100000);
+        return getValue("cache.filter.expected.keys", defaultIntValue);
+    }
+
+    public int getDependencyFilterBitsPerKey(Integer defaultBits)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultBits, 10);
+        return getValue("cache.filter.bits.per.key", defaultIntValue);
+    }
+
+    public int getKeyLockStripes(Integer defaultStripes)
+    {
+        // 0 is a valid value (no key locks) and therefore is not replaced by the default.
+        return getValue("cache.key.lock.stripes", (defaultStripes == null) ? 1024 : defaultStripes);
+    }
+
+    public boolean getOrderedSyncEnabled()
+    {
+        return getBooleanValue("cache.sync.ordered.enabled", true);
+    }
+
+    public int getOrderedSyncMaxConcurrent(Integer defaultSyncs)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSyncs, 4);
+        return getValue("cache.sync.max.concurrent", defaultIntValue);
+    }
+
+    public int getOrderedSyncResponseTimeoutInMinutes(Integer defaultMinutes)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 30);
+        return getValue("cache.sync.response.timeout.minutes", defaultIntValue);
+    }
+
+    public int getOrderedSyncParentWaitInMinutes(Integer defaultMinutes)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 60);
+        return getValue("cache.sync.parent.wait.minutes", defaultIntValue);
+    }
+
+    public int getSyncWindowMaxObjects(Integer defaultObjects)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultObjects, 100000);
+        return getValue("cache.sync.window.max.objects", defaultIntValue);
+    }
+
+    public int getSyncWindowMaxMinutes(Integer defaultMinutes)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 30);
+        return getValue("cache.sync.window.max.minutes", defaultIntValue);
+    }
+
+    public boolean getTargetCheckCacheEnabled()
+    {
+        return getBooleanValue("cache.target.check.enabled", false);
+    }
+
+    public int getTargetCheckMaxEntries(Integer defaultEntries)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultEntries, 10000);
+        return getValue("cache.target.check.max.entries", defaultIntValue);
+    }
+
+    public boolean getDeliveredIndexEnabled()
+    {
+        return getBooleanValue("cache.delivered.index.enabled", false);
+    }
+
+    public int getDeliveredIndexMaxKeys(Integer defaultKeys)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultKeys, 1000000);
+        return getValue("cache.delivered.index.max.keys", defaultIntValue);
+    }
+
+    public int getDeliveredIndexTTLInMinutes(Integer defaultMinutes)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 1440);
+        return getValue("cache.delivered.index.ttl.minutes", defaultIntValue);
+    }
+
+    public int getDeliveredIndexFlushInSec(Integer defaultSeconds)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 10);
+        return getValue("cache.delivered.index.flush.seconds", defaultIntValue);
+    }
+
+    /*--------------------------------------------------------------------------------*/
+    /*-- Properties that are at SIF Object Level, ie. dependent on SIF Object Type. --*/
+    /*--------------------------------------------------------------------------------*/
+    public String getExpiryStrategy(String sifObjectName, String defautltStrategy)
+    {
+        defautltStrategy = StringUtils.isEmpty(defautltStrategy) ? EXPIRE : defautltStrategy.trim();
+        return getValueForSIFObject("cache.expiry.strategy", sifObjectName, defautltStrategy);
+    }
+    
+    public int getRequestBatchSize(String sifObjectName, Integer defaultSize)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultSize, 1);
+        return getValueForSIFObject("cache.request.batch.size", sifObjectName, defaultIntValue);
+    }
+
+    public int getRequestBulkThreshold(String sifObjectName, Integer defaultThreshold)
+    {
+        // 0 is a valid value (never use a bulk request) and therefore is not replaced by the default.
+        return getValueForSIFObject("cache.request.bulk.threshold", sifObjectName, (defaultThreshold == null) ? 0 : defaultThreshold);
+    }
+
+    public boolean getSyncWindowEnabled(String sifObjectName)
+    {
+        return StringUtils.toBoolean(getValueForSIFObject("cache.sync.window.enabled", sifObjectName, "false"));
+    }
+
+    public int getTargetCheckExistsTTLInSec(String sifObjectName, Integer defaultSeconds)
+    {
+        // 0 is a valid value (don't remember existing objects) and therefore is not replaced by the default.
+        return getValueForSIFObject("cache.target.check.exists.ttl.seconds", sifObjectName, (defaultSeconds == null) ? 600 : defaultSeconds);
+    }
+
+    public int getTargetCheckMissingTTLInSec(String sifObjectName, Integer defaultSeconds)
+    {
+        // 0 is a valid value (don't remember missing objects) and therefore is not replaced by the default.
+        return getValueForSIFObject("cache.target.check.missing.ttl.seconds", sifObjectName, (defaultSeconds == null) ? 60 : defaultSeconds);
+    }
+
+    public int getExpiryMinutes(String sifObjectName, Integer defaultMinutes)
+    {
+        int defaultIntValue = getNoneNullOrZeroInteger(defaultMinutes, 120);
+        return getValueForSIFObject("cache.expiry.minutes", sifObjectName, defaultIntValue);
+    }
+
+//    public int getRequestFreqInSec(String sifObjectName, Integer defaultSeconds)
+//	{
+//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+//		return getValueForSIFObject("cache.request.frequency.seconds", sifObjectName, defaultIntValue);
+//	}
+//
+//	public int getRequestStartupDelayInSec(String sifObjectName, Integer defaultSeconds)
+//	{
+//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+//		return getValueForSIFObject("cache.request.startup.delay.seconds", sifObjectName, defaultIntValue);
+//	}
+//
+//	public int getResolvedFreqInSec(String sifObjectName, Integer defaultSeconds)
+//	{
+//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+//		return getValueForSIFObject("cache.resolved.frequency.seconds", sifObjectName, defaultIntValue);
+//	}
+//
+//	public int getResolvedStartupDelayInSec(String sifObjectName, Integer defaultSeconds)
+//	{
+//		int defaultIntValue = getNoneNullOrZeroInteger(defaultSeconds, 60);
+//		return getValueForSIFObject("cache.resolved.startup.delay.seconds", sifObjectName, defaultIntValue);
+//	}
+	
+    /*-----------------------*/
+    /*-- Other properties. --*/
+    /*-----------------------*/
+	public boolean getIgnoreDependency(String parentSifObjectName, String childSifObjectName)
+	{
+		if (StringUtils.isEmpty(parentSifObjectName) || StringUtils.isEmpty(childSifObjectName))
+		{
+			return false;
+		}
+		String value = getValue("cache.ignore."+parentSifObjectName+"."+childSifObjectName, "false");
+		if (StringUtils.isEmpty(value))
+		{
+			return false;
+		}
+		return StringUtils.toBoolean(value);
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	/**
+	 * This method loads the DOCache.properties file.
+	 */
+	private DOCacheProperties() throws Exception
+	{
+		properties = loadProperties();
+	}
+	
+	private Properties loadProperties() throws Exception
+	{
+        try
+        {
+        	Properties newProperties = new Properties();
+        	InputStream in = SIFBaseAgent.class.getClassLoader().getResourceAsStream(FILE_NAME);
+        	try
+        	{
+        		newProperties.load(in);
+        	}
+        	finally
+        	{
+        		if (in != null)
+        		{
+        			in.close();
+        		}
+        	}
+        	return newProperties;
+        }
+        catch (Exception ex)
+        {
+            System.out.println("Error accessing/loading " + FILE_NAME+". Ensure wile exists and is on classpath.");
+            throw ex;
+        } 
+	}
+
+	private Integer getValue(String propertyName, Integer defaultValue)
+	{
+		Integer intValue = null;
+		String value = getValue(propertyName, (defaultValue == null) ? (String)null : defaultValue.toString());
+		if (value != null)
+		{
+			try
+			{
+				intValue = Integer.valueOf(value);
+			}
+			catch (Exception ex)
+			{
+				intValue = null;
+			}
+		}
+		return intValue;
+	}
+	
+	/*
+	 * Gets the value for the given property and sifObjectName. If the property doesn't exists it will attempt to
+	 * find if a 'default' property is set and returns that value. If that doesn't exist either the passed in
+	 * default value will be returned.  
+	 */
+	private Integer getValueForSIFObject(String basePropertyName, String sifObjectName, Integer defaultValue)
+	{
+		Integer intValue = null;
+		String value = getValueForSIFObject(basePropertyName, sifObjectName, (defaultValue == null) ? (String)null : defaultValue.toString());
+		if (value != null)
+		{
+			try
+			{
+				intValue = Integer.valueOf(value);
+			}
+			catch (Exception ex)
+			{
+				intValue = null;
+			}
+		}
+		return intValue;
+	}
+
+	private String getValue(String propertyName, String defaultValue)
+	{
+		String value = properties.getProperty(propertyName);
+		
+		return (StringUtils.isEmpty(value)) ? defaultValue : value.trim();
+	}
+
+	private boolean getBooleanValue(String propertyName, boolean defaultValue)
+	{
+		String value = getValue(propertyName, (String)null);
+		return (value == null) ? defaultValue : StringUtils.toBoolean(value);
+	}
+	
+	/*
+	 * Gets the value for the given property and sifObjectName. If the property doesn't exists it will attempt to
+	 * find if a 'default' property is set and returns that value. If that doesn't exist either the passed in
+	 * default value will be returned.  
+	 */
+	private String getValueForSIFObject(String basePropertyName, String sifObjectName, String defaultValue)
+	{
+		String value = null;
+		if (StringUtils.notEmpty(sifObjectName))
+		{
+			value = getValue(basePropertyName+"."+sifObjectName.trim(), (String)null);
+		}
+		if (StringUtils.isEmpty(value))
+		{
+			value = getValue(basePropertyName+"."+DEFAULT, defaultValue);
+		}
+		return value;	
+	}
+	
+	public int getNoneNullOrZeroInteger(Integer intValue, int defaultValue)
+	{
+		if (intValue == null)
+		{
+			return defaultValue;
+		}
+		
+		int value = intValue.intValue();
+		return value == 0 ? defaultValue : value;
+	}
+}
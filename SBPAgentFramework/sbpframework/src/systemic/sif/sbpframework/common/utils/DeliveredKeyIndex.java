@@ -0,0 +1,359 @@
+/*
+ * DeliveredKeyIndex.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+
+import systemic.sif.sbpframework.persist.model.DeliveredKey;
+import systemic.sif.sbpframework.persist.servcie.DeliveredKeyService;
+
+/**
+ * This class holds the keys of the objects that have been handed on for processing by the subscribers of this agent
+ * (object type, zone and flat key). These objects are known to the target system, so an object depending on them
+ * doesn't need to be checked with doesObjectExistInTargetSystem() or against the DOC. The index is held in memory and
+ * persisted in the SCF_DELIVERED_KEY table, so that it survives a restart. Changes are written to the table in the
+ * background (see flush()). The subscribers can also add the keys of all objects that exist in the target system at
+ * startup (see SBPBaseSubscriber.getObjectKeysInTargetSystem()). These keys are not persisted.<p><p>
+ *
+ * An object that has been handed on may still fail to be processed, so each key expires after a time to live (counted
+ * from the time the object has been handed on). Expired keys are ignored and removed from the index and the table from
+ * time to time (see removeExpiredKeys()). The dependencies on such objects are then checked as usual again.<p><p>
+ *
+ * Once the index holds the maximum number of keys no further keys are added. The dependencies on such objects are then
+ * checked as usual. All methods of this class are thread safe.
+ */
+public class DeliveredKeyIndex
+{
+	protected static final Logger logger = Logger.getLogger(DeliveredKeyIndex.class);
+
+	/* Expired keys are removed at most this often (or as often as keys expire if that is shorter). */
+	private static final long PURGE_INTERVAL_MILLIS = 10 * 60 * 1000L;
+
+	private static volatile DeliveredKeyIndex instance = null;
+
+	private final String applicationId;
+	private final int maxKeys;
+	private final long ttlMillis;
+	private final long purgeIntervalMillis;
+
+	/* The expiry time in milliseconds of the flat keys by object type and zone. */
+	private final Map<String, Map<String, Long>> keys = new HashMap<String, Map<String, Long>>();
+	private int numKeys = 0;
+	private boolean fullReported = false;
+	private long lastPurge = System.currentTimeMillis();
+
+	/* Changes not yet written to the table: TRUE = key added, FALSE = key removed. */
+	private Map<DeliveredKey, Boolean> pendingChanges = new LinkedHashMap<DeliveredKey, Boolean>();
+
+	/**
+	 * Creates and publishes the index. If the index is already created then the existing index is returned.
+	 *
+	 * @param applicationId The application of this agent. The persisted keys are per application.
+	 * @param maxKeys The maximum number of keys held by the index.
+	 * @param ttlMinutes The time in minutes after which a key expires.
+	 */
+	public static synchronized DeliveredKeyIndex createIndex(String applicationId, int maxKeys, int ttlMinutes)
+	{
+		if (instance == null)
+		{
+			instance = new DeliveredKeyIndex(applicationId, maxKeys, ttlMinutes);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the index if it is created, null otherwise.
+	 */
+	public static DeliveredKeyIndex getIndex()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the index. Changes not yet written to the table are lost (see flush()).
+	 */
+	public static synchronized void removeIndex()
+	{
+		instance = null;
+	}
+
+	private DeliveredKeyIndex(String applicationId, int maxKeys, int ttlMinutes)
+	{
+		this.applicationId = applicationId;
+		this.maxKeys = Math.max(0, maxKeys);
+		this.ttlMillis = Math.max(1, ttlMinutes) * 60 * 1000L;
+		this.purgeIntervalMillis = Math.min(ttlMillis, PURGE_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Returns TRUE if the given object has been handed on for processing or has been reported to exist in the target
+	 * system and its key has not expired.
+	 */
+	public synchronized boolean contains(String sifObjectName, String flatKey, String zoneId)
+	{
+		Map<String, Long> objectKeys = keys.get(getIndexKey(sifObjectName, zoneId));
+		Long expiry = (objectKeys != null) ? objectKeys.get(flatKey) : null;
+		return (expiry != null) && (expiry.longValue() > System.currentTimeMillis());
+	}
+
+	/**
+	 * Adds the key of an object that has been handed on for processing. The key is written to the table with the next
+	 * flush. If the key is already held then it only expires later. Its delivery date in the table is not changed, so
+	 * after a restart it may expire earlier.
+	 */
+	public synchronized void add(String sifObjectName, String flatKey, String zoneId)
+	{
+		if (addKey(sifObjectName, flatKey, zoneId, System.currentTimeMillis() + ttlMillis))
+		{
+			DeliveredKey deliveredKey = new DeliveredKey(sifObjectName, flatKey, applicationId, zoneId);
+			deliveredKey.setDeliveredDate(new Date());
+			pendingChanges.remove(deliveredKey); // keep the order of the latest change
+			pendingChanges.put(deliveredKey, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Adds the key of an object that exists in the target system. The key is not written to the table.
+	 */
+	public synchronized void addExisting(String sifObjectName, String flatKey, String zoneId)
+	{
+		addKey(sifObjectName, flatKey, zoneId, System.currentTimeMillis() + ttlMillis);
+	}
+
+	/**
+	 * Removes the key of an object that has been deleted. The key is removed from the table with the next flush.
+	 */
+	public synchronized void remove(String sifObjectName, String flatKey, String zoneId)
+	{
+		Map<String, Long> objectKeys = keys.get(getIndexKey(sifObjectName, zoneId));
+		if ((objectKeys != null) && (objectKeys.remove(flatKey) != null))
+		{
+			numKeys--;
+		}
+		DeliveredKey deliveredKey = new DeliveredKey(sifObjectName, flatKey, applicationId, zoneId);
+		pendingChanges.remove(deliveredKey);
+		pendingChanges.put(deliveredKey, Boolean.FALSE);
+	}
+
+	/**
+	 * Returns the number of keys held by the index.
+	 */
+	public synchronized int size()
+	{
+		return numKeys;
+	}
+
+	/**
+	 * Loads the persisted keys of the application that have not expired into the index. This should be called at
+	 * startup before any object is received.
+	 *
+	 * @param service The service used to read the keys.
+	 * @param pageSize The number of keys read with one query.
+	 *
+	 * @return The number of keys loaded.
+	 *
+	 * @throws PersistenceException The keys could not be read. The keys read so far are kept.
+	 */
+	public int load(DeliveredKeyService service, int pageSize) throws PersistenceException
+	{
+		pageSize = Math.max(1, pageSize);
+		Date deliveredAfter = new Date(System.currentTimeMillis() - ttlMillis);
+		int numLoaded = 0;
+		List<DeliveredKey> page = null;
+		do
+		{
+			page = service.retrieveDeliveredKeys(applicationId, deliveredAfter, numLoaded, pageSize);
+			synchronized (this)
+			{
+				for (DeliveredKey deliveredKey : page)
+				{
+					addKey(deliveredKey.getSifObjectName(), deliveredKey.getObjectKeyValue(), deliveredKey.getZoneId(), deliveredKey.getDeliveredDate().getTime() + ttlMillis);
+				}
+			}
+			numLoaded = numLoaded + page.size();
+		}
+		while (page.size() >= pageSize);
+		return numLoaded;
+	}
+
+	/**
+	 * Writes the keys added and removed since the last flush to the table in one transaction. If this fails then the
+	 * changes are kept and written with the next flush.
+	 *
+	 * @param service The service used to write the keys.
+	 *
+	 * @return The number of changes written.
+	 */
+	public int flush(DeliveredKeyService service)
+	{
+		Map<DeliveredKey, Boolean> changes = null;
+		synchronized (this)
+		{
+			if (pendingChanges.isEmpty())
+			{
+				return 0;
+			}
+			changes = pendingChanges;
+			pendingChanges = new LinkedHashMap<DeliveredKey, Boolean>();
+		}
+
+		List<DeliveredKey> keysToAdd = new ArrayList<DeliveredKey>();
+		List<DeliveredKey> keysToRemove = new ArrayList<DeliveredKey>();
+		for (Map.Entry<DeliveredKey, Boolean> entry : changes.entrySet())
+		{
+			if (entry.getValue().booleanValue())
+			{
+				keysToAdd.add(entry.getKey());
+			}
+			else
+			{
+				keysToRemove.add(entry.getKey());
+			}
+		}
+		try
+		{
+			service.updateDeliveredKeys(keysToAdd, keysToRemove);
+			return changes.size();
+		}
+		catch (Exception ex) // should only be PersistenceException
+		{
+			logger.error("Failed to write "+changes.size()+" changes of the delivered key index. They are written with the next flush.", ex);
+			synchronized (this)
+			{
+				// Changes made in the meantime are newer and take precedence.
+				for (Map.Entry<DeliveredKey, Boolean> entry : changes.entrySet())
+				{
+					if (!pendingChanges.containsKey(entry.getKey()))
+					{
+						pendingChanges.put(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * Removes the expired keys from the index and from the table. Nothing is done if this has been done less than the
+	 * purge interval ago, so this can be called with every flush. If the keys can't be removed from the table then
+	 * they are removed with the next purge.
+	 *
+	 * @param service The service used to remove the keys from the table.
+	 *
+	 * @return The number of keys removed from the index.
+	 */
+	public int removeExpiredKeys(DeliveredKeyService service)
+	{
+		long now = System.currentTimeMillis();
+		int numRemoved = 0;
+		synchronized (this)
+		{
+			if (now - lastPurge < purgeIntervalMillis)
+			{
+				return 0;
+			}
+			lastPurge = now;
+			for (Iterator<Map<String, Long>> typeIter = keys.values().iterator(); typeIter.hasNext();)
+			{
+				Map<String, Long> objectKeys = typeIter.next();
+				for (Iterator<Long> iter = objectKeys.values().iterator(); iter.hasNext();)
+				{
+					if (iter.next().longValue() <= now)
+					{
+						iter.remove();
+						numRemoved++;
+					}
+				}
+				if (objectKeys.isEmpty())
+				{
+					typeIter.remove();
+				}
+			}
+			numKeys = numKeys - numRemoved;
+			if (numRemoved > 0)
+			{
+				fullReported = false;
+			}
+		}
+
+		try
+		{
+			service.removeExpiredDeliveredKeys(applicationId, new Date(now - ttlMillis));
+		}
+		catch (Exception ex) // should only be PersistenceException
+		{
+			logger.error("Failed to remove the expired keys of the delivered key index from the table. They are removed with the next purge.", ex);
+		}
+		return numRemoved;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	/*
+	 * Adds the key to the index with the given expiry time. Returns FALSE if the key is already held or the index is
+	 * full. A key already held gets the later of its and the given expiry time.
+	 */
+	private boolean addKey(String sifObjectName, String flatKey, String zoneId, long expiry)
+	{
+		String indexKey = getIndexKey(sifObjectName, zoneId);
+		Map<String, Long> objectKeys = keys.get(indexKey);
+		Long heldExpiry = (objectKeys != null) ? objectKeys.get(flatKey) : null;
+		if (heldExpiry != null)
+		{
+			if (heldExpiry.longValue() < expiry)
+			{
+				objectKeys.put(flatKey, Long.valueOf(expiry));
+			}
+			return false;
+		}
+		if (numKeys >= maxKeys)
+		{
+			if (!fullReported)
+			{
+				logger.warn("The delivered key index holds the maximum number of "+maxKeys+" keys. No further keys are added (see 'cache.delivered.index.max.keys').");
+				fullReported = true;
+			}
+			return false;
+		}
+		if (objectKeys == null)
+		{
+			objectKeys = new HashMap<String, Long>();
+			keys.put(indexKey, objectKeys);
+		}
+		objectKeys.put(flatKey, Long.valueOf(expiry));
+		numKeys++;
+		return true;
+	}
+
+	private String getIndexKey(String sifObjectName, String zoneId)
+	{
+		return sifObjectName+"|"+zoneId;
+	}
+}
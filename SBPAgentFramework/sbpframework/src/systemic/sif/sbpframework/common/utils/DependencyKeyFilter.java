@@ -0,0 +1,260 @@
+/*
+ * DependencyKeyFilter.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class holds a probabilistic membership filter (counting bloom filter) of the keys of all outstanding dependent
+ * objects in the DOC. There is one filter per object type, zone and application. If the filter reports that a key is
+ * not outstanding then this is guaranteed to be correct and the DOC does not need to be consulted. If the filter
+ * reports that a key may be outstanding then the DOC must be consulted. This allows to skip the majority of DOC
+ * lookups for objects that nothing waits on (i.e. during an initial sync).<p><p>
+ *
+ * The filter is enabled with the property 'cache.filter.enabled' in the DOCache.properties file. It is populated
+ * from the SCF_DOC_OBJECT table at startup and maintained by the DOCService as dependencies are cached and removed.
+ * Like the in-memory tier it assumes that only this agent process writes dependent objects to the DOC.
+ */
+public class DependencyKeyFilter
+{
+	protected static final Logger logger = Logger.getLogger(DependencyKeyFilter.class);
+
+	private static volatile DependencyKeyFilter instance = null;
+
+	private final ConcurrentHashMap<String, CountingBloomFilter> filters = new ConcurrentHashMap<String, CountingBloomFilter>();
+	private final int numCounters;
+	private final int numHashes;
+
+	/* Statistics */
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong falsePositiveCount = new AtomicLong(0);
+
+	/**
+	 * Creates and publishes an empty filter. It must be populated with all outstanding dependent objects of the DOC
+	 * before it is used. If the filter is already created then the existing filter is returned.
+	 *
+	 * @param expectedKeys The number of outstanding keys expected per object type, zone and application.
+	 * @param bitsPerKey The number of counters per expected key. The higher the value the lower the false positive rate.
+	 */
+	public static synchronized DependencyKeyFilter createFilter(int expectedKeys, int bitsPerKey)
+	{
+		if (instance == null)
+		{
+			instance = new DependencyKeyFilter(expectedKeys, bitsPerKey);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the filter if it is enabled, null otherwise.
+	 */
+	public static DependencyKeyFilter getFilter()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the filter. All further DOC lookups will go to the DOC.
+	 */
+	public static synchronized void removeFilter()
+	{
+		if (instance != null)
+		{
+			logger.info("Dependency Key Filter statistics: "+instance.getStatistics());
+			instance = null;
+		}
+	}
+
+	private DependencyKeyFilter(int expectedKeys, int bitsPerKey)
+	{
+		numCounters = Math.max(64, expectedKeys * bitsPerKey);
+		numHashes = Math.max(1, Math.round(bitsPerKey * 0.693f)); // optimal number of hashes is ln(2) * bitsPerKey
+	}
+
+	/**
+	 * Records that the dependent object with the given key is outstanding in the DOC.
+	 */
+	public void add(String sifObjectName, String flatKey, String applicationId, String zoneId)
+	{
+		String filterKey = getFilterKey(sifObjectName, applicationId, zoneId);
+		CountingBloomFilter filter = filters.get(filterKey);
+		if (filter == null)
+		{
+			CountingBloomFilter newFilter = new CountingBloomFilter(numCounters, numHashes);
+			filter = filters.putIfAbsent(filterKey, newFilter);
+			if (filter == null)
+			{
+				filter = newFilter;
+			}
+		}
+		filter.add(flatKey);
+	}
+
+	/**
+	 * Records that the dependent object with the given key has been removed from the DOC. This must only be called
+	 * for keys that have been added before.
+	 */
+	public void remove(String sifObjectName, String flatKey, String applicationId, String zoneId)
+	{
+		CountingBloomFilter filter = filters.get(getFilterKey(sifObjectName, applicationId, zoneId));
+		if (filter != null)
+		{
+			filter.remove(flatKey);
+		}
+	}
+
+	/**
+	 * Returns FALSE if the dependent object with the given key is definitely not outstanding in the DOC. TRUE is
+	 * returned if it may be outstanding. A FALSE result is counted as a miss.
+	 */
+	public boolean mightContain(String sifObjectName, String flatKey, String applicationId, String zoneId)
+	{
+		CountingBloomFilter filter = filters.get(getFilterKey(sifObjectName, applicationId, zoneId));
+		boolean mightContain = (filter != null) && filter.mightContain(flatKey);
+		if (!mightContain)
+		{
+			missCount.incrementAndGet();
+		}
+		return mightContain;
+	}
+
+	/**
+	 * Records the outcome of a DOC lookup after mightContain() returned TRUE. If the DOC did not hold the key then this
+	 * was a false positive, otherwise it was a hit.
+	 */
+	public void recordLookup(boolean foundInDOC)
+	{
+		if (foundInDOC)
+		{
+			hitCount.incrementAndGet();
+		}
+		else
+		{
+			falsePositiveCount.incrementAndGet();
+		}
+	}
+
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	public long getFalsePositiveCount()
+	{
+		return falsePositiveCount.get();
+	}
+
+	public String getStatistics()
+	{
+		return "hits = "+getHitCount()+", misses = "+getMissCount()+", false positives = "+getFalsePositiveCount()+", filters = "+filters.size();
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private String getFilterKey(String sifObjectName, String applicationId, String zoneId)
+	{
+		return sifObjectName+"|"+zoneId+"|"+applicationId;
+	}
+
+	/*
+	 * A counting bloom filter with one byte counters. Counters that reach their maximum value are never decremented
+	 * again. This can only cause additional false positives but never a false negative.
+	 */
+	private static class CountingBloomFilter
+	{
+		private final byte[] counters;
+		private final int numHashes;
+
+		CountingBloomFilter(int numCounters, int numHashes)
+		{
+			this.counters = new byte[numCounters];
+			this.numHashes = numHashes;
+		}
+
+		synchronized void add(String key)
+		{
+			int h1 = key.hashCode();
+			int h2 = secondHash(key);
+			for (int i=0; i<numHashes; i++)
+			{
+				int idx = index(h1, h2, i);
+				if (counters[idx] < Byte.MAX_VALUE)
+				{
+					counters[idx]++;
+				}
+			}
+		}
+
+		synchronized void remove(String key)
+		{
+			int h1 = key.hashCode();
+			int h2 = secondHash(key);
+			for (int i=0; i<numHashes; i++)
+			{
+				int idx = index(h1, h2, i);
+				if ((counters[idx] > 0) && (counters[idx] < Byte.MAX_VALUE))
+				{
+					counters[idx]--;
+				}
+			}
+		}
+
+		synchronized boolean mightContain(String key)
+		{
+			int h1 = key.hashCode();
+			int h2 = secondHash(key);
+			for (int i=0; i<numHashes; i++)
+			{
+				if (counters[index(h1, h2, i)] == 0)
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private int index(int h1, int h2, int i)
+		{
+			int combined = h1 + (i * h2);
+			return (combined & Integer.MAX_VALUE) % counters.length;
+		}
+
+		/* FNV-1a hash of the key. Independent enough of String.hashCode() for double hashing. */
+		private int secondHash(String key)
+		{
+			int hash = 0x811C9DC5;
+			for (int i=0; i<key.length(); i++)
+			{
+				hash ^= key.charAt(i);
+				hash *= 0x01000193;
+			}
+			return hash | 1; // never zero, otherwise all hashes would map to the same counter.
+		}
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * ElementAccessor.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.Collections;
+import java.util.List;
+
+import openadk.library.ADK;
+import openadk.library.ADKSchemaException;
+import openadk.library.Element;
+import openadk.library.ElementDef;
+import openadk.library.SIFDTD;
+import openadk.library.SIFDataObject;
+import openadk.library.SIFElement;
+import au.com.systemic.framework.utils.StringUtils;
+
+/**
+ * This class is a pre-compiled form of a simple xPath as used in the SBP metadata tables (i.e. '@RefId',
+ * 'SchoolInfoRefId' or 'SIF_RefId/@SIF_RefObject'). The xPath is split into its steps once. The steps are resolved
+ * to their ElementDef the first time the accessor is used for a given context element type and from then on the
+ * element is accessed by walking the children of the context element directly rather than having the ADK parse
+ * the xPath string for every call.<p><p>
+ *
+ * xPaths that use any syntax other than plain element and attribute steps (i.e. predicates) or whose steps are not
+ * known to the ADK are not compiled. For such an accessor the xPath is evaluated by the ADK as before.
+ */
+public class ElementAccessor
+{
+	private static final String REFID_ATTRIBUTE = "@RefId";
+
+	private final String xpath;
+	private final String[] steps; // null if xpath cannot be compiled.
+	private final boolean refIdAttribute;
+
+	/* Last resolved context element type and the ElementDefs of the steps for that context. */
+	private volatile ResolvedPath resolvedPath = null;
+
+	/**
+	 * Compiles the given xPath into an accessor.
+	 *
+	 * @param xpath The xPath relative to a context element. Must not be null.
+	 *
+	 * @return See description.
+	 */
+	public static ElementAccessor compile(String xpath)
+	{
+		return new ElementAccessor(xpath);
+	}
+
+	/**
+	 * Returns the xPath this accessor has been compiled from.
+	 */
+	public String getXpath()
+	{
+		return xpath;
+	}
+
+	/**
+	 * Returns TRUE if the xPath could be split into plain element and attribute steps. If FALSE is returned the xPath
+	 * will be evaluated by the ADK on each call.
+	 */
+	public boolean isCompiled()
+	{
+		return steps != null;
+	}
+
+	/**
+	 * This method returns the element or attribute this accessor points to relative to the given context element.
+	 * If it doesn't exist then null is returned.
+	 *
+	 * @param sifObject The SIF Object the context element belongs to.
+	 * @param context The element relative to which the xPath is evaluated. This is the sifObject itself or one of its
+	 *                child elements.
+	 * @param contextXPath The xPath from the sifObject to the context element including a trailing '/' or an empty
+	 *                     string if the context is the sifObject itself. Only used if the xPath cannot be compiled
+	 *                     or resolved.
+	 *
+	 * @return See description.
+	 *
+	 * @throws ADKSchemaException The ADK failed to evaluate the xPath.
+	 */
+	public Element getElement(SIFDataObject sifObject, SIFElement context, String contextXPath) throws ADKSchemaException
+	{
+		ElementDef[] elementDefs = (steps == null) ? null : resolve(context.getElementDef());
+		if (elementDefs == null)
+		{
+			return sifObject.getElementOrAttribute(contextXPath+xpath);
+		}
+
+		SIFElement current = context;
+		for (int i=0; i<elementDefs.length-1; i++)
+		{
+			current = current.getChild(elementDefs[i]);
+			if (current == null)
+			{
+				return null;
+			}
+		}
+		ElementDef lastDef = elementDefs[elementDefs.length-1];
+		return lastDef.isField() ? current.getField(lastDef) : current.getChild(lastDef);
+	}
+
+	/**
+	 * This method returns all elements this accessor points to relative to the given context element in document
+	 * order, i.e. all 'TeachingGroupStudent' elements of the xPath 'StudentList/TeachingGroupStudent'. The elements
+	 * are collected in one pass over the children of the containing element. If there are no such elements then an
+	 * empty list is returned. If the xPath cannot be compiled or resolved or doesn't point to elements then null is
+	 * returned and the caller must evaluate the xPath with the ADK instead.
+	 *
+	 * @param context The element relative to which the xPath is evaluated.
+	 *
+	 * @return See description.
+	 */
+	public List<SIFElement> getElementList(SIFElement context)
+	{
+		ElementDef[] elementDefs = (steps == null) ? null : resolve(context.getElementDef());
+		if ((elementDefs == null) || elementDefs[elementDefs.length-1].isField())
+		{
+			return null;
+		}
+
+		SIFElement current = context;
+		for (int i=0; i<elementDefs.length-1; i++)
+		{
+			current = current.getChild(elementDefs[i]);
+			if (current == null)
+			{
+				return Collections.emptyList();
+			}
+		}
+		return current.getChildList(elementDefs[elementDefs.length-1]);
+	}
+
+	/**
+	 * This method returns the text value of the element or attribute this accessor points to. If the element or
+	 * attribute doesn't exist then null is returned. If it exists but has no value then an empty string is returned.
+	 * Parameters are the same as for getElement(). A '@RefId' on the sifObject itself is read directly from
+	 * the object.
+	 *
+	 * @return See description.
+	 *
+	 * @throws ADKSchemaException The ADK failed to evaluate the xPath.
+	 */
+	public String getValue(SIFDataObject sifObject, SIFElement context, String contextXPath) throws ADKSchemaException
+	{
+		if (refIdAttribute && (context == sifObject))
+		{
+			String refId = sifObject.getRefId();
+			if (StringUtils.notEmpty(refId))
+			{
+				return refId;
+			}
+		}
+		Element elem = getElement(sifObject, context, contextXPath);
+		if (elem == null)
+		{
+			return null;
+		}
+		String value = elem.getTextValue();
+		return (value == null) ? "" : value;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "xpath = "+xpath+", compiled = "+isCompiled();
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private ElementAccessor(String xpath)
+	{
+		this.xpath = xpath.trim();
+		this.steps = splitSteps(this.xpath);
+		this.refIdAttribute = REFID_ATTRIBUTE.equals(this.xpath);
+	}
+
+	/*
+	 * Splits the xPath into its steps. Attribute steps are returned without the '@'. Null is returned if the xPath
+	 * uses anything other than plain element steps optionally followed by one attribute step.
+	 */
+	private static String[] splitSteps(String xpath)
+	{
+		if ((xpath.length() == 0) || (xpath.indexOf('[') >= 0) || (xpath.indexOf('(') >= 0) || (xpath.indexOf('*') >= 0) || (xpath.indexOf('.') >= 0))
+		{
+			return null;
+		}
+		String[] steps = xpath.split("/", -1);
+		for (int i=0; i<steps.length; i++)
+		{
+			String step = steps[i];
+			if (step.startsWith("@"))
+			{
+				if (i != steps.length-1) // attribute must be the last step.
+				{
+					return null;
+				}
+				step = step.substring(1);
+			}
+			if (step.length() == 0)
+			{
+				return null;
+			}
+			steps[i] = step;
+		}
+		return steps;
+	}
+
+	/*
+	 * Returns the ElementDefs of the steps for the given context type or null if any step is unknown to the ADK. The
+	 * result is remembered so that the lookup happens only once as long as the accessor is used for the same type of
+	 * context element (which is always the case in the SBP).
+	 */
+	private ElementDef[] resolve(ElementDef contextDef)
+	{
+		ResolvedPath path = resolvedPath;
+		if ((path == null) || (path.contextDef != contextDef))
+		{
+			path = new ResolvedPath(contextDef, lookupElementDefs(contextDef));
+			resolvedPath = path;
+		}
+		return path.elementDefs;
+	}
+
+	private ElementDef[] lookupElementDefs(ElementDef contextDef)
+	{
+		SIFDTD dtd = ADK.DTD();
+		ElementDef[] elementDefs = new ElementDef[steps.length];
+		ElementDef parentDef = contextDef;
+		for (int i=0; i<steps.length; i++)
+		{
+			elementDefs[i] = dtd.lookupElementDef(parentDef, steps[i]);
+			if (elementDefs[i] == null)
+			{
+				return null;
+			}
+			parentDef = elementDefs[i];
+		}
+		return elementDefs;
+	}
+
+	private static class ResolvedPath
+	{
+		private final ElementDef contextDef;
+		private final ElementDef[] elementDefs;
+
+		ResolvedPath(ElementDef contextDef, ElementDef[] elementDefs)
+		{
+			this.contextDef = contextDef;
+			this.elementDefs = elementDefs;
+		}
+	}
+}
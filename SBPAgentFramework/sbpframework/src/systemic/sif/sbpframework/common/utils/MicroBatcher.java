@@ -0,0 +1,188 @@
+/*
+ * MicroBatcher.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class collects items that arrive one by one into batches so that they can be processed together. A batch is
+ * handed to the batch processor as soon as it holds the maximum number of items or when the first item of the batch
+ * has waited for the linger time, whichever comes first. A full batch is processed by the thread that added the last
+ * item, which therefore waits until the batch is processed. A batch that is due to the linger time is processed by a
+ * daemon thread of this batcher.<p><p>
+ *
+ * Batches are processed one after the other, never in parallel.
+ */
+public class MicroBatcher<T>
+{
+	protected static final Logger logger = Logger.getLogger(MicroBatcher.class);
+
+	/**
+	 * Processes one batch of items. Any exception thrown is logged and the items of that batch are dropped.
+	 */
+	public interface BatchProcessor<T>
+	{
+		public void process(List<T> batch);
+	}
+
+	private final String name;
+	private final int maxBatchSize;
+	private final long lingerMillis;
+	private final BatchProcessor<T> processor;
+	private final ScheduledThreadPoolExecutor lingerTimer;
+
+	/* Ensures that batches are processed one at a time. */
+	private final Object processLock = new Object();
+
+	private List<T> pendingItems = new ArrayList<T>();
+	private ScheduledFuture<?> lingerFlush = null;
+	private boolean shutdown = false;
+
+	/**
+	 * Creates a batcher.
+	 *
+	 * @param name The name of the batcher. Used for the linger thread and in log messages.
+	 * @param maxBatchSize The maximum number of items in one batch. Must be greater than 0.
+	 * @param lingerMillis The maximum time in milliseconds an item waits for its batch to fill up.
+	 * @param processor The processor of the batches.
+	 */
+	public MicroBatcher(final String name, int maxBatchSize, long lingerMillis, BatchProcessor<T> processor)
+	{
+		this.name = name;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.lingerMillis = Math.max(0, lingerMillis);
+		this.processor = processor;
+		this.lingerTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "SBPBatch-"+name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Adds the given item to the current batch. If the batch is full then it is processed before this method returns.
+	 * If the batcher has been shut down then the item is not added and FALSE is returned. The caller must then
+	 * process the item itself.
+	 */
+	public boolean add(T item)
+	{
+		List<T> fullBatch = null;
+		synchronized (this)
+		{
+			if (shutdown)
+			{
+				return false;
+			}
+			pendingItems.add(item);
+			if (pendingItems.size() >= maxBatchSize)
+			{
+				fullBatch = takePendingItems();
+			}
+			else if (lingerFlush == null)
+			{
+				lingerFlush = lingerTimer.schedule(new Runnable()
+				{
+					public void run()
+					{
+						flush();
+					}
+				}, lingerMillis, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (fullBatch != null)
+		{
+			process(fullBatch);
+		}
+		return true;
+	}
+
+	/**
+	 * Processes the current batch straight away regardless of its size.
+	 */
+	public void flush()
+	{
+		List<T> batch = null;
+		synchronized (this)
+		{
+			batch = takePendingItems();
+		}
+		if (!batch.isEmpty())
+		{
+			process(batch);
+		}
+	}
+
+	/**
+	 * Processes the current batch and stops the batcher. Items added after this call are rejected (see add()).
+	 */
+	public void shutdown()
+	{
+		synchronized (this)
+		{
+			shutdown = true;
+		}
+		flush();
+		lingerTimer.shutdown();
+		logger.debug("Batcher "+name+" shut down.");
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	/*
+	 * Must be called while holding the lock of this batcher.
+	 */
+	private List<T> takePendingItems()
+	{
+		if (lingerFlush != null)
+		{
+			lingerFlush.cancel(false);
+			lingerFlush = null;
+		}
+		List<T> batch = pendingItems;
+		pendingItems = new ArrayList<T>();
+		return batch;
+	}
+
+	private void process(List<T> batch)
+	{
+		synchronized (processLock)
+		{
+			try
+			{
+				processor.process(batch);
+			}
+			catch (Exception ex)
+			{
+				logger.error("Batcher "+name+" failed to process batch of "+batch.size()+" items.", ex);
+			}
+		}
+	}
+}
@@ -0,0 +1,330 @@
+/*
+ * ResolvedObjectQueue.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import systemic.sif.sbpframework.persist.model.DOCache;
+
+/**
+ * This class holds the keys of the cached objects whose last dependency has just been removed from the DOC. When the
+ * DOCService removes a dependency and the remaining dependencies of a cached object drop to 0, the key of the cached
+ * object is put on this queue straight away. Only the keys are held, the cached objects (including their XML) are
+ * loaded by the subscriber when it drains its queue. There is one queue per object type, application and agent, which
+ * is the owning subscriber of the cached object. The owning subscriber registers a consumer that is triggered as soon
+ * as objects are added to its queue so that resolved objects are processed without waiting for the next periodic scan
+ * of the DOC.<p><p>
+ *
+ * The periodic scan (SBPBaseSubscriber.processObjectsWithoutDependencies()) remains as a safety net. It picks up
+ * objects that were never queued (i.e. queue was full, object was resolved by another agent process or the agent was
+ * restarted). Objects are queued at most once per key. If the queue is full further objects are not queued and are
+ * left to the periodic scan.<p><p>
+ *
+ * A resolved object must not be processed before the object that resolved it. The subscriber that removes the
+ * dependencies on a received object therefore holds back the objects it adds to the queue (see holdObjects()) until
+ * the received object is on its processing queue.<p><p>
+ *
+ * The queue is enabled with the property 'cache.release.queue.enabled' in the DOCache.properties file.
+ */
+public class ResolvedObjectQueue
+{
+	protected static final Logger logger = Logger.getLogger(ResolvedObjectQueue.class);
+
+	private static volatile ResolvedObjectQueue instance = null;
+
+	private final int maxSize;
+	private int size = 0;
+	private final Map<String, SubscriberQueue> queues = new HashMap<String, SubscriberQueue>();
+	private final ThreadLocal<List<DOCache>> heldObjects = new ThreadLocal<List<DOCache>>();
+
+	/* Statistics */
+	private long queuedCount = 0;
+	private long droppedCount = 0;
+	private long discardedCount = 0;
+
+	/**
+	 * Creates and publishes an empty queue. If the queue is already created then the existing queue is returned.
+	 *
+	 * @param maxSize The maximum number of keys held over all subscribers.
+	 */
+	public static synchronized ResolvedObjectQueue createQueue(int maxSize)
+	{
+		if (instance == null)
+		{
+			instance = new ResolvedObjectQueue(maxSize);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the queue if it is enabled, null otherwise.
+	 */
+	public static ResolvedObjectQueue getQueue()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the queue. Objects still queued are left to the periodic scan of the DOC.
+	 */
+	public static synchronized void removeQueue()
+	{
+		if (instance != null)
+		{
+			logger.info("Resolved Object Queue statistics: "+instance.getStatistics());
+			instance = null;
+		}
+	}
+
+	private ResolvedObjectQueue(int maxSize)
+	{
+		this.maxSize = Math.max(1, maxSize);
+	}
+
+	/**
+	 * Registers the consumer of the queue of the given subscriber. The consumer is run each time objects are added to
+	 * an empty or already drained queue. It should hand the work off to another thread and call drain() from there as
+	 * it is run by the thread that removed the dependency. It is not run again until drain() has been called. If the
+	 * consumer can't hand the work off it must throw an exception. It is then run again when further objects are added.
+	 *
+	 * @param sifObjectName The object type of the subscriber.
+	 * @param applicationId The application of the subscriber.
+	 * @param agentId The agent of the subscriber.
+	 * @param consumer The consumer to trigger.
+	 */
+	public void registerConsumer(String sifObjectName, String applicationId, String agentId, Runnable consumer)
+	{
+		boolean runConsumer = false;
+		SubscriberQueue queue = null;
+		synchronized (this)
+		{
+			queue = getSubscriberQueue(getQueueKey(sifObjectName, applicationId, agentId));
+			queue.consumer = consumer;
+			if (!queue.objects.isEmpty() && !queue.consumerTriggered)
+			{
+				queue.consumerTriggered = true;
+				runConsumer = true;
+			}
+		}
+		if (runConsumer)
+		{
+			runConsumer(queue, consumer);
+		}
+	}
+
+	/**
+	 * Adds the keys of the given resolved cached objects to the queues of their owning subscribers and triggers the
+	 * consumers. Objects that are already queued are not queued again. If the queue is full the object is left to the
+	 * periodic scan of the DOC.
+	 *
+	 * @param resolvedObjects Cached objects that have no remaining dependencies. Only their key properties (type,
+	 *                        key, application, zone and agent) are used.
+	 */
+	public void add(List<DOCache> resolvedObjects)
+	{
+		if ((resolvedObjects == null) || resolvedObjects.isEmpty())
+		{
+			return;
+		}
+		List<DOCache> held = heldObjects.get();
+		if (held != null)
+		{
+			held.addAll(resolvedObjects);
+			return;
+		}
+		List<SubscriberQueue> triggeredQueues = new ArrayList<SubscriberQueue>();
+		synchronized (this)
+		{
+			for (DOCache cachedObject : resolvedObjects)
+			{
+				SubscriberQueue queue = getSubscriberQueue(getQueueKey(cachedObject.getSifObjectName(), cachedObject.getApplicationId(), cachedObject.getAgentId()));
+				String objectKey = getObjectKey(cachedObject);
+				if (queue.objects.containsKey(objectKey))
+				{
+					continue;
+				}
+				if (size >= maxSize)
+				{
+					droppedCount++;
+					continue;
+				}
+				queue.objects.put(objectKey, new QueuedKey(cachedObject.getObjectKeyValue(), cachedObject.getZoneId()));
+				size++;
+				queuedCount++;
+				if ((queue.consumer != null) && !queue.consumerTriggered)
+				{
+					queue.consumerTriggered = true;
+					triggeredQueues.add(queue);
+				}
+			}
+		}
+
+		// Run consumers outside the lock.
+		for (SubscriberQueue queue : triggeredQueues)
+		{
+			runConsumer(queue, queue.consumer);
+		}
+	}
+
+	/**
+	 * Holds back all objects that the current thread adds to the queue until releaseHeldObjects() is called. If the
+	 * thread already holds back objects then nothing changes and FALSE is returned. Only a caller that receives TRUE
+	 * must call releaseHeldObjects().
+	 */
+	public boolean holdObjects()
+	{
+		if (heldObjects.get() != null)
+		{
+			return false;
+		}
+		heldObjects.set(new ArrayList<DOCache>());
+		return true;
+	}
+
+	/**
+	 * Adds the objects held back by the current thread (see holdObjects()) to the queue and stops holding back
+	 * objects.
+	 */
+	public void releaseHeldObjects()
+	{
+		List<DOCache> held = heldObjects.get();
+		heldObjects.remove();
+		add(held);
+	}
+
+	/**
+	 * Removes and returns the keys of all queued objects of the given subscriber. The flattened keys are returned by
+	 * zone, each list in the order the objects were queued. After this call the consumer of the subscriber is
+	 * triggered again for newly added objects. If there are no queued objects then an empty map is returned.
+	 */
+	public synchronized Map<String, List<String>> drain(String sifObjectName, String applicationId, String agentId)
+	{
+		SubscriberQueue queue = getSubscriberQueue(getQueueKey(sifObjectName, applicationId, agentId));
+		queue.consumerTriggered = false;
+		Map<String, List<String>> keysByZone = new LinkedHashMap<String, List<String>>();
+		for (QueuedKey queuedKey : queue.objects.values())
+		{
+			List<String> flatKeys = keysByZone.get(queuedKey.zoneId);
+			if (flatKeys == null)
+			{
+				flatKeys = new ArrayList<String>();
+				keysByZone.put(queuedKey.zoneId, flatKeys);
+			}
+			flatKeys.add(queuedKey.flatKey);
+		}
+		size = size - queue.objects.size();
+		queue.objects.clear();
+		return keysByZone;
+	}
+
+	/**
+	 * Removes the given cached object from the queue of its subscriber if it is queued. This must be called when a
+	 * cached object is processed by other means than the queue (i.e. periodic scan) so that it isn't processed twice.
+	 */
+	public synchronized void discard(DOCache cachedObject)
+	{
+		SubscriberQueue queue = queues.get(getQueueKey(cachedObject.getSifObjectName(), cachedObject.getApplicationId(), cachedObject.getAgentId()));
+		if ((queue != null) && (queue.objects.remove(getObjectKey(cachedObject)) != null))
+		{
+			size--;
+			discardedCount++;
+		}
+	}
+
+	public synchronized int getSize()
+	{
+		return size;
+	}
+
+	public synchronized String getStatistics()
+	{
+		return "queued = "+queuedCount+", dropped (queue full) = "+droppedCount+", processed by scan = "+discardedCount+", still queued = "+size;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	/*
+	 * Runs the consumer outside the lock. If it fails the queue is left untriggered, so that the consumer is run again
+	 * when further objects are added. Until then the queued objects are left to the periodic scan of the DOC.
+	 */
+	private void runConsumer(SubscriberQueue queue, Runnable consumer)
+	{
+		try
+		{
+			consumer.run();
+		}
+		catch (Throwable ex)
+		{
+			synchronized (this)
+			{
+				queue.consumerTriggered = false;
+			}
+			logger.error("Failed to trigger consumer of resolved objects. Objects are left to the periodic scan of the DOC.", ex);
+		}
+	}
+
+	private String getQueueKey(String sifObjectName, String applicationId, String agentId)
+	{
+		return sifObjectName+"|"+applicationId+"|"+agentId;
+	}
+
+	/* A cached object is unique by its type, key, application and zone. */
+	private String getObjectKey(DOCache cachedObject)
+	{
+		return cachedObject.getObjectKeyValue()+"|"+cachedObject.getZoneId();
+	}
+
+	private SubscriberQueue getSubscriberQueue(String queueKey)
+	{
+		SubscriberQueue queue = queues.get(queueKey);
+		if (queue == null)
+		{
+			queue = new SubscriberQueue();
+			queues.put(queueKey, queue);
+		}
+		return queue;
+	}
+
+	/* All fields are guarded by the ResolvedObjectQueue instance. */
+	private static class SubscriberQueue
+	{
+		private final LinkedHashMap<String, QueuedKey> objects = new LinkedHashMap<String, QueuedKey>();
+		private Runnable consumer = null;
+		private boolean consumerTriggered = false;
+	}
+
+	private static class QueuedKey
+	{
+		private final String flatKey;
+		private final String zoneId;
+
+		QueuedKey(String flatKey, String zoneId)
+		{
+			this.flatKey = flatKey;
+			this.zoneId = zoneId;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * SIFObjectKeyPlan.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import systemic.sif.sbpframework.persist.model.DependentKeyInfo;
+import systemic.sif.sbpframework.persist.model.DependentObjectInfo;
+import systemic.sif.sbpframework.persist.model.SIFObject;
+import systemic.sif.sbpframework.persist.model.SIFObjectKey;
+
+/**
+ * This class holds the key metadata of a SIF Object type in a form that can be applied to SIF Objects without
+ * further lookups. It is built once when the SIFObjectMetadataCache is loaded and holds the accessors for the primary
+ * key (SCF_OBJECT_KEY) and for the foreign keys of each dependency (SCF_DEPENDENCY_KEY_INFO) in the correct order.
+ * Instances are immutable after the metadata cache is loaded and can be shared by all threads.
+ */
+public class SIFObjectKeyPlan
+{
+	private final String sifObjectName;
+	private final String keySeparator;
+	private final ElementAccessor[] keyAccessors;
+	private final Integer[] keySortOrders;
+	private List<DependencyPlan> dependencyPlans = Collections.emptyList();
+
+	SIFObjectKeyPlan(SIFObject sifObject)
+	{
+		sifObjectName = sifObject.getName();
+		keySeparator = sifObject.getKeySeparator();
+
+		List<SIFObjectKey> orderedKeys = sifObject.getOrderedKeyList();
+		keyAccessors = new ElementAccessor[orderedKeys.size()];
+		keySortOrders = new Integer[orderedKeys.size()];
+		for (int i=0; i<orderedKeys.size(); i++)
+		{
+			keyAccessors[i] = ElementAccessor.compile(orderedKeys.get(i).getXpath());
+			keySortOrders[i] = orderedKeys.get(i).getSortOrder();
+		}
+	}
+
+	/*
+	 * Compiles the dependencies of the given object. Must be called after the plans of all objects have been created
+	 * as the dependency plans refer to the plans of their parent objects.
+	 */
+	void compileDependencies(SIFObject sifObject, Map<String, SIFObjectKeyPlan> allPlans)
+	{
+		if ((sifObject.getDependentObjects() != null) && (sifObject.getDependentObjects().size() > 0))
+		{
+			List<DependencyPlan> plans = new ArrayList<DependencyPlan>();
+			for (DependentObjectInfo dependentInfo : sifObject.getDependentObjects())
+			{
+				plans.add(new DependencyPlan(dependentInfo, allPlans));
+			}
+			dependencyPlans = Collections.unmodifiableList(plans);
+		}
+	}
+
+	public String getSifObjectName()
+	{
+		return this.sifObjectName;
+	}
+
+	public String getKeySeparator()
+	{
+		return this.keySeparator;
+	}
+
+	/**
+	 * Returns the accessors of the primary key components in the order of the key definition.
+	 */
+	public ElementAccessor[] getKeyAccessors()
+	{
+		return this.keyAccessors;
+	}
+
+	/**
+	 * Returns the accessors of the dependencies of this object. If there are no dependencies an empty list is returned.
+	 */
+	public List<DependencyPlan> getDependencyPlans()
+	{
+		return this.dependencyPlans;
+	}
+
+	/**
+	 * Returns a new ordered list of the primary key components of this object with the given values. The values must
+	 * be in the order of the key definition.
+	 */
+	public List<SIFObjectKey> newKeyList(String[] values)
+	{
+		List<SIFObjectKey> keyList = new ArrayList<SIFObjectKey>(keyAccessors.length);
+		for (int i=0; i<keyAccessors.length; i++)
+		{
+			SIFObjectKey key = new SIFObjectKey(null, keyAccessors[i].getXpath(), keySortOrders[i]);
+			key.setValue(values[i]);
+			keyList.add(key);
+		}
+		return keyList;
+	}
+
+	/**
+	 * Returns the flattened key for the given key values. The values must be in the order of the key definition.
+	 */
+	public String flattenKey(String[] values)
+	{
+		if (values.length == 1)
+		{
+			return values[0];
+		}
+		StringBuilder flatKey = new StringBuilder();
+		for (int i=0; i<values.length; i++)
+		{
+			if (i > 0)
+			{
+				flatKey.append(keySeparator);
+			}
+			flatKey.append(values[i]);
+		}
+		return flatKey.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "sifObjectName = " + sifObjectName +
+		"\nkeySeparator = " + keySeparator +
+		"\nkeyAccessors = " + Arrays.toString(keyAccessors) +
+		"\ndependencyPlans = " + dependencyPlans;
+	}
+
+	/**
+	 * Compiled form of a DependentObjectInfo. For a dependency on a known parent object type the parent plan is set.
+	 * For an indicator dependency (parent type given by a value in the object) the indicator accessor and the plans
+	 * of all valid (not ignored) parent types are set instead.
+	 */
+	public static class DependencyPlan
+	{
+		private final DependentObjectInfo dependentObjectInfo;
+		private final SIFObjectKeyPlan parentPlan;
+		private final ElementAccessor listAccessor;
+		private final ElementAccessor[] keyAccessors;
+		private final ElementAccessor indicatorAccessor;
+		private final Map<String, SIFObjectKeyPlan> validIndicatorPlans;
+
+		DependencyPlan(DependentObjectInfo dependentInfo, Map<String, SIFObjectKeyPlan> allPlans)
+		{
+			dependentObjectInfo = dependentInfo;
+			parentPlan = (dependentInfo.getParentObject() == null) ? null : allPlans.get(dependentInfo.getParentObject().getName());
+			listAccessor = (dependentInfo.getListOfObjects() && (dependentInfo.getXpathToList() != null)) ? ElementAccessor.compile(dependentInfo.getXpathToList()) : null;
+
+			List<DependentKeyInfo> orderedKeys = dependentInfo.getOrderedKeyInfoList();
+			keyAccessors = new ElementAccessor[orderedKeys.size()];
+			for (int i=0; i<orderedKeys.size(); i++)
+			{
+				keyAccessors[i] = ElementAccessor.compile(orderedKeys.get(i).getXpath());
+			}
+
+			DependentKeyInfo indicatorInfo = (dependentInfo.getParentObject() == null) ? dependentInfo.getIndicatorField(true) : null;
+			if (indicatorInfo != null)
+			{
+				indicatorAccessor = ElementAccessor.compile(indicatorInfo.getXpath());
+				validIndicatorPlans = new HashMap<String, SIFObjectKeyPlan>();
+				for (SIFObject validObj : indicatorInfo.getValidIndicatorList())
+				{
+					validIndicatorPlans.put(validObj.getName(), allPlans.get(validObj.getName()));
+				}
+			}
+			else
+			{
+				indicatorAccessor = null;
+				validIndicatorPlans = null;
+			}
+		}
+
+		public DependentObjectInfo getDependentObjectInfo()
+		{
+			return this.dependentObjectInfo;
+		}
+
+		/**
+		 * Returns the plan of the parent object. This is null for indicator dependencies.
+		 */
+		public SIFObjectKeyPlan getParentPlan()
+		{
+			return this.parentPlan;
+		}
+
+		/**
+		 * Returns the accessor of the repeating list elements for dependencies with many objects of the same type (i.e.
+		 * 'StudentList/TeachingGroupStudent'). The keys of such a dependency are relative to the list element. This is
+		 * null if the dependency is not a list.
+		 */
+		public ElementAccessor getListAccessor()
+		{
+			return this.listAccessor;
+		}
+
+		/**
+		 * Returns the accessors of the foreign key components in the order of the key definition of the parent.
+		 */
+		public ElementAccessor[] getKeyAccessors()
+		{
+			return this.keyAccessors;
+		}
+
+		/**
+		 * Returns the accessor of the indicator field. This is null if this is not an indicator dependency or no
+		 * indicator field is defined.
+		 */
+		public ElementAccessor getIndicatorAccessor()
+		{
+			return this.indicatorAccessor;
+		}
+
+		/**
+		 * Returns the plan of the parent object for the given indicator value. If the value is not a valid indicator
+		 * (i.e. dependency is ignored) then null is returned.
+		 */
+		public SIFObjectKeyPlan getIndicatorPlan(String indicatorValue)
+		{
+			return (validIndicatorPlans == null) ? null : validIndicatorPlans.get(indicatorValue);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "parentObject = " + ((parentPlan == null) ? null : parentPlan.getSifObjectName()) +
+			", listOfObjects = " + dependentObjectInfo.getListOfObjects() +
+			", keyAccessors = " + Arrays.toString(keyAccessors) +
+			", indicatorAccessor = " + indicatorAccessor;
+		}
+	}
+}
@@ -0,0 +1,549 @@
+/*
+ * SyncCoordinator.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import openadk.library.ADKException;
+import openadk.library.MessageInfo;
+import openadk.library.MessagingListener;
+import openadk.library.SIFMessageInfo;
+import openadk.library.SIFMessagingListener;
+import openadk.library.Zone;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class runs the syncs of all subscribers in the order of the dependencies between their SIF Objects. The
+ * dependencies are taken from the SIFObjectMetadataCache (parent objects and indicator objects without the dependencies
+ * turned off with 'cache.ignore.*' properties). The sync of an object type in a zone is only started once the syncs of
+ * all synced object types it depends upon, directly or through object types that are not synced, have finished in that
+ * zone. A sync has finished once the last packet of its response has been handed to the subscriber and the subscriber
+ * has checked all received objects against the DOC (see SyncTask.syncResponseConsumed()). So the StudentPersonal
+ * objects are known to the target system or the DOC before the StudentSchoolEnrollment objects are received rather
+ * than nearly every enrollment being cached, its student being requested and the enrollment being released again.<p><p>
+ *
+ * Syncs of object types that don't depend on each other and syncs of different zones run in parallel up to the given
+ * maximum number of syncs. Object types that depend on each other in a cycle are synced without waiting for each
+ * other. A sync that doesn't get its last response packet within the response timeout or that waits for its parents
+ * longer than the parent wait time is treated as finished or started regardless, so that a missing response or a
+ * subscriber that never syncs doesn't block the syncs of other object types forever.<p><p>
+ *
+ * Syncs submitted before start() is called are held back until the object types taking part in the sync are known.
+ * The coordinator is enabled with the property 'cache.sync.ordered.enabled' in the DOCache.properties file.
+ */
+public class SyncCoordinator
+{
+	protected static final Logger logger = Logger.getLogger(SyncCoordinator.class);
+
+	/**
+	 * The sync of one object type in one zone as done by a subscriber.
+	 */
+	public interface SyncTask
+	{
+		/**
+		 * Sends the sync query to the given zone if a sync is required.
+		 *
+		 * @return The message ID of the sync query. Null if no sync query has been sent.
+		 */
+		public String sendSyncQuery(Zone zone) throws Exception;
+
+		/**
+		 * Called once the last packet of the response to the sync query has been received or if waiting for it timed
+		 * out. Objects of the response that are still held back by the subscriber (i.e. for batch processing) must be
+		 * checked against the DOC before this method returns.
+		 */
+		public void syncResponseConsumed(Zone zone);
+	}
+
+	private static volatile SyncCoordinator instance = null;
+
+	private final long responseTimeoutMillis;
+	private final long parentWaitMillis;
+	private final ScheduledThreadPoolExecutor executor;
+
+	/* The synced object types each synced object type must wait for. Null until start() is called. */
+	private Map<String, Set<String>> syncParents = null;
+
+	/* Syncs submitted but not finished, yet. In the order they have been submitted. Key: <object type>|<zone ID> */
+	private final Map<String, SyncJob> jobs = new LinkedHashMap<String, SyncJob>();
+
+	/* Syncs that have finished. Key: <object type>|<zone ID> */
+	private final Set<String> finishedSyncs = new HashSet<String>();
+
+	/* The listener of the responses to sync queries for each zone. Key: zone ID */
+	private final Map<String, ResponseListener> listeners = new HashMap<String, ResponseListener>();
+
+	/**
+	 * Creates and publishes the coordinator. If the coordinator is already created then the existing coordinator is
+	 * returned.
+	 *
+	 * @param maxConcurrentSyncs The maximum number of syncs waiting for their response at the same time.
+	 * @param responseTimeoutMillis The maximum time in milliseconds to wait for the last packet of a sync response.
+	 * @param parentWaitMillis The maximum time in milliseconds a sync waits for the syncs it depends upon.
+	 */
+	public static synchronized SyncCoordinator createCoordinator(int maxConcurrentSyncs, long responseTimeoutMillis, long parentWaitMillis)
+	{
+		if (instance == null)
+		{
+			instance = new SyncCoordinator(maxConcurrentSyncs, responseTimeoutMillis, parentWaitMillis);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the coordinator if it is enabled, null otherwise.
+	 */
+	public static SyncCoordinator getCoordinator()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the coordinator. Syncs waiting for their response or their parents are abandoned and the response
+	 * listeners are removed from the zones.
+	 */
+	public static synchronized void removeCoordinator()
+	{
+		if (instance != null)
+		{
+			instance.shutdown();
+			instance = null;
+		}
+	}
+
+	private SyncCoordinator(int maxConcurrentSyncs, long responseTimeoutMillis, long parentWaitMillis)
+	{
+		this.responseTimeoutMillis = Math.max(0, responseTimeoutMillis);
+		this.parentWaitMillis = Math.max(0, parentWaitMillis);
+		final AtomicInteger threadNo = new AtomicInteger(0);
+		executor = new ScheduledThreadPoolExecutor(Math.max(1, maxConcurrentSyncs), new ThreadFactory()
+		{
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "SBPSync-"+threadNo.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Builds the order of the syncs for the given object types and starts the syncs submitted so far that don't have
+	 * to wait for other syncs. Only the given object types are waited for. An object type that is not synced (i.e.
+	 * its sync is turned off) must therefore not be given, otherwise the object types depending on it wait for the
+	 * parent wait time.
+	 *
+	 * @param syncedObjectNames The names of all SIF Objects that are synced by the subscribers of the agent.
+	 * @param metadataCache The metadata of all SIF Objects that holds their dependencies.
+	 */
+	public synchronized void start(Collection<String> syncedObjectNames, SIFObjectMetadataCache metadataCache)
+	{
+		// All object types each synced object type depends upon, directly or through other object types.
+		Map<String, Set<String>> ancestors = new HashMap<String, Set<String>>();
+		for (String sifObjectName : syncedObjectNames)
+		{
+			ancestors.put(sifObjectName, getAncestors(sifObjectName, metadataCache));
+		}
+
+		// Only synced object types are waited for. Object types that depend on each other don't wait for each other.
+		syncParents = new HashMap<String, Set<String>>();
+		for (String sifObjectName : syncedObjectNames)
+		{
+			Set<String> parents = new HashSet<String>();
+			for (String ancestor : ancestors.get(sifObjectName))
+			{
+				if (ancestors.containsKey(ancestor) && !ancestor.equals(sifObjectName))
+				{
+					if (ancestors.get(ancestor).contains(sifObjectName))
+					{
+						logger.warn(sifObjectName+" and "+ancestor+" depend on each other. Their syncs don't wait for each other.");
+					}
+					else
+					{
+						parents.add(ancestor);
+					}
+				}
+			}
+			syncParents.put(sifObjectName, parents);
+			logger.info("Sync of "+sifObjectName+" waits for the syncs of: "+parents);
+		}
+
+		for (SyncJob job : jobs.values())
+		{
+			scheduleParentWait(job);
+		}
+		startReadyJobs();
+	}
+
+	/**
+	 * Submits the sync of the given object type in the given zone. The sync is started as soon as the syncs it
+	 * depends upon have finished. If a sync of the same object type and zone is still waiting or running then the
+	 * given sync is ignored.
+	 *
+	 * @param sifObjectName The name of the SIF Object to sync.
+	 * @param zone The zone to sync.
+	 * @param task The subscriber's sync of the object type.
+	 */
+	public synchronized void submit(String sifObjectName, Zone zone, SyncTask task)
+	{
+		if (executor.isShutdown())
+		{
+			return;
+		}
+		String key = getKey(sifObjectName, zone.getZoneId());
+		if (jobs.containsKey(key))
+		{
+			logger.debug("Sync of "+sifObjectName+" in zone "+zone.getZoneId()+" is still waiting or running. Not submitted again.");
+			return;
+		}
+		SyncJob job = new SyncJob(sifObjectName, zone, task);
+		jobs.put(key, job);
+		if (syncParents != null)
+		{
+			scheduleParentWait(job);
+			startReadyJobs();
+		}
+	}
+
+	/**
+	 * Returns TRUE if the sync of the given object type in the given zone has finished at least once.
+	 */
+	public synchronized boolean isSyncFinished(String sifObjectName, String zoneId)
+	{
+		return finishedSyncs.contains(getKey(sifObjectName, zoneId));
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private String getKey(String sifObjectName, String zoneId)
+	{
+		return sifObjectName+"|"+zoneId;
+	}
+
+	/*
+	 * Returns the names of all SIF Objects the given object depends upon, directly or indirectly.
+	 */
+	private Set<String> getAncestors(String sifObjectName, SIFObjectMetadataCache metadataCache)
+	{
+		Set<String> ancestors = new HashSet<String>();
+		List<String> toVisit = new ArrayList<String>(metadataCache.getDependencyObjectNames(sifObjectName));
+		while (!toVisit.isEmpty())
+		{
+			String ancestor = toVisit.remove(toVisit.size()-1);
+			if (ancestors.add(ancestor))
+			{
+				toVisit.addAll(metadataCache.getDependencyObjectNames(ancestor));
+			}
+		}
+		return ancestors;
+	}
+
+	/*
+	 * Must be called while holding the lock of this coordinator.
+	 */
+	private void scheduleParentWait(final SyncJob job)
+	{
+		if ((job.parentWait != null) || executor.isShutdown())
+		{
+			return;
+		}
+		job.parentWait = executor.schedule(new Runnable()
+		{
+			public void run()
+			{
+				startAfterParentWait(job);
+			}
+		}, parentWaitMillis, TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void startAfterParentWait(SyncJob job)
+	{
+		if (!job.started && (jobs.get(job.key) == job))
+		{
+			logger.warn("Sync of "+job.sifObjectName+" in zone "+job.zone.getZoneId()+" waited "+parentWaitMillis+"ms for the syncs of "+getOpenParents(job)+". Started regardless.");
+			startJob(job);
+		}
+	}
+
+	/*
+	 * Starts all submitted syncs whose parents have finished. Must be called while holding the lock of this
+	 * coordinator.
+	 */
+	private void startReadyJobs()
+	{
+		for (SyncJob job : jobs.values())
+		{
+			if (!job.started && getOpenParents(job).isEmpty())
+			{
+				startJob(job);
+			}
+		}
+	}
+
+	/*
+	 * Returns the object types the given sync must still wait for. Must be called while holding the lock of this
+	 * coordinator.
+	 */
+	private List<String> getOpenParents(SyncJob job)
+	{
+		List<String> openParents = new ArrayList<String>();
+		Set<String> parents = syncParents.get(job.sifObjectName);
+		if (parents != null)
+		{
+			for (String parent : parents)
+			{
+				if (!finishedSyncs.contains(getKey(parent, job.zone.getZoneId())))
+				{
+					openParents.add(parent);
+				}
+			}
+		}
+		return openParents;
+	}
+
+	/*
+	 * Must be called while holding the lock of this coordinator.
+	 */
+	private void startJob(final SyncJob job)
+	{
+		if (executor.isShutdown())
+		{
+			return;
+		}
+		job.started = true;
+		if (job.parentWait != null)
+		{
+			job.parentWait.cancel(false);
+		}
+		executor.execute(new Runnable()
+		{
+			public void run()
+			{
+				runJob(job);
+			}
+		});
+	}
+
+	private void runJob(SyncJob job)
+	{
+		String zoneId = job.zone.getZoneId();
+		try
+		{
+			String msgId = null;
+			CountDownLatch response = null;
+			ResponseListener listener = getListener(job.zone);
+			listener.startSending();
+			try
+			{
+				msgId = job.task.sendSyncQuery(job.zone);
+				if (msgId != null)
+				{
+					response = listener.expectResponse(msgId);
+				}
+			}
+			finally
+			{
+				listener.endSending();
+			}
+
+			if (response != null)
+			{
+				logger.debug("Wait for sync response of "+job.sifObjectName+" in zone "+zoneId+".");
+				if (!response.await(responseTimeoutMillis, TimeUnit.MILLISECONDS))
+				{
+					listener.forgetResponse(msgId);
+					logger.warn("Sync response of "+job.sifObjectName+" in zone "+zoneId+" not received within "+responseTimeoutMillis+"ms. Syncs depending on it are started regardless.");
+				}
+			}
+			job.task.syncResponseConsumed(job.zone);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			return; // coordinator is shut down
+		}
+		catch (Exception ex)
+		{
+			logger.error("Sync of "+job.sifObjectName+" in zone "+zoneId+" failed. Syncs depending on it are started regardless.", ex);
+		}
+		finishJob(job);
+	}
+
+	private synchronized void finishJob(SyncJob job)
+	{
+		jobs.remove(job.key);
+		finishedSyncs.add(job.key);
+		logger.info("Sync of "+job.sifObjectName+" in zone "+job.zone.getZoneId()+" finished.");
+		startReadyJobs();
+	}
+
+	private synchronized ResponseListener getListener(Zone zone)
+	{
+		ResponseListener listener = listeners.get(zone.getZoneId());
+		if (listener == null)
+		{
+			listener = new ResponseListener(zone);
+			zone.addMessagingListener(listener);
+			listeners.put(zone.getZoneId(), listener);
+		}
+		return listener;
+	}
+
+	private synchronized void shutdown()
+	{
+		executor.shutdownNow();
+		for (SyncJob job : jobs.values())
+		{
+			logger.info("Sync of "+job.sifObjectName+" in zone "+job.zone.getZoneId()+" abandoned at shutdown.");
+		}
+		jobs.clear();
+		for (ResponseListener listener : listeners.values())
+		{
+			listener.zone.removeMessagingListener(listener);
+		}
+		listeners.clear();
+		logger.debug("Sync coordinator shut down.");
+	}
+
+	/*---------------------*/
+	/*-- Private Classes --*/
+	/*---------------------*/
+
+	private class SyncJob
+	{
+		private final String key;
+		private final String sifObjectName;
+		private final Zone zone;
+		private final SyncTask task;
+		private boolean started = false;
+		private ScheduledFuture<?> parentWait = null;
+
+		private SyncJob(String sifObjectName, Zone zone, SyncTask task)
+		{
+			this.key = getKey(sifObjectName, zone.getZoneId());
+			this.sifObjectName = sifObjectName;
+			this.zone = zone;
+			this.task = task;
+		}
+	}
+
+	/*
+	 * Listens to the SIF_Responses of one zone. The ADK calls onMessageProcessed() once the subscriber has consumed
+	 * the objects of a response packet. The last packet of the response to a sync query completes the sync's latch.
+	 * A last packet that is processed while a sync query is being sent, but before its message ID is known, is
+	 * remembered so that a very fast response is not missed.
+	 */
+	private static class ResponseListener implements MessagingListener
+	{
+		private final Zone zone;
+		private final Map<String, CountDownLatch> expectedResponses = new HashMap<String, CountDownLatch>();
+		private final Set<String> earlyResponses = new HashSet<String>();
+		private int sending = 0;
+
+		private ResponseListener(Zone zone)
+		{
+			this.zone = zone;
+		}
+
+		private synchronized void startSending()
+		{
+			sending++;
+		}
+
+		private synchronized void endSending()
+		{
+			sending--;
+			if (sending == 0)
+			{
+				earlyResponses.clear();
+			}
+		}
+
+		private synchronized CountDownLatch expectResponse(String msgId)
+		{
+			CountDownLatch response = new CountDownLatch(1);
+			if (earlyResponses.remove(msgId))
+			{
+				response.countDown();
+			}
+			else
+			{
+				expectedResponses.put(msgId, response);
+			}
+			return response;
+		}
+
+		private synchronized void forgetResponse(String msgId)
+		{
+			expectedResponses.remove(msgId);
+		}
+
+		public void onMessageProcessed(byte messageType, MessageInfo info) throws ADKException
+		{
+			if ((messageType != SIFMessagingListener.SIF_RESPONSE) || !(info instanceof SIFMessageInfo))
+			{
+				return;
+			}
+			SIFMessageInfo responseInfo = (SIFMessageInfo)info;
+			if (Boolean.TRUE.equals(responseInfo.getMorePackets()) || (responseInfo.getSIFRequestMsgId() == null))
+			{
+				return;
+			}
+			synchronized (this)
+			{
+				CountDownLatch response = expectedResponses.remove(responseInfo.getSIFRequestMsgId());
+				if (response != null)
+				{
+					response.countDown();
+				}
+				else if (sending > 0)
+				{
+					earlyResponses.add(responseInfo.getSIFRequestMsgId());
+				}
+			}
+		}
+
+		public byte onMessageReceived(byte messageType, StringBuffer message) throws ADKException
+		{
+			return MessagingListener.RX_PROCESS;
+		}
+
+		public boolean onSendingMessage(byte messageType, MessageInfo info, StringBuffer message)
+		{
+			return true;
+		}
+
+		public void onMessageSent(byte messageType, MessageInfo info, Object receipt) {}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * SyncWindowRegistry.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class records the keys of the objects that are handed on to their subscribers for processing in a zone while
+ * a sync window of any subscriber is open in that zone (see 'cache.sync.window.enabled' property). The dependencies of
+ * the objects received within a sync window are checked in bulk when the window closes. A dependency whose key has
+ * been recorded here is known to the target system at that point and is not checked with
+ * doesObjectExistInTargetSystem().<p><p>
+ *
+ * The keys of a zone are dropped when the last sync window of the zone is closed. Once the maximum number of keys of a
+ * zone is reached no further keys are recorded for that zone. Their dependencies are then checked against the target
+ * system as usual.
+ */
+public class SyncWindowRegistry
+{
+	protected static final Logger logger = Logger.getLogger(SyncWindowRegistry.class);
+
+	private static volatile SyncWindowRegistry instance = null;
+
+	private final int maxKeys;
+	private final Map<String, ZoneKeys> zones = new HashMap<String, ZoneKeys>();
+
+	/* Number of open windows over all zones. Allows to skip the lock if no window is open. */
+	private volatile int openWindows = 0;
+
+	/**
+	 * Creates and publishes the registry. If the registry is already created then the existing registry is returned.
+	 *
+	 * @param maxKeys The maximum number of keys recorded per zone.
+	 */
+	public static synchronized SyncWindowRegistry createRegistry(int maxKeys)
+	{
+		if (instance == null)
+		{
+			instance = new SyncWindowRegistry(maxKeys);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the registry if it is created, null otherwise.
+	 */
+	public static SyncWindowRegistry getRegistry()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the registry and all recorded keys.
+	 */
+	public static synchronized void removeRegistry()
+	{
+		instance = null;
+	}
+
+	private SyncWindowRegistry(int maxKeys)
+	{
+		this.maxKeys = Math.max(0, maxKeys);
+	}
+
+	/**
+	 * Keys of processed objects of the given zone are recorded from now on until the window is closed again.
+	 */
+	public synchronized void openWindow(String zoneId)
+	{
+		ZoneKeys zoneKeys = zones.get(zoneId);
+		if (zoneKeys == null)
+		{
+			zoneKeys = new ZoneKeys();
+			zones.put(zoneId, zoneKeys);
+		}
+		zoneKeys.openWindows++;
+		openWindows++;
+	}
+
+	/**
+	 * Closes a window opened with openWindow(). The keys of the zone are dropped once all its windows are closed.
+	 */
+	public synchronized void closeWindow(String zoneId)
+	{
+		ZoneKeys zoneKeys = zones.get(zoneId);
+		if (zoneKeys != null)
+		{
+			zoneKeys.openWindows--;
+			openWindows--;
+			if (zoneKeys.openWindows <= 0)
+			{
+				logger.debug("Last sync window of zone "+zoneId+" closed. "+zoneKeys.keys.size()+" keys of processed objects dropped.");
+				zones.remove(zoneId);
+			}
+		}
+	}
+
+	/**
+	 * Returns TRUE if a window is open in the given zone, so that keys of processed objects are recorded.
+	 */
+	public boolean isRecording(String zoneId)
+	{
+		if (openWindows == 0)
+		{
+			return false;
+		}
+		synchronized (this)
+		{
+			return zones.containsKey(zoneId);
+		}
+	}
+
+	/**
+	 * Records that the given object has been handed on to its subscriber for processing. Nothing is recorded if no
+	 * window is open in the zone.
+	 */
+	public void recordProcessedKey(String sifObjectName, String flatKey, String zoneId)
+	{
+		if (openWindows == 0)
+		{
+			return;
+		}
+		synchronized (this)
+		{
+			ZoneKeys zoneKeys = zones.get(zoneId);
+			if ((zoneKeys != null) && (zoneKeys.keys.size() < maxKeys))
+			{
+				zoneKeys.keys.add(sifObjectName+"|"+flatKey);
+			}
+		}
+	}
+
+	/**
+	 * Returns TRUE if the given object has been handed on for processing while a window was open in the zone.
+	 */
+	public boolean isProcessed(String sifObjectName, String flatKey, String zoneId)
+	{
+		if (openWindows == 0)
+		{
+			return false;
+		}
+		synchronized (this)
+		{
+			ZoneKeys zoneKeys = zones.get(zoneId);
+			return (zoneKeys != null) && zoneKeys.keys.contains(sifObjectName+"|"+flatKey);
+		}
+	}
+
+	/*---------------------*/
+	/*-- Private Classes --*/
+	/*---------------------*/
+
+	private static class ZoneKeys
+	{
+		private int openWindows = 0;
+		private final Set<String> keys = new HashSet<String>();
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * TargetSystemCheckCache.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class remembers the results of the checks of dependent objects against the target system (see
+ * SBPBaseSubscriber.doesObjectExistInTargetSystem()) for a limited time, so that the same object is not checked over
+ * and over again. Objects that exist and objects that don't exist in the target system are held separately for each
+ * SIF Object type, each with its own time to live (see 'cache.target.check.*' properties). Each of these caches holds
+ * up to a maximum number of objects. If it is full the least recently used object is dropped.<p><p>
+ *
+ * The subscribers remove an object when a DELETE event for it is received and remove an object that didn't exist
+ * once it has been received. All methods of this class are thread safe.
+ */
+public class TargetSystemCheckCache
+{
+	protected static final Logger logger = Logger.getLogger(TargetSystemCheckCache.class);
+
+	private static volatile TargetSystemCheckCache instance = null;
+
+	private final int maxEntries;
+	private final Map<String, TypeCache> typeCaches = new HashMap<String, TypeCache>();
+
+	/**
+	 * Creates and publishes the cache. If the cache is already created then the existing cache is returned.
+	 *
+	 * @param maxEntries The maximum number of existing and of missing objects held per SIF Object type.
+	 */
+	public static synchronized TargetSystemCheckCache createCache(int maxEntries)
+	{
+		if (instance == null)
+		{
+			instance = new TargetSystemCheckCache(maxEntries);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the cache if it is created, null otherwise.
+	 */
+	public static TargetSystemCheckCache getCache()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the cache and all its entries.
+	 */
+	public static synchronized void removeCache()
+	{
+		if (instance != null)
+		{
+			logger.info("Target system check cache removed: "+instance.getStatistics());
+			instance = null;
+		}
+	}
+
+	private TargetSystemCheckCache(int maxEntries)
+	{
+		this.maxEntries = Math.max(1, maxEntries);
+	}
+
+	/**
+	 * Returns the remembered result of the check for the given object. Null is returned if the object has not been
+	 * checked or if the result has expired.
+	 *
+	 * @param sifObjectName The name of the dependent SIF Object (i.e. StudentPersonal).
+	 * @param flatKey The flattened key of the dependent SIF Object.
+	 * @param zoneId The zone the object depending on the given object has been received from.
+	 */
+	public Boolean get(String sifObjectName, String flatKey, String zoneId)
+	{
+		return getTypeCache(sifObjectName).get(getKey(flatKey, zoneId));
+	}
+
+	/**
+	 * Remembers the result of the check for the given object. The result is not remembered if the time to live for
+	 * this result and object type is 0.
+	 *
+	 * @param exists The result of the check.
+	 */
+	public void put(String sifObjectName, String flatKey, String zoneId, boolean exists)
+	{
+		DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+		if (cacheProperties == null)
+		{
+			return;
+		}
+		int ttlSeconds = exists ? cacheProperties.getTargetCheckExistsTTLInSec(sifObjectName, 600) : cacheProperties.getTargetCheckMissingTTLInSec(sifObjectName, 60);
+		if (ttlSeconds > 0)
+		{
+			getTypeCache(sifObjectName).put(getKey(flatKey, zoneId), exists, System.currentTimeMillis() + (ttlSeconds * 1000L));
+		}
+	}
+
+	/**
+	 * Forgets the result of the check for the given object, i.e. because it has been deleted.
+	 */
+	public void remove(String sifObjectName, String flatKey, String zoneId)
+	{
+		TypeCache typeCache = findTypeCache(sifObjectName);
+		if (typeCache != null)
+		{
+			typeCache.remove(getKey(flatKey, zoneId), true);
+		}
+	}
+
+	/**
+	 * Forgets the result of the check for the given object if it didn't exist, i.e. because it has been received
+	 * since.
+	 */
+	public void removeMissing(String sifObjectName, String flatKey, String zoneId)
+	{
+		TypeCache typeCache = findTypeCache(sifObjectName);
+		if (typeCache != null)
+		{
+			typeCache.remove(getKey(flatKey, zoneId), false);
+		}
+	}
+
+	/**
+	 * Returns the number of hits and misses of all object types for logging.
+	 */
+	public String getStatistics()
+	{
+		long hits = 0;
+		long misses = 0;
+		synchronized (typeCaches)
+		{
+			for (TypeCache typeCache : typeCaches.values())
+			{
+				synchronized (typeCache)
+				{
+					hits += typeCache.hits;
+					misses += typeCache.misses;
+				}
+			}
+		}
+		return "hits = "+hits+", misses = "+misses;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private String getKey(String flatKey, String zoneId)
+	{
+		return zoneId+"|"+flatKey;
+	}
+
+	private TypeCache findTypeCache(String sifObjectName)
+	{
+		synchronized (typeCaches)
+		{
+			return typeCaches.get(sifObjectName);
+		}
+	}
+
+	private TypeCache getTypeCache(String sifObjectName)
+	{
+		synchronized (typeCaches)
+		{
+			TypeCache typeCache = typeCaches.get(sifObjectName);
+			if (typeCache == null)
+			{
+				typeCache = new TypeCache(maxEntries);
+				typeCaches.put(sifObjectName, typeCache);
+			}
+			return typeCache;
+		}
+	}
+
+	/*---------------------*/
+	/*-- Private Classes --*/
+	/*---------------------*/
+
+	/*
+	 * The existing and the missing objects of one SIF Object type with their expiry time in milliseconds.
+	 */
+	private static class TypeCache
+	{
+		private final Map<String, Long> existing;
+		private final Map<String, Long> missing;
+		private long hits = 0;
+		private long misses = 0;
+
+		private TypeCache(int maxEntries)
+		{
+			existing = new LRUMap(maxEntries);
+			missing = new LRUMap(maxEntries);
+		}
+
+		private synchronized Boolean get(String key)
+		{
+			if (isValid(existing, key))
+			{
+				hits++;
+				return Boolean.TRUE;
+			}
+			if (isValid(missing, key))
+			{
+				hits++;
+				return Boolean.FALSE;
+			}
+			misses++;
+			return null;
+		}
+
+		private synchronized void put(String key, boolean exists, long expiresAt)
+		{
+			if (exists)
+			{
+				missing.remove(key);
+				existing.put(key, expiresAt);
+			}
+			else
+			{
+				existing.remove(key);
+				missing.put(key, expiresAt);
+			}
+		}
+
+		private synchronized void remove(String key, boolean includeExisting)
+		{
+			missing.remove(key);
+			if (includeExisting)
+			{
+				existing.remove(key);
+			}
+		}
+
+		/*
+		 * Returns TRUE if the given map holds the key and it has not expired. Expired keys are removed.
+		 */
+		private boolean isValid(Map<String, Long> entries, String key)
+		{
+			Long expiresAt = entries.get(key);
+			if (expiresAt == null)
+			{
+				return false;
+			}
+			if (expiresAt.longValue() <= System.currentTimeMillis())
+			{
+				entries.remove(key);
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/*
+	 * A map in access order that drops the least recently used entry once it holds more than the given entries.
+	 */
+	private static class LRUMap extends LinkedHashMap<String, Long>
+	{
+		private static final long serialVersionUID = 4917352084177265302L;
+
+		private final int maxEntries;
+
+		private LRUMap(int maxEntries)
+		{
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Long> eldest)
+		{
+			return size() > maxEntries;
+		}
+	}
+}
@@ -0,0 +1,510 @@
+/*
+ * ZoneRequestDispatcher.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.common.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import openadk.library.Query;
+import openadk.library.Zone;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class sends the SIF Queries for dependent objects to the zones. Each zone has its own channel with a bounded
+ * queue of requests and a small pool of threads so that several requests are in flight per zone at the same time and
+ * a slow zone doesn't hold up the requests to other zones. The rate at which requests are sent to a zone is capped by
+ * a token bucket per zone so that a large backlog can be drained quickly without overwhelming a shared ZIS.<p><p>
+ *
+ * Requests to a zone that is not connected are not queued and are not sent. As the caller only marks the dependent
+ * objects as requested once the query has been sent (see submit()) these objects are requested again with the next
+ * request cycle. The same applies to requests that are rejected because the queue of the zone is full or that are
+ * still queued when the dispatcher is removed.<p><p>
+ *
+ * For each zone the queue depth, the number of requests in flight, the number of sent, failed, skipped and rejected
+ * requests and the send latency are recorded. The statistics are logged when the dispatcher is removed.<p><p>
+ *
+ * The dispatcher is enabled with the property 'cache.request.dispatcher.enabled' in the DOCache.properties file.
+ */
+public class ZoneRequestDispatcher
+{
+	protected static final Logger logger = Logger.getLogger(ZoneRequestDispatcher.class);
+
+	private static volatile ZoneRequestDispatcher instance = null;
+
+	private final int maxInFlight;
+	private final int maxQueueSize;
+	private final double ratePerSecond;
+	private final int burst;
+	private final Map<String, ZoneChannel> channels = new HashMap<String, ZoneChannel>();
+
+	/**
+	 * Creates and publishes the dispatcher. If the dispatcher is already created then the existing dispatcher is
+	 * returned.
+	 *
+	 * @param maxInFlight The maximum number of requests sent to one zone at the same time.
+	 * @param maxQueueSize The maximum number of requests waiting to be sent to one zone.
+	 * @param ratePerSecond The maximum number of requests sent to one zone per second. 0 means no limit.
+	 * @param burst The maximum number of requests that can be sent to one zone in a burst after a quiet period.
+	 */
+	public static synchronized ZoneRequestDispatcher createDispatcher(int maxInFlight, int maxQueueSize, double ratePerSecond, int burst)
+	{
+		if (instance == null)
+		{
+			instance = new ZoneRequestDispatcher(maxInFlight, maxQueueSize, ratePerSecond, burst);
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the dispatcher if it is enabled, null otherwise.
+	 */
+	public static ZoneRequestDispatcher getDispatcher()
+	{
+		return instance;
+	}
+
+	/**
+	 * Removes the dispatcher. Requests in flight are given the timeout to finish. Requests still queued are not sent.
+	 * The statistics of all zones are logged.
+	 *
+	 * @param timeoutMillis The time in milliseconds to wait for requests in flight to finish.
+	 */
+	public static synchronized void removeDispatcher(long timeoutMillis)
+	{
+		if (instance != null)
+		{
+			instance.shutdown(timeoutMillis);
+			instance = null;
+		}
+	}
+
+	private ZoneRequestDispatcher(int maxInFlight, int maxQueueSize, double ratePerSecond, int burst)
+	{
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.maxQueueSize = Math.max(1, maxQueueSize);
+		this.ratePerSecond = Math.max(0, ratePerSecond);
+		this.burst = Math.max(1, burst);
+	}
+
+	/**
+	 * Queues the given query to be sent to the given zone. Once the query has been sent the 'onSent' task is run by
+	 * the sending thread (i.e. to mark the dependent objects as requested). If the query cannot be sent the 'onSent'
+	 * task is not run.
+	 *
+	 * @param zone The zone to send the query to.
+	 * @param requester The name of the requester (i.e. SIF Object type of the subscriber). Used to keep track of the
+	 *                  pending requests of each requester. See getPendingRequests().
+	 * @param query The query to send.
+	 * @param onSent The task to run after the query has been sent. Can be null.
+	 *
+	 * @return TRUE if the query has been queued. FALSE if the zone is not connected or its queue is full.
+	 */
+	public boolean submit(Zone zone, String requester, Query query, Runnable onSent)
+	{
+		ZoneChannel channel = getChannel(zone.getZoneId());
+		if (!zone.isConnected())
+		{
+			channel.statistics.recordSkipped();
+			return false;
+		}
+		channel.incrementPending(requester);
+		try
+		{
+			channel.executor.execute(new SendRequestTask(channel, zone, requester, query, onSent));
+			return true;
+		}
+		catch (RejectedExecutionException ex)
+		{
+			channel.decrementPending(requester);
+			channel.statistics.recordRejected();
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the number of requests of the given requester that are queued or in flight for the given zone.
+	 */
+	public int getPendingRequests(String zoneId, String requester)
+	{
+		return getChannel(zoneId).getPending(requester);
+	}
+
+	/**
+	 * Returns the statistics of the given zone.
+	 */
+	public ZoneStatistics getStatistics(String zoneId)
+	{
+		return getChannel(zoneId).statistics;
+	}
+
+	/**
+	 * Returns the statistics of all zones requests have been sent to.
+	 */
+	public synchronized List<ZoneStatistics> getStatistics()
+	{
+		List<ZoneStatistics> statisticsList = new ArrayList<ZoneStatistics>();
+		for (ZoneChannel channel : channels.values())
+		{
+			statisticsList.add(channel.statistics);
+		}
+		return statisticsList;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private synchronized ZoneChannel getChannel(String zoneId)
+	{
+		ZoneChannel channel = channels.get(zoneId);
+		if (channel == null)
+		{
+			channel = new ZoneChannel(zoneId);
+			channels.put(zoneId, channel);
+		}
+		return channel;
+	}
+
+	private void shutdown(long timeoutMillis)
+	{
+		List<ZoneChannel> channelList = null;
+		synchronized (this)
+		{
+			channelList = new ArrayList<ZoneChannel>(channels.values());
+		}
+		for (ZoneChannel channel : channelList)
+		{
+			channel.executor.shutdown();
+			channel.executor.getQueue().clear(); // Queued requests are not sent. They are requested again later.
+		}
+		long endTime = System.currentTimeMillis() + timeoutMillis;
+		for (ZoneChannel channel : channelList)
+		{
+			try
+			{
+				if (!channel.executor.awaitTermination(Math.max(0, endTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS))
+				{
+					logger.warn("Requests to zone "+channel.zoneId+" did not finish within "+timeoutMillis+"ms. Interrupt them.");
+					channel.executor.shutdownNow();
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				channel.executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+			logger.info("Request dispatcher statistics: "+channel.statistics);
+		}
+	}
+
+	/**
+	 * Statistics of the requests to one zone. All times are in milliseconds.
+	 */
+	public static class ZoneStatistics
+	{
+		private final String zoneId;
+		private final ThreadPoolExecutor executor;
+		private long sentCount = 0;
+		private long failedCount = 0;
+		private long skippedCount = 0;
+		private long rejectedCount = 0;
+		private long lastLatency = 0;
+		private long maxLatency = 0;
+		private long totalLatency = 0;
+
+		ZoneStatistics(String zoneId, ThreadPoolExecutor executor)
+		{
+			this.zoneId = zoneId;
+			this.executor = executor;
+		}
+
+		synchronized void recordSent(long latency)
+		{
+			sentCount++;
+			lastLatency = latency;
+			maxLatency = Math.max(maxLatency, latency);
+			totalLatency = totalLatency + latency;
+		}
+
+		synchronized void recordFailed()
+		{
+			failedCount++;
+		}
+
+		synchronized void recordSkipped()
+		{
+			skippedCount++;
+		}
+
+		synchronized void recordRejected()
+		{
+			rejectedCount++;
+		}
+
+		public String getZoneId()
+		{
+			return this.zoneId;
+		}
+
+		/**
+		 * Returns the number of requests waiting to be sent.
+		 */
+		public int getQueueDepth()
+		{
+			return executor.getQueue().size();
+		}
+
+		/**
+		 * Returns the number of requests that are being sent right now.
+		 */
+		public int getInFlight()
+		{
+			return executor.getActiveCount();
+		}
+
+		public synchronized long getSentCount()
+		{
+			return this.sentCount;
+		}
+
+		public synchronized long getFailedCount()
+		{
+			return this.failedCount;
+		}
+
+		/**
+		 * Returns the number of requests not sent because the zone was not connected.
+		 */
+		public synchronized long getSkippedCount()
+		{
+			return this.skippedCount;
+		}
+
+		/**
+		 * Returns the number of requests not queued because the queue of the zone was full.
+		 */
+		public synchronized long getRejectedCount()
+		{
+			return this.rejectedCount;
+		}
+
+		public synchronized long getLastLatency()
+		{
+			return this.lastLatency;
+		}
+
+		public synchronized long getMaxLatency()
+		{
+			return this.maxLatency;
+		}
+
+		public synchronized long getAverageLatency()
+		{
+			return (sentCount == 0) ? 0 : totalLatency / sentCount;
+		}
+
+		@Override
+		public synchronized String toString()
+		{
+			return "zone = "+zoneId+", queued = "+getQueueDepth()+", in flight = "+getInFlight()+
+			       ", sent = "+sentCount+", failed = "+failedCount+", skipped (zone down) = "+skippedCount+
+			       ", rejected (queue full) = "+rejectedCount+
+			       ", latency last/avg/max = "+lastLatency+"/"+getAverageLatency()+"/"+maxLatency+"ms";
+		}
+	}
+
+	/*---------------------*/
+	/*-- Private Classes --*/
+	/*---------------------*/
+
+	/* The queue, threads, rate limit and statistics of one zone. */
+	private class ZoneChannel
+	{
+		private final String zoneId;
+		private final ThreadPoolExecutor executor;
+		private final TokenBucket tokenBucket;
+		private final ZoneStatistics statistics;
+		private final Map<String, Integer> pendingRequests = new HashMap<String, Integer>();
+
+		ZoneChannel(String zoneId)
+		{
+			this.zoneId = zoneId;
+			executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(maxQueueSize), new RequestThreadFactory(zoneId));
+			executor.allowCoreThreadTimeOut(true);
+			tokenBucket = new TokenBucket(ratePerSecond, burst);
+			statistics = new ZoneStatistics(zoneId, executor);
+		}
+
+		synchronized void incrementPending(String requester)
+		{
+			pendingRequests.put(requester, getPending(requester) + 1);
+		}
+
+		synchronized void decrementPending(String requester)
+		{
+			int pending = getPending(requester) - 1;
+			if (pending > 0)
+			{
+				pendingRequests.put(requester, pending);
+			}
+			else
+			{
+				pendingRequests.remove(requester);
+			}
+		}
+
+		synchronized int getPending(String requester)
+		{
+			Integer pending = pendingRequests.get(requester);
+			return (pending == null) ? 0 : pending;
+		}
+	}
+
+	/*
+	 * Sends one query to a zone. The zone is checked again before the query is sent as it may have gone down while the
+	 * request was queued.
+	 */
+	private static class SendRequestTask implements Runnable
+	{
+		private final ZoneChannel channel;
+		private final Zone zone;
+		private final String requester;
+		private final Query query;
+		private final Runnable onSent;
+
+		SendRequestTask(ZoneChannel channel, Zone zone, String requester, Query query, Runnable onSent)
+		{
+			this.channel = channel;
+			this.zone = zone;
+			this.requester = requester;
+			this.query = query;
+			this.onSent = onSent;
+		}
+
+		public void run()
+		{
+			try
+			{
+				if (!zone.isConnected())
+				{
+					channel.statistics.recordSkipped();
+					return;
+				}
+				channel.tokenBucket.acquire();
+
+				long startTime = System.currentTimeMillis();
+				zone.query(query);// Send the query to the Zone.
+				channel.statistics.recordSent(System.currentTimeMillis() - startTime);
+
+				if (onSent != null)
+				{
+					onSent.run();
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch (Exception ex)
+			{
+				channel.statistics.recordFailed();
+				logger.error("Failed to send request of "+requester+" to zone "+zone.getZoneId()+".", ex);
+			}
+			finally
+			{
+				channel.decrementPending(requester);
+			}
+		}
+	}
+
+	/*
+	 * Token bucket that allows 'ratePerSecond' requests per second on average and up to 'burst' requests at once
+	 * after a quiet period. A rate of 0 means no limit.
+	 */
+	private static class TokenBucket
+	{
+		private final double ratePerMilli;
+		private final double capacity;
+		private double tokens;
+		private long lastRefill;
+
+		TokenBucket(double ratePerSecond, int burst)
+		{
+			this.ratePerMilli = ratePerSecond / 1000;
+			this.capacity = burst;
+			this.tokens = burst;
+			this.lastRefill = System.currentTimeMillis();
+		}
+
+		/* Blocks until a token is available and takes it. */
+		void acquire() throws InterruptedException
+		{
+			long waitMillis = reserve();
+			while (waitMillis > 0)
+			{
+				Thread.sleep(waitMillis);
+				waitMillis = reserve();
+			}
+		}
+
+		/* Takes a token and returns 0 if one is available. Otherwise returns the time to wait for the next token. */
+		private synchronized long reserve()
+		{
+			if (ratePerMilli <= 0)
+			{
+				return 0;
+			}
+			long now = System.currentTimeMillis();
+			tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerMilli);
+			lastRefill = now;
+			if (tokens >= 1)
+			{
+				tokens = tokens - 1;
+				return 0;
+			}
+			return Math.max(1, (long)Math.ceil((1 - tokens) / ratePerMilli));
+		}
+	}
+
+	private static class RequestThreadFactory implements ThreadFactory
+	{
+		private final String zoneId;
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		RequestThreadFactory(String zoneId)
+		{
+			this.zoneId = zoneId;
+		}
+
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "SBPRequest-"+zoneId+"-"+threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * DOCIdGenerator.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.common;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+
+import org.hibernate.MappingException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.exception.JDBCExceptionHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.type.Type;
+
+/**
+ * This class allocates the IDs of the DOC tables in blocks from the SCF_ID_GENERATOR table so that Hibernate can send
+ * the inserts of a transaction as JDBC batches (this is not possible with identity columns). For all databases but
+ * SQLite this is the standard Hibernate table generator (see the parameters in DOC.hbm.xml).<p><p>
+ *
+ * The standard table generator reserves a block of IDs in a separate transaction on a separate connection. SQLite
+ * only allows one writer at a time, so this would block forever if the current transaction has already written to the
+ * database (i.e. within a unit of work). For SQLite the block is therefore reserved within the current transaction
+ * and is only used by the session of that transaction. If the transaction is rolled back the reservation is rolled
+ * back as well.
+ */
+public class DOCIdGenerator extends TableGenerator
+{
+	private boolean allocateInSession = false;
+
+	/* The current block of IDs of each session: [next ID, end of block] */
+	private final Map<SessionImplementor, long[]> sessionBlocks = Collections.synchronizedMap(new WeakHashMap<SessionImplementor, long[]>());
+
+	@Override
+	public void configure(Type type, Properties params, Dialect dialect) throws MappingException
+	{
+		super.configure(type, params, dialect);
+		allocateInSession = (dialect instanceof SQLiteDialect);
+	}
+
+	/*
+	 * Not synchronized for SQLite. The block is reserved while the session may wait for the database lock held by
+	 * another session that in turn may need an ID.
+	 */
+	@Override
+	public Serializable generate(SessionImplementor session, Object obj)
+	{
+		if (!allocateInSession)
+		{
+			return super.generate(session, obj);
+		}
+
+		long[] block = sessionBlocks.get(session);
+		if ((block == null) || (block[0] >= block[1]))
+		{
+			try
+			{
+				IntegralDataTypeHolder value = (IntegralDataTypeHolder)doWorkInCurrentTransaction(session.connection(), null);
+				long firstId = value.makeValue().longValue();
+				block = new long[] {firstId, firstId + getIncrementSize()};
+			}
+			catch (SQLException ex)
+			{
+				throw JDBCExceptionHelper.convert(session.getFactory().getSQLExceptionConverter(), ex, "could not get or update next value", null);
+			}
+			sessionBlocks.put(session, block);
+		}
+		return Long.valueOf(block[0]++);
+	}
+}
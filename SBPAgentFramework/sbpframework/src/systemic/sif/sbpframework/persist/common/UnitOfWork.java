@@ -0,0 +1,212 @@
+/*
+ * UnitOfWork.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * This class allows all DB services that are called by one thread between begin() and end() to share one session and
+ * transaction rather than each service call opening its own session and committing its own transaction. It is used
+ * for the processing of a single SIF Object or Event by a subscriber so that all DOC lookups and changes for that
+ * message require one connection and one commit only and the outcome of the message is committed as a whole.<p><p>
+ *
+ * The session and transaction are only opened when the first service call requires them (see DBService.startTransaction()).
+ * Within a unit of work a call to commit() on the transaction returned to a service only flushes the changes. They are
+ * committed by end(). A call to rollback() rolls back the whole unit of work straight away. Any further service calls
+ * of the thread then fail with a PersistenceException until end() is called, so that nothing of the unit is committed
+ * partially and the caller can process the message again from a clean state.<p><p>
+ *
+ * Actions that must only happen once the changes are committed (i.e. releasing resolved objects to their subscribers)
+ * can be registered with afterCommit(). Outside a unit of work such actions are performed straight away.
+ */
+public class UnitOfWork
+{
+	protected static final Logger logger = Logger.getLogger(UnitOfWork.class);
+
+	private static final ThreadLocal<UnitOfWork> currentUnit = new ThreadLocal<UnitOfWork>();
+
+	private BasicTransaction tx = null;
+	private boolean rolledBack = false;
+	private List<Runnable> afterCommitActions = new ArrayList<Runnable>();
+
+	private UnitOfWork() {}
+
+	/**
+	 * Begins a unit of work for the current thread. If the thread is already in a unit of work then no new unit is
+	 * started and FALSE is returned. Only a caller that receives TRUE must call end().
+	 */
+	public static boolean begin()
+	{
+		if (currentUnit.get() != null)
+		{
+			return false;
+		}
+		currentUnit.set(new UnitOfWork());
+		return true;
+	}
+
+	/**
+	 * Ends the unit of work of the current thread. If commit is TRUE then all changes of the unit are committed and
+	 * the actions registered with afterCommit() are performed. If commit is FALSE then all changes are rolled back.
+	 * If the unit has already been rolled back by a service then nothing is committed.
+	 *
+	 * @return FALSE if commit is TRUE but the changes could not be committed, i.e. the commit failed or the unit has
+	 *         already been rolled back by a service. The changes are rolled back. TRUE otherwise.
+	 */
+	public static boolean end(boolean commit)
+	{
+		UnitOfWork unit = currentUnit.get();
+		currentUnit.remove();
+		if (unit == null)
+		{
+			return true;
+		}
+		if (unit.rolledBack)
+		{
+			return !commit;
+		}
+		if (!commit)
+		{
+			unit.rollback();
+			return true;
+		}
+
+		try
+		{
+			if (unit.tx != null)
+			{
+				unit.tx.commit();
+			}
+		}
+		catch (Exception ex)
+		{
+			logger.error("Failed to commit unit of work. All its changes are rolled back.", ex);
+			unit.rollback();
+			return false;
+		}
+		for (Runnable action : unit.afterCommitActions)
+		{
+			action.run();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a transaction that participates in the unit of work of the current thread. If the thread is not in a
+	 * unit of work then null is returned.
+	 *
+	 * @throws PersistenceException The unit of work of the current thread has already been rolled back.
+	 */
+	public static BasicTransaction joinTransaction()
+	{
+		UnitOfWork unit = currentUnit.get();
+		if (unit == null)
+		{
+			return null;
+		}
+		if (unit.rolledBack)
+		{
+			throw new PersistenceException("The unit of work of this thread has been rolled back. No further DB calls are possible until it has ended.");
+		}
+		if (unit.tx == null)
+		{
+			unit.tx = new BasicTransaction();
+			unit.tx.startTransaction();
+		}
+		return unit.new ParticipatingTransaction();
+	}
+
+	/**
+	 * Performs the given action once the unit of work of the current thread is committed. If the thread is not in a
+	 * unit of work then the action is performed straight away. If the unit of work is or has been rolled back then
+	 * the action is not performed.
+	 */
+	public static void afterCommit(Runnable action)
+	{
+		UnitOfWork unit = currentUnit.get();
+		if (unit == null)
+		{
+			action.run();
+		}
+		else if (!unit.rolledBack)
+		{
+			unit.afterCommitActions.add(action);
+		}
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private void rollback()
+	{
+		rolledBack = true;
+		afterCommitActions.clear();
+		if (tx != null)
+		{
+			tx.rollback();
+			tx = null;
+		}
+	}
+
+	/*
+	 * The transaction handed to the services within a unit of work.
+	 */
+	private class ParticipatingTransaction extends BasicTransaction
+	{
+		@Override
+		public void startTransaction() {}
+
+		@Override
+		public Session getSession()
+		{
+			return (tx == null) ? null : tx.getSession();
+		}
+
+		@Override
+		public Transaction getTransaction()
+		{
+			return (tx == null) ? null : tx.getTransaction();
+		}
+
+		/*
+		 * Only flush so that errors are reported to the service. The unit of work commits.
+		 */
+		@Override
+		public void commit()
+		{
+			if (tx != null)
+			{
+				tx.getSession().flush();
+			}
+		}
+
+		@Override
+		public void rollback()
+		{
+			UnitOfWork.this.rollback();
+		}
+	}
+}
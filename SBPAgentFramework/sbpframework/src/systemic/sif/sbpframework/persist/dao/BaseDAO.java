@@ -1,30 +1,73 @@
-/*
- * BaseDAO.java
- * Created: 07/10/2011
- *
- * Copyright 2011 Systemic Pty Ltd
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License 
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied.
- * See the License for the specific language governing permissions and limitations under the License.
- */
-
-package systemic.sif.sbpframework.persist.dao;
-
-
-/**
- * @author Joerg Huber
- *
- * This class is a 'place holder' at this time. In future some generic methods might be added and therefore
- * all DAO classes should extend this class to automatically inherit future functionality. 
- */
-public class BaseDAO
-{	
-}
+/*
+ * BaseDAO.java
+ * Created: 07/10/2011
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License 
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.dao;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.dialect.SQLServerDialect;
+
+import systemic.sif.sbpframework.persist.common.SQLiteDialect;
+
+/**
+ * @author Joerg Huber
+ *
+ * This class holds the generic methods of all DAO classes (i.e. the choice of database specific statements). All
+ * DAO classes should extend this class to automatically inherit future functionality.
+ */
+public class BaseDAO
+{
+	/**
+	 * Returns the one of the given statements that is written for the database of the given dialect. This is used for
+	 * statements that each database supports with its own syntax (i.e. insert-if-absent).
+	 *
+	 * @param dialect The dialect of the database the statement is executed on.
+	 * @param sqliteStatement The statement for SQLite.
+	 * @param mysqlStatement The statement for MySQL.
+	 * @param postgresStatement The statement for PostgreSQL.
+	 * @param oracleStatement The statement for Oracle (all versions, their dialects extend Oracle8iDialect).
+	 * @param mssqlStatement The statement for MS SQL Server.
+	 * @param defaultStatement The statement for any other database.
+	 */
+	protected String getStatementForDialect(Dialect dialect, String sqliteStatement, String mysqlStatement, String postgresStatement, String oracleStatement, String mssqlStatement, String defaultStatement)
+	{
+		if (dialect instanceof SQLiteDialect)
+		{
+			return sqliteStatement;
+		}
+		if (dialect instanceof MySQLDialect)
+		{
+			return mysqlStatement;
+		}
+		if (dialect instanceof PostgreSQLDialect)
+		{
+			return postgresStatement;
+		}
+		if (dialect instanceof Oracle8iDialect)
+		{
+			return oracleStatement;
+		}
+		if (dialect instanceof SQLServerDialect)
+		{
+			return mssqlStatement;
+		}
+		return defaultStatement;
+	}
+}
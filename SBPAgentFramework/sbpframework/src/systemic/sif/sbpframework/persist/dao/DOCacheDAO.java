@@ -1,485 +1,1299 @@
-/*
- * DOCacheDAO.java
- * Created: 14/10/2011
- *
- * Copyright 2011 Systemic Pty Ltd
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License 
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied.
- * See the License for the specific language governing permissions and limitations under the License.
- */
-
-package systemic.sif.sbpframework.persist.dao;
-
-import java.util.Date;
-import java.util.List;
-import java.util.Set;
-
-import javax.persistence.PersistenceException;
-
-import org.apache.log4j.Logger;
-import org.hibernate.Criteria;
-import org.hibernate.HibernateException;
-import org.hibernate.criterion.Restrictions;
-
-import systemic.sif.sbpframework.persist.common.BasicTransaction;
-import systemic.sif.sbpframework.persist.common.HibernateUtil;
-import systemic.sif.sbpframework.persist.model.DOCObject;
-import systemic.sif.sbpframework.persist.model.DOCache;
-import au.com.systemic.framework.utils.StringUtils;
-
-/**
- * @author Joerg Huber
- *
- */
-public class DOCacheDAO extends BaseDAO
-{
-	
-	protected final Logger logger = Logger.getLogger(getClass());
-	
-    /**
-	 * This method attempts to retrieve a cached SIF Object based on the object name, object key (flatten key) and the
-	 * agentId. Since each object can only be provided from one zone the zoneID is irrelevant and is not required to
-	 * determine if an object is already cached. If the object isn't cached then null is returned.
-	 *
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-	 * @param sifObjectName the name of the SIF Object for which the cached object info shall be returned.
-	 * @param flatKey A flattened key of the cached object that makes this object unique.
-	 * @param applicationId The application ID for which the cached object shall be returned. 
-	 * @param zoneId The zone ID for which the cached object shall be returned. 
-	 * @param loadAll TRUE=>Load all children elements (lazy loading forced). FALSE no children objects are loaded. 
-	 * 
-     * @return The DOCache object if it exists in the cache already, null if it does not exist.
-     * 
-	 * @throws IllegalArgumentException: Any of the arguments is null.
-	 * @throws PersistenceException: There is an issue with the underlying database. An error is logged.
-	 */
-    @SuppressWarnings("unchecked")
-    public DOCache retrieveCachedObject(BasicTransaction tx, String sifObjectName, String flatKey, String applicationId, String zoneId, boolean loadAll) throws IllegalArgumentException, PersistenceException
-    {
-        if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(flatKey) ||  StringUtils.isEmpty(applicationId)  ||  StringUtils.isEmpty(zoneId))
-        {
-            throw new IllegalArgumentException("sifObjecttName, flatKey, applicationId or zoneId is empty or null.");
-        }
-
-        try
-        {
-            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
-               .add(Restrictions.eq("sifObjectName", sifObjectName))
-               .add(Restrictions.eq("objectKeyValue", flatKey))
-               .add(Restrictions.eq("applicationId", applicationId))
-               .add(Restrictions.eq("zoneId", zoneId));
-
-            List<DOCache> cachedObjectList = criteria.list();
-            
-            // There can only be a maximum of one
-            if (cachedObjectList.isEmpty()) // not in cache, yet
-            {
-            	logger.debug("No entry in DOC for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId + "' and flattened Key = '"+flatKey+"'.");
-                return null;
-            }
-            else // already cached
-            {
-            	DOCache cachedObject = cachedObjectList.get(0);
-            	
-            	if (loadAll)
-            	{
-            		HibernateUtil.loadSubObject(cachedObject.getDependentObjects());
-            	}
-                return cachedObject;
-            }
-        }
-        catch (HibernateException e)
-        {
-            throw new PersistenceException("Unable to retrieve DOCache for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId + "' and flattened Key = '"+flatKey+"'.", e);
-        }
-    }
-
-    /**
-     * This method saves the given object to the DB. all sub-elements are saved as well. After the save the cacheObject
-     * will have a new ID if it is a new object.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param cacheObject The object to save to the cache.
-     * 
-     * @throws IllegalArgumentException  cacheObject parameter is null.
-     * @throws PersistenceException      A database error occurred.
-     */
-    public void save(BasicTransaction tx, DOCache cacheObject) throws IllegalArgumentException, PersistenceException
-    {
-        if (cacheObject == null)
-        {
-            throw new IllegalArgumentException("cacheObject is null.");
-        }
-
-        try
-        {
-        	tx.getSession().saveOrUpdate(cacheObject);
-        }
-        catch (HibernateException e)
-        {
-            throw new PersistenceException("Unable to save cacheObject " + cacheObject + ".", e);
-        }    	
-    }
-
-    /**
-     * This method saves the given object to the DB. all sub-elements are saved as well. After the save the cacheObject
-     * will have a new ID if it is a new object.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param docObject The object to save to the cache.
-     * 
-     * @throws IllegalArgumentException  cacheObject parameter is null.
-     * @throws PersistenceException      A database error occurred.
-     */
-    public void save(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
-    {
-        if (docObject == null)
-        {
-            throw new IllegalArgumentException("docObject is null.");
-        }
-
-        try
-        {
-        	tx.getSession().saveOrUpdate(docObject);
-        }
-        catch (HibernateException e)
-        {
-            throw new PersistenceException("Unable to save dependent object " + docObject + ".", e);
-        }    	
-    }
-
-    /**
-     * This method checks if the 'objectToTest' has already been cached for a requested. If so the object is returned
-     * so that it can be re-used in another's cached object dependent list. If the object has not yet been cached
-     * then null is returned.
-     * The 'objectToTest' must hold the following properties for this method to succeed:
-     *  - sifObjectName
-     *  - applicationId
-	 *  - objectKeyValue
-	 *  - zoneId
-     * If one of the above property is empty or null then a IllegalArgumentException is raised.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param objectToTest The object to find in the DOC.
-     * 
-     * @return See description.
-     * 
-     * @throws IllegalArgumentException  objectToTest is null or any of the properties listed above is empty or null.
-     * @throws PersistenceException      A database error occurred.
-     */
-    public DOCObject getCachedDependentObject(BasicTransaction tx, DOCObject objectToTest) throws IllegalArgumentException, PersistenceException
-    {
-    	return retrieve(tx, objectToTest);
-    }
-    
-    /**
-     * This method returns a list of dependent objects that have already been cached for a given SIF Object. If there are
-     * no dependent objects that already been cached then an empty list is returned. If the object defined by its parameters
-     * is not cached at all then null is returned and an info message is logged.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param sifObjectName The object name for which the dependent object list with already cached objects shall be returned.
-     * @param flatKey The key of the above object.
-     * @param applicationId The application Id for which the object is registered in the cache.
-     * @param zoneId The zone Id for which the object is registered in the cache.
-     * 
-     * @return See description
-     * 
-	 * @throws IllegalArgumentException: Any of the arguments is null.
-	 * @throws PersistenceException: There is an issue with the underlying database. An error is logged.
-     */
-    public Set<DOCObject> getAlreadyCachedDependentObjects(BasicTransaction tx, String sifObjectName, String flatKey, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
-    {
-    	// Get the object from the cache.
-    	DOCache cachedObject = retrieveCachedObject(tx, sifObjectName, flatKey, applicationId, zoneId, true);
-    	if (cachedObject == null)
-    	{
-    		return null;
-    	}
-    	
-    	return cachedObject.getDependentObjects();    	
-    }
-    
-    /**
-     * This method removes the docObject from the DO cache. Since there can be many objects in the DO Cache that 
-     * depend on the given object all these need to be updated accordingly.
-     * For this method to work, the following properties in the docObject must be set:
-     *  - sifObjectName
-     *  - applicationId
-     *  - objectKeyValue
-     *  - zoneId
-     *  If the object is not cached as a dependent object then no action is taken.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param docObject The object for which the dependencies shall be returned.
-     * 
-     * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
-     * @throws PersistenceException      A database error occurred.
-     */
-    @SuppressWarnings("unchecked")
-    public void removeDependency(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
-    {
-    	DOCObject depObj = retrieve(tx, docObject);
-    	if (depObj != null) // there are waiting objects for this one.
-    	{
-	    	Criteria criteria = tx.getSession().createCriteria(DOCache.class).createAlias("dependentObjects", "depObj")
-		        .add(Restrictions.eq("depObj.sifObjectName", docObject.getSifObjectName()))
-		        .add(Restrictions.eq("depObj.objectKeyValue", docObject.getObjectKeyValue()))
-		        .add(Restrictions.eq("depObj.applicationId", docObject.getApplicationId()))
-		        .add(Restrictions.eq("depObj.zoneId", docObject.getZoneId()));
-	        
-	        List<DOCache> cachedObjectList = criteria.list();
-	        if (!cachedObjectList.isEmpty())
-	        {
-	        	for (DOCache parentObj : cachedObjectList)
-	        	{
-	    			// remove depObj from parents dependent object list
-	    			parentObj.getDependentObjects().remove(depObj);
-	    			parentObj.setRemainingDependencies(parentObj.getDependentObjects().size());
-	    			tx.getSession().saveOrUpdate(parentObj);
-	        	}
-	        }
-	        
-	        // This is possibly not required because of the 'cascade=all,delete-orphan' in the hibernate mapping
-	        tx.getSession().delete(depObj); 
-    	}
-    }
-    
-    /**
-     * This method returns a list of DOC Objects. The objects are those that have not been requested, yet (requested=false).
-     * 
-     * Note: 
-     * If an agent subscribes to more than one zone for the same sifObject then this method must be called
-     * separately for each zone by the agent. If there are no cached and not yet requested objects for the
-     * given parameters then an empty list is returned.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param sifObjectName The SIF Object names to search for (i.e StudentPersonal)
-     * @param applicationId Only return objects marked for this application.
-     * @param zoneId Only return objects marked for this zone.
-     * 
-     * @return See description
-     * 
-     * @throws IllegalArgumentException  Any of the parameters is null or empty.
-     * @throws PersistenceException      A database error occurred.
-     */
-    @SuppressWarnings("unchecked")
-    public List<DOCObject> getNotYetRequestedObjects(BasicTransaction tx, String sifObjectName, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
-    {
-		if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(zoneId))
-		{
-			throw new IllegalArgumentException("Some of the following parameters are either null or empty: sifObjectName, applicationId, zoneId");
-		}
-        try
-        {
-            Criteria criteria = tx.getSession().createCriteria(DOCObject.class)
-               .add(Restrictions.eq("sifObjectName", sifObjectName))
-               .add(Restrictions.eq("applicationId", applicationId))
-               .add(Restrictions.eq("zoneId", zoneId))
-               .add(Restrictions.eq("requested", Boolean.FALSE));
-
-            return criteria.list();
-        }
-        catch (Exception ex)
-        {
-            throw new PersistenceException("Unable to retrieve list of DOCObjects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId +"'.", ex);
-        }	
-    }
-    
-    /**
-     * This method gets all cached objects of a given type for a particular application and agent that have no 
-     * remaining dependencies. These are the candidates do be removed later and be processed by the appropriate 
-     * subscriber. If there are no Cached Objects without dependencies then an empty list is returned.
-     *  
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param sifObjectName The type of cached objects to be returned.
-     * @param applicationId The application for which the objects shall be returned.
-     * @param agentId The agent for which to get the object list. 
-     * 
-     * @return See description.
-     * 
-     * @throws IllegalArgumentException  Any of the parameters is null or empty.
-     * @throws PersistenceException      A database error occurred. Error is logged.
-     */
-    @SuppressWarnings("unchecked")
-    public List<DOCache> getObjectsWithoutDependencies(BasicTransaction tx, String sifObjectName, String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
-    {
-		if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
-		{
-			throw new IllegalArgumentException("Some of the following parameters are either null or empty: sifObjectName, applicationId, agentId");
-		}
-        try
-        {
-            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
-               .add(Restrictions.eq("sifObjectName", sifObjectName))
-               .add(Restrictions.eq("applicationId", applicationId))
-               .add(Restrictions.eq("agentId", agentId))
-               .add(Restrictions.eq("remainingDependencies", 0));
-
-            return criteria.list();
-        }
-        catch (Exception ex)
-        {
-            throw new PersistenceException("Unable to retrieve list of Cached Objects without dependencies for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", ex);
-        }	
-    }
-    
-    /**
-     * This method returns all objects in the cache that have remaining dependencies but have an expiry date
-     * older than the current date and time. These are the candidates that need to either be removed or 
-     * re-requested by the agent. If there are no expired objects then an empty list is returned.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param applicationId Only return expired objects for this application.
-     * @param agentId Only return expired object that were initially cached by this agent.
-     * 
-     * @return See description.
-     * 
-     * @throws IllegalArgumentException  Any of the parameters is null or empty.
-     * @throws PersistenceException      A database error occurred. Error is logged.
-     */
-    @SuppressWarnings("unchecked")
-    public List<DOCache> getExpiredObjects(BasicTransaction tx, String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
-    {
-		if (StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
-		{
-			throw new IllegalArgumentException("Some of the following parameters are either null or empty: applicationId, agentId");
-		}
-        try
-        {
-            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
-               .add(Restrictions.eq("applicationId", applicationId))
-               .add(Restrictions.eq("agentId", agentId))
-               .add(Restrictions.gt("remainingDependencies", 0))
-               .add(Restrictions.le("expiryDate", new Date()));
-
-            return criteria.list();
-        }
-        catch (Exception ex)
-        {
-            throw new PersistenceException("Unable to retrieve list of expired Cached Objects for application = '"+ applicationId + "'and agent = '" + agentId + "'.", ex);
-        }	
-    }
-
-    /**
-     * This method removes the given cached dependent object. If the object is null then no action is taken. The
-     * object's id property must be set for this method to work.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param docObject The object to remove from the DOC_OBJECT table.
-     * 
-     * @throws PersistenceException      A database error occurred.
-     */
-    public void removeDependentObject(BasicTransaction tx, DOCObject docObject)throws PersistenceException
-    {
-        try
-        {
-            if ((docObject != null) && (docObject.getId() != null) && (docObject.getId().longValue() > 0))
-            {
-            	tx.getSession().delete(docObject);
-            }
-        }
-        catch (HibernateException e)
-        {
-            throw new PersistenceException("Unable to remove dependent object " + docObject + ".", e);
-        }    	    	
-    }
-    
-    /**
-     * This method removes the given object and all its dependencies from the cache. If the object is null then
-     * no action is taken.
-     * 
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     * @param cacheObject The object to remove from the DO Cache.
-     * 
-     * @throws PersistenceException      A database error occurred.
-     */
-    public void removeCachedObject(BasicTransaction tx, DOCache cacheObject)throws PersistenceException
-    {
-        try
-        {
-            if (cacheObject != null)
-            {
-            	Set<DOCObject> depObjectList = cacheObject.getDependentObjects();
-            	tx.getSession().delete(cacheObject);
-            	
-            	if (depObjectList != null)
-            	{
-            		for (DOCObject depObj : depObjectList)
-            		{
-            			// If the number of parents is 1 then this is the last dependency and it can be removed.
-            			if (depObj.getParents().size() <= 1)
-            			{
-            				removeDependentObject(tx, depObj);
-            			}
-            		}
-            	}
-            }
-        }
-        catch (HibernateException e)
-        {
-            throw new PersistenceException("Unable to remove cacheObject " + cacheObject + ".", e);
-        }    	    	
-    }
-    
-
-    /*---------------------*/
-    /*-- Private methods --*/
-    /*---------------------*/
-    
-    /*
-     * For this method to work, the following properties in the docObject must be set:
-     *  - sifObjectName
-     *  - applicationId
-     *  - objectKeyValue
-     *  - zoneId
-     *  If the object is not cached as a dependent object then no action is taken.
-     *  
-	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
-     *  
-    * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
-    * @throws PersistenceException      A database error occurred.
-    */
-   @SuppressWarnings("unchecked")
-   public DOCObject retrieve(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
-   {
-		if (docObject == null)
-		{
-			throw new IllegalArgumentException("docObject == null! Not allowed.");
-		}
-		if (StringUtils.isEmpty(docObject.getSifObjectName())
-		        || StringUtils.isEmpty(docObject.getApplicationId())
-		        || StringUtils.isEmpty(docObject.getZoneId())
-		        || StringUtils.isEmpty(docObject.getObjectKeyValue()))
-		{
-			throw new IllegalArgumentException("Some of the following properties in the 'docObject' are empty or null: sifObjectName, applicationId, zoneId, objectKeyValue");
-		}
-
-		Criteria criteria = tx.getSession().createCriteria(DOCObject.class)
-		        .add(Restrictions.eq("sifObjectName", docObject.getSifObjectName()))
-		        .add(Restrictions.eq("objectKeyValue", docObject.getObjectKeyValue()))
-		        .add(Restrictions.eq("applicationId", docObject.getApplicationId()))
-		        .add(Restrictions.eq("zoneId", docObject.getZoneId()));
-
-		List<DOCObject> cachedObjectList = criteria.list();
-		
-		// There can only be a maximum of one
-		if (cachedObjectList.isEmpty())
-		{
-			return null; // No dependency on this object => return null.
-		}
-		else
-		{
-			return cachedObjectList.get(0);
-		}
-   }
-    
-}
+/*
+ * DOCacheDAO.java
+ * Created: 14/10/2011
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License 
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.dao;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.LockOptions;
+import org.hibernate.NonUniqueObjectException;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.type.StandardBasicTypes;
+
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.common.HibernateUtil;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import au.com.systemic.framework.utils.StringUtils;
+
+/**
+ * @author Joerg Huber
+ *
+ */
+public class DOCacheDAO extends BaseDAO
+{
+	
+	protected final Logger logger = Logger.getLogger(getClass());
+	
+	/* Selects the ids of the dependent object rows identified by their key properties. */
+	private static final String DEPENDENT_OBJECT_IDS = 
+		"select DOC_OBJECT_ID from SCF_DOC_OBJECT where SIF_OBJECT_NAME = :sifObjectName and OBJECT_KEY_VALUE = :objectKeyValue and APPLICATION_ID = :applicationId and ZONE_ID = :zoneId";
+
+	/* Sets the remaining dependencies of all cached objects waiting on the dependent object to the number of their other dependencies. */
+	private static final String UPDATE_REMAINING_DEPENDENCIES = 
+		"update SCF_DO_CACHE set DEPENENCY_REMAINING = " +
+		"(select count(*) from SCF_DOC_OBJECT_LIST l where l.DO_CACHE_ID = SCF_DO_CACHE.DO_CACHE_ID and l.DEPENDENT_OBJECT_ID not in ("+DEPENDENT_OBJECT_IDS+")) " +
+		"where DO_CACHE_ID in (select DO_CACHE_ID from SCF_DOC_OBJECT_LIST where DEPENDENT_OBJECT_ID in ("+DEPENDENT_OBJECT_IDS+"))";
+	
+	/* Selects the ids of the cached objects waiting on the dependent object that have no remaining dependencies. */
+	private static final String RESOLVED_CACHED_OBJECT_IDS = 
+		"select DO_CACHE_ID from SCF_DO_CACHE where DEPENENCY_REMAINING = 0 and " +
+		"DO_CACHE_ID in (select DO_CACHE_ID from SCF_DOC_OBJECT_LIST where DEPENDENT_OBJECT_ID in ("+DEPENDENT_OBJECT_IDS+"))";
+	
+	/* Maximum number of ids used in one 'in' clause. Some databases (i.e. Oracle) limit the size of the list. */
+	private static final int MAX_IDS_PER_QUERY = 500;
+	
+	private static final String DELETE_DEPENDENCY_LINKS = 
+		"delete from SCF_DOC_OBJECT_LIST where DEPENDENT_OBJECT_ID in ("+DEPENDENT_OBJECT_IDS+")";
+	
+	/* Selects the ids and key properties of the dependent objects that no other than the given cached objects wait on. */
+	private static final String ORPHANED_DEPENDENT_OBJECTS = 
+		"select DOC_OBJECT_ID, SIF_OBJECT_NAME, OBJECT_KEY_VALUE, APPLICATION_ID, ZONE_ID from SCF_DOC_OBJECT where " +
+		"DOC_OBJECT_ID in (select DEPENDENT_OBJECT_ID from SCF_DOC_OBJECT_LIST where DO_CACHE_ID in (:ids)) and " +
+		"DOC_OBJECT_ID not in (select DEPENDENT_OBJECT_ID from SCF_DOC_OBJECT_LIST where DO_CACHE_ID not in (:ids))";
+
+	private static final String DELETE_CACHED_OBJECT_LINKS = 
+		"delete from SCF_DOC_OBJECT_LIST where DO_CACHE_ID in (:ids)";
+
+	private static final String DELETE_DEPENDENT_OBJECTS_BY_ID = 
+		"delete from SCF_DOC_OBJECT where DOC_OBJECT_ID in (:ids)";
+
+	private static final String DELETE_CACHED_OBJECTS_BY_ID = 
+		"delete from SCF_DO_CACHE where DO_CACHE_ID in (:ids)";
+	
+	private static final String RESET_REQUESTED_DEPENDENT_OBJECTS = 
+		"update SCF_DOC_OBJECT set REQUESTED = :requested, REQUEST_ATTEMPTS = 0, NEXT_REQUEST_DATE = null " +
+		"where (NEXT_REQUEST_DATE is null or NEXT_REQUEST_DATE <= :now) and DOC_OBJECT_ID in (select DEPENDENT_OBJECT_ID from SCF_DOC_OBJECT_LIST where DO_CACHE_ID in (:ids))";
+
+	private static final String RESET_EXPIRY_OF_CACHED_OBJECTS = 
+		"update SCF_DO_CACHE set EXPIRY_DATE = :expiryDate, EXPIRY_STRATEGY = :expiryStrategy where DO_CACHE_ID in (:ids)";
+	
+	private static final String DELETE_DEPENDENT_OBJECT = 
+		"delete from SCF_DOC_OBJECT where SIF_OBJECT_NAME = :sifObjectName and OBJECT_KEY_VALUE = :objectKeyValue and APPLICATION_ID = :applicationId and ZONE_ID = :zoneId";
+	
+	/* Columns and values of a new dependent object row. */
+	private static final String DEPENDENT_OBJECT_COLUMNS = 
+		"(DOC_OBJECT_ID, SIF_OBJECT_NAME, OBJECT_KEY_VALUE, AGENT_ID, APPLICATION_ID, ZONE_ID, REQUESTED, REQUEST_DATE, REQUEST_ATTEMPTS, NEXT_REQUEST_DATE)";
+	private static final String DEPENDENT_OBJECT_VALUES = 
+		"(:id, :sifObjectName, :objectKeyValue, :agentId, :applicationId, :zoneId, :requested, :requestDate, :requestAttempts, :nextRequestDate)";
+	
+	/* 
+	 * Inserts a dependent object row unless a row with the same key properties exists (unique key of SCF_DOC_OBJECT).
+	 * One statement per database that supports it natively. The update count is 0 if the row exists.
+	 */
+	private static final String INSERT_DEPENDENT_OBJECT_SQLITE = 
+		"insert or ignore into SCF_DOC_OBJECT "+DEPENDENT_OBJECT_COLUMNS+" values "+DEPENDENT_OBJECT_VALUES;
+
+	private static final String INSERT_DEPENDENT_OBJECT_MYSQL = 
+		"insert ignore into SCF_DOC_OBJECT "+DEPENDENT_OBJECT_COLUMNS+" values "+DEPENDENT_OBJECT_VALUES;
+
+	private static final String INSERT_DEPENDENT_OBJECT_POSTGRES = 
+		"insert into SCF_DOC_OBJECT "+DEPENDENT_OBJECT_COLUMNS+" values "+DEPENDENT_OBJECT_VALUES+" on conflict do nothing";
+
+	private static final String INSERT_DEPENDENT_OBJECT_ORACLE = 
+		"merge into SCF_DOC_OBJECT t using (select :sifObjectName SIF_OBJECT_NAME, :objectKeyValue OBJECT_KEY_VALUE, :applicationId APPLICATION_ID, :zoneId ZONE_ID from dual) k " +
+		"on (t.SIF_OBJECT_NAME = k.SIF_OBJECT_NAME and t.OBJECT_KEY_VALUE = k.OBJECT_KEY_VALUE and t.APPLICATION_ID = k.APPLICATION_ID and t.ZONE_ID = k.ZONE_ID) " +
+		"when not matched then insert "+DEPENDENT_OBJECT_COLUMNS+" values "+DEPENDENT_OBJECT_VALUES;
+
+	private static final String INSERT_DEPENDENT_OBJECT_MSSQL = 
+		"merge into SCF_DOC_OBJECT with (holdlock) as t using (select :sifObjectName as SIF_OBJECT_NAME, :objectKeyValue as OBJECT_KEY_VALUE, :applicationId as APPLICATION_ID, :zoneId as ZONE_ID) as k " +
+		"on (t.SIF_OBJECT_NAME = k.SIF_OBJECT_NAME and t.OBJECT_KEY_VALUE = k.OBJECT_KEY_VALUE and t.APPLICATION_ID = k.APPLICATION_ID and t.ZONE_ID = k.ZONE_ID) " +
+		"when not matched then insert "+DEPENDENT_OBJECT_COLUMNS+" values "+DEPENDENT_OBJECT_VALUES+";";
+
+	/* Any other database: A row that already exists is reported as a constraint violation. */
+	private static final String INSERT_DEPENDENT_OBJECT = 
+		"insert into SCF_DOC_OBJECT "+DEPENDENT_OBJECT_COLUMNS+" values "+DEPENDENT_OBJECT_VALUES;
+	
+    /**
+	 * This method attempts to retrieve a cached SIF Object based on the object name, object key (flatten key) and the
+	 * agentId. Since each object can only be provided from one zone the zoneID is irrelevant and is not required to
+	 * determine if an object is already cached. If the object isn't cached then null is returned.
+	 *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+	 * @param sifObjectName the name of the SIF Object for which the cached object info shall be returned.
+	 * @param flatKey A flattened key of the cached object that makes this object unique.
+	 * @param applicationId The application ID for which the cached object shall be returned. 
+	 * @param zoneId The zone ID for which the cached object shall be returned. 
+	 * @param loadAll TRUE=>Load all children elements (lazy loading forced). FALSE no children objects are loaded. 
+	 * 
+     * @return The DOCache object if it exists in the cache already, null if it does not exist.
+     * 
+	 * @throws IllegalArgumentException: Any of the arguments is null.
+	 * @throws PersistenceException: There is an issue with the underlying database. An error is logged.
+	 */
+    @SuppressWarnings("unchecked")
+    public DOCache retrieveCachedObject(BasicTransaction tx, String sifObjectName, String flatKey, String applicationId, String zoneId, boolean loadAll) throws IllegalArgumentException, PersistenceException
+    {
+        if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(flatKey) ||  StringUtils.isEmpty(applicationId)  ||  StringUtils.isEmpty(zoneId))
+        {
+            throw new IllegalArgumentException("sifObjecttName, flatKey, applicationId or zoneId is empty or null.");
+        }
+
+        try
+        {
+            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
+               .add(Restrictions.eq("sifObjectName", sifObjectName))
+               .add(Restrictions.eq("objectKeyValue", flatKey))
+               .add(Restrictions.eq("applicationId", applicationId))
+               .add(Restrictions.eq("zoneId", zoneId));
+
+            List<DOCache> cachedObjectList = criteria.list();
+            
+            // There can only be a maximum of one
+            if (cachedObjectList.isEmpty()) // not in cache, yet
+            {
+            	logger.debug("No entry in DOC for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId + "' and flattened Key = '"+flatKey+"'.");
+                return null;
+            }
+            else // already cached
+            {
+            	DOCache cachedObject = cachedObjectList.get(0);
+            	
+            	if (loadAll)
+            	{
+            		HibernateUtil.loadSubObject(cachedObject.getDependentObjects());
+            	}
+                return cachedObject;
+            }
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to retrieve DOCache for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId + "' and flattened Key = '"+flatKey+"'.", e);
+        }
+    }
+
+    /**
+     * This method returns the cached objects of the given type, application and zone for all the given flattened keys
+     * with one query per 500 keys. Dependent objects are not loaded. Keys that are not cached have no entry in the
+     * returned list. If none of the keys is cached then an empty list is returned.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+	 * @param sifObjectName the name of the SIF Object for which the cached objects shall be returned.
+	 * @param flatKeys The flattened keys of the cached objects.
+	 * @param applicationId The application ID for which the cached objects shall be returned. 
+	 * @param zoneId The zone ID for which the cached objects shall be returned. 
+	 * 
+     * @return See description.
+     * 
+	 * @throws IllegalArgumentException: Any of the arguments is null.
+	 * @throws PersistenceException: There is an issue with the underlying database. An error is logged.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCache> retrieveCachedObjects(BasicTransaction tx, String sifObjectName, List<String> flatKeys, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+        if (StringUtils.isEmpty(sifObjectName) || (flatKeys == null) ||  StringUtils.isEmpty(applicationId)  ||  StringUtils.isEmpty(zoneId))
+        {
+            throw new IllegalArgumentException("sifObjecttName, flatKeys, applicationId or zoneId is empty or null.");
+        }
+        try
+        {
+        	List<DOCache> cachedObjectList = new ArrayList<DOCache>();
+        	for (int i=0; i<flatKeys.size(); i=i+MAX_IDS_PER_QUERY)
+        	{
+	            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
+	               .add(Restrictions.eq("sifObjectName", sifObjectName))
+	               .add(Restrictions.in("objectKeyValue", flatKeys.subList(i, Math.min(flatKeys.size(), i+MAX_IDS_PER_QUERY))))
+	               .add(Restrictions.eq("applicationId", applicationId))
+	               .add(Restrictions.eq("zoneId", zoneId));
+	            cachedObjectList.addAll(criteria.list());
+        	}
+        	return cachedObjectList;
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to retrieve DOCaches for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId + "' and flattened Keys = "+flatKeys+".", e);
+        }
+    }
+
+    /**
+     * This method saves the given object to the DB. all sub-elements are saved as well. After the save the cacheObject
+     * will have a new ID if it is a new object.<p><p>
+     * 
+     * Dependent objects that are not yet held by the session of the transaction are linked by their ID. New dependent 
+     * objects are inserted with insertDependentObject() first, so that a dependent object that has been inserted by
+     * another thread in the meantime is shared rather than inserted a second time. Such dependent objects get the ID
+     * of that row assigned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param cacheObject The object to save to the cache.
+     * 
+     * @throws IllegalArgumentException  cacheObject parameter is null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void save(BasicTransaction tx, DOCache cacheObject) throws IllegalArgumentException, PersistenceException
+    {
+        if (cacheObject == null)
+        {
+            throw new IllegalArgumentException("cacheObject is null.");
+        }
+
+        try
+        {
+        	attachDependentObjects(tx, cacheObject);
+        	tx.getSession().saveOrUpdate(cacheObject);
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to save cacheObject " + cacheObject + ".", e);
+        }    	
+    }
+
+    /**
+     * This method saves the given object to the DB. all sub-elements are saved as well. After the save the cacheObject
+     * will have a new ID if it is a new object.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param docObject The object to save to the cache.
+     * 
+     * @throws IllegalArgumentException  cacheObject parameter is null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void save(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
+    {
+        if (docObject == null)
+        {
+            throw new IllegalArgumentException("docObject is null.");
+        }
+
+        try
+        {
+        	tx.getSession().saveOrUpdate(docObject);
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to save dependent object " + docObject + ".", e);
+        }    	
+    }
+
+    /**
+     * This method inserts the given dependent object unless a dependent object with the same key properties already 
+     * exists. Where the database supports it this is done with one insert-if-absent statement, so concurrent inserts
+     * of the same dependent object never fail and never create a second row. The row is only read if it already 
+     * existed. The given docObject is not changed and not added to the session.
+     * The 'docObject' must hold the following properties for this method to succeed:
+     *  - sifObjectName
+     *  - applicationId
+	 *  - objectKeyValue
+	 *  - zoneId
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param docObject The dependent object to insert.
+     * 
+     * @return The ID of the inserted or already existing row.
+     * 
+     * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public Long insertDependentObject(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
+    {
+    	checkKeyProperties(docObject);
+    	try
+    	{
+    		SessionImplementor session = (SessionImplementor)tx.getSession();
+    		Long id = (Long)session.getFactory().getIdentifierGenerator(DOCObject.class.getName()).generate(session, docObject);
+    		
+    		int numInserted = 0;
+    		String insertStatement = getStatementForDialect(session.getFactory().getDialect(), INSERT_DEPENDENT_OBJECT_SQLITE, INSERT_DEPENDENT_OBJECT_MYSQL,
+    			INSERT_DEPENDENT_OBJECT_POSTGRES, INSERT_DEPENDENT_OBJECT_ORACLE, INSERT_DEPENDENT_OBJECT_MSSQL, INSERT_DEPENDENT_OBJECT);
+    		try
+    		{
+    			numInserted = bindDependencyKey(tx.getSession().createSQLQuery(insertStatement), docObject)
+    				.setParameter("id", id, StandardBasicTypes.LONG)
+    				.setParameter("agentId", docObject.getAgentId(), StandardBasicTypes.STRING)
+    				.setParameter("requested", docObject.getRequested(), StandardBasicTypes.BOOLEAN)
+    				.setParameter("requestDate", docObject.getRequestDate(), StandardBasicTypes.TIMESTAMP)
+    				.setParameter("requestAttempts", docObject.getRequestAttempts(), StandardBasicTypes.INTEGER)
+    				.setParameter("nextRequestDate", docObject.getNextRequestDate(), StandardBasicTypes.TIMESTAMP)
+    				.executeUpdate();
+    		}
+    		catch (ConstraintViolationException ex) // row has been inserted by another transaction
+    		{
+    			logger.debug("Dependent object "+docObject.getSifObjectName()+" with key "+docObject.getObjectKeyValue()+" has been inserted concurrently. Use existing one.");
+    		}
+    		if (numInserted > 0)
+    		{
+    			return id;
+    		}
+    		
+    		List<?> ids = bindDependencyKey(tx.getSession().createSQLQuery(DEPENDENT_OBJECT_IDS).addScalar("DOC_OBJECT_ID", StandardBasicTypes.LONG), docObject).list();
+    		if (ids.isEmpty())
+    		{
+                throw new PersistenceException("Dependent object " + docObject + " could neither be inserted nor found.");
+    		}
+    		return (Long)ids.get(0);
+    	}
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to insert dependent object " + docObject + ".", e);
+        }    	
+    }
+
+    /**
+     * This method checks if the 'objectToTest' has already been cached for a requested. If so the object is returned
+     * so that it can be re-used in another's cached object dependent list. If the object has not yet been cached
+     * then null is returned.
+     * The 'objectToTest' must hold the following properties for this method to succeed:
+     *  - sifObjectName
+     *  - applicationId
+	 *  - objectKeyValue
+	 *  - zoneId
+     * If one of the above property is empty or null then a IllegalArgumentException is raised.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param objectToTest The object to find in the DOC.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  objectToTest is null or any of the properties listed above is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public DOCObject getCachedDependentObject(BasicTransaction tx, DOCObject objectToTest) throws IllegalArgumentException, PersistenceException
+    {
+    	return retrieve(tx, objectToTest);
+    }
+    
+    /**
+     * This method returns the dependent objects of the given type, application and zone that are already in the DOC
+     * for all the given flattened keys with one query per 500 keys. This is the same as calling 
+     * getCachedDependentObject() for each key. Keys that are not in the DOC have no entry in the returned list. If
+     * none of the keys is in the DOC then an empty list is returned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName The SIF Object name of the dependent objects.
+     * @param flatKeys The flattened keys of the dependent objects.
+     * @param applicationId The application of the dependent objects.
+     * @param zoneId The zone of the dependent objects.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCObject> getCachedDependentObjects(BasicTransaction tx, String sifObjectName, List<String> flatKeys, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+        if (StringUtils.isEmpty(sifObjectName) || (flatKeys == null) ||  StringUtils.isEmpty(applicationId)  ||  StringUtils.isEmpty(zoneId))
+        {
+            throw new IllegalArgumentException("sifObjecttName, flatKeys, applicationId or zoneId is empty or null.");
+        }
+        try
+        {
+        	List<DOCObject> docObjectList = new ArrayList<DOCObject>();
+        	for (int i=0; i<flatKeys.size(); i=i+MAX_IDS_PER_QUERY)
+        	{
+	            Criteria criteria = tx.getSession().createCriteria(DOCObject.class)
+	               .add(Restrictions.eq("sifObjectName", sifObjectName))
+	               .add(Restrictions.in("objectKeyValue", flatKeys.subList(i, Math.min(flatKeys.size(), i+MAX_IDS_PER_QUERY))))
+	               .add(Restrictions.eq("applicationId", applicationId))
+	               .add(Restrictions.eq("zoneId", zoneId));
+	            docObjectList.addAll(criteria.list());
+        	}
+        	return docObjectList;
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to retrieve dependent objects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId + "' and flattened Keys = "+flatKeys+".", e);
+        }
+    }
+    
+    /**
+     * This method returns a list of dependent objects that have already been cached for a given SIF Object. If there are
+     * no dependent objects that already been cached then an empty list is returned. If the object defined by its parameters
+     * is not cached at all then null is returned and an info message is logged.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName The object name for which the dependent object list with already cached objects shall be returned.
+     * @param flatKey The key of the above object.
+     * @param applicationId The application Id for which the object is registered in the cache.
+     * @param zoneId The zone Id for which the object is registered in the cache.
+     * 
+     * @return See description
+     * 
+	 * @throws IllegalArgumentException: Any of the arguments is null.
+	 * @throws PersistenceException: There is an issue with the underlying database. An error is logged.
+     */
+    public Set<DOCObject> getAlreadyCachedDependentObjects(BasicTransaction tx, String sifObjectName, String flatKey, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+    	// Get the object from the cache.
+    	DOCache cachedObject = retrieveCachedObject(tx, sifObjectName, flatKey, applicationId, zoneId, true);
+    	if (cachedObject == null)
+    	{
+    		return null;
+    	}
+    	
+    	return cachedObject.getDependentObjects();    	
+    }
+    
+    /**
+     * This method removes the docObject from the DO cache. Since there can be many objects in the DO Cache that 
+     * depend on the given object all these need to be updated accordingly.
+     * For this method to work, the following properties in the docObject must be set:
+     *  - sifObjectName
+     *  - applicationId
+     *  - objectKeyValue
+     *  - zoneId
+     *  If the object is not cached as a dependent object then no action is taken.<p>
+     *  
+     * The removal is done with a fixed number of set based statements regardless of the number of cached objects
+     * that wait on the docObject: The remaining dependencies of all waiting cached objects are updated, the links
+     * between the cached objects and the docObject are removed and finally the docObject itself is removed. Since
+     * these statements bypass the hibernate session, the session is flushed before the statements. Afterwards the
+     * removed docObject is evicted from the session and the cached objects loaded in the session are refreshed, so
+     * that no stale objects remain in the session. The session is not cleared, as it may be shared by a unit of work
+     * whose other loaded objects must stay attached (i.e. to load their lazy dependent objects).
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param docObject The object for which the dependencies shall be returned.
+     * 
+     * @return The number of cached objects that were waiting on the docObject.
+     * 
+     * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public int removeDependency(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
+    {
+    	return removeDependency(tx, docObject, null);
+    }
+    
+    /**
+     * Same as removeDependency(tx, docObject) but also adds the ids of all cached objects that have no remaining 
+     * dependencies after the removal to the given list. These are the objects that can now be processed. 
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param docObject The object for which the dependencies shall be returned.
+     * @param resolvedCachedObjectIds The list to which the ids of the resolved cached objects are added. If null the
+     *                                ids are not determined.
+     * 
+     * @return The number of cached objects that were waiting on the docObject.
+     * 
+     * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public int removeDependency(BasicTransaction tx, DOCObject docObject, List<Long> resolvedCachedObjectIds) throws IllegalArgumentException, PersistenceException
+    {
+    	checkKeyProperties(docObject);
+    	try
+    	{
+    		tx.getSession().flush();
+    		int numParents = bindDependencyKey(tx.getSession().createSQLQuery(UPDATE_REMAINING_DEPENDENCIES), docObject).executeUpdate();
+    		if (numParents > 0)
+    		{
+    			if (resolvedCachedObjectIds != null)
+    			{
+    				// Must be done before the links are removed.
+    				resolvedCachedObjectIds.addAll(bindDependencyKey(tx.getSession().createSQLQuery(RESOLVED_CACHED_OBJECT_IDS).addScalar("DO_CACHE_ID", StandardBasicTypes.LONG), docObject).list());
+    			}
+    			bindDependencyKey(tx.getSession().createSQLQuery(DELETE_DEPENDENCY_LINKS), docObject).executeUpdate();
+    		}
+    		bindDependencyKey(tx.getSession().createSQLQuery(DELETE_DEPENDENT_OBJECT), docObject).executeUpdate();
+    		refreshAfterDependencyRemoval(tx.getSession(), docObject);
+    		return numParents;
+    	}
+    	catch (HibernateException e)
+    	{
+    		throw new PersistenceException("Unable to remove dependent object " + docObject + ".", e);
+    	}
+    }
+    
+    /**
+     * This method marks the dependent objects with the given ids as requested (requested=true) by the given agent 
+     * and zone at the given date with one update statement per 500 ids. The objects are not loaded. The session is 
+     * flushed before and cleared after the statement.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param ids The ids of the dependent objects to mark as requested.
+     * @param agentId The agent that has requested the objects.
+     * @param zoneId The zone to which the request has been sent.
+     * @param requestDate The date the request has been sent.
+     * @param requestAttempts The number of times the objects have been requested including this request.
+     * @param nextRequestDate The date from which on the objects are requested again if not received by then.
+     * 
+     * @return The number of updated dependent objects.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public int markDependentObjectsAsRequested(BasicTransaction tx, List<Long> ids, String agentId, String zoneId, Date requestDate, int requestAttempts, Date nextRequestDate) throws PersistenceException
+    {
+    	int numUpdated = 0;
+        try
+        {
+    		tx.getSession().flush();
+        	for (int i=0; i<ids.size(); i=i+MAX_IDS_PER_QUERY)
+        	{
+        		numUpdated = numUpdated + tx.getSession().createQuery("update DOCObject set requested = :requested, requestDate = :requestDate, requestAttempts = :requestAttempts, nextRequestDate = :nextRequestDate, agentId = :agentId, zoneId = :zoneId where id in (:ids)")
+        			.setBoolean("requested", true)
+        			.setTimestamp("requestDate", requestDate)
+        			.setInteger("requestAttempts", requestAttempts)
+        			.setTimestamp("nextRequestDate", nextRequestDate)
+        			.setString("agentId", agentId)
+        			.setString("zoneId", zoneId)
+        			.setParameterList("ids", ids.subList(i, Math.min(ids.size(), i+MAX_IDS_PER_QUERY))).executeUpdate();
+        	}
+    		tx.getSession().clear();
+    		return numUpdated;
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to mark dependent objects with ids = " + ids + " as requested.", e);
+        }    	    	
+    }
+    
+    /**
+     * This method returns a list of DOC Objects. The objects are those that have not been requested, yet (requested=false).
+     * 
+     * Note: 
+     * If an agent subscribes to more than one zone for the same sifObject then this method must be called
+     * separately for each zone by the agent. If there are no cached and not yet requested objects for the
+     * given parameters then an empty list is returned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName The SIF Object names to search for (i.e StudentPersonal)
+     * @param applicationId Only return objects marked for this application.
+     * @param zoneId Only return objects marked for this zone.
+     * 
+     * @return See description
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCObject> getNotYetRequestedObjects(BasicTransaction tx, String sifObjectName, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+		if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(zoneId))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: sifObjectName, applicationId, zoneId");
+		}
+        try
+        {
+            Criteria criteria = tx.getSession().createCriteria(DOCObject.class)
+               .add(Restrictions.eq("sifObjectName", sifObjectName))
+               .add(Restrictions.eq("applicationId", applicationId))
+               .add(Restrictions.eq("zoneId", zoneId))
+               .add(Restrictions.eq("requested", Boolean.FALSE));
+
+            return criteria.list();
+        }
+        catch (Exception ex)
+        {
+            throw new PersistenceException("Unable to retrieve list of DOCObjects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId +"'.", ex);
+        }	
+    }
+    
+    /**
+     * This method returns a list of DOC Objects that have been requested but not been received, yet and are due to be
+     * requested again. These are the objects with a next request date of the given date or earlier that have been 
+     * requested less than maxAttempts times. If there are no such objects for the given parameters then an empty 
+     * list is returned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName The SIF Object names to search for (i.e StudentPersonal)
+     * @param applicationId Only return objects marked for this application.
+     * @param zoneId Only return objects marked for this zone.
+     * @param now Only return objects with a next request date of this date or earlier.
+     * @param maxAttempts Only return objects that have been requested less than this number of times.
+     * 
+     * @return See description
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCObject> getStaleRequestedObjects(BasicTransaction tx, String sifObjectName, String applicationId, String zoneId, Date now, int maxAttempts) throws IllegalArgumentException, PersistenceException
+    {
+		if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(zoneId) || (now == null))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: sifObjectName, applicationId, zoneId, now");
+		}
+        try
+        {
+            Criteria criteria = tx.getSession().createCriteria(DOCObject.class)
+               .add(Restrictions.eq("sifObjectName", sifObjectName))
+               .add(Restrictions.eq("applicationId", applicationId))
+               .add(Restrictions.eq("zoneId", zoneId))
+               .add(Restrictions.eq("requested", Boolean.TRUE))
+               .add(Restrictions.le("nextRequestDate", now))
+               .add(Restrictions.or(Restrictions.isNull("requestAttempts"), Restrictions.lt("requestAttempts", maxAttempts)));
+
+            return criteria.list();
+        }
+        catch (Exception ex)
+        {
+            throw new PersistenceException("Unable to retrieve list of stale requested DOCObjects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId +"'.", ex);
+        }	
+    }
+    
+    /**
+     * This method gets all cached objects of a given type for a particular application and agent that have no 
+     * remaining dependencies. These are the candidates do be removed later and be processed by the appropriate 
+     * subscriber. If there are no Cached Objects without dependencies then an empty list is returned.
+     *  
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName The type of cached objects to be returned.
+     * @param applicationId The application for which the objects shall be returned.
+     * @param agentId The agent for which to get the object list. 
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCache> getObjectsWithoutDependencies(BasicTransaction tx, String sifObjectName, String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
+    {
+		if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: sifObjectName, applicationId, agentId");
+		}
+        try
+        {
+            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
+               .add(Restrictions.eq("sifObjectName", sifObjectName))
+               .add(Restrictions.eq("applicationId", applicationId))
+               .add(Restrictions.eq("agentId", agentId))
+               .add(Restrictions.eq("remainingDependencies", 0));
+
+            return criteria.list();
+        }
+        catch (Exception ex)
+        {
+            throw new PersistenceException("Unable to retrieve list of Cached Objects without dependencies for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", ex);
+        }	
+    }
+    
+    /**
+     * This method returns one page of the cached objects of a given type for a particular application and agent that
+     * have no remaining dependencies. The objects are ordered by their id and only objects with an id greater than
+     * afterId are returned (keyset paging). To get the next page the id of the last object of the previous page is
+     * passed as afterId. This ensures that no more than pageSize objects (including their XML) are loaded at once.
+     * If there are no more objects then an empty list is returned.
+     *  
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName The type of cached objects to be returned.
+     * @param applicationId The application for which the objects shall be returned.
+     * @param agentId The agent for which to get the object list. 
+     * @param afterId Only objects with a greater id are returned. If null the first page is returned.
+     * @param pageSize The maximum number of objects to return.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCache> getObjectsWithoutDependencies(BasicTransaction tx, String sifObjectName, String applicationId, String agentId, Long afterId, int pageSize) throws IllegalArgumentException, PersistenceException
+    {
+		if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: sifObjectName, applicationId, agentId");
+		}
+        try
+        {
+            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
+               .add(Restrictions.eq("sifObjectName", sifObjectName))
+               .add(Restrictions.eq("applicationId", applicationId))
+               .add(Restrictions.eq("agentId", agentId))
+               .add(Restrictions.eq("remainingDependencies", 0))
+               .addOrder(Order.asc("id"))
+               .setMaxResults(pageSize);
+            if (afterId != null)
+            {
+            	criteria.add(Restrictions.gt("id", afterId));
+            }
+
+            return criteria.list();
+        }
+        catch (Exception ex)
+        {
+            throw new PersistenceException("Unable to retrieve page of Cached Objects without dependencies for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", ex);
+        }	
+    }
+    
+    /**
+     * This method returns the key properties of the cached objects with the given ids. Only the id, sifObjectName,
+     * objectKeyValue, applicationId, zoneId and agentId of the returned objects are set, the object XML and the 
+     * dependent objects are not loaded. Ids of objects that no longer exist are ignored. If none of the objects exist
+     * then an empty list is returned.
+     *  
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param ids The ids of the cached objects to return.
+     * 
+     * @return See description.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCache> getCachedObjectKeys(BasicTransaction tx, List<Long> ids) throws PersistenceException
+    {
+    	List<DOCache> objectList = new ArrayList<DOCache>();
+        try
+        {
+        	for (int i=0; i<ids.size(); i=i+MAX_IDS_PER_QUERY)
+        	{
+	            Query query = tx.getSession().createQuery("select c.id, c.sifObjectName, c.objectKeyValue, c.applicationId, c.zoneId, c.agentId from DOCache c where c.id in (:ids)");
+	            query.setParameterList("ids", ids.subList(i, Math.min(ids.size(), i+MAX_IDS_PER_QUERY)));
+	            for (Object[] row : (List<Object[]>)query.list())
+	            {
+	            	DOCache cachedObject = new DOCache();
+	            	cachedObject.setId((Long)row[0]);
+	            	cachedObject.setSifObjectName((String)row[1]);
+	            	cachedObject.setObjectKeyValue((String)row[2]);
+	            	cachedObject.setApplicationId((String)row[3]);
+	            	cachedObject.setZoneId((String)row[4]);
+	            	cachedObject.setAgentId((String)row[5]);
+	            	objectList.add(cachedObject);
+	            }
+        	}
+            return objectList;
+        }
+        catch (HibernateException ex)
+        {
+            throw new PersistenceException("Unable to retrieve list of Cached Objects with ids = "+ids+".", ex);
+        }	
+    }
+    
+    /**
+     * This method returns all objects in the cache that have remaining dependencies but have an expiry date
+     * older than the current date and time. These are the candidates that need to either be removed or 
+     * re-requested by the agent. If there are no expired objects then an empty list is returned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param applicationId Only return expired objects for this application.
+     * @param agentId Only return expired object that were initially cached by this agent.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCache> getExpiredObjects(BasicTransaction tx, String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
+    {
+		if (StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: applicationId, agentId");
+		}
+        try
+        {
+            Criteria criteria = tx.getSession().createCriteria(DOCache.class)
+               .add(Restrictions.eq("applicationId", applicationId))
+               .add(Restrictions.eq("agentId", agentId))
+               .add(Restrictions.gt("remainingDependencies", 0))
+               .add(Restrictions.le("expiryDate", new Date()));
+
+            return criteria.list();
+        }
+        catch (Exception ex)
+        {
+            throw new PersistenceException("Unable to retrieve list of expired Cached Objects for application = '"+ applicationId + "'and agent = '" + agentId + "'.", ex);
+        }	
+    }
+
+    /**
+     * This method returns a summary of the expired cached objects (see getExpiredObjects()) without loading any of 
+     * the objects. Each row is an array of sifObjectName, expiryStrategy and the number of expired objects with that 
+     * name and strategy. If there are no expired objects then an empty list is returned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param applicationId Only consider expired objects for this application.
+     * @param agentId Only consider expired object that were initially cached by this agent.
+     * @param expiredBefore Objects with an expiry date up to this date are expired.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getExpiredObjectSummary(BasicTransaction tx, String applicationId, String agentId, Date expiredBefore) throws IllegalArgumentException, PersistenceException
+    {
+		if (StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId) || (expiredBefore == null))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: applicationId, agentId, expiredBefore");
+		}
+        try
+        {
+            Query query = tx.getSession().createQuery("select c.sifObjectName, c.expiryStrategy, count(c.id) from DOCache c " +
+            		"where c.applicationId = :applicationId and c.agentId = :agentId and c.remainingDependencies > 0 and c.expiryDate <= :expiredBefore " +
+            		"group by c.sifObjectName, c.expiryStrategy");
+            query.setString("applicationId", applicationId);
+            query.setString("agentId", agentId);
+            query.setTimestamp("expiredBefore", expiredBefore);
+            return query.list();
+        }
+        catch (HibernateException ex)
+        {
+            throw new PersistenceException("Unable to retrieve summary of expired Cached Objects for application = '"+ applicationId + "'and agent = '" + agentId + "'.", ex);
+        }	
+    }
+
+    /**
+     * This method returns one page of the ids of the expired cached objects of the given type and expiry strategy
+     * (see getExpiredObjects()) ordered by id. Only ids greater than afterId are returned. The objects themselves are
+     * not loaded. If there are no more expired objects then an empty list is returned.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param sifObjectName Only return ids of expired objects of this type.
+     * @param expiryStrategy Only return ids of expired objects with this expiry strategy.
+     * @param applicationId Only return ids of expired objects for this application.
+     * @param agentId Only return ids of expired object that were initially cached by this agent.
+     * @param expiredBefore Objects with an expiry date up to this date are expired.
+     * @param afterId Only ids greater than this id are returned. If null the first page is returned.
+     * @param pageSize The maximum number of ids to return.
+     * 
+     * @return See description.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> getExpiredObjectIds(BasicTransaction tx, String sifObjectName, String expiryStrategy, String applicationId, String agentId, Date expiredBefore, Long afterId, int pageSize) throws PersistenceException
+    {
+        try
+        {
+            Query query = tx.getSession().createQuery("select c.id from DOCache c " +
+            		"where c.sifObjectName = :sifObjectName and c.expiryStrategy = :expiryStrategy and c.applicationId = :applicationId and c.agentId = :agentId " +
+            		"and c.remainingDependencies > 0 and c.expiryDate <= :expiredBefore and c.id > :afterId order by c.id");
+            query.setString("sifObjectName", sifObjectName);
+            query.setString("expiryStrategy", expiryStrategy);
+            query.setString("applicationId", applicationId);
+            query.setString("agentId", agentId);
+            query.setTimestamp("expiredBefore", expiredBefore);
+            query.setLong("afterId", (afterId == null) ? 0 : afterId.longValue());
+            query.setMaxResults(pageSize);
+            return query.list();
+        }
+        catch (HibernateException ex)
+        {
+            throw new PersistenceException("Unable to retrieve ids of expired Cached Objects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", ex);
+        }	
+    }
+
+    /**
+     * This method resets the cached objects with the given ids after they have expired with the REQUEST strategy. All
+     * their dependent objects are marked as not requested (requested=false) so that they are requested again and the
+     * expiry date and strategy of the cached objects are set to the given values. Dependent objects that have been 
+     * requested recently (next request date is still in the future) are not reset as they are retried anyway. This is done with set based 
+     * statements without loading any of the objects. The session is flushed before and cleared after the statements.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param ids The ids of the cached objects to reset.
+     * @param newExpiryDate The new expiry date of the cached objects.
+     * @param newExpiryStrategy The new expiry strategy of the cached objects.
+     * 
+     * @return The number of reset cached objects.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public int resetExpiredObjects(BasicTransaction tx, List<Long> ids, Date newExpiryDate, String newExpiryStrategy) throws PersistenceException
+    {
+    	int numReset = 0;
+        try
+        {
+    		tx.getSession().flush();
+        	for (int i=0; i<ids.size(); i=i+MAX_IDS_PER_QUERY)
+        	{
+        		List<Long> idChunk = ids.subList(i, Math.min(ids.size(), i+MAX_IDS_PER_QUERY));
+        		tx.getSession().createSQLQuery(RESET_REQUESTED_DEPENDENT_OBJECTS).setBoolean("requested", false).setTimestamp("now", new Date()).setParameterList("ids", idChunk).executeUpdate();
+        		numReset = numReset + tx.getSession().createSQLQuery(RESET_EXPIRY_OF_CACHED_OBJECTS)
+        			.setTimestamp("expiryDate", newExpiryDate)
+        			.setString("expiryStrategy", newExpiryStrategy)
+        			.setParameterList("ids", idChunk).executeUpdate();
+        	}
+    		tx.getSession().clear();
+    		return numReset;
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to reset expired cached objects with ids = " + ids + ".", e);
+        }    	    	
+    }
+
+    /**
+     * This method removes the given cached dependent object. If the object is null then no action is taken. The
+     * object's id property must be set for this method to work.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param docObject The object to remove from the DOC_OBJECT table.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void removeDependentObject(BasicTransaction tx, DOCObject docObject)throws PersistenceException
+    {
+        try
+        {
+            if ((docObject != null) && (docObject.getId() != null) && (docObject.getId().longValue() > 0))
+            {
+            	tx.getSession().delete(docObject);
+            }
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to remove dependent object " + docObject + ".", e);
+        }    	    	
+    }
+    
+    /**
+     * This method removes the given object and all its dependencies from the cache. If the object is null then
+     * no action is taken.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param cacheObject The object to remove from the DO Cache.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void removeCachedObject(BasicTransaction tx, DOCache cacheObject)throws PersistenceException
+    {
+    	removeCachedObject(tx, cacheObject, null);
+    }
+
+    /**
+     * Same as above but adds the dependent objects that have been removed along with the cached object to the given
+     * list if it is not null.
+     */
+    public void removeCachedObject(BasicTransaction tx, DOCache cacheObject, List<DOCObject> removedDependentObjects)throws PersistenceException
+    {
+        try
+        {
+            if (cacheObject != null)
+            {
+            	Set<DOCObject> depObjectList = cacheObject.getDependentObjects();
+            	tx.getSession().delete(cacheObject);
+            	
+            	if (depObjectList != null)
+            	{
+            		for (DOCObject depObj : depObjectList)
+            		{
+            			// If the number of parents is 1 then this is the last dependency and it can be removed.
+            			if (depObj.getParents().size() <= 1)
+            			{
+            				removeDependentObject(tx, depObj);
+            				if (removedDependentObjects != null)
+            				{
+            					removedDependentObjects.add(depObj);
+            				}
+            			}
+            		}
+            	}
+            }
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to remove cacheObject " + cacheObject + ".", e);
+        }    	    	
+    }
+    
+
+    /**
+     * This method removes the cached objects with the given ids and all dependent objects no other cached object
+     * waits on. It is the set based equivalent of calling removeCachedObject() for each of the objects and doesn't
+     * need to load any of the objects. Since these statements bypass the hibernate session, the session is flushed 
+     * before and cleared after the statements so that no stale objects remain in the session.
+     * 
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param ids The ids of the cached objects to remove. If empty then no action is taken.
+     * 
+     * @return The number of removed cached objects.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public int removeCachedObjects(BasicTransaction tx, List<Long> ids) throws PersistenceException
+    {
+    	return removeCachedObjects(tx, ids, null);
+    }
+
+    /**
+     * Same as above but adds the dependent objects that have been removed along with the cached objects to the given
+     * list if it is not null. Only the key properties of these dependent objects are set.
+     */
+    @SuppressWarnings("unchecked")
+    public int removeCachedObjects(BasicTransaction tx, List<Long> ids, List<DOCObject> removedDependentObjects) throws PersistenceException
+    {
+    	int numRemoved = 0;
+        try
+        {
+    		tx.getSession().flush();
+        	for (int i=0; i<ids.size(); i=i+MAX_IDS_PER_QUERY)
+        	{
+        		List<Long> idChunk = ids.subList(i, Math.min(ids.size(), i+MAX_IDS_PER_QUERY));
+        		
+        		// Orphans must be determined before the links are removed.
+        		List<Object[]> orphans = tx.getSession().createSQLQuery(ORPHANED_DEPENDENT_OBJECTS)
+        			.addScalar("DOC_OBJECT_ID", StandardBasicTypes.LONG)
+        			.addScalar("SIF_OBJECT_NAME", StandardBasicTypes.STRING)
+        			.addScalar("OBJECT_KEY_VALUE", StandardBasicTypes.STRING)
+        			.addScalar("APPLICATION_ID", StandardBasicTypes.STRING)
+        			.addScalar("ZONE_ID", StandardBasicTypes.STRING)
+        			.setParameterList("ids", idChunk).list();
+        		List<Long> orphanIds = new ArrayList<Long>(orphans.size());
+        		for (Object[] orphan : orphans)
+        		{
+        			orphanIds.add((Long)orphan[0]);
+        			if (removedDependentObjects != null)
+        			{
+        				DOCObject docObject = new DOCObject();
+        				docObject.setSifObjectName((String)orphan[1]);
+        				docObject.setObjectKeyValue((String)orphan[2]);
+        				docObject.setApplicationId((String)orphan[3]);
+        				docObject.setZoneId((String)orphan[4]);
+        				removedDependentObjects.add(docObject);
+        			}
+        		}
+        		tx.getSession().createSQLQuery(DELETE_CACHED_OBJECT_LINKS).setParameterList("ids", idChunk).executeUpdate();
+        		for (int j=0; j<orphanIds.size(); j=j+MAX_IDS_PER_QUERY)
+        		{
+        			tx.getSession().createSQLQuery(DELETE_DEPENDENT_OBJECTS_BY_ID).setParameterList("ids", orphanIds.subList(j, Math.min(orphanIds.size(), j+MAX_IDS_PER_QUERY))).executeUpdate();
+        		}
+        		numRemoved = numRemoved + tx.getSession().createSQLQuery(DELETE_CACHED_OBJECTS_BY_ID).setParameterList("ids", idChunk).executeUpdate();
+        	}
+    		tx.getSession().clear();
+    		return numRemoved;
+        }
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to remove cached objects with ids = " + ids + ".", e);
+        }    	    	
+    }
+
+    /**
+     * This method returns all cached objects with their dependent objects already loaded. It is used to populate
+     * the in-memory tier of the DOC at startup. If there are no cached objects then an empty list is returned.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     *
+     * @return See description.
+     *
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DOCache> getAllCachedObjects(BasicTransaction tx) throws PersistenceException
+    {
+        try
+        {
+            return tx.getSession().createQuery("select distinct c from DOCache c left join fetch c.dependentObjects").list();
+        }
+        catch (HibernateException ex)
+        {
+            throw new PersistenceException("Unable to retrieve list of all Cached Objects.", ex);
+        }
+    }
+
+    /**
+     * This method returns one page of the key properties of the dependent objects in the DOC. Each row is an array
+     * of id, sifObjectName, objectKeyValue, applicationId and zoneId. Rows are ordered by their id and only rows with
+     * an id greater than afterId are returned, so that consecutive pages don't overlap and no offset is needed. Not
+     * all JDBC drivers (i.e. SQLite) support scrollable result sets, hence paging is used.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+	 * @param afterId Only rows with an id greater than this id are returned. If null the first page is returned.
+	 * @param pageSize The maximum number of rows to return.
+     *
+     * @return See description. An empty list is returned if there are no more rows.
+     *
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getDependentObjectKeys(BasicTransaction tx, Long afterId, int pageSize) throws PersistenceException
+    {
+        try
+        {
+            Query query = tx.getSession().createQuery("select d.id, d.sifObjectName, d.objectKeyValue, d.applicationId, d.zoneId from DOCObject d where d.id > :afterId order by d.id");
+            query.setLong("afterId", (afterId == null) ? 0 : afterId.longValue());
+            query.setMaxResults(pageSize);
+            return query.list();
+        }
+        catch (HibernateException ex)
+        {
+            throw new PersistenceException("Unable to retrieve the keys of all dependent objects.", ex);
+        }
+    }
+
+    /*---------------------*/
+    /*-- Private methods --*/
+    /*---------------------*/
+    
+    /*
+     * For this method to work, the following properties in the docObject must be set:
+     *  - sifObjectName
+     *  - applicationId
+     *  - objectKeyValue
+     *  - zoneId
+     *  If the object is not cached as a dependent object then no action is taken.
+     *  
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     *  
+    * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
+    * @throws PersistenceException      A database error occurred.
+    */
+   @SuppressWarnings("unchecked")
+   public DOCObject retrieve(BasicTransaction tx, DOCObject docObject) throws IllegalArgumentException, PersistenceException
+   {
+		checkKeyProperties(docObject);
+
+		Criteria criteria = tx.getSession().createCriteria(DOCObject.class)
+		        .add(Restrictions.eq("sifObjectName", docObject.getSifObjectName()))
+		        .add(Restrictions.eq("objectKeyValue", docObject.getObjectKeyValue()))
+		        .add(Restrictions.eq("applicationId", docObject.getApplicationId()))
+		        .add(Restrictions.eq("zoneId", docObject.getZoneId()));
+
+		List<DOCObject> cachedObjectList = criteria.list();
+		
+		// There can only be a maximum of one (unique key of SCF_DOC_OBJECT)
+		if (cachedObjectList.isEmpty())
+		{
+			return null; // No dependency on this object => return null.
+		}
+		else
+		{
+			return cachedObjectList.get(0);
+		}
+   }
+
+   /*
+    * Associates the dependent objects of the cacheObject that are not held by the session with the session without
+    * reading or updating their rows (see save()). If the dependent objects are not loaded then they are left as they
+    * are. A dependent object can't be saved or updated through the cascade of the cacheObject because this would
+    * remove the links to its other parents.
+    */
+   private void attachDependentObjects(BasicTransaction tx, DOCache cacheObject) throws PersistenceException
+   {
+	   if ((cacheObject.getDependentObjects() == null) || !Hibernate.isInitialized(cacheObject.getDependentObjects()))
+	   {
+		   return;
+	   }
+	   
+	   Session session = tx.getSession();
+	   boolean replaced = false;
+	   Set<DOCObject> depObjects = new HashSet<DOCObject>();
+	   for (DOCObject docObject : cacheObject.getDependentObjects())
+	   {
+		   if (session.contains(docObject))
+		   {
+			   depObjects.add(docObject);
+		   }
+		   else
+		   {
+			   if (docObject.getId() == null)
+			   {
+				   docObject.setId(insertDependentObject(tx, docObject));
+			   }
+			   try
+			   {
+				   session.buildLockRequest(LockOptions.NONE).lock(docObject);
+				   depObjects.add(docObject);
+			   }
+			   catch (NonUniqueObjectException ex) // another instance of the same dependent object is held by the session
+			   {
+				   depObjects.add((DOCObject)session.load(DOCObject.class, docObject.getId()));
+				   replaced = true;
+			   }
+		   }
+	   }
+	   if (replaced)
+	   {
+		   cacheObject.setDependentObjects(depObjects);
+	   }
+   }
+   
+   /*
+    * Ensures that the docObject has all its key properties set: sifObjectName, applicationId, zoneId, objectKeyValue
+    */
+   private void checkKeyProperties(DOCObject docObject) throws IllegalArgumentException
+   {
+		if (docObject == null)
+		{
+			throw new IllegalArgumentException("docObject == null! Not allowed.");
+		}
+		if (StringUtils.isEmpty(docObject.getSifObjectName())
+		        || StringUtils.isEmpty(docObject.getApplicationId())
+		        || StringUtils.isEmpty(docObject.getZoneId())
+		        || StringUtils.isEmpty(docObject.getObjectKeyValue()))
+		{
+			throw new IllegalArgumentException("Some of the following properties in the 'docObject' are empty or null: sifObjectName, applicationId, zoneId, objectKeyValue");
+		}
+   }
+
+   /*
+    * Brings the objects loaded in the session up to date after the set based statements of removeDependency(): The
+    * loaded dependent object with the key of the given docObject has been removed and is evicted. The loaded cached
+    * objects are refreshed as their remaining dependencies and dependent objects may have changed. Only the cached
+    * objects waiting on the docObject have changed, but finding them would need another query and usually only few
+    * cached objects are loaded. All other objects stay attached to the session.
+    */
+   private void refreshAfterDependencyRemoval(Session session, DOCObject docObject)
+   {
+	   List<Object> cachedObjects = new ArrayList<Object>();
+	   List<Object> removedObjects = new ArrayList<Object>();
+	   for (Object key : new ArrayList<Object>(session.getStatistics().getEntityKeys()))
+	   {
+		   EntityKey entityKey = (EntityKey)key;
+		   Object entity = session.get(entityKey.getEntityName(), entityKey.getIdentifier());
+		   if (entity instanceof DOCache)
+		   {
+			   cachedObjects.add(entity);
+		   }
+		   else if ((entity instanceof DOCObject) && hasSameKey((DOCObject)entity, docObject))
+		   {
+			   removedObjects.add(entity);
+		   }
+	   }
+	   for (Object entity : removedObjects)
+	   {
+		   session.evict(entity);
+	   }
+	   for (Object entity : cachedObjects)
+	   {
+		   session.refresh(entity);
+	   }
+   }
+
+   private boolean hasSameKey(DOCObject docObject, DOCObject otherObject)
+   {
+	   return docObject.getSifObjectName().equals(otherObject.getSifObjectName())
+	   		&& docObject.getObjectKeyValue().equals(otherObject.getObjectKeyValue())
+	   		&& docObject.getApplicationId().equals(otherObject.getApplicationId())
+	   		&& docObject.getZoneId().equals(otherObject.getZoneId());
+   }
+
+   /*
+    * Binds the key properties of the docObject to the named parameters of the query.
+    */
+   private Query bindDependencyKey(Query query, DOCObject docObject)
+   {
+	   return query.setString("sifObjectName", docObject.getSifObjectName())
+	   		.setString("objectKeyValue", docObject.getObjectKeyValue())
+	   		.setString("applicationId", docObject.getApplicationId())
+	   		.setString("zoneId", docObject.getZoneId());
+   }
+    
+}
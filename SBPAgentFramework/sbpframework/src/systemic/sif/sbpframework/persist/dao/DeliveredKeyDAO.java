@@ -0,0 +1,237 @@
+/*
+ * DeliveredKeyDAO.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.type.StandardBasicTypes;
+
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.model.DeliveredKey;
+import au.com.systemic.framework.utils.StringUtils;
+
+/**
+ * This class maintains the keys of the objects that have been handed on for processing (see SCF_DELIVERED_KEY table).
+ */
+public class DeliveredKeyDAO extends BaseDAO
+{
+	protected final Logger logger = Logger.getLogger(getClass());
+
+	private static final String KEY_COLUMNS = "(SIF_OBJECT_NAME, OBJECT_KEY_VALUE, APPLICATION_ID, ZONE_ID, DELIVERED_DATE)";
+	private static final String KEY_VALUES = "(:sifObjectName, :objectKeyValue, :applicationId, :zoneId, :deliveredDate)";
+
+	/*
+	 * Inserts a key unless it exists (primary key of SCF_DELIVERED_KEY). One statement per database that supports it
+	 * natively. The same as for the dependent objects in DOCacheDAO.
+	 */
+	private static final String INSERT_KEY_SQLITE =
+		"insert or ignore into SCF_DELIVERED_KEY "+KEY_COLUMNS+" values "+KEY_VALUES;
+
+	private static final String INSERT_KEY_MYSQL =
+		"insert ignore into SCF_DELIVERED_KEY "+KEY_COLUMNS+" values "+KEY_VALUES;
+
+	private static final String INSERT_KEY_POSTGRES =
+		"insert into SCF_DELIVERED_KEY "+KEY_COLUMNS+" values "+KEY_VALUES+" on conflict do nothing";
+
+	private static final String INSERT_KEY_ORACLE =
+		"merge into SCF_DELIVERED_KEY t using (select :sifObjectName SIF_OBJECT_NAME, :objectKeyValue OBJECT_KEY_VALUE, :applicationId APPLICATION_ID, :zoneId ZONE_ID from dual) k " +
+		"on (t.SIF_OBJECT_NAME = k.SIF_OBJECT_NAME and t.OBJECT_KEY_VALUE = k.OBJECT_KEY_VALUE and t.APPLICATION_ID = k.APPLICATION_ID and t.ZONE_ID = k.ZONE_ID) " +
+		"when not matched then insert "+KEY_COLUMNS+" values "+KEY_VALUES;
+
+	private static final String INSERT_KEY_MSSQL =
+		"merge into SCF_DELIVERED_KEY with (holdlock) as t using (select :sifObjectName as SIF_OBJECT_NAME, :objectKeyValue as OBJECT_KEY_VALUE, :applicationId as APPLICATION_ID, :zoneId as ZONE_ID) as k " +
+		"on (t.SIF_OBJECT_NAME = k.SIF_OBJECT_NAME and t.OBJECT_KEY_VALUE = k.OBJECT_KEY_VALUE and t.APPLICATION_ID = k.APPLICATION_ID and t.ZONE_ID = k.ZONE_ID) " +
+		"when not matched then insert "+KEY_COLUMNS+" values "+KEY_VALUES+";";
+
+	/* Any other database: A key that already exists is reported as a constraint violation. */
+	private static final String INSERT_KEY =
+		"insert into SCF_DELIVERED_KEY "+KEY_COLUMNS+" values "+KEY_VALUES;
+
+	private static final String DELETE_KEY =
+		"delete from SCF_DELIVERED_KEY where SIF_OBJECT_NAME = :sifObjectName and OBJECT_KEY_VALUE = :objectKeyValue and APPLICATION_ID = :applicationId and ZONE_ID = :zoneId";
+	private static final String DELETE_EXPIRED_KEYS =
+		"delete from SCF_DELIVERED_KEY where APPLICATION_ID = :applicationId and (DELIVERED_DATE < :deliveredBefore or DELIVERED_DATE is null)";
+
+    /**
+     * This method inserts the given key unless it already exists. Where the database supports it this is done with
+     * one insert-if-absent statement, so concurrent inserts of the same key never fail.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param deliveredKey The key to insert. All its key properties must be set.
+     *
+     * @throws IllegalArgumentException  deliveredKey is null or any of its key properties is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void insertKey(BasicTransaction tx, DeliveredKey deliveredKey) throws IllegalArgumentException, PersistenceException
+    {
+    	checkKeyProperties(deliveredKey);
+    	try
+    	{
+    		Dialect dialect = ((SessionImplementor)tx.getSession()).getFactory().getDialect();
+    		try
+    		{
+    			bindKey(tx.getSession().createSQLQuery(getStatementForDialect(dialect, INSERT_KEY_SQLITE, INSERT_KEY_MYSQL, INSERT_KEY_POSTGRES, INSERT_KEY_ORACLE, INSERT_KEY_MSSQL, INSERT_KEY)), deliveredKey)
+    				.setParameter("deliveredDate", deliveredKey.getDeliveredDate(), StandardBasicTypes.TIMESTAMP)
+    				.executeUpdate();
+    		}
+    		catch (ConstraintViolationException ex) // key has been inserted by another transaction
+    		{
+    			logger.debug("Delivered key "+deliveredKey.getSifObjectName()+" with key "+deliveredKey.getObjectKeyValue()+" has been inserted concurrently.");
+    		}
+    	}
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to insert delivered key " + deliveredKey + ".", e);
+        }
+    }
+
+    /**
+     * This method removes the given key. If it doesn't exist then no action is taken.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param deliveredKey The key to remove. All its key properties must be set.
+     *
+     * @throws IllegalArgumentException  deliveredKey is null or any of its key properties is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void removeKey(BasicTransaction tx, DeliveredKey deliveredKey) throws IllegalArgumentException, PersistenceException
+    {
+    	checkKeyProperties(deliveredKey);
+    	try
+    	{
+    		bindKey(tx.getSession().createSQLQuery(DELETE_KEY), deliveredKey).executeUpdate();
+    	}
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to remove delivered key " + deliveredKey + ".", e);
+        }
+    }
+
+    /**
+     * This method removes all keys of the given application that have been delivered before the given date.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param applicationId The application for which the keys shall be removed.
+     * @param deliveredBefore Keys delivered before this date are removed. Keys without a delivery date are removed as well.
+     *
+     * @return The number of keys removed.
+     *
+     * @throws IllegalArgumentException  applicationId is empty or null or deliveredBefore is null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public int removeExpiredKeys(BasicTransaction tx, String applicationId, Date deliveredBefore) throws IllegalArgumentException, PersistenceException
+    {
+    	if (StringUtils.isEmpty(applicationId) || (deliveredBefore == null))
+    	{
+    		throw new IllegalArgumentException("applicationId is empty or null or deliveredBefore is null.");
+    	}
+    	try
+    	{
+    		return tx.getSession().createSQLQuery(DELETE_EXPIRED_KEYS)
+    			.setString("applicationId", applicationId)
+    			.setParameter("deliveredBefore", deliveredBefore, StandardBasicTypes.TIMESTAMP)
+    			.executeUpdate();
+    	}
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to remove expired delivered keys for application = '" + applicationId + "'.", e);
+        }
+    }
+
+    /**
+     * This method returns one page of the keys of the given application ordered by object name, zone and key.
+     *
+	 * @param tx The Transaction within this method shall operate. MUST NOT BE NULL!
+     * @param applicationId The application for which the keys shall be returned.
+     * @param deliveredAfter Only keys delivered after this date are returned. If null then all keys are returned.
+     * @param firstResult The index of the first key to return.
+     * @param maxResults The maximum number of keys to return.
+     *
+     * @return The keys of the page. An empty list if there are no more keys.
+     *
+     * @throws IllegalArgumentException  applicationId is empty or null.
+     * @throws PersistenceException      A database error occurred.
+     */
+    @SuppressWarnings("unchecked")
+    public List<DeliveredKey> retrieveKeys(BasicTransaction tx, String applicationId, Date deliveredAfter, int firstResult, int maxResults) throws IllegalArgumentException, PersistenceException
+    {
+    	if (StringUtils.isEmpty(applicationId))
+    	{
+    		throw new IllegalArgumentException("applicationId is empty or null.");
+    	}
+    	try
+    	{
+    		Criteria criteria = tx.getSession().createCriteria(DeliveredKey.class)
+    			.add(Restrictions.eq("applicationId", applicationId));
+    		if (deliveredAfter != null)
+    		{
+    			criteria.add(Restrictions.gt("deliveredDate", deliveredAfter));
+    		}
+    		return criteria
+    			.addOrder(Order.asc("sifObjectName"))
+    			.addOrder(Order.asc("zoneId"))
+    			.addOrder(Order.asc("objectKeyValue"))
+    			.setFirstResult(firstResult)
+    			.setMaxResults(maxResults)
+    			.list();
+    	}
+        catch (HibernateException e)
+        {
+            throw new PersistenceException("Unable to retrieve delivered keys for application = '" + applicationId + "'.", e);
+        }
+    }
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+   private void checkKeyProperties(DeliveredKey deliveredKey) throws IllegalArgumentException
+   {
+		if (deliveredKey == null)
+		{
+			throw new IllegalArgumentException("deliveredKey == null! Not allowed.");
+		}
+		if (StringUtils.isEmpty(deliveredKey.getSifObjectName())
+		        || StringUtils.isEmpty(deliveredKey.getApplicationId())
+		        || StringUtils.isEmpty(deliveredKey.getZoneId())
+		        || StringUtils.isEmpty(deliveredKey.getObjectKeyValue()))
+		{
+			throw new IllegalArgumentException("Any of the properties sifObjectName, applicationId, zoneId or objectKeyValue of the deliveredKey is null or empty: "+deliveredKey);
+		}
+   }
+
+   private Query bindKey(Query query, DeliveredKey deliveredKey)
+   {
+	   return query.setString("sifObjectName", deliveredKey.getSifObjectName())
+	   		.setString("objectKeyValue", deliveredKey.getObjectKeyValue())
+	   		.setString("applicationId", deliveredKey.getApplicationId())
+	   		.setString("zoneId", deliveredKey.getZoneId());
+   }
+}
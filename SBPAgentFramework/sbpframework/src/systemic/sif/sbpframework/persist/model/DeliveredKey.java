@@ -0,0 +1,145 @@
+/*
+ * DeliveredKey.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * The key of an object that has been handed on for processing and is therefore known to the target system (see
+ * SCF_DELIVERED_KEY table).
+ */
+public class DeliveredKey implements Serializable
+{
+	private static final long serialVersionUID = 7241186509213375520L;
+
+	private String sifObjectName;
+	private String objectKeyValue;
+	private String applicationId;
+	private String zoneId;
+	private Date deliveredDate;
+
+	public DeliveredKey() {}
+
+	public DeliveredKey(String sifObjectName, String objectKeyValue, String applicationId, String zoneId)
+	{
+		setSifObjectName(sifObjectName);
+		setObjectKeyValue(objectKeyValue);
+		setApplicationId(applicationId);
+		setZoneId(zoneId);
+	}
+
+	public String getSifObjectName()
+	{
+		return this.sifObjectName;
+	}
+
+	public void setSifObjectName(String sifObjectName)
+	{
+		this.sifObjectName = sifObjectName;
+	}
+
+	public String getObjectKeyValue()
+	{
+		return this.objectKeyValue;
+	}
+
+	public void setObjectKeyValue(String objectKeyValue)
+	{
+		this.objectKeyValue = objectKeyValue;
+	}
+
+	public String getApplicationId()
+	{
+		return this.applicationId;
+	}
+
+	public void setApplicationId(String applicationId)
+	{
+		this.applicationId = applicationId;
+	}
+
+	public String getZoneId()
+	{
+		return this.zoneId;
+	}
+
+	public void setZoneId(String zoneId)
+	{
+		this.zoneId = zoneId;
+	}
+
+	public Date getDeliveredDate()
+	{
+		return this.deliveredDate;
+	}
+
+	public void setDeliveredDate(Date deliveredDate)
+	{
+		this.deliveredDate = deliveredDate;
+	}
+
+	/*
+	 * Required as all key properties form the identifier of this object.
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof DeliveredKey))
+		{
+			return false;
+		}
+		DeliveredKey other = (DeliveredKey)obj;
+		return equals(sifObjectName, other.sifObjectName) && equals(objectKeyValue, other.objectKeyValue) &&
+		       equals(applicationId, other.applicationId) && equals(zoneId, other.zoneId);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int result = 17;
+		result = 31 * result + ((sifObjectName == null) ? 0 : sifObjectName.hashCode());
+		result = 31 * result + ((objectKeyValue == null) ? 0 : objectKeyValue.hashCode());
+		result = 31 * result + ((applicationId == null) ? 0 : applicationId.hashCode());
+		result = 31 * result + ((zoneId == null) ? 0 : zoneId.hashCode());
+		return result;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "sifObjectName = " + sifObjectName +
+		"\nobjectKeyValue = " + objectKeyValue +
+		"\napplicationId = " + applicationId +
+		"\nzoneId = " + zoneId +
+		"\ndeliveredDate = " + deliveredDate;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	private boolean equals(String value1, String value2)
+	{
+		return (value1 == null) ? (value2 == null) : value1.equals(value2);
+	}
+}
@@ -0,0 +1,451 @@
+/*
+ * DOCGroupCommitter.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.servcie;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.dao.BaseDAO;
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+
+/**
+ * This class implements an optional group commit for the DOC writes of received objects and events. If enabled (see
+ * property 'cache.group.commit.enabled' in the DOCache.properties file) the DOCService hands the caching of objects
+ * and the removal of dependencies to this class rather than committing each of them in its own transaction. A
+ * background thread gathers the writes of concurrently processed messages for up to a few milliseconds or up to a
+ * maximum number of writes and commits them in one transaction. The calling threads wait until that commit has
+ * completed, so a caller only continues once its write is in the DOC, the same as without group commit.<p><p>
+ *
+ * If the shared transaction fails then each write of the group is retried in its own transaction so that one bad
+ * write cannot fail the writes of other callers. Only the callers of writes that fail on their own receive an error.
+ * <p><p>
+ *
+ * The group commit is not used with the in-memory tier of the DOC (see DOCMemoryTier) as that tier already writes in
+ * batches. It must be shut down with shutdownCommitter() before Hibernate is shut down.
+ */
+public class DOCGroupCommitter extends DBService
+{
+	protected final Logger logger = Logger.getLogger(getClass());
+
+	private static volatile DOCGroupCommitter instance = null;
+
+    private DOCacheDAO docCacheDAO = new DOCacheDAO();
+
+	private final LinkedBlockingQueue<GroupWrite> pendingWrites = new LinkedBlockingQueue<GroupWrite>();
+	private final int maxGroupSize;
+	private final long maxWaitMillis;
+	private volatile boolean running = true;
+	private Thread committer = null;
+
+	/**
+	 * This method creates the group committer and starts its background thread. If the committer is already started
+	 * then no action is taken.
+	 *
+	 * @param maxGroupSize The maximum number of writes committed in one transaction.
+	 * @param maxWaitMillis The maximum time in milliseconds the first write of a group waits for further writes.
+	 */
+	public static synchronized void startCommitter(int maxGroupSize, long maxWaitMillis)
+	{
+		if (instance == null)
+		{
+			DOCGroupCommitter groupCommitter = new DOCGroupCommitter(maxGroupSize, maxWaitMillis);
+			groupCommitter.startCommitterThread();
+			instance = groupCommitter;
+		}
+	}
+
+	/**
+	 * Returns the group committer if it has been started. If it has not been started (i.e. it is not enabled) then
+	 * null is returned.
+	 */
+	public static DOCGroupCommitter getCommitter()
+	{
+		return instance;
+	}
+
+	/**
+	 * This method stops accepting writes, commits all pending writes and stops the background thread. Writes handed
+	 * to the committer after this call are committed by the calling thread. If the committer is not started no
+	 * action is taken.
+	 *
+	 * @param drainTimeoutMillis The maximum time to wait for the background thread to commit all pending writes.
+	 *                           Anything left after this time is committed by the calling thread.
+	 */
+	public static synchronized void shutdownCommitter(long drainTimeoutMillis)
+	{
+		if (instance != null)
+		{
+			DOCGroupCommitter groupCommitter = instance;
+			instance = null;
+			groupCommitter.drain(drainTimeoutMillis);
+		}
+	}
+
+	private DOCGroupCommitter(int maxGroupSize, long maxWaitMillis)
+	{
+		this.maxGroupSize = Math.max(1, maxGroupSize);
+		this.maxWaitMillis = Math.max(0, maxWaitMillis);
+	}
+
+	@Override
+    public BaseDAO getDAO()
+    {
+    	return docCacheDAO;
+    }
+
+	/**
+	 * Saves the given cached object with its dependent objects as part of the next group commit and waits until the
+	 * group is committed. Dependent objects are looked up again within the group transaction so that a dependent
+	 * object that is new to the DOC is only created once even if several objects of the group depend on it.
+	 *
+	 * @param cachedObject The object to save. All its properties must be set (see DOCService.cacheObject()).
+	 *
+	 * @throws PersistenceException The object could not be saved. The error is logged.
+	 */
+	public void cacheObject(DOCache cachedObject) throws PersistenceException
+	{
+		execute(new CacheObjectWrite(cachedObject));
+	}
+
+	/**
+	 * Removes the dependency on the given dependent object as part of the next group commit and waits until the group
+	 * is committed (see DOCacheDAO.removeDependency()).
+	 *
+	 * @param docObject The dependent object that has been received.
+	 * @param resolvedObjects If not null then the cached objects that have no remaining dependencies due to this
+	 *                        removal are added to this list. Only their key properties are set.
+	 *
+	 * @return The number of cached objects that depended on the docObject.
+	 *
+	 * @throws PersistenceException The dependency could not be removed. The error is logged.
+	 */
+	public int removeDependency(DOCObject docObject, List<DOCache> resolvedObjects) throws PersistenceException
+	{
+		RemoveDependencyWrite write = new RemoveDependencyWrite(docObject, resolvedObjects != null);
+		execute(write);
+		if ((resolvedObjects != null) && (write.resolvedObjects != null))
+		{
+			resolvedObjects.addAll(write.resolvedObjects);
+		}
+		return write.numParents;
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	/*
+	 * Queues the write and waits until its group is committed. If the committer is shut down then the write is
+	 * committed in its own transaction by the calling thread.
+	 */
+	private void execute(GroupWrite write) throws PersistenceException
+	{
+		boolean queued = false;
+		synchronized (pendingWrites)
+		{
+			if (running)
+			{
+				pendingWrites.add(write);
+				queued = true;
+			}
+		}
+		if (queued)
+		{
+			try
+			{
+				write.done.await();
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				throw new PersistenceException("Interrupted while waiting for the group commit of DOC write: "+write);
+			}
+		}
+		else
+		{
+			commitOnItsOwn(write);
+		}
+		if (write.error != null)
+		{
+			throw (write.error instanceof PersistenceException) ? (PersistenceException)write.error : new PersistenceException("Failed to commit DOC write: "+write, write.error);
+		}
+	}
+
+	private void startCommitterThread()
+	{
+		committer = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				while (running || !pendingWrites.isEmpty())
+				{
+					List<GroupWrite> group = new ArrayList<GroupWrite>();
+					try
+					{
+						GroupWrite first = pendingWrites.poll(500, TimeUnit.MILLISECONDS);
+						if (first != null)
+						{
+							group.add(first);
+
+							// Gather further writes until the group is full or the first write has waited long enough.
+							long deadline = System.currentTimeMillis() + maxWaitMillis;
+							while (group.size() < maxGroupSize)
+							{
+								pendingWrites.drainTo(group, maxGroupSize - group.size());
+								long waitMillis = deadline - System.currentTimeMillis();
+								if ((group.size() >= maxGroupSize) || (waitMillis <= 0))
+								{
+									break;
+								}
+								GroupWrite next = pendingWrites.poll(waitMillis, TimeUnit.MILLISECONDS);
+								if (next == null)
+								{
+									break;
+								}
+								group.add(next);
+							}
+							commit(group);
+						}
+					}
+					catch (InterruptedException ex)
+					{
+						// Only happens on shutdown. Loop will terminate once the queue is empty.
+					}
+					catch (Throwable ex)
+					{
+						// The callers wait for their writes without a timeout. They must be released in any case and
+						// the thread must keep committing the writes of other callers.
+						logger.error("Unexpected failure of the DOC group committer. The "+group.size()+" writes of the current group have failed.", ex);
+						for (GroupWrite write : group)
+						{
+							write.fail(ex);
+						}
+					}
+				}
+			}
+		}, "DOCGroupCommitter");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	private void drain(long drainTimeoutMillis)
+	{
+		synchronized (pendingWrites)
+		{
+			running = false;
+		}
+		logger.info("Draining DOC group committer. Pending writes: "+pendingWrites.size());
+		if (committer != null)
+		{
+			try
+			{
+				committer.join(drainTimeoutMillis);
+			}
+			catch (InterruptedException ex) {} // fall through and commit the remainder in this thread.
+		}
+
+		// Anything that has not been committed in time is committed by this thread.
+		List<GroupWrite> remainder = new ArrayList<GroupWrite>();
+		pendingWrites.drainTo(remainder);
+		if (!remainder.isEmpty())
+		{
+			commit(remainder);
+		}
+	}
+
+	/*
+	 * Commits the group in one transaction. If that fails each write is retried in its own transaction. Each caller
+	 * is released once its write is committed or has failed on its own.
+	 */
+	private void commit(List<GroupWrite> group)
+	{
+		BasicTransaction tx = null;
+		try
+		{
+			tx = startTransaction();
+			for (GroupWrite write : group)
+			{
+				write.apply(docCacheDAO, tx);
+				tx.getSession().flush();
+			}
+			tx.commit();
+			for (GroupWrite write : group)
+			{
+				write.done.countDown();
+			}
+			return;
+		}
+		catch (Throwable ex)
+		{
+			rollback(tx);
+			logger.warn("Failed to commit group of "+group.size()+" DOC writes. Retry writes individually.", ex);
+		}
+
+		for (GroupWrite write : group)
+		{
+			write.reset();
+			commitOnItsOwn(write);
+		}
+	}
+
+	private void commitOnItsOwn(GroupWrite write)
+	{
+		BasicTransaction tx = null;
+		try
+		{
+			tx = startTransaction();
+			write.apply(docCacheDAO, tx);
+			tx.commit();
+		}
+		catch (Throwable ex)
+		{
+			rollback(tx);
+			logger.error("Failed to commit DOC write: "+write, ex);
+			write.error = ex;
+		}
+		write.done.countDown();
+	}
+
+	/*
+	 * Rolls back the transaction if there is one. A failure of the rollback is only logged so that the callers of the
+	 * writes are still released.
+	 */
+	private void rollback(BasicTransaction tx)
+	{
+		if (tx != null)
+		{
+			try
+			{
+				tx.rollback();
+			}
+			catch (Throwable ex)
+			{
+				logger.error("Failed to roll back DOC group transaction.", ex);
+			}
+		}
+	}
+
+	/*
+	 * A write waiting for its group commit. A write must be repeatable after reset() has been called in case its
+	 * group is rolled back.
+	 */
+	private static abstract class GroupWrite
+	{
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile Throwable error = null;
+
+		abstract void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException;
+
+		void reset() {}
+
+		/*
+		 * Releases the caller with the given error unless the write has already been committed or has failed.
+		 */
+		void fail(Throwable cause)
+		{
+			if (done.getCount() > 0)
+			{
+				error = cause;
+				done.countDown();
+			}
+		}
+	}
+
+	private static class CacheObjectWrite extends GroupWrite
+	{
+		private final DOCache cachedObject;
+		private final List<DOCObject> dependentObjects;
+		private final List<Long> dependentObjectIds = new ArrayList<Long>();
+
+		CacheObjectWrite(DOCache cachedObject)
+		{
+			this.cachedObject = cachedObject;
+			this.dependentObjects = new ArrayList<DOCObject>(cachedObject.getDependentObjects());
+			for (DOCObject docObject : dependentObjects)
+			{
+				dependentObjectIds.add(docObject.getId());
+			}
+		}
+
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			// New dependent objects that have been created by an earlier write of the same group are shared by the save.
+			dao.save(tx, cachedObject);
+		}
+
+		/*
+		 * Removes the IDs assigned by the rolled back save.
+		 */
+		@Override
+		void reset()
+		{
+			cachedObject.setId(null);
+			for (int i=0; i<dependentObjects.size(); i++)
+			{
+				dependentObjects.get(i).setId(dependentObjectIds.get(i));
+			}
+			cachedObject.setDependentObjects(new HashSet<DOCObject>(dependentObjects));
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Cache Object:\n"+cachedObject;
+		}
+	}
+
+	private static class RemoveDependencyWrite extends GroupWrite
+	{
+		private final DOCObject docObject;
+		private final boolean loadResolved;
+		private int numParents = 0;
+		private List<DOCache> resolvedObjects = null;
+
+		RemoveDependencyWrite(DOCObject docObject, boolean loadResolved)
+		{
+			this.docObject = docObject;
+			this.loadResolved = loadResolved;
+		}
+
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			List<Long> resolvedIds = loadResolved ? new ArrayList<Long>() : null;
+			numParents = dao.removeDependency(tx, docObject, resolvedIds);
+			resolvedObjects = ((resolvedIds != null) && !resolvedIds.isEmpty()) ? dao.getCachedObjectKeys(tx, resolvedIds) : null;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Remove Dependency:\n"+docObject;
+		}
+	}
+}
@@ -0,0 +1,989 @@
+/*
+ * DOCMemoryTier.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.servcie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.dao.BaseDAO;
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+
+/**
+ * This class implements an optional in-memory tier in front of the DOCacheDAO. If enabled (see property
+ * 'cache.memory.enabled' in the DOCache.properties file) all cached objects and their dependent objects are held in
+ * concurrent indexes keyed by (object name, flat key, application, zone). All reads of the DOCService are answered
+ * from these indexes and all mutations are queued and written to SCF_DO_CACHE and SCF_DOC_OBJECT by a background
+ * thread in batches of one transaction each.<p><p>
+ *
+ * All reads and mutations of the indexes are synchronized on the tier and the reads only return copies, so that no
+ * caller ever sees or changes an object of the tier while it is being changed. A write that fails is retried in order
+ * with the following flushes. If it still fails after MAX_WRITE_ATTEMPTS the write is dropped and the cached objects
+ * it affects are evicted from the tier, so that the DOC tables stay authoritative for them. Evicted objects are loaded
+ * again with the next start of the tier. The number of dropped writes is returned by getFailedWriteCount().<p><p>
+ *
+ * <b>Note:</b><p>
+ * The in-memory tier assumes that it is the only writer to the DOC tables. It must therefore only be enabled if no
+ * other agent process shares the same DOC database. The tier is loaded from the DOC tables at startup and must be
+ * shut down with shutdownTier() so that all pending writes are drained to the database.
+ */
+public class DOCMemoryTier extends DBService
+{
+	protected final Logger logger = Logger.getLogger(getClass());
+
+	private static volatile DOCMemoryTier instance = null;
+
+	/* The number of times a write is attempted before it is dropped. */
+	private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private DOCacheDAO docCacheDAO = new DOCacheDAO();
+
+	/* The in-memory indexes */
+	private final Map<DOCKey, DOCache> cachedObjects = new ConcurrentHashMap<DOCKey, DOCache>();
+	private final Map<DOCKey, DOCObject> dependentObjects = new ConcurrentHashMap<DOCKey, DOCObject>();
+	private final Map<DOCKey, Set<DOCKey>> parentsOfDependentObject = new ConcurrentHashMap<DOCKey, Set<DOCKey>>();
+
+	/* The cached objects of the tier are numbered in the order they are added. This is the id they are paged by. */
+	private long lastSequence = 0;
+
+	/* Write behind queue and flusher */
+	private final LinkedBlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<PendingWrite>();
+	private final long flushIntervalMillis;
+	private final int flushBatchSize;
+	private volatile boolean running = true;
+	private Thread flusher = null;
+	private long failedWriteCount = 0;
+
+	/**
+	 * This method creates the in-memory tier, loads it with the current content of the DOC tables and starts the
+	 * background thread that flushes mutations to the database. If the tier is already started then no action
+	 * is taken.
+	 *
+	 * @param flushIntervalMillis The maximum time in milliseconds a mutation is held in memory before it is flushed.
+	 * @param flushBatchSize The maximum number of mutations written within one transaction.
+	 *
+	 * @throws PersistenceException The DOC tables cannot be loaded. The error is logged and the tier is not started.
+	 */
+	public static synchronized void startTier(long flushIntervalMillis, int flushBatchSize) throws PersistenceException
+	{
+		if (instance == null)
+		{
+			DOCMemoryTier tier = new DOCMemoryTier(flushIntervalMillis, flushBatchSize);
+			tier.load();
+			tier.startFlusher();
+			instance = tier;
+		}
+	}
+
+	/**
+	 * Returns the in-memory tier if it has been started. If it has not been started (i.e. it is not enabled)
+	 * then null is returned.
+	 */
+	public static DOCMemoryTier getTier()
+	{
+		return instance;
+	}
+
+	/**
+	 * This method stops accepting mutations, writes all pending mutations to the database and stops the background
+	 * flusher. It should be called before Hibernate is shut down. If the tier is not started no action is taken.
+	 *
+	 * @param drainTimeoutMillis The maximum time to wait for the flusher to write all pending mutations. Anything
+	 *                           left after this time is written by the calling thread.
+	 */
+	public static synchronized void shutdownTier(long drainTimeoutMillis)
+	{
+		if (instance != null)
+		{
+			instance.drain(drainTimeoutMillis);
+			instance = null;
+		}
+	}
+
+	private DOCMemoryTier(long flushIntervalMillis, int flushBatchSize)
+	{
+		this.flushIntervalMillis = flushIntervalMillis;
+		this.flushBatchSize = flushBatchSize;
+	}
+
+	@Override
+    public BaseDAO getDAO()
+    {
+    	return docCacheDAO;
+    }
+
+	/**
+	 * Returns the number of mutations that have not been written to the database, yet.
+	 */
+	public int getPendingWriteCount()
+	{
+		return pendingWrites.size();
+	}
+
+	/**
+	 * Returns the number of mutations that could not be written to the database and have been dropped. The cached
+	 * objects affected by these mutations have been evicted from the tier.
+	 */
+	public synchronized long getFailedWriteCount()
+	{
+		return failedWriteCount;
+	}
+
+    /*---------------------------------------------------------------*/
+    /*-- Read Methods. All returned objects are copies of the tier --*/
+    /*---------------------------------------------------------------*/
+
+	/**
+	 * Returns a copy of the cached object without its dependent objects. If the object is not cached then null is
+	 * returned.
+	 */
+	public synchronized DOCache retrieveCachedObject(String sifObjectName, String flatKey, String applicationId, String zoneId)
+	{
+		DOCache cachedObject = cachedObjects.get(new DOCKey(sifObjectName, flatKey, applicationId, zoneId));
+		return (cachedObject == null) ? null : copyOf(cachedObject);
+	}
+
+	/**
+	 * Returns a copy of the dependent object with the same key properties as the given docObject. The returned copy
+	 * is marked as known to the cache. If the dependent object is not cached then null is returned.
+	 */
+	public synchronized DOCObject getCachedDependentObject(DOCObject docObject)
+	{
+		DOCObject depObj = dependentObjects.get(new DOCKey(docObject));
+		return (depObj == null) ? null : copyOf(depObj);
+	}
+
+	public synchronized List<DOCObject> getNotYetRequestedObjects(String sifObjectName, String applicationId, String zoneId)
+	{
+		List<DOCObject> docList = new ArrayList<DOCObject>();
+		for (DOCObject depObj : dependentObjects.values())
+		{
+			if (sifObjectName.equals(depObj.getSifObjectName()) && applicationId.equals(depObj.getApplicationId())
+					&& zoneId.equals(depObj.getZoneId()) && !Boolean.TRUE.equals(depObj.getRequested()))
+			{
+				docList.add(copyOf(depObj));
+			}
+		}
+		return docList;
+	}
+
+	public synchronized List<DOCObject> getStaleRequestedObjects(String sifObjectName, String applicationId, String zoneId, Date now, int maxAttempts)
+	{
+		List<DOCObject> docList = new ArrayList<DOCObject>();
+		for (DOCObject depObj : dependentObjects.values())
+		{
+			if (sifObjectName.equals(depObj.getSifObjectName()) && applicationId.equals(depObj.getApplicationId())
+					&& zoneId.equals(depObj.getZoneId()) && Boolean.TRUE.equals(depObj.getRequested()) 
+					&& (depObj.getNextRequestDate() != null) && !depObj.getNextRequestDate().after(now)
+					&& ((depObj.getRequestAttempts() == null) || (depObj.getRequestAttempts().intValue() < maxAttempts)))
+			{
+				docList.add(copyOf(depObj));
+			}
+		}
+		return docList;
+	}
+
+	public synchronized List<DOCache> getObjectsWithoutDependencies(String sifObjectName, String applicationId, String agentId)
+	{
+		List<DOCache> objectList = new ArrayList<DOCache>();
+		for (DOCache cachedObject : cachedObjects.values())
+		{
+			if (sifObjectName.equals(cachedObject.getSifObjectName()) && applicationId.equals(cachedObject.getApplicationId())
+					&& agentId.equals(cachedObject.getAgentId()) && (cachedObject.getRemainingDependencies().intValue() == 0))
+			{
+				objectList.add(copyOf(cachedObject));
+			}
+		}
+		return objectList;
+	}
+
+	/**
+	 * Returns one page of the objects returned by the method above, ordered by their id. The ids of the returned
+	 * copies are the order in which the objects have been added to the tier and not their ids in the DOC tables. Only
+	 * objects with an id greater than afterId are returned. If afterId is null the first page is returned.
+	 */
+	public synchronized List<DOCache> getObjectsWithoutDependencies(String sifObjectName, String applicationId, String agentId, Long afterId, int pageSize)
+	{
+		List<DOCache> objectList = new ArrayList<DOCache>();
+		for (DOCache cachedObject : cachedObjects.values())
+		{
+			if (sifObjectName.equals(cachedObject.getSifObjectName()) && applicationId.equals(cachedObject.getApplicationId())
+					&& agentId.equals(cachedObject.getAgentId()) && (cachedObject.getRemainingDependencies().intValue() == 0)
+					&& ((afterId == null) || (cachedObject.getId().longValue() > afterId.longValue())))
+			{
+				objectList.add(cachedObject);
+			}
+		}
+		Collections.sort(objectList, new Comparator<DOCache>()
+		{
+			public int compare(DOCache o1, DOCache o2)
+			{
+				return o1.getId().compareTo(o2.getId());
+			}
+		});
+		
+		List<DOCache> page = new ArrayList<DOCache>(Math.min(objectList.size(), pageSize));
+		for (DOCache cachedObject : objectList.subList(0, Math.min(objectList.size(), pageSize)))
+		{
+			DOCache copy = copyOf(cachedObject);
+			copy.setId(cachedObject.getId());
+			page.add(copy);
+		}
+		return page;
+	}
+
+	public synchronized List<DOCache> getExpiredObjects(String applicationId, String agentId)
+	{
+		Date now = new Date();
+		List<DOCache> objectList = new ArrayList<DOCache>();
+		for (DOCache cachedObject : cachedObjects.values())
+		{
+			if (applicationId.equals(cachedObject.getApplicationId()) && agentId.equals(cachedObject.getAgentId())
+					&& (cachedObject.getRemainingDependencies().intValue() > 0) && !cachedObject.getExpiryDate().after(now))
+			{
+				objectList.add(copyOf(cachedObject));
+			}
+		}
+		return objectList;
+	}
+
+    /*--------------------------------------------------------------------------*/
+    /*-- Mutations. The indexes are updated immediately, the DB write queued. --*/
+    /*--------------------------------------------------------------------------*/
+
+	/**
+	 * Adds the given cached object and its dependent objects to the tier. Dependent objects that are already known
+	 * to the tier are shared with the cached objects that are already waiting on them. If the object itself is
+	 * already cached then no action is taken.
+	 */
+	public synchronized void cacheObject(DOCache sifObjectToCache)
+	{
+		DOCKey key = new DOCKey(sifObjectToCache);
+		if (cachedObjects.containsKey(key))
+		{
+			logger.debug("Object '"+sifObjectToCache.getSifObjectName()+"' with key '"+sifObjectToCache.getObjectKeyValue()+"' is already cached.");
+			return;
+		}
+		checkRunning();
+
+		DOCache memObject = addToIndexes(sifObjectToCache);
+		memObject.setRemainingDependencies(memObject.getDependentObjects().size());
+
+		pendingWrites.add(new CacheObjectWrite(copyWithDependents(memObject)));
+	}
+
+	/**
+	 * Marks the dependent object given by its key properties as requested. Its request attempts are incremented and
+	 * the date it is requested again is set (see DOCService.getNextRequestDate()).
+	 */
+	public synchronized void markDependentObjectAsRequested(DOCObject docObject, String agentId, String zoneId, Date requestDate)
+	{
+		DOCKey depKey = new DOCKey(docObject);
+		DOCObject memDepObj = dependentObjects.get(depKey);
+		if (memDepObj != null)
+		{
+			checkRunning();
+			int requestAttempts = ((memDepObj.getRequestAttempts() == null) ? 0 : memDepObj.getRequestAttempts().intValue()) + 1;
+			memDepObj.setAgentId(agentId);
+			memDepObj.setRequestDate(copyOf(requestDate));
+			memDepObj.setRequested(Boolean.TRUE);
+			memDepObj.setRequestAttempts(requestAttempts);
+			memDepObj.setNextRequestDate(DOCService.getNextRequestDate(requestDate, requestAttempts));
+
+			pendingWrites.add(new MarkRequestedWrite(copyOf(memDepObj)));
+		}
+	}
+
+	/**
+	 * Removes the dependent object given by its key properties from the tier and decrements the remaining dependencies
+	 * of all cached objects waiting on it. If the dependent object is not known then no action is taken. The number
+	 * of cached objects that were waiting on the dependent object is returned.
+	 */
+	public int removeDependency(String sifObjectName, String flatKey, String applicationId, String zoneId)
+	{
+		return removeDependency(sifObjectName, flatKey, applicationId, zoneId, null);
+	}
+
+	/**
+	 * Same as above but copies of all cached objects that have no remaining dependencies after the removal are added
+	 * to the resolvedObjects list if it is not null.
+	 */
+	public synchronized int removeDependency(String sifObjectName, String flatKey, String applicationId, String zoneId, List<DOCache> resolvedObjects)
+	{
+		int numParents = 0;
+		DOCKey depKey = new DOCKey(sifObjectName, flatKey, applicationId, zoneId);
+		DOCObject memDepObj = dependentObjects.remove(depKey);
+		if (memDepObj != null)
+		{
+			checkRunning();
+			Set<DOCKey> parentKeys = parentsOfDependentObject.remove(depKey);
+			if (parentKeys != null)
+			{
+				numParents = parentKeys.size();
+				for (DOCKey parentKey : parentKeys)
+				{
+					DOCache parentObj = cachedObjects.get(parentKey);
+					if (parentObj != null)
+					{
+						parentObj.getDependentObjects().remove(memDepObj);
+						parentObj.setRemainingDependencies(parentObj.getDependentObjects().size());
+						if ((resolvedObjects != null) && (parentObj.getRemainingDependencies().intValue() == 0))
+						{
+							resolvedObjects.add(copyOf(parentObj));
+						}
+					}
+				}
+			}
+			pendingWrites.add(new RemoveDependencyWrite(copyOf(memDepObj), parentKeys));
+		}
+		return numParents;
+	}
+
+	/**
+	 * Removes the cached object and all dependent objects no other cached object waits on. If the object is not known
+	 * then no action is taken.
+	 */
+	public synchronized void removeCachedObject(DOCache cacheObject)
+	{
+		removeCachedObject(cacheObject, null);
+	}
+
+	/**
+	 * Same as above but adds the dependent objects that have been removed along with the cached object to the given
+	 * list if it is not null.
+	 */
+	public synchronized void removeCachedObject(DOCache cacheObject, List<DOCObject> removedDependentObjects)
+	{
+		DOCache memObject = removeFromIndexes(new DOCKey(cacheObject), removedDependentObjects);
+		if (memObject != null)
+		{
+			checkRunning();
+			pendingWrites.add(new RemoveCachedObjectWrite(copyOf(memObject)));
+		}
+	}
+
+	/**
+	 * Marks all dependent objects of the given cached object as not requested and assigns the new expiry date and
+	 * strategy (REQUEST expiry strategy). Dependent objects that are still within the retry delay of their last
+	 * request are left as they are. If the object is not known then no action is taken.
+	 */
+	public synchronized void resetExpiredObject(DOCache cacheObject, Date newExpiryDate, String newExpiryStrategy)
+	{
+		DOCache memObject = cachedObjects.get(new DOCKey(cacheObject));
+		if (memObject != null)
+		{
+			checkRunning();
+			Date now = new Date();
+			for (DOCObject memDepObj : memObject.getDependentObjects())
+			{
+				resetRequest(memDepObj, now);
+			}
+			memObject.setExpiryDate(copyOf(newExpiryDate));
+			memObject.setExpiryStrategy(newExpiryStrategy);
+
+			pendingWrites.add(new ResetExpiredWrite(copyOf(memObject), now));
+		}
+	}
+
+	/*---------------------*/
+	/*-- Private Methods --*/
+	/*---------------------*/
+
+	/*
+	 * Marks the given dependent object as not requested unless it is still within the retry delay of its last request.
+	 * This is the same rule as applied by DOCacheDAO.resetExpiredObjects().
+	 */
+	private static void resetRequest(DOCObject docObject, Date now)
+	{
+		if ((docObject.getNextRequestDate() == null) || !docObject.getNextRequestDate().after(now))
+		{
+			docObject.setRequested(Boolean.FALSE);
+			docObject.setRequestAttempts(0);
+			docObject.setNextRequestDate(null);
+		}
+	}
+
+	/*
+	 * Adds a copy of the given cached object to the indexes and returns it. Dependent objects that are already known
+	 * to the tier are shared with the cached objects that are already waiting on them.
+	 */
+	private DOCache addToIndexes(DOCache cachedObject)
+	{
+		DOCKey key = new DOCKey(cachedObject);
+		DOCache memObject = copyOf(cachedObject);
+		memObject.setId(++lastSequence);
+		memObject.setDependentObjects(new HashSet<DOCObject>());
+		for (DOCObject docObject : cachedObject.getDependentObjects())
+		{
+			DOCKey depKey = new DOCKey(docObject);
+			DOCObject memDepObj = dependentObjects.get(depKey);
+			if (memDepObj == null)
+			{
+				memDepObj = copyOf(docObject);
+				dependentObjects.put(depKey, memDepObj);
+				parentsOfDependentObject.put(depKey, new HashSet<DOCKey>());
+			}
+			memObject.getDependentObjects().add(memDepObj);
+			parentsOfDependentObject.get(depKey).add(key);
+		}
+		cachedObjects.put(key, memObject);
+		return memObject;
+	}
+	
+	/*
+	 * Removes the cached object with the given key and all dependent objects no other cached object waits on from the
+	 * indexes. Copies of the removed dependent objects are added to the given list if it is not null. Returns the
+	 * removed cached object or null if it is not known.
+	 */
+	private DOCache removeFromIndexes(DOCKey key, List<DOCObject> removedDependentObjects)
+	{
+		DOCache memObject = cachedObjects.remove(key);
+		if (memObject != null)
+		{
+			for (DOCObject memDepObj : memObject.getDependentObjects())
+			{
+				DOCKey depKey = new DOCKey(memDepObj);
+				Set<DOCKey> parentKeys = parentsOfDependentObject.get(depKey);
+				if (parentKeys != null)
+				{
+					parentKeys.remove(key);
+					if (parentKeys.isEmpty())
+					{
+						parentsOfDependentObject.remove(depKey);
+						dependentObjects.remove(depKey);
+						if (removedDependentObjects != null)
+						{
+							removedDependentObjects.add(copyOf(memDepObj));
+						}
+					}
+				}
+			}
+		}
+		return memObject;
+	}
+	
+	/*
+	 * Drops the given write that could not be written to the database and evicts the cached objects it affects from
+	 * the tier. The DOC tables are then authoritative for these objects. They are loaded again with the next start of
+	 * the tier.
+	 */
+	private synchronized void dropWrite(PendingWrite write)
+	{
+		failedWriteCount++;
+		Set<DOCKey> affectedKeys = write.getAffectedKeys(this);
+		for (DOCKey key : affectedKeys)
+		{
+			removeFromIndexes(key, null);
+		}
+		logger.error("Dropped DOC write after "+MAX_WRITE_ATTEMPTS+" failed attempts. "+affectedKeys.size()+" affected cached objects are evicted from the in-memory tier: "+write);
+	}
+
+	/*
+	 * Loads all cached objects and dependent objects from the DOC tables into the indexes.
+	 */
+	private void load() throws PersistenceException
+	{
+		BasicTransaction tx = null;
+		try
+		{
+			tx = startTransaction();
+			List<DOCache> allObjects = docCacheDAO.getAllCachedObjects(tx);
+			for (DOCache cachedObject : allObjects)
+			{
+				addToIndexes(cachedObject);
+			}
+			tx.commit();
+			logger.info("DOC in-memory tier loaded with "+cachedObjects.size()+" cached objects and "+dependentObjects.size()+" dependent objects.");
+		}
+		catch (Exception ex)
+		{
+			if (tx != null)
+			{
+				tx.rollback();
+			}
+			logger.error("Failed to load DOC in-memory tier from database.", ex);
+			throw (ex instanceof PersistenceException) ? (PersistenceException)ex : new PersistenceException("Failed to load DOC in-memory tier from database.", ex);
+		}
+	}
+
+	private void startFlusher()
+	{
+		flusher = new Thread(new Runnable()
+		{
+			public void run()
+			{
+				// Writes that failed are retried before any later write, so that the writes stay in order.
+				List<PendingWrite> failedWrites = new ArrayList<PendingWrite>();
+				while (running || !pendingWrites.isEmpty() || !failedWrites.isEmpty())
+				{
+					try
+					{
+						List<PendingWrite> batch = new ArrayList<PendingWrite>(failedWrites);
+						failedWrites.clear();
+						if (batch.isEmpty())
+						{
+							PendingWrite first = pendingWrites.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+							if (first == null)
+							{
+								continue;
+							}
+							batch.add(first);
+						}
+						else // give the database some time before the retry.
+						{
+							Thread.sleep(flushIntervalMillis);
+						}
+						pendingWrites.drainTo(batch, Math.max(0, flushBatchSize - batch.size()));
+						failedWrites.addAll(flush(batch));
+					}
+					catch (InterruptedException ex)
+					{
+						// Only happens on shutdown. Loop will terminate once the queue is empty.
+					}
+				}
+			}
+		}, "DOCMemoryTierFlusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	private void drain(long drainTimeoutMillis)
+	{
+		running = false;
+		logger.info("Draining DOC in-memory tier. Pending writes: "+pendingWrites.size());
+		if (flusher != null)
+		{
+			try
+			{
+				flusher.join(drainTimeoutMillis);
+			}
+			catch (InterruptedException ex) {} // fall through and flush the remainder in this thread.
+		}
+
+		// Anything that has not been flushed in time is written by this thread.
+		List<PendingWrite> remainder = new ArrayList<PendingWrite>();
+		pendingWrites.drainTo(remainder);
+		while (!remainder.isEmpty())
+		{
+			remainder = flush(remainder);
+		}
+		if (getFailedWriteCount() > 0)
+		{
+			logger.warn("DOC in-memory tier dropped "+getFailedWriteCount()+" writes that could not be written to the database.");
+		}
+	}
+
+	/*
+	 * Writes the batch in one transaction. If that fails each write is applied in its own transaction in order. If a
+	 * write fails then it and all writes after it are returned, so that they are retried in the same order. A write
+	 * that has failed MAX_WRITE_ATTEMPTS times is dropped (see dropWrite()). Returns an empty list if all writes have
+	 * been written or dropped.
+	 */
+	private List<PendingWrite> flush(List<PendingWrite> batch)
+	{
+		BasicTransaction tx = null;
+		try
+		{
+			tx = startTransaction();
+			for (PendingWrite write : batch)
+			{
+				write.apply(docCacheDAO, tx);
+			}
+			tx.commit();
+			return new ArrayList<PendingWrite>();
+		}
+		catch (Exception ex)
+		{
+			if (tx != null)
+			{
+				tx.rollback();
+			}
+			logger.warn("Failed to flush batch of "+batch.size()+" DOC writes. Retry writes individually.", ex);
+		}
+
+		for (int i=0; i<batch.size(); i++)
+		{
+			PendingWrite write = batch.get(i);
+			tx = null;
+			try
+			{
+				tx = startTransaction();
+				write.apply(docCacheDAO, tx);
+				tx.commit();
+			}
+			catch (Exception ex)
+			{
+				if (tx != null)
+				{
+					tx.rollback();
+				}
+				write.attempts++;
+				if (write.attempts >= MAX_WRITE_ATTEMPTS)
+				{
+					logger.error("Failed to flush DOC write: "+write, ex);
+					dropWrite(write);
+				}
+				else
+				{
+					logger.warn("Failed to flush DOC write (attempt "+write.attempts+"). Write is retried: "+write, ex);
+					return new ArrayList<PendingWrite>(batch.subList(i, batch.size()));
+				}
+			}
+		}
+		return new ArrayList<PendingWrite>();
+	}
+
+	private void checkRunning()
+	{
+		if (!running)
+		{
+			logger.warn("DOC in-memory tier is shutting down. Mutation will be written by the draining thread.");
+		}
+	}
+
+	private static DOCache copyOf(DOCache cachedObject)
+	{
+		DOCache copy = new DOCache();
+		copy.setSifObjectName(cachedObject.getSifObjectName());
+		copy.setObjectKeyValue(cachedObject.getObjectKeyValue());
+		copy.setIsEvent(cachedObject.getIsEvent());
+		copy.setEventType(cachedObject.getEventType());
+		copy.setObjectXML(cachedObject.getObjectXML());
+		copy.setReceivedOn(copyOf(cachedObject.getReceivedOn()));
+		copy.setAgentId(cachedObject.getAgentId());
+		copy.setZoneId(cachedObject.getZoneId());
+		copy.setApplicationId(cachedObject.getApplicationId());
+		copy.setRemainingDependencies(cachedObject.getRemainingDependencies());
+		copy.setExpiryDate(copyOf(cachedObject.getExpiryDate()));
+		copy.setExpiryStrategy(cachedObject.getExpiryStrategy());
+		return copy;
+	}
+
+	private static DOCache copyWithDependents(DOCache cachedObject)
+	{
+		DOCache copy = copyOf(cachedObject);
+		copy.setDependentObjects(new HashSet<DOCObject>());
+		for (DOCObject depObj : cachedObject.getDependentObjects())
+		{
+			copy.getDependentObjects().add(copyOf(depObj));
+		}
+		return copy;
+	}
+
+	private static DOCObject copyOf(DOCObject docObject)
+	{
+		DOCObject copy = new DOCObject();
+		copy.setSifObjectName(docObject.getSifObjectName());
+		copy.setObjectKeyValue(docObject.getObjectKeyValue());
+		copy.setAgentId(docObject.getAgentId());
+		copy.setApplicationId(docObject.getApplicationId());
+		copy.setZoneId(docObject.getZoneId());
+		copy.setRequested(docObject.getRequested());
+		copy.setRequestDate(copyOf(docObject.getRequestDate()));
+		copy.setRequestAttempts(docObject.getRequestAttempts());
+		copy.setNextRequestDate(copyOf(docObject.getNextRequestDate()));
+		copy.setKnownToCache(true);
+		return copy;
+	}
+
+	private static Date copyOf(Date date)
+	{
+		return (date == null) ? null : new Date(date.getTime());
+	}
+
+	/*-------------------*/
+	/*-- Inner Classes --*/
+	/*-------------------*/
+
+	/*
+	 * The key of cached and dependent objects: (object name, flat key, application, zone).
+	 */
+	private static final class DOCKey
+	{
+		private final String sifObjectName;
+		private final String flatKey;
+		private final String applicationId;
+		private final String zoneId;
+		private final int hash;
+
+		DOCKey(String sifObjectName, String flatKey, String applicationId, String zoneId)
+		{
+			this.sifObjectName = sifObjectName;
+			this.flatKey = flatKey;
+			this.applicationId = applicationId;
+			this.zoneId = zoneId;
+
+			int h = (sifObjectName == null) ? 0 : sifObjectName.hashCode();
+			h = 31 * h + ((flatKey == null) ? 0 : flatKey.hashCode());
+			h = 31 * h + ((applicationId == null) ? 0 : applicationId.hashCode());
+			this.hash = 31 * h + ((zoneId == null) ? 0 : zoneId.hashCode());
+		}
+
+		DOCKey(DOCache cachedObject)
+		{
+			this(cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getApplicationId(), cachedObject.getZoneId());
+		}
+
+		DOCKey(DOCObject docObject)
+		{
+			this(docObject.getSifObjectName(), docObject.getObjectKeyValue(), docObject.getApplicationId(), docObject.getZoneId());
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof DOCKey))
+			{
+				return false;
+			}
+			DOCKey other = (DOCKey)obj;
+			return (hash == other.hash) && equal(sifObjectName, other.sifObjectName) && equal(flatKey, other.flatKey)
+					&& equal(applicationId, other.applicationId) && equal(zoneId, other.zoneId);
+		}
+
+		private static boolean equal(String a, String b)
+		{
+			return (a == null) ? (b == null) : a.equals(b);
+		}
+	}
+
+	/*
+	 * A mutation that must be written to the DOC tables. The writes hold copies of the affected objects and look up
+	 * the persisted rows by their key properties, so that they can be applied in order within one transaction.
+	 */
+	private static abstract class PendingWrite
+	{
+		/* The number of failed attempts to apply this write. Only used by the flushing thread. */
+		int attempts = 0;
+
+		abstract void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException;
+
+		/*
+		 * Returns the keys of the cached objects of the tier that are out of line with the DOC tables if this write
+		 * can't be applied. Called while holding the lock of the tier.
+		 */
+		abstract Set<DOCKey> getAffectedKeys(DOCMemoryTier tier);
+	}
+
+	private static class CacheObjectWrite extends PendingWrite
+	{
+		private DOCache cachedObject;
+
+		CacheObjectWrite(DOCache cachedObject)
+		{
+			this.cachedObject = cachedObject;
+		}
+
+		/*
+		 * A dependent object can be shared with cached objects written before, in this or an earlier flush. Its row
+		 * is looked up and reused rather than inserted a second time. The write is applied to a copy, so that a retry
+		 * of this write (see flush()) starts from the queued state again.
+		 */
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			DOCache toSave = copyOf(cachedObject);
+			toSave.setDependentObjects(new HashSet<DOCObject>());
+			for (DOCObject depObj : cachedObject.getDependentObjects())
+			{
+				DOCObject persisted = dao.retrieve(tx, depObj);
+				toSave.getDependentObjects().add((persisted == null) ? copyOf(depObj) : persisted);
+			}
+			dao.save(tx, toSave);
+		}
+
+		@Override
+		Set<DOCKey> getAffectedKeys(DOCMemoryTier tier)
+		{
+			return Collections.singleton(new DOCKey(cachedObject));
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Cache Object:\n"+cachedObject;
+		}
+	}
+
+	private static class MarkRequestedWrite extends PendingWrite
+	{
+		private DOCObject docObject;
+
+		MarkRequestedWrite(DOCObject docObject)
+		{
+			this.docObject = docObject;
+		}
+
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			DOCObject persisted = dao.retrieve(tx, docObject);
+			if (persisted != null)
+			{
+				persisted.setAgentId(docObject.getAgentId());
+				persisted.setRequestDate(docObject.getRequestDate());
+				persisted.setRequested(docObject.getRequested());
+				persisted.setRequestAttempts(docObject.getRequestAttempts());
+				persisted.setNextRequestDate(docObject.getNextRequestDate());
+				dao.save(tx, persisted);
+			}
+		}
+
+		@Override
+		Set<DOCKey> getAffectedKeys(DOCMemoryTier tier)
+		{
+			Set<DOCKey> parentKeys = tier.parentsOfDependentObject.get(new DOCKey(docObject));
+			return (parentKeys == null) ? new HashSet<DOCKey>() : new HashSet<DOCKey>(parentKeys);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Mark Requested:\n"+docObject;
+		}
+	}
+
+	private static class RemoveDependencyWrite extends PendingWrite
+	{
+		private DOCObject docObject;
+		private Set<DOCKey> parentKeys;
+
+		RemoveDependencyWrite(DOCObject docObject, Set<DOCKey> parentKeys)
+		{
+			this.docObject = docObject;
+			this.parentKeys = (parentKeys == null) ? new HashSet<DOCKey>() : new HashSet<DOCKey>(parentKeys);
+		}
+
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			dao.removeDependency(tx, docObject);
+		}
+
+		/* The cached objects that were waiting on the dependent object when it was removed. */
+		@Override
+		Set<DOCKey> getAffectedKeys(DOCMemoryTier tier)
+		{
+			return parentKeys;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Remove Dependency:\n"+docObject;
+		}
+	}
+
+	private static class RemoveCachedObjectWrite extends PendingWrite
+	{
+		private DOCache cachedObject;
+
+		RemoveCachedObjectWrite(DOCache cachedObject)
+		{
+			this.cachedObject = cachedObject;
+		}
+
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			// The DAO decides on the parents of the dependent objects whether they can be removed as well. Objects
+			// saved or removed earlier in this batch would make the parents held by the session out of date.
+			tx.getSession().flush();
+			tx.getSession().clear();
+			DOCache persisted = dao.retrieveCachedObject(tx, cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getApplicationId(), cachedObject.getZoneId(), true);
+			dao.removeCachedObject(tx, persisted);
+		}
+
+		@Override
+		Set<DOCKey> getAffectedKeys(DOCMemoryTier tier)
+		{
+			return Collections.singleton(new DOCKey(cachedObject));
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Remove Cached Object:\n"+cachedObject;
+		}
+	}
+
+	private static class ResetExpiredWrite extends PendingWrite
+	{
+		private DOCache cachedObject;
+		private Date resetDate;
+
+		ResetExpiredWrite(DOCache cachedObject, Date resetDate)
+		{
+			this.cachedObject = cachedObject;
+			this.resetDate = resetDate;
+		}
+
+		@Override
+		void apply(DOCacheDAO dao, BasicTransaction tx) throws PersistenceException
+		{
+			DOCache persisted = dao.retrieveCachedObject(tx, cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getApplicationId(), cachedObject.getZoneId(), true);
+			if (persisted != null)
+			{
+   				for (DOCObject depObj : persisted.getDependentObjects())
+   				{
+   					resetRequest(depObj, resetDate);
+   				}
+   				persisted.setExpiryDate(cachedObject.getExpiryDate());
+   				persisted.setExpiryStrategy(cachedObject.getExpiryStrategy());
+   				dao.save(tx, persisted);
+			}
+		}
+
+		@Override
+		Set<DOCKey> getAffectedKeys(DOCMemoryTier tier)
+		{
+			return Collections.singleton(new DOCKey(cachedObject));
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Reset Expired Object:\n"+cachedObject;
+		}
+	}
+}
@@ -1,1038 +1,1844 @@
-/*
- * DOCService.java
- * Created: 11/10/2011
- *
- * Copyright 2011 Systemic Pty Ltd
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License 
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied.
- * See the License for the specific language governing permissions and limitations under the License.
- */
-
-package systemic.sif.sbpframework.persist.servcie;
-
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-
-import javax.persistence.PersistenceException;
-
-import org.apache.log4j.Logger;
-
-import au.com.systemic.framework.utils.DateUtils;
-import au.com.systemic.framework.utils.StringUtils;
-import openadk.library.ADKSchemaException;
-import openadk.library.Element;
-import openadk.library.SIFDataObject;
-import systemic.sif.sbpframework.common.utils.SIFObjectMetadataCache;
-import systemic.sif.sbpframework.exception.InvalidKeyException;
-import systemic.sif.sbpframework.persist.common.BasicTransaction;
-import systemic.sif.sbpframework.persist.dao.BaseDAO;
-import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
-import systemic.sif.sbpframework.persist.model.DOCObject;
-import systemic.sif.sbpframework.persist.model.DOCache;
-import systemic.sif.sbpframework.persist.model.DependentKeyInfo;
-import systemic.sif.sbpframework.persist.model.DependentObjectInfo;
-import systemic.sif.sbpframework.persist.model.SIFObject;
-import systemic.sif.sbpframework.persist.model.SIFObjectKey;
-
-/**
- * @author Joerg Huber
- *
- */
-public class DOCService extends DBService
-{
-	protected final Logger logger = Logger.getLogger(getClass());
-
-    private DOCacheDAO docCacheDAO = new DOCacheDAO();
-	private SIFObjectMetadataCache metadataCache = SIFObjectMetadataCache.getCache();
-
-	@Override
-    public BaseDAO getDAO()
-    {
-    	return docCacheDAO;
-    }
-	
-	/**
-	 * This method extracts the dependency info for the given sifObject and then looks up the DOC and marks already
-	 * requested dependent objects for the given zone and application. The final list of DOCObject is then returned. If
-	 * there are no dependent objects then an empty list is returned.
-	 *  
-	 * @param sifObject The SIF Object from which all dependencies need to be returned.
-	 * @param applicationId Check if dependent objects have already been requested for this application.
-	 * @param zoneId Check if dependent objects have already been requested for this zone.
-	 * 
-	 * @return See description.
-	 * 
-     * @throws PersistenceException If there is an error in the underlying DB. The error is logged.
-     * @throws IllegalArgumentException If any of the parameters is null or empty.
-	 * @throws InvalidKeyException Processing of key values in either the object itself or its dependent objects failed. Error is logged.
-     * @throws Exception some underlying issue. Error is logged.
-	 */
-	public List<DOCObject> getDependenciesFromSIFObjectAndCache(SIFDataObject sifObject, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException, InvalidKeyException 
-	{
-		if ((sifObject == null) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
-		{
-    		throw new IllegalArgumentException("Any of the parameters sifObject, applicationId or zoneId is null or empty.");			
-		}
-		checkMetadataCache();
-		
-		List<DOCObject> dependencyList = extractDependentObjectsFromSIFObject(sifObject);
-		mergeWithCachedDependencies(dependencyList, applicationId, zoneId);
-		
-		return dependencyList;
-	}
-	
-    /**
-	 * This method attempts to retrieve a cached SIF Object based on the object name, object key (flatten key) and the
-	 * agentId. Since each object can only be provided from one zone the zoneID is irrelevant and is not required to
-	 * determine if an object is already cached. If the object isn't cached then null is returned.
-	 * 
-	 * NOTE:
-	 * ================================================================================================================
-	 * Only the top level object is returned. The dependent object list is not returned as part of this method!!
-	 * If the entire object with its dependent objects shall be returned the loadAll parameter must be set to TRUE
-	 * ================================================================================================================
-	 * 
-     * @param sifObject The SIF Object for which the DOCache info shall be returned.
-     * @param applicationId The application ID for which the DOCache info shall be returned.
-     * @param zoneId The Zone ID for which the DOCache info shall be returned.
-     * @param loadAll Indicates if all dependent objects shall be loaded into memory. This is required since information
-     *                is 'lazy' loaded by hibernate.
-     * 
-     * @return The DOCache object if it exists in the cache already, null if it does not exist.
-     * 
-     * @throws PersistenceException If there is an error in the underlying DB. The error is logged.
-     * @throws IllegalArgumentException If any of the parameters is null or empty.
-     * @throws Exception some underlying issue. Error is logged.
-	 */
-    public DOCache retrieveCachedObject(SIFDataObject sifObject, String applicationId, String zoneId, boolean loadAll) throws PersistenceException, IllegalArgumentException
-    {
-    	checkMetadataCache();
-    	try
-    	{
-    		if (sifObject != null)
-    		{
-    			SIFObject cachedObj = metadataCache.getObjectMetadata(sifObject.getElementDef().name());
-    			String flatKey = extractFlatKey(sifObject, cachedObj.getOrderedKeyList(), cachedObj.getKeySeparator());
-
-    			if (flatKey != null)
-    			{
-    				return retrieveCachedObject(sifObject.getElementDef().name(), flatKey, applicationId, zoneId, loadAll);
-    			}
-    			else
-    			{
-    	    		logger.error("Failed to retrieve cached object from DOCache. See prvious log entry for details. Object in question:\n"+sifObject.toXML());
-    	    		return null;
-    			}
-    		}
-    		else
-    		{
-    			throw new IllegalArgumentException("sifObject is null.");
-    		}
-    	}
-    	catch (Exception ex)
-    	{
-    		logger.error("Failed to retrieve cached object from DOCache for object:\n"+sifObject.toXML());
-    		exceptionMapper(ex, null, false, false);
-    	}
-    	return null; // we will never get here
-    }
-
-    /*
-     * As above except the flat key is already known for the SIF Object.
-     */
-    public DOCache retrieveCachedObject(String sifObjectName, String flatKey, String applicationId, String zoneId, boolean loadAll) throws PersistenceException, IllegalArgumentException
-    {
-    	DOCache cachedObject = null;
-    	BasicTransaction tx = startTransaction();
-    	try
-    	{
-    		cachedObject = docCacheDAO.retrieveCachedObject(tx, sifObjectName, flatKey, applicationId, zoneId, loadAll);
-    		tx.commit();
-    	}
-    	catch (Exception ex)
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Failed to retrieve cached object from DOCache for Object = '"+sifObjectName+"', flat key = '"+flatKey+"', application ID = '"+applicationId+"' and zoneId = '"+zoneId+"'", true, false);
-    	}
-		return cachedObject;
-    }
-
-    
-    /**
-     * This method will save the DOCache object with all its child elements. It will assign appropriate properties such
-     * as Expire Info (retrieved from the Metadata Cache), received date etc. If the given sifObjectToCache has no 
-     * dependencies then it will NOT be persisted. A info message is logged in that case as this is not really an error.
-     * 
-     * @param sifObjectToCache The object to save to the DOC.
-     * @param agentId The agent that requests this save.
-     * @param applicationId The application for which the entry is stored. Will be used to pre-populate some information.
-     * @param zoneId The zone from which the SIF Object has been received. This will be the zone from which dependent objects
-     *               will be requested at some stage.
-     * 
-     * @throws PersistenceException If the object cannot be persisted. The error is logged.
-     * @throws IllegalArgumentException If any of the parameters is null or empty. Metadata Cache is not available.
-     */
-    public void cacheObject(DOCache sifObjectToCache, String agentId, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException
-    {
-    	checkMetadataCache();
-    	if ((sifObjectToCache == null) || StringUtils.isEmpty(agentId) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
-    	{
-    		throw new IllegalArgumentException("Any of the parameters sifObjectToCache, agentId, applicationId or zoneId is null or empty.");
-    	}
-    	if ((sifObjectToCache.getDependentObjects() == null) || ((sifObjectToCache.getDependentObjects().size() == 0)))
-    	{
-    		logger.info("The object '"+sifObjectToCache.getSifObjectName() + "' has no open dependencies. Will not cache it.");
-    	}
-    	else
-    	{
-    		SIFObject cachedObj = metadataCache.getObjectMetadata(sifObjectToCache.getSifObjectName());
-    		
-	    	//Iterate through object and set the agentId and zoneId where needed, as well as some other default parameters
-	    	sifObjectToCache.setAgentId(agentId);
-	    	sifObjectToCache.setZoneId(zoneId);
-	    	sifObjectToCache.setApplicationId(applicationId);
-	    	sifObjectToCache.setReceivedOn(new Date());
-	    	sifObjectToCache.setRemainingDependencies(sifObjectToCache.getDependentObjects().size());
-	    	sifObjectToCache.setExpiryDate(DateUtils.dateAfter(sifObjectToCache.getReceivedOn(), cachedObj.getDefaultExpiryInMinutes()*60*1000));
-	    	sifObjectToCache.setExpiryStrategy(cachedObj.getDefaultExpiryStrategy());
-	    	
-	    	// Iterate through all dependent objects and set the application and zoneID
-	    	for (DOCObject docObject : sifObjectToCache.getDependentObjects())
-	    	{
-	    		// ensure that the docObject has net yet been requested and only then update the information
-	    		if (!docObject.getRequested())
-	    		{
-	    			// Don't assign the agent because we don't know which agent is responsible for requesting it. Instead
-	    			// assign the application ID because whichever agent is responsible for the retrieval of this dependent
-	    			// object must pick it up for that application.
-	    			docObject.setZoneId(zoneId);
-	    			docObject.setRequested(false);
-	    			docObject.setApplicationId(applicationId);
-	    		}
-	    	}
-	    	
-	    	// Now the object is ready to be saved.
-	    	BasicTransaction tx = null;	    	
-	    	try
-	    	{
-	    		tx = startTransaction();
-	    		docCacheDAO.save(tx, sifObjectToCache);
-	    		tx.commit();
-	    	}
-	    	catch (Exception ex)
-	    	{
-	    		if (tx != null)
-	    		{
-	    			tx.rollback();
-	    		}
-	    		exceptionMapper(ex, "Failed to save SIF Object to DOC Cache:\nObject To Cache:\n"+sifObjectToCache, true, false);
-	    	}
-    	}
-    }
-    
-    /**
-     * This method updates the given docObject and marks it as requested. (requested=true, requestDate=now). It is
-     * assumed that the object does already exist (i.e must have the property id of not null). This method is intended
-     * to be called once a dependent object has been requested, meaning an appropriate SIFQuery has been issued by an
-     *  agent (agentId) to a zone (zoneId).
-     *  
-     * @param docObject The dependent object to update (must have an id of not null!!)
-     * @param agentId The agent that has requested the object.
-     * @param zoneId The zone to which the request has been sent.
-     * 
-     * @throws PersistenceException If the object cannot be persisted. The error is logged.
-     * @throws IllegalArgumentException If any of the parameters is null or empty. The property docObject.id is null.
-     */
-    public void markDependentObjectAsRequested(DOCObject docObject, String agentId, String zoneId) throws PersistenceException, IllegalArgumentException
-    {
-    	if ((docObject == null) || (docObject.getId() == null) || StringUtils.isEmpty(agentId) || StringUtils.isEmpty(zoneId))
-    	{
-    		throw new IllegalArgumentException("Any of the parameters docObject, docObject.id, agentId or zoneId is null or empty.");
-    	}
-    	docObject.setAgentId(agentId);
-    	docObject.setZoneId(zoneId);
-    	docObject.setRequestDate(new Date());
-    	docObject.setRequested(Boolean.TRUE);
-
-    	// Now the object is ready to be saved.
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-    		docCacheDAO.save(tx, docObject);
-    		tx.commit();
-    	}
-    	catch (Exception ex)
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Failed to mark Dependent Object as reuested.:\n"+docObject, true, false);
-    	}
-    	
-    }
-    
- 
-    /**
-     * This method iterates through the dependentObjectList and replaces elements in that list with the requested
-     * information. This includes if the object has already been requested, when and by which agent. Objects that have not
-     * been requested are updated with the application ID and Zone Id. If the dependentObjectList is null or empty then
-     * no action is taken.
-     * For this method to work the following property in each DOCObject of the dependentObjectList must be populated:
-     *  - objectKeyValue
-     *  - sifObjectName
-     * 
-     * @param dependentObjectList The list of objects to test
-     * @param applicationId The application to test for.
-     * @param zoneId The zone to test for.
-     * 
-     * @throws PersistenceException If there are any errors with the underlying data store. Error is logged.
-     * @throws IllegalArgumentException applicationId or zoneId is empty or null.
-     */
-    public void mergeWithCachedDependencies(List<DOCObject> dependentObjectList, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException
-    {
-    	if ((dependentObjectList != null) && (dependentObjectList.size() > 0))
-    	{
-	    	BasicTransaction tx = null;	    	
-	    	try
-	    	{
-	    		tx = startTransaction();
-	        	for (int i=0; i<dependentObjectList.size(); i++)
-	        	{
-	        		DOCObject depObj = dependentObjectList.get(i);
-	        		depObj.setApplicationId(applicationId);
-	    			depObj.setZoneId(zoneId);
-	    			DOCObject reqObj = docCacheDAO.getCachedDependentObject(tx, depObj);
-	    			if (reqObj != null)
-	    			{
-	    				dependentObjectList.set(i, reqObj);
-	    			}
-	        	}
-	        	        	
-	        	tx.commit();
-	    	}
-	    	catch (Exception ex)
-	    	{
-	    		if (tx != null)
-	    		{
-	    			tx.rollback();
-	    		}
-	    		exceptionMapper(ex, "Failed to mark dependent objects as requested.", true, true);
-	    	}
-    	}
-    }
-    
-    /**
-     * This method checks if there are any objects cached that depend on this object. If it finds any objects it will
-     * remove that dependency from the DOC. If there are no dependencies no action is taken.
-     *  
-     * @param sifObject The object for which it is checked if there are dependencies.
-     * @param applicationId The application for which to check.
-     * @param zoneId The zone this object has been received from.
-     * 
-     * @throws PersistenceException If there are any errors with the underlying data store. Error is logged.
-     * @throws IllegalArgumentException sifObject, applicationId or zoneId is empty or null. Metadata Cache is not available.
-     * @throws InvalidKeyException The Key of the given object is invalid (null, empty or key element doesn't exist). Error logged.
-     */
-    public void checkAndRemoveDependency(SIFDataObject sifObject, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException, InvalidKeyException
-    {
-    	checkMetadataCache();
-    	if ((sifObject == null) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
-    	{
-    		throw new IllegalArgumentException("Any of the parameters sifObject, applicationId or zoneId is null or empty.");
-    	}
-    	
-		SIFObject cachedObj = metadataCache.getObjectMetadata(sifObject.getElementDef().name());
-		String flatKey = extractFlatKey(sifObject, cachedObj.getOrderedKeyList(), cachedObj.getKeySeparator());
-		checkAndRemoveDependency(sifObject.getElementDef().name(), flatKey, applicationId, zoneId);
-    }
-
-    /*
-     * Same as above method but for a known key (flattened) of the sifObject.
-     */
-    public void checkAndRemoveDependency(String sifObjectName, String flatKey, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
-    {
-		DOCObject docObject = new DOCObject();
-		docObject.setSifObjectName(sifObjectName);
-		docObject.setObjectKeyValue(flatKey);
-		docObject.setApplicationId(applicationId);
-		docObject.setZoneId(zoneId);
-		
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-        	docCacheDAO.removeDependency(tx, docObject);
-        	tx.commit();
-    	}
-    	catch (Exception ex)
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Failed to remove dependencies for object "+sifObjectName + " and flat key = "+flatKey, true, true);
-    	}		    	
-    }
-    
-    /**
-     * This method returns a list of DOC Objects. The objects are those that have not been requested, yet (requested=false).
-     * The 'keyForDependentObject' of each DOCObject in the list is also populated with the key details of the object.
-     * Based on this a SIF Query could easily be constructed as all the key information (xpath and value) is available
-     * after a call to this method.
-     * 
-     * Note: 
-     * If an agent subscribes to more than one zone for the same sifObject then this method must be called
-     * separately for each zone by the agent. If there are no cached and not yet requested objects for the
-     * given parameters then an empty list is returned.
-     * 
-     * @param sifObjectName The SIF Object names to search for (i.e StudentPersonal)
-     * @param applicationId Only return objects marked for this application.
-     * @param zoneId Only return objects marked for this zone.
-     * 
-     * @return See description
-     * 
-     * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
-     *                                   Metadata Cache is not available.
-     * @throws PersistenceException      A database error occurred.
-     */
-    public List<DOCObject> getNotYetRequestedObjects(String sifObjectName, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
-    {
-    	checkMetadataCache();
-    	List<DOCObject> docList = null;
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-        	docList = docCacheDAO.getNotYetRequestedObjects(tx, sifObjectName, applicationId, zoneId);
-        	tx.commit();
-    	}
-    	catch (Exception ex) //any other exception...
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Unable to retrieve list of DOCObjects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId +"'.", true, false);
-    	}
-    	
-    	SIFObject objectMetadata = metadataCache.getObjectMetadata(sifObjectName);
-    	for (DOCObject docObject : docList)
-    	{
-        	List<SIFObjectKey> objectKeys = objectMetadata.getOrderedKeyList();
-        	String[] keyComponents = new String[objectKeys.size()];       	
-        	if (StringUtils.isEmpty(objectMetadata.getKeySeparator()))
-        	{
-        		keyComponents[0] = docObject.getObjectKeyValue();
-        	}
-        	else
-        	{
-        		keyComponents = docObject.getObjectKeyValue().split(objectMetadata.getKeySeparator());
-        	}
-        	
-        	// Assign key component values to appropriate key value in the ordered list.
-        	for (int i=0; i<keyComponents.length; i++)
-        	{
-        		objectKeys.get(i).setValue(keyComponents[i]);
-        	}
-        	docObject.setKeyForDependentObject(objectKeys);
-    	}
-    	
-    	return docList;
-    }
-    
-    /**
-     * This method gets all cached objects of a given type for a particular application and agent that have no 
-     * remaining dependencies. These are the candidates do be removed later and be processed by the appropriate 
-     * subscriber. If there are no Cached Objects without dependencies then an empty list is returned.
-     *  
-     * @param sifObjectName The type of cached objects to be returned.
-     * @param applicationId The application for which the objects shall be returned.
-     * @param agentId The agent for which to get the object list. 
-     * 
-     * @return See description.
-     * 
-     * @throws IllegalArgumentException  Any of the parameters is null or empty.
-     * @throws PersistenceException      A database error occurred. Error is logged.
-     */
-    public List<DOCache> getObjectsWithoutDependencies(String sifObjectName, String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
-    {
-    	List<DOCache> objectList = null;
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-        	objectList = docCacheDAO.getObjectsWithoutDependencies(tx, sifObjectName, applicationId, agentId);
-        	tx.commit();
-     	}
-    	catch (Exception ex) 
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Unable to retrieve list of Cached Objects without dependencies for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", true, false);
-    	}
-   		return objectList;
-    }
-    
-    /**
-     * This method returns all objects in the cache that have remaining dependencies but have an expiry date
-     * older than the current date and time. These are the candidates that need to either be removed or 
-     * re-requested by the agent. If there are no expired objects then an empty list is returned.
-     * 
-     * @param applicationId Only return expired objects for this application.
-     * @param agentId Only return expired object that were initially cached by this agent.
-     * 
-     * @return See description.
-     * 
-     * @throws IllegalArgumentException  Any of the parameters is null or empty.
-     * @throws PersistenceException      A database error occurred. Error is logged.
-     */
-    public List<DOCache> getExpiredObjects(String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
-    {
-    	List<DOCache> objectList = null;
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-        	objectList = docCacheDAO.getExpiredObjects(tx, applicationId, agentId);
-        	tx.commit();
-     	}
-    	catch (Exception ex) 
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Unable to retrieve list of expired Cached Objects for application = '"+ applicationId + "'and agent = '" + agentId + "'.", true, false);
-    	}
-   		return objectList;
-    }
-    
-    /**
-     * This method removes the given object and all its dependencies from the cache. If the object is null then
-     * no action is taken.
-     * 
-     * @param cacheObject The object to remove from the DO Cache.
-     * 
-     * @throws PersistenceException      A database error occurred.
-     */
-    public void removeCachedObject(DOCache cacheObject)throws PersistenceException
-    {
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-        	docCacheDAO.removeCachedObject(tx, cacheObject);
-        	tx.commit();
-     	}
-    	catch (Exception ex) 
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Unable to remove cacheObject " + cacheObject + ".", true, false);
-    	}
-    }
-    
-    /**
-     * This method updates all Cached Objects and their dependencies according to the expiry strategy. Currently
-     * there are 2 strategies supported: EXPIRE and REQUEST. In case of EXPIRE the cached object and its 
-     * dependencies will be removed from the cache and a info message is logged. In case of REQUEST all dependent
-     * objects for each cached object will be marked as not requested (requested=false), so that it can be 
-     * requested again by the appropriate subscribers. The Cached Object will update its expiry date accordingly.
-     * 
-     * @param applicationId Only update/remove expired objects for this application.
-     * @param agentId Only update/remove expired object that were initially cached by this agent.
-     * 
-     * @throws IllegalArgumentException  Any of the parameters is null or empty.
-     * @throws PersistenceException      A database error occurred. Error is logged.
-     */
-    public void updateExpiredObjects(String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
-    {
-    	checkMetadataCache();
-		if (StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
-		{
-			throw new IllegalArgumentException("Some of the following parameters are either null or empty: applicationId, agentId");
-		}
-    	BasicTransaction tx = null;	    	
-    	try
-    	{
-    		tx = startTransaction();
-       		Date now = new Date();
-       		List<DOCache> getExpiredObjects = docCacheDAO.getExpiredObjects(tx, applicationId, agentId);
-       		for (DOCache cachedObject : getExpiredObjects)
-       		{
-       			// Should one test against the strategy in the metadata cache or what is in the DB?
-       			// If test against metadata cache then a simple restart of the agent would apply the new
-       			// strategy, while the DB value is 'sticky' until the next update cycle. Also objects marked as
-       			// 'EXPIRE' would expire while using the metadata cache would allow the expire value to override
-       			// immediately after restart.
-       			
-       			// This test uses the DB value...
-       			if (cachedObject.getExpiryStrategy().equals(SIFObject.EXPRIY_STARTEGY.EXPIRE.name()))
-       			{
-       				docCacheDAO.removeCachedObject(tx, cachedObject);
-       			}
-       			else if (cachedObject.getExpiryStrategy().equals(SIFObject.EXPRIY_STARTEGY.REQUEST.name()))
-       			{
-       				// Update all dependent objects to requested = false
-       				for (DOCObject depObj : cachedObject.getDependentObjects())
-       				{
-       					depObj.setRequested(Boolean.FALSE);
-       				}
-       				
-       				// Reset the expiry date and strategy according to the object metadata cache values
-       				SIFObject sifObjectMetadata = metadataCache.getObjectMetadata(cachedObject.getSifObjectName());
-       				cachedObject.setExpiryDate(DateUtils.dateAfter(now, sifObjectMetadata.getDefaultExpiryInMinutes()*60*1000));
-       				cachedObject.setExpiryStrategy(sifObjectMetadata.getDefaultExpiryStrategy());
-       				
-       				//save the updated values
-       				docCacheDAO.save(tx, cachedObject);
-       			}
-       			else // Invalid expiry strategy.
-       			{
-       				logger.error("Invalid Expiry Strategy ("+cachedObject.getExpiryStrategy()+") defined for Cached Object "+cachedObject.getSifObjectName()+" and Key = "+cachedObject.getObjectKeyValue()+".");
-       			}
-       		}       	
-       		tx.commit();
-     	}
-    	catch (Exception ex) 
-    	{
-    		if (tx != null)
-    		{
-    			tx.rollback();
-    		}
-    		exceptionMapper(ex, "Unable to update the expiry startegy for all expired cached objects for application = "+applicationId+" and agent = "+agentId+". See previous error log entry for detail.", true, false);
-    	}
-    }
-    
-    /*-----------------------------------------------------------------------------*/
-    /*-- Methods that operate on the SIFObject only but don't require a database --*/ 
-    /*-----------------------------------------------------------------------------*/
-    
-	/**
-	 * This method simply checks if the SIF object given by its name (i.e StudentSchoolEnrolment) has potential
-	 * dependencies based on the metadata that is available on the object. TRUE is returned if the object has
-	 * dependencies defined in the metadata cache. False is returned if there are no known dependencies based
-	 * on the metadata cache (i.e StudentPersonal has no dependencies where as the StudentSchoolEnrollment has the
-	 * student and school as dependencies.). If the sifObjectName is null or not known in the metadata cache then
-	 * FALSE is returned, indicating no caching required.
-	 * 
-	 * @param sifObjectName The name of the SIF Object to test for.
-	 * 
-	 * @return See description.
-	 */
-	public boolean hasPotentialDependencies(String sifObjectName)
-	{
-		if (metadataCache == null)
-		{
-			return false;
-		}
-		if (StringUtils.isEmpty(sifObjectName))
-		{
-			return false;
-		}
-		return metadataCache.hasDependencies(sifObjectName);
-	}
-
-	/**
-     * This method attempts to extract the primary key from the SIF Object as defined by the SIF Spec and flattens it.
-     * If the key is made up of more than one component the various components are separated by a separator as defined
-     * in the Metadata cache (generally a '|' character). The order of the key components is the same as the order of the
-     * key definition in the SIF Spec.
-     * 
-     * @param sifObject From which the primary key shall be extracted and flattened.
-     * 
-     * @return The flattened key of the SIFObject as described above.
-     * 
-     * @throws IllegalArgumentException Object is null or doesn't contain the primary key as expected by the SIF Spec.
-	 * @throws InvalidKeyException The primary key of the object is not set or accessible (i.e. value is null or empty).
-     */
-    public String extractFlatKey(SIFDataObject sifObject) throws IllegalArgumentException, InvalidKeyException
-    {
-		if (metadataCache != null) // we cannot determine info about object if cache is not enabled.
-		{
-			SIFObject cachedObj = metadataCache.getObjectMetadata(sifObject.getElementDef().name());
-			return extractFlatKey(sifObject, cachedObj.getOrderedKeyList(), cachedObj.getKeySeparator());
-		} 
-		else
-		{
-			throw new IllegalArgumentException("MetadataCache not inistialised. Cannot determine key for sif object.");
-		}
-    }
-    
-    /**
-     * This method checks SIF Object Cache if the given sifObject has dependencies and if so it will extract all dependencies
-     * and returns them. Each dependency is taken from the sifObject content by means of looking up the SIF Object cache and
-     * its object metadata information.
-     * 
-     * @throws PersistenceException If there are any errors with the underlying data store. Error is logged.
-     * @throws IllegalArgumentException Metadata Cache is not available. Error is logged.
-     * 
-     */
-    public List<DOCObject> extractDependentObjectsFromSIFObject(SIFDataObject sifObject) throws PersistenceException, IllegalArgumentException, InvalidKeyException
-    {
-    	checkMetadataCache();
-    	List<DOCObject> dependencies = null;
-    	
-    	try
-    	{
-    		if (sifObject != null)
-    		{
-    			if (metadataCache.hasDependencies(sifObject.getElementDef().name()))
-    			{
-    				SIFObject cachedObj = metadataCache.getObjectMetadata(sifObject.getElementDef().name());
-    				dependencies = new ArrayList<DOCObject>();
-    				for (DependentObjectInfo dependendInfo : cachedObj.getDependentObjects())
-    				{
-    					extractDependentObjects(sifObject, cachedObj, dependendInfo, dependencies);    					
-    				}
-    				if (dependencies.size() == 0) // can be the case for indicator dependencies
-    				{
-    					dependencies = null;
-    				}
-    			}		
-    		}
-    	}
-        catch (InvalidKeyException ex)
-        {
-            // error already logged accordingly. Just re-throw exception. We need to deal with this exception that way
-            // because we don't want to deal with it in the exceptionMapper().
-//            logger.error("Failed to determine dependencies for object:\n"+sifObject.toXML()+"\n"+ex.getMessage());
-            throw ex;
-        }
-    	catch (Exception ex)
-    	{
-    		exceptionMapper(ex, "Failed to determine dependencies for object:\n"+sifObject.toXML(), true, false);
-    	}
-		return dependencies;
-    }
-    
-    
-    /*---------------------*/
-    /*-- Private Methods --*/
-    /*---------------------*/
-	private void extractDependentObjects(SIFDataObject sifObject, SIFObject sourceObj,  DependentObjectInfo dependendObjInfo, List<DOCObject> dependencies) throws InvalidKeyException
-	{
-	    
-		if (dependendObjInfo.getListOfObjects())
-		{
-			// Deal with the case where there are many dependent objects of the same type (i.e. TeachingGroup->TeachingGroupStudent)
-			int idx = 1;
-			String xpathToListObj = dependendObjInfo.getXpathToList()+"["+idx+"]";
-			try
-            {
-                while (sifObject.getElementOrAttribute(xpathToListObj) != null)
-                {
-                	DOCObject depObj = extractDependentObjectInfo(sifObject, sourceObj, dependendObjInfo, xpathToListObj+"/");
-                	if (depObj != null)// Found valid dependent object
-                	{
-                		dependencies.add(depObj);
-                	}
-                	idx++;
-                	xpathToListObj = dependendObjInfo.getXpathToList()+"["+idx+"]";
-                }
-            }
-            catch (ADKSchemaException e)
-            {
-               throw new InvalidKeyException("Child object for element/attribute '"+xpathToListObj+"' doesn't exist. This is invalid.");
-            }
-		}
-		else
-		{
-			DOCObject depObj = extractDependentObjectInfo(sifObject, sourceObj, dependendObjInfo, "");
-			if (depObj != null)// Found valid dependent object
-			{
-				dependencies.add(depObj);
-			}
-		}
-	}
-
-	private DOCObject extractDependentObjectInfo(SIFDataObject sifObject, SIFObject sourceObj,  DependentObjectInfo dependendObjInfo, String xpathToListObject) throws InvalidKeyException
-	{
-		DOCObject depObj = new DOCObject();
-		SIFObject parentObject = dependendObjInfo.getParentObject();
-		
-		//First check if object is indicator: dependendObjInfo.getParentObject() == null
-		//If so extract the indicator value from actual SIFObject to determine what the parent object is then 
-		//check if it is a required dependency (maybe it is not and is marked as ignored).
-		//If it is ignored we don't set the parentObject otherwise we get the info from the metadataCache
-		if (parentObject == null) // indicator object
-		{
-		    DependentKeyInfo indicatorInfo = dependendObjInfo.getIndicatorField(true);
-		    String parentName = null;
-		    if (indicatorInfo != null)
-		    {
-		        Element elem;
-                try
-                {
-                    elem = sifObject.getElementOrAttribute(xpathToListObject+indicatorInfo.getXpath());
-                }
-                catch (ADKSchemaException e)
-                {
-                    throw new InvalidKeyException("The element/attribute '"+xpathToListObject+indicatorInfo.getXpath()+"' does not exist. This an invalid object.");
-                }
-                if (elem != null)
-                {
-                    parentName = elem.getTextValue();
-                    if (StringUtils.isEmpty(parentName))
-                    {
-                        throw new InvalidKeyException("The element/attribute '"+xpathToListObject+indicatorInfo.getXpath()+"' is empty or null. This an invalid object.");                        
-                    }
-                    
-                    // Do we need to ignore this dependency?
-                    for (SIFObject indicatorySIFObj : indicatorInfo.getValidIndicatorList())
-                    {
-                        if (indicatorySIFObj.getName().equals(parentName))
-                        {
-                            parentObject = metadataCache.getObjectMetadata(parentName);
-                            break;
-                        }
-                    }
-                }
-                else
-                {
-//                    logger.error("There is no indicator defined for the Object "+ sourceObj.getName() + " with key of "+indicatorInfo.getXpath());
-                    throw new InvalidKeyException("There is no indicator defined for the Object "+ sourceObj.getName() + " with key of "+indicatorInfo.getXpath());
-                }
-		    }
-		}
-		
-		// If parentObject is still null then there is no dependency = > return null
-		if (parentObject == null)
-		{
-		    return null;
-		}
-		
-		// If we get here we do have a valid parent object for which we must extract the key etc.
-		depObj.setSifObjectName(parentObject.getName());
-		
-		//Extract Key Definition Info
-		List<SIFObjectKey> keyForDependentObject = new ArrayList<SIFObjectKey>();
-		for (SIFObjectKey key : parentObject.getOrderedKeyList())
-		{
-			keyForDependentObject.add(new SIFObjectKey(null, key.getXpath(), key.getSortOrder()));
-		}
-
-		// Extract key values from actual SIF Object. This will throw an exception if anything is invalid. Error is already logged.
-		extractDependentKeyValuesFromSIFObject(sifObject, xpathToListObject, dependendObjInfo, sourceObj, keyForDependentObject);
-		
-		// If we get here without exception all the key information is valid.
-		depObj.setKeyForDependentObject(keyForDependentObject);
-		
-		// Flatten key and store it in the appropriate property.
-		depObj.setObjectKeyValue(flattenOrderedKey(keyForDependentObject, parentObject.getKeySeparator()));
-		depObj.setRequested(Boolean.FALSE);
-		
-		return depObj;
-			
-//		else
-//		{
-//			logger.error("Dependency "+ depObj.getSifObjectName() + " for object "+sourceObj.getName()+" not added. See prvious error log entry for details.");				
-//			return null;
-//		}
-	}
-	
-	private void extractDependentKeyValuesFromSIFObject(SIFDataObject sifObject, String xpathPrefix, DependentObjectInfo dependendInfo, SIFObject sourceObj, List<SIFObjectKey> orderedKeyForParentObj) throws InvalidKeyException
-	{
-//		boolean allKeysHaveValue = true;
-	    String keyErrorMsg = null;
-	    try
-	    {
-    		List<DependentKeyInfo> dependentKeyInfoList = dependendInfo.getOrderedKeyInfoList();
-    
-    		// Iterate through keyForDependentObject to see which key values we must retrieve and in what sort_order.
-    		if (dependentKeyInfoList.size() != orderedKeyForParentObj.size())
-    		{
-    		    keyErrorMsg = "There number of key components of object ("+sifObject.getElementDef().name()+") doesn't match the number of key components of the dependent object ("+dependendInfo.parentObject.getName()+").";
-//    			logger.error("There number of key components of object ("+sifObject.getElementDef().name()+") doesn't match the number of key components of the dependent object ("+dependendInfo.parentObject.getName()+").");
-//    			allKeysHaveValue = false;
-    		}
-    		else
-    		{
-    			for (int i=0; i<orderedKeyForParentObj.size(); i++)
-    			{
-    				SIFObjectKey parentObjKey = orderedKeyForParentObj.get(i);
-    				
-    				// extract the key value from the SIF Object based on xPath of dependent object info
-    				Element elem = sifObject.getElementOrAttribute(xpathPrefix+dependentKeyInfoList.get(i).getXpath());
-    				if (elem != null)
-    				{
-                        String value = elem.getTextValue();
-                        if (StringUtils.notEmpty(value))
-                        {
-                            parentObjKey.setValue(elem.getTextValue());
-                        }
-                        else
-                        {
-                            keyErrorMsg = "The foreign key "+ xpathPrefix+dependentKeyInfoList.get(i).getXpath() +" for the Object "+ sourceObj.getName() + " is null or empty";
-//                            logger.error("The key value for the Object "+ sourceObj.getName() + " with key of "+xpathPrefix+dependentKeyInfoList.get(i).getXpath() + " is null or empty");                     
-//                            allKeysHaveValue = false;
-                        }
-    				}
-    				else
-    				{
-    				    keyErrorMsg = "The foreign key "+ xpathPrefix+dependentKeyInfoList.get(i).getXpath() + "for the Object "+ sourceObj.getName() + " does not exits.";
-//    					logger.error("There is no key defined for the Object "+ sourceObj.getName() + " with key of "+dependentKeyInfoList.get(i).getXpath());
-//    					allKeysHaveValue = false;
-    				}
-    			}			
-    		}
-	    }
-	    catch (ADKSchemaException ex)
-        {
-	        keyErrorMsg = "Failed to extract dependend key from "+sourceObj.getName()+"\n"+sifObject.toXML();
-//            String errmsg = "Failed to extract dependend key from "+sourceObj.getName()+"\n"+sifObject.toXML();
-//            logger.error(errmsg);
-//            throw new InvalidKeyException(errmsg, ex);          
-        }
-	    if (keyErrorMsg != null) // we had an issue in generating the depended key objects. 
-	    {
-	        logger.error(keyErrorMsg);
-	        throw new InvalidKeyException(keyErrorMsg);        
-	    }
-
-
-//		return allKeysHaveValue;
-	}
-    
-	/*
-	 * This method attempts to extract the primary key of the given SIFObject. If it fails then an IllegalArgumentException is
-	 * returned and the error is logged accordingly.
-	 */
-	private String extractFlatKey(SIFDataObject sifObject, List<SIFObjectKey> orderedKeylist, String separator)  throws IllegalArgumentException, InvalidKeyException
-	{
-		boolean allKeysHaveValue = true;
-		try
-		{
-			for (int i=0; i<orderedKeylist.size(); i++)
-			{
-				SIFObjectKey key = orderedKeylist.get(i);
-					
-				// extract the key value from the SIF Object based on xPath of dependent object info
-				Element elem = sifObject.getElementOrAttribute(key.getXpath());
-				if (elem != null)
-				{
-				    String value = elem.getTextValue();
-				    if (StringUtils.notEmpty(value))
-				    {
-				        key.setValue(elem.getTextValue());
-				    }
-				    else
-				    {
-	                    logger.error("The key value for the Object "+ sifObject.getElementDef().name() + " with key of "+key.getXpath() + " is null or empty");				        
-	                    allKeysHaveValue = false;
-				    }
-				}
-				else
-				{
-					logger.error("There is no key defined for the Object "+ sifObject.getElementDef().name() + " with key of "+key.getXpath());
-					allKeysHaveValue = false;
-				}
-			}
-			if (allKeysHaveValue)
-			{
-				return flattenOrderedKey(orderedKeylist, separator);
-			}
-			else
-			{
-	    		String errmsg = "Failed to extract and flatten primary key from "+sifObject.getElementDef().name()+". See prvious error log entry for details.";
-	    		logger.error(errmsg);
-	    		throw new InvalidKeyException(errmsg);
-			}
-		}
-		catch (ADKSchemaException ex)
-		{
-    		String errmsg = "Failed to extract and flatten primary key from "+sifObject.getElementDef().name();
-    		logger.error(errmsg);
-    		throw new InvalidKeyException(errmsg, ex);			
-		}
-	}
-
-	private String flattenOrderedKey(List<SIFObjectKey> orderedKeylist, String separator)
-	{		
-		// Now the list is in the correct order, we can start flatten the key into a string
-		StringBuffer flatKey = new StringBuffer();
-		boolean addSeparator = false;
-		for (SIFObjectKey key : orderedKeylist)
-		{
-			if (addSeparator)
-			{
-				flatKey.append(separator);
-			}
-			flatKey.append(key.getValue());
-			addSeparator= true;
-		}
-		
-		return flatKey.toString();
-	}
-	
-	private void checkMetadataCache() throws IllegalArgumentException
-	{
-		if (metadataCache == null) // we cannot determine info about object if cache is not enabled.
-		{
-			String errorMsg = "MetadataCache not inistialised. Cannot execute requested service method in DOCService class.";
-			logger.error(errorMsg);
-   			throw new IllegalArgumentException(errorMsg);
-   		}
-	}
-	
-	/*
-	 * This method takes the given exception and simply re-throws it if it is a IllegalArgumentException, PersistenceException, InvalidKeyException.
-	 * Any other exception is mapped to a persistence exception since this service mainly deals with DB operations.
-	 * The given errorMsg is added to the IllegalArgumentException or PersistenceException if addErrorMsgToStandardEx is
-	 * true. If the exception is any other type then the error message is added regardless addErrorMsgToStandardEx parameter.
-	 * The errorMsg is logged if logError is set to true.
-	 */
-	private void exceptionMapper(Exception ex, String errorMsg, boolean logError, boolean addErrorMsgToStandardEx) throws IllegalArgumentException, PersistenceException
-	{
-		if (logError)
-		{
-			logger.error(errorMsg, ex);
-		}
-		if (ex instanceof IllegalArgumentException)
-		{
-			if (addErrorMsgToStandardEx)
-			{
-				throw new IllegalArgumentException(errorMsg, ex);
-			}
-			throw (IllegalArgumentException)ex;				
-		}
-		if 	(ex instanceof PersistenceException)
-		{
-			if (addErrorMsgToStandardEx)
-			{
-				throw new PersistenceException(errorMsg, ex);
-			}
-			throw (PersistenceException)ex;			
-		}
-//        if (ex instanceof InvalidKeyException)
-//        {
-//            if (addErrorMsgToStandardEx)
-//            {
-//                throw new InvalidKeyException(errorMsg, ex);
-//            }
-//            throw (InvalidKeyException)ex;
-//        }
-        
-		// If we get here the ex is of any other type
-		throw new PersistenceException(errorMsg, ex);
-	}
-	
-}
+/*
+ * DOCService.java
+ * Created: 11/10/2011
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License 
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.servcie;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.PersistenceException;
+
+import org.apache.log4j.Logger;
+
+import au.com.systemic.framework.utils.DateUtils;
+import au.com.systemic.framework.utils.StringUtils;
+import openadk.library.ADKSchemaException;
+import openadk.library.Element;
+import openadk.library.SIFDataObject;
+import openadk.library.SIFElement;
+
+import systemic.sif.sbpframework.common.utils.DOCacheProperties;
+import systemic.sif.sbpframework.common.utils.DependencyKeyFilter;
+import systemic.sif.sbpframework.common.utils.ElementAccessor;
+import systemic.sif.sbpframework.common.utils.ResolvedObjectQueue;
+import systemic.sif.sbpframework.common.utils.SIFObjectKeyPlan;
+import systemic.sif.sbpframework.common.utils.SIFObjectKeyPlan.DependencyPlan;
+import systemic.sif.sbpframework.common.utils.SIFObjectMetadataCache;
+import systemic.sif.sbpframework.exception.InvalidKeyException;
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.common.UnitOfWork;
+import systemic.sif.sbpframework.persist.dao.BaseDAO;
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.model.DependentObjectInfo;
+import systemic.sif.sbpframework.persist.model.SIFObject;
+
+/**
+ * @author Joerg Huber
+ *
+ */
+public class DOCService extends DBService
+{
+	protected final Logger logger = Logger.getLogger(getClass());
+
+	/* Number of dependent object keys read per page when the dependency key filter is populated. */
+	private static final int FILTER_PAGE_SIZE = 5000;
+	
+	/* Default number of expired objects removed or reset in one transaction. */
+	private static final int EXPIRY_PAGE_SIZE = 500;
+	
+	/* Defaults for requesting dependent objects again that have not been received. */
+	private static final int RETRY_INITIAL_DELAY_SEC = 300;
+	private static final int RETRY_MAX_DELAY_SEC = 3600;
+	private static final int RETRY_MAX_ATTEMPTS = 3;
+
+    private DOCacheDAO docCacheDAO = new DOCacheDAO();
+	private SIFObjectMetadataCache metadataCache = SIFObjectMetadataCache.getCache();
+
+	@Override
+    public BaseDAO getDAO()
+    {
+    	return docCacheDAO;
+    }
+	
+	/**
+	 * This method extracts the dependency info for the given sifObject and then looks up the DOC and marks already
+	 * requested dependent objects for the given zone and application. The final list of DOCObject is then returned. If
+	 * there are no dependent objects then an empty list is returned.
+	 *  
+	 * @param sifObject The SIF Object from which all dependencies need to be returned.
+	 * @param applicationId Check if dependent objects have already been requested for this application.
+	 * @param zoneId Check if dependent objects have already been requested for this zone.
+	 * 
+	 * @return See description.
+	 * 
+     * @throws PersistenceException If there is an error in the underlying DB. The error is logged.
+     * @throws IllegalArgumentException If any of the parameters is null or empty.
+	 * @throws InvalidKeyException Processing of key values in either the object itself or its dependent objects failed. Error is logged.
+     * @throws Exception some underlying issue. Error is logged.
+	 */
+	public List<DOCObject> getDependenciesFromSIFObjectAndCache(SIFDataObject sifObject, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException, InvalidKeyException 
+	{
+		if ((sifObject == null) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
+		{
+    		throw new IllegalArgumentException("Any of the parameters sifObject, applicationId or zoneId is null or empty.");			
+		}
+		checkMetadataCache();
+		
+		List<DOCObject> dependencyList = extractDependentObjectsFromSIFObject(sifObject);
+		mergeWithCachedDependencies(dependencyList, applicationId, zoneId);
+		
+		return dependencyList;
+	}
+	
+    /**
+	 * This method attempts to retrieve a cached SIF Object based on the object name, object key (flatten key) and the
+	 * agentId. Since each object can only be provided from one zone the zoneID is irrelevant and is not required to
+	 * determine if an object is already cached. If the object isn't cached then null is returned.
+	 * 
+	 * NOTE:
+	 * ================================================================================================================
+	 * Only the top level object is returned. The dependent object list is not returned as part of this method!!
+	 * If the entire object with its dependent objects shall be returned the loadAll parameter must be set to TRUE
+	 * ================================================================================================================
+	 * 
+     * @param sifObject The SIF Object for which the DOCache info shall be returned.
+     * @param applicationId The application ID for which the DOCache info shall be returned.
+     * @param zoneId The Zone ID for which the DOCache info shall be returned.
+     * @param loadAll Indicates if all dependent objects shall be loaded into memory. This is required since information
+     *                is 'lazy' loaded by hibernate.
+     * 
+     * @return The DOCache object if it exists in the cache already, null if it does not exist.
+     * 
+     * @throws PersistenceException If there is an error in the underlying DB. The error is logged.
+     * @throws IllegalArgumentException If any of the parameters is null or empty.
+     * @throws Exception some underlying issue. Error is logged.
+	 */
+    public DOCache retrieveCachedObject(SIFDataObject sifObject, String applicationId, String zoneId, boolean loadAll) throws PersistenceException, IllegalArgumentException
+    {
+    	checkMetadataCache();
+    	try
+    	{
+    		if (sifObject != null)
+    		{
+    			String flatKey = extractFlatKey(sifObject, getKeyPlan(sifObject));
+
+    			if (flatKey != null)
+    			{
+    				return retrieveCachedObject(sifObject.getElementDef().name(), flatKey, applicationId, zoneId, loadAll);
+    			}
+    			else
+    			{
+    	    		logger.error("Failed to retrieve cached object from DOCache. See prvious log entry for details. Object in question:\n"+sifObject.toXML());
+    	    		return null;
+    			}
+    		}
+    		else
+    		{
+    			throw new IllegalArgumentException("sifObject is null.");
+    		}
+    	}
+    	catch (Exception ex)
+    	{
+    		logger.error("Failed to retrieve cached object from DOCache for object:\n"+sifObject.toXML());
+    		exceptionMapper(ex, null, false, false);
+    	}
+    	return null; // we will never get here
+    }
+
+    /*
+     * As above except the flat key is already known for the SIF Object.
+     */
+    public DOCache retrieveCachedObject(String sifObjectName, String flatKey, String applicationId, String zoneId, boolean loadAll) throws PersistenceException, IllegalArgumentException
+    {
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if (memoryTier != null)
+    	{
+            if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(flatKey) ||  StringUtils.isEmpty(applicationId)  ||  StringUtils.isEmpty(zoneId))
+            {
+                throw new IllegalArgumentException("sifObjecttName, flatKey, applicationId or zoneId is empty or null.");
+            }
+    		return memoryTier.retrieveCachedObject(sifObjectName, flatKey, applicationId, zoneId);
+    	}
+
+    	DOCache cachedObject = null;
+    	BasicTransaction tx = startTransaction();
+    	try
+    	{
+    		cachedObject = docCacheDAO.retrieveCachedObject(tx, sifObjectName, flatKey, applicationId, zoneId, loadAll);
+    		tx.commit();
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Failed to retrieve cached object from DOCache for Object = '"+sifObjectName+"', flat key = '"+flatKey+"', application ID = '"+applicationId+"' and zoneId = '"+zoneId+"'", true, false);
+    	}
+		return cachedObject;
+    }
+
+    /**
+     * This method returns the cached objects of the given type for all the given flattened keys. It is the same as 
+     * calling retrieveCachedObject() for each key with loadAll=false but requires only one DB query for up to 500 keys. 
+     * The returned map is keyed by the flattened key. Keys for which no object is cached have no entry in the map. If 
+     * the flatKeys list is null or empty then an empty map is returned.
+     * 
+     * @param sifObjectName The name of the SIF Object (i.e. StudentPersonal).
+     * @param flatKeys The flattened keys of the objects.
+     * @param applicationId The application ID for which the cached objects shall be returned.
+     * @param zoneId The Zone ID for which the cached objects shall be returned.
+     * 
+     * @return See description.
+     * 
+     * @throws PersistenceException If there is an error in the underlying DB. The error is logged.
+     * @throws IllegalArgumentException If any of the parameters is null or empty.
+     */
+    public Map<String, DOCache> retrieveCachedObjects(String sifObjectName, List<String> flatKeys, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException
+    {
+    	Map<String, DOCache> cachedObjects = new HashMap<String, DOCache>();
+    	if ((flatKeys == null) || flatKeys.isEmpty())
+    	{
+    		return cachedObjects;
+    	}
+    	
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if (memoryTier != null)
+    	{
+            if (StringUtils.isEmpty(sifObjectName) || StringUtils.isEmpty(applicationId)  ||  StringUtils.isEmpty(zoneId))
+            {
+                throw new IllegalArgumentException("sifObjecttName, applicationId or zoneId is empty or null.");
+            }
+            for (String flatKey : flatKeys)
+            {
+            	DOCache cachedObject = memoryTier.retrieveCachedObject(sifObjectName, flatKey, applicationId, zoneId);
+            	if (cachedObject != null)
+            	{
+            		cachedObjects.put(flatKey, cachedObject);
+            	}
+            }
+            return cachedObjects;
+    	}
+
+    	BasicTransaction tx = null;
+    	try
+    	{
+    		tx = startTransaction();
+    		for (DOCache cachedObject : docCacheDAO.retrieveCachedObjects(tx, sifObjectName, flatKeys, applicationId, zoneId))
+    		{
+    			// There should only be one. If not then use the first one as retrieveCachedObject() does.
+    			if (!cachedObjects.containsKey(cachedObject.getObjectKeyValue()))
+    			{
+    				cachedObjects.put(cachedObject.getObjectKeyValue(), cachedObject);
+    			}
+    		}
+    		tx.commit();
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Failed to retrieve cached objects from DOCache for Object = '"+sifObjectName+"', application ID = '"+applicationId+"' and zoneId = '"+zoneId+"'", true, false);
+    	}
+		return cachedObjects;
+    }
+    
+    /**
+     * This method will save the DOCache object with all its child elements. It will assign appropriate properties such
+     * as Expire Info (retrieved from the Metadata Cache), received date etc. If the given sifObjectToCache has no 
+     * dependencies then it will NOT be persisted. A info message is logged in that case as this is not really an error.
+     * 
+     * @param sifObjectToCache The object to save to the DOC.
+     * @param agentId The agent that requests this save.
+     * @param applicationId The application for which the entry is stored. Will be used to pre-populate some information.
+     * @param zoneId The zone from which the SIF Object has been received. This will be the zone from which dependent objects
+     *               will be requested at some stage.
+     * 
+     * @throws PersistenceException If the object cannot be persisted. The error is logged.
+     * @throws IllegalArgumentException If any of the parameters is null or empty. Metadata Cache is not available.
+     */
+    public void cacheObject(DOCache sifObjectToCache, String agentId, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException
+    {
+    	checkMetadataCache();
+    	if ((sifObjectToCache == null) || StringUtils.isEmpty(agentId) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
+    	{
+    		throw new IllegalArgumentException("Any of the parameters sifObjectToCache, agentId, applicationId or zoneId is null or empty.");
+    	}
+    	if (prepareForCache(sifObjectToCache, agentId, applicationId, zoneId))
+    	{
+	    	// Now the object is ready to be saved.
+	    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+	    	if (memoryTier != null)
+	    	{
+	    		memoryTier.cacheObject(sifObjectToCache);
+	    		return;
+	    	}
+	    	BasicTransaction tx = null;	    	
+	    	try
+	    	{
+	    		// With group commit the save is committed together with the writes of other threads.
+	    		DOCGroupCommitter groupCommitter = DOCGroupCommitter.getCommitter();
+	    		if (groupCommitter != null)
+	    		{
+	    			groupCommitter.cacheObject(sifObjectToCache);
+	    			return;
+	    		}
+	    		tx = startTransaction();
+	    		docCacheDAO.save(tx, sifObjectToCache);
+	    		tx.commit();
+	    	}
+	    	catch (Exception ex)
+	    	{
+	    		if (tx != null)
+	    		{
+	    			tx.rollback();
+	    		}
+	    		exceptionMapper(ex, "Failed to save SIF Object to DOC Cache:\nObject To Cache:\n"+sifObjectToCache, true, false);
+	    	}
+    	}
+    }
+    
+    /**
+     * This method saves a list of DOCache objects within one transaction. Each object is prepared the same way as in
+     * cacheObject(). Objects without dependencies are not persisted. Dependent objects that are not yet known to the
+     * DOC and are shared between the given objects are only created once. Together with the JDBC batch settings of the
+     * hibernate configuration the inserts are sent to the database in batches rather than one statement at a time.<p><p>
+     * 
+     * If the save fails then none of the objects is cached and all objects are left as they were before the call, so
+     * that the caller can retry them one by one with cacheObject().
+     * 
+     * @param sifObjectsToCache The objects to save to the DOC. All objects must have been received from the same zone.
+     * @param agentId The agent that requests this save.
+     * @param applicationId The application for which the entries are stored.
+     * @param zoneId The zone from which the SIF Objects have been received.
+     * 
+     * @throws PersistenceException If the objects cannot be persisted. The error is logged.
+     * @throws IllegalArgumentException If any of the parameters is null or empty. Metadata Cache is not available.
+     */
+    public void cacheObjects(List<DOCache> sifObjectsToCache, String agentId, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException
+    {
+    	checkMetadataCache();
+    	if ((sifObjectsToCache == null) || StringUtils.isEmpty(agentId) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
+    	{
+    		throw new IllegalArgumentException("Any of the parameters sifObjectsToCache, agentId, applicationId or zoneId is null or empty.");
+    	}
+    	
+    	List<DOCache> objectsToSave = new ArrayList<DOCache>();
+    	for (DOCache sifObjectToCache : sifObjectsToCache)
+    	{
+    		if ((sifObjectToCache != null) && prepareForCache(sifObjectToCache, agentId, applicationId, zoneId))
+    		{
+    			objectsToSave.add(sifObjectToCache);
+    		}
+    	}
+    	if (objectsToSave.isEmpty())
+    	{
+    		return;
+    	}
+    	
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if (memoryTier != null)
+    	{
+    		for (DOCache sifObjectToCache : objectsToSave)
+    		{
+    			memoryTier.cacheObject(sifObjectToCache);
+    		}
+    		return;
+    	}
+
+    	// Remember the dependent objects and their IDs so that the objects can be restored if the save fails.
+    	Map<DOCache, Set<DOCObject>> originalDependencies = new HashMap<DOCache, Set<DOCObject>>();
+    	Map<DOCObject, Long> originalIds = new HashMap<DOCObject, Long>();
+    	for (DOCache sifObjectToCache : objectsToSave)
+    	{
+    		originalDependencies.put(sifObjectToCache, sifObjectToCache.getDependentObjects());
+    		for (DOCObject docObject : sifObjectToCache.getDependentObjects())
+    		{
+    			originalIds.put(docObject, docObject.getId());
+    		}
+    	}
+    	
+    	BasicTransaction tx = null;
+    	try
+    	{
+    		// The same dependent object must only be held once in the session.
+    		Map<String, DOCObject> sharedObjects = new HashMap<String, DOCObject>();
+    		for (DOCache sifObjectToCache : objectsToSave)
+    		{
+    			Set<DOCObject> depObjects = new HashSet<DOCObject>();
+    			for (DOCObject docObject : sifObjectToCache.getDependentObjects())
+    			{
+    				String sharedKey = (docObject.getId() != null) ? String.valueOf(docObject.getId()) : docObject.getSifObjectName()+"|"+docObject.getObjectKeyValue()+"|"+docObject.getApplicationId()+"|"+docObject.getZoneId();
+    				DOCObject sharedObject = sharedObjects.get(sharedKey);
+    				if (sharedObject == null)
+    				{
+    					sharedObjects.put(sharedKey, docObject);
+    					sharedObject = docObject;
+    				}
+    				depObjects.add(sharedObject);
+    			}
+    			sifObjectToCache.setDependentObjects(depObjects);
+    		}
+
+    		tx = startTransaction();
+    		for (DOCache sifObjectToCache : objectsToSave)
+    		{
+    			docCacheDAO.save(tx, sifObjectToCache);
+    		}
+    		tx.commit();
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		for (DOCache sifObjectToCache : objectsToSave)
+    		{
+    			sifObjectToCache.setId(null);
+    			sifObjectToCache.setDependentObjects(originalDependencies.get(sifObjectToCache));
+    		}
+    		for (Map.Entry<DOCObject, Long> entry : originalIds.entrySet())
+    		{
+    			entry.getKey().setId(entry.getValue());
+    		}
+    		exceptionMapper(ex, "Failed to save "+objectsToSave.size()+" SIF Objects to DOC Cache.", true, false);
+    	}
+    }
+    
+    /**
+     * This method updates the given docObject and marks it as requested. (requested=true, requestDate=now). It is
+     * assumed that the object does already exist (i.e must have the property id of not null). This method is intended
+     * to be called once a dependent object has been requested, meaning an appropriate SIFQuery has been issued by an
+     *  agent (agentId) to a zone (zoneId).
+     *  
+     * @param docObject The dependent object to update (must have an id of not null!!)
+     * @param agentId The agent that has requested the object.
+     * @param zoneId The zone to which the request has been sent.
+     * 
+     * @throws PersistenceException If the object cannot be persisted. The error is logged.
+     * @throws IllegalArgumentException If any of the parameters is null or empty. The property docObject.id is null.
+     */
+    public void markDependentObjectAsRequested(DOCObject docObject, String agentId, String zoneId) throws PersistenceException, IllegalArgumentException
+    {
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if ((memoryTier != null) && (docObject != null) && StringUtils.notEmpty(agentId) && StringUtils.notEmpty(zoneId))
+    	{
+    		// The in-memory tier finds the dependent object by its key. It may not have an id, yet.
+    		memoryTier.markDependentObjectAsRequested(docObject, agentId, zoneId, new Date());
+    		return;
+    	}
+    	if ((docObject == null) || (docObject.getId() == null) || StringUtils.isEmpty(agentId) || StringUtils.isEmpty(zoneId))
+    	{
+    		throw new IllegalArgumentException("Any of the parameters docObject, docObject.id, agentId or zoneId is null or empty.");
+    	}
+    	int requestAttempts = getNextRequestAttempt(docObject);
+    	docObject.setAgentId(agentId);
+    	docObject.setZoneId(zoneId);
+    	docObject.setRequestDate(new Date());
+    	docObject.setRequested(Boolean.TRUE);
+    	docObject.setRequestAttempts(requestAttempts);
+    	docObject.setNextRequestDate(getNextRequestDate(docObject.getRequestDate(), requestAttempts));
+
+    	// Now the object is ready to be saved.
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		tx = startTransaction();
+    		docCacheDAO.save(tx, docObject);
+    		tx.commit();
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Failed to mark Dependent Object as reuested.:\n"+docObject, true, false);
+    	}
+    	
+    }
+    
+ 
+    /**
+     * This method marks all given docObjects as requested (requested=true, requestDate=now) within one transaction
+     * using one update statement per number of previous request attempts rather than saving each object. The
+     * request attempts of each object are incremented and the date it is requested again is set (see
+     * getNextRequestDate()). It is intended to be called once a SIFQuery for
+     * all the given dependent objects has been issued by an agent (agentId) to a zone (zoneId). If the list is null 
+     * or empty then no action is taken.
+     *  
+     * @param docObjects The dependent objects to update (each must have an id of not null!!)
+     * @param agentId The agent that has requested the objects.
+     * @param zoneId The zone to which the request has been sent.
+     * 
+     * @throws PersistenceException If the objects cannot be updated. The error is logged.
+     * @throws IllegalArgumentException If agentId or zoneId is null or empty or the id of any docObject is null.
+     */
+    public void markDependentObjectsAsRequested(List<DOCObject> docObjects, String agentId, String zoneId) throws PersistenceException, IllegalArgumentException
+    {
+    	if ((docObjects == null) || docObjects.isEmpty())
+    	{
+    		return;
+    	}
+    	if (StringUtils.isEmpty(agentId) || StringUtils.isEmpty(zoneId))
+    	{
+    		throw new IllegalArgumentException("Any of the parameters agentId or zoneId is null or empty.");
+    	}
+    	Date requestDate = new Date();
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if (memoryTier != null)
+    	{
+    		for (DOCObject docObject : docObjects)
+    		{
+    			memoryTier.markDependentObjectAsRequested(docObject, agentId, zoneId, requestDate);
+    		}
+    		return;
+    	}
+    	
+    	// Group the objects by their new number of request attempts as that determines the next request date.
+    	Map<Integer, List<Long>> idsByAttempts = new HashMap<Integer, List<Long>>();
+    	for (DOCObject docObject : docObjects)
+    	{
+    		if (docObject.getId() == null)
+    		{
+        		throw new IllegalArgumentException("The id of the docObject is null: "+docObject);
+    		}
+    		Integer requestAttempts = getNextRequestAttempt(docObject);
+    		List<Long> ids = idsByAttempts.get(requestAttempts);
+    		if (ids == null)
+    		{
+    			ids = new ArrayList<Long>();
+    			idsByAttempts.put(requestAttempts, ids);
+    		}
+    		ids.add(docObject.getId());
+    	}
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		tx = startTransaction();
+    		for (Map.Entry<Integer, List<Long>> entry : idsByAttempts.entrySet())
+    		{
+    			int requestAttempts = entry.getKey();
+    			docCacheDAO.markDependentObjectsAsRequested(tx, entry.getValue(), agentId, zoneId, requestDate, requestAttempts, getNextRequestDate(requestDate, requestAttempts));
+    		}
+    		tx.commit();
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Failed to mark "+docObjects.size()+" Dependent Objects as requested for zone = "+zoneId+".", true, false);
+    	}
+    }
+ 
+    /**
+     * This method iterates through the dependentObjectList and replaces elements in that list with the requested
+     * information. This includes if the object has already been requested, when and by which agent. Objects that have not
+     * been requested are updated with the application ID and Zone Id. If the dependentObjectList is null or empty then
+     * no action is taken.
+     * For this method to work the following property in each DOCObject of the dependentObjectList must be populated:
+     *  - objectKeyValue
+     *  - sifObjectName
+     * The dependent objects are looked up with one DB query per object type and 500 keys rather than one query per
+     * dependent object. The list may therefore hold the dependencies of many SIF Objects.
+     * 
+     * @param dependentObjectList The list of objects to test
+     * @param applicationId The application to test for.
+     * @param zoneId The zone to test for.
+     * 
+     * @throws PersistenceException If there are any errors with the underlying data store. Error is logged.
+     * @throws IllegalArgumentException applicationId or zoneId is empty or null.
+     */
+    public void mergeWithCachedDependencies(List<DOCObject> dependentObjectList, String applicationId, String zoneId) throws PersistenceException, IllegalArgumentException
+    {
+    	if ((dependentObjectList != null) && (dependentObjectList.size() > 0))
+    	{
+	    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+	    	if (memoryTier != null)
+	    	{
+	        	for (int i=0; i<dependentObjectList.size(); i++)
+	        	{
+	        		DOCObject depObj = dependentObjectList.get(i);
+	        		depObj.setApplicationId(applicationId);
+	    			depObj.setZoneId(zoneId);
+	    			DOCObject reqObj = memoryTier.getCachedDependentObject(depObj);
+	    			if (reqObj != null)
+	    			{
+	    				dependentObjectList.set(i, reqObj);
+	    			}
+	        	}
+	        	return;
+	    	}
+	    	BasicTransaction tx = null;	    	
+	    	try
+	    	{
+	    		tx = startTransaction();
+	    		
+	    		// Group the keys by object type so that each type can be looked up with IN-lists.
+	    		Map<String, List<String>> keysByObjectName = new HashMap<String, List<String>>();
+	        	for (DOCObject depObj : dependentObjectList)
+	        	{
+	        		depObj.setApplicationId(applicationId);
+	    			depObj.setZoneId(zoneId);
+	    			List<String> keys = keysByObjectName.get(depObj.getSifObjectName());
+	    			if (keys == null)
+	    			{
+	    				keys = new ArrayList<String>();
+	    				keysByObjectName.put(depObj.getSifObjectName(), keys);
+	    			}
+	    			keys.add(depObj.getObjectKeyValue());
+	        	}
+	        	
+	        	Map<String, Map<String, DOCObject>> cachedByObjectName = new HashMap<String, Map<String, DOCObject>>();
+	        	for (Map.Entry<String, List<String>> entry : keysByObjectName.entrySet())
+	        	{
+	        		Map<String, DOCObject> cachedByKey = new HashMap<String, DOCObject>();
+	        		for (DOCObject reqObj : docCacheDAO.getCachedDependentObjects(tx, entry.getKey(), entry.getValue(), applicationId, zoneId))
+	        		{
+	        			// There should only be one. If not then use the first one as getCachedDependentObject() does.
+	        			if (!cachedByKey.containsKey(reqObj.getObjectKeyValue()))
+	        			{
+	        				cachedByKey.put(reqObj.getObjectKeyValue(), reqObj);
+	        			}
+	        		}
+	        		cachedByObjectName.put(entry.getKey(), cachedByKey);
+	        	}
+	        	
+	        	for (int i=0; i<dependentObjectList.size(); i++)
+	        	{
+	        		DOCObject depObj = dependentObjectList.get(i);
+	    			DOCObject reqObj = cachedByObjectName.get(depObj.getSifObjectName()).get(depObj.getObjectKeyValue());
+	    			if (reqObj != null)
+	    			{
+	    				dependentObjectList.set(i, reqObj);
+	    			}
+	        	}
+	        	        	
+	        	tx.commit();
+	    	}
+	    	catch (Exception ex)
+	    	{
+	    		if (tx != null)
+	    		{
+	    			tx.rollback();
+	    		}
+	    		exceptionMapper(ex, "Failed to mark dependent objects as requested.", true, true);
+	    	}
+    	}
+    }
+    
+    /**
+     * This method checks if there are any objects cached that depend on this object. If it finds any objects it will
+     * remove that dependency from the DOC. If there are no dependencies no action is taken.
+     *  
+     * @param sifObject The object for which it is checked if there are dependencies.
+     * @param applicationId The application for which to check.
+     * @param zoneId The zone this object has been received from.
+     * 
+     * @throws PersistenceException If there are any errors with the underlying data store. Error is logged.
+     * @throws IllegalArgumentException sifObject, applicationId or zoneId is empty or null. Metadata Cache is not available.
+     * @throws InvalidKeyException The Key of the given object is invalid (null, empty or key element doesn't exist). Error logged.
+     */
+    public void checkAndRemoveDependency(SIFDataObject sifObject, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException, InvalidKeyException
+    {
+    	checkMetadataCache();
+    	if ((sifObject == null) || StringUtils.isEmpty(zoneId) || StringUtils.isEmpty(applicationId))
+    	{
+    		throw new IllegalArgumentException("Any of the parameters sifObject, applicationId or zoneId is null or empty.");
+    	}
+    	
+		String flatKey = extractFlatKey(sifObject, getKeyPlan(sifObject));
+		checkAndRemoveDependency(sifObject.getElementDef().name(), flatKey, applicationId, zoneId);
+    }
+
+    /*
+     * Same as above method but for a known key (flattened) of the sifObject.
+     */
+    public void checkAndRemoveDependency(String sifObjectName, String flatKey, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+    	// If the filter is enabled and reports that nothing waits on this object then there is no need to go to the DOC.
+    	DependencyKeyFilter filter = DependencyKeyFilter.getFilter();
+    	if ((filter != null) && !filter.mightContain(sifObjectName, flatKey, applicationId, zoneId))
+    	{
+    		return;
+    	}
+    	
+		DOCObject docObject = new DOCObject();
+		docObject.setSifObjectName(sifObjectName);
+		docObject.setObjectKeyValue(flatKey);
+		docObject.setApplicationId(applicationId);
+		docObject.setZoneId(zoneId);
+		
+		// If the release queue is enabled then the cached objects that are resolved by this removal are handed to
+		// their subscribers straight away rather than waiting for the next periodic scan.
+		ResolvedObjectQueue releaseQueue = ResolvedObjectQueue.getQueue();
+		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+		int numParents = 0;
+		if (memoryTier != null)
+		{
+			List<DOCache> resolvedObjects = (releaseQueue != null) ? new ArrayList<DOCache>() : null;
+			numParents = memoryTier.removeDependency(sifObjectName, flatKey, applicationId, zoneId, resolvedObjects);
+			updateDependencyKeyFilter(filter, docObject, numParents);
+			if (releaseQueue != null)
+			{
+				releaseQueue.add(resolvedObjects);
+			}
+			return;
+		}
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		// With group commit the removal is committed together with the writes of other threads.
+    		DOCGroupCommitter groupCommitter = DOCGroupCommitter.getCommitter();
+    		if (groupCommitter != null)
+    		{
+    			List<DOCache> resolvedObjects = (releaseQueue != null) ? new ArrayList<DOCache>() : null;
+    			numParents = groupCommitter.removeDependency(docObject, resolvedObjects);
+    			afterDependencyRemoved(filter, docObject, numParents, releaseQueue, resolvedObjects);
+    			return;
+    		}
+    		tx = startTransaction();
+    		List<Long> resolvedIds = (releaseQueue != null) ? new ArrayList<Long>() : null;
+    		numParents = docCacheDAO.removeDependency(tx, docObject, resolvedIds);
+    		List<DOCache> resolvedObjects = ((resolvedIds != null) && !resolvedIds.isEmpty()) ? docCacheDAO.getCachedObjectKeys(tx, resolvedIds) : null;
+        	tx.commit();
+        	
+        	// Within a unit of work the removal is only committed at the end of the unit. The resolved objects must not
+        	// be released before that.
+        	afterDependencyRemoved(filter, docObject, numParents, releaseQueue, resolvedObjects);
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Failed to remove dependencies for object "+sifObjectName + " and flat key = "+flatKey, true, true);
+    	}		    	
+    }
+    
+    /**
+     * This method populates the given filter with the keys of all dependent objects currently held in the DOC. It
+     * is intended to be called once at startup before the filter is used.
+     * 
+     * @param filter The filter to populate.
+     * 
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    public void populateDependencyKeyFilter(DependencyKeyFilter filter) throws PersistenceException
+    {
+    	BasicTransaction tx = null;
+    	int numKeys = 0;
+    	try
+    	{
+    		tx = startTransaction();
+    		List<Object[]> keys = docCacheDAO.getDependentObjectKeys(tx, null, FILTER_PAGE_SIZE);
+    		while (!keys.isEmpty())
+    		{
+    			for (Object[] key : keys)
+    			{
+    				filter.add((String)key[1], (String)key[2], (String)key[3], (String)key[4]);
+    			}
+    			numKeys = numKeys + keys.size();
+    			keys = docCacheDAO.getDependentObjectKeys(tx, (Long)keys.get(keys.size()-1)[0], FILTER_PAGE_SIZE);
+    		}
+    		tx.commit();
+    		logger.info("Dependency Key Filter populated with "+numKeys+" keys.");
+    	}
+    	catch (Exception ex)
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to populate the Dependency Key Filter from the DOC.", true, false);
+    	}
+    }
+    
+    /**
+     * This method returns a list of DOC Objects. The objects are those that have not been requested, yet (requested=false).
+     * The 'keyForDependentObject' of each DOCObject in the list is also populated with the key details of the object.
+     * Based on this a SIF Query could easily be constructed as all the key information (xpath and value) is available
+     * after a call to this method.
+     * 
+     * Note: 
+     * If an agent subscribes to more than one zone for the same sifObject then this method must be called
+     * separately for each zone by the agent. If there are no cached and not yet requested objects for the
+     * given parameters then an empty list is returned.
+     * 
+     * @param sifObjectName The SIF Object names to search for (i.e StudentPersonal)
+     * @param applicationId Only return objects marked for this application.
+     * @param zoneId Only return objects marked for this zone.
+     * 
+     * @return See description
+     * 
+     * @throws IllegalArgumentException  docObject is null or any of the properties listed above is empty or null.
+     *                                   Metadata Cache is not available.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public List<DOCObject> getNotYetRequestedObjects(String sifObjectName, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+    	checkMetadataCache();
+    	List<DOCObject> docList = null;
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    		if (memoryTier != null)
+    		{
+    			docList = memoryTier.getNotYetRequestedObjects(sifObjectName, applicationId, zoneId);
+    		}
+    		else
+    		{
+	    		tx = startTransaction();
+	        	docList = docCacheDAO.getNotYetRequestedObjects(tx, sifObjectName, applicationId, zoneId);
+	        	tx.commit();
+    		}
+    	}
+    	catch (Exception ex) //any other exception...
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to retrieve list of DOCObjects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId +"'.", true, false);
+    	}
+    	
+    	setKeyForDependentObjects(sifObjectName, docList);
+    	return docList;
+    }
+    
+    /**
+     * This method returns a list of DOC Objects that have been requested but have not been received within the
+     * retry delay of their last request (see getNextRequestDate()) and therefore are due to be requested again. Objects
+     * that have been requested 'cache.request.retry.max.attempts' times are not returned. These are only requested
+     * again once their parent object expires with the REQUEST strategy. The 'keyForDependentObject' of each DOCObject
+     * in the list is populated the same way as for getNotYetRequestedObjects(). If there are no such objects or the
+     * maximum number of attempts is 1 or less then an empty list is returned.
+     * 
+     * @param sifObjectName The SIF Object names to search for (i.e StudentPersonal)
+     * @param applicationId Only return objects marked for this application.
+     * @param zoneId Only return objects marked for this zone.
+     * 
+     * @return See description
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is empty or null. Metadata Cache is not available.
+     * @throws PersistenceException      A database error occurred.
+     */
+    public List<DOCObject> getStaleRequestedObjects(String sifObjectName, String applicationId, String zoneId) throws IllegalArgumentException, PersistenceException
+    {
+    	checkMetadataCache();
+    	int maxAttempts = getMaxRequestAttempts();
+    	if (maxAttempts <= 1)
+    	{
+    		return new ArrayList<DOCObject>();
+    	}
+    	List<DOCObject> docList = null;
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    		if (memoryTier != null)
+    		{
+    			docList = memoryTier.getStaleRequestedObjects(sifObjectName, applicationId, zoneId, new Date(), maxAttempts);
+    		}
+    		else
+    		{
+	    		tx = startTransaction();
+	        	docList = docCacheDAO.getStaleRequestedObjects(tx, sifObjectName, applicationId, zoneId, new Date(), maxAttempts);
+	        	tx.commit();
+    		}
+    	}
+    	catch (Exception ex) //any other exception...
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to retrieve list of stale requested DOCObjects for application = '"+ applicationId + "', Sif Object = '" + sifObjectName+ "', zone = '" + zoneId +"'.", true, false);
+    	}
+    	
+    	setKeyForDependentObjects(sifObjectName, docList);
+    	return docList;
+    }
+    
+    /**
+     * Returns the date from which on a dependent object that has been requested for the given number of times at the
+     * given request date is requested again if it has not been received by then. The delay starts with
+     * 'cache.request.retry.initial.delay.seconds' after the first request and doubles with each further request up
+     * to 'cache.request.retry.max.delay.seconds'.
+     * 
+     * @param requestDate The date of the latest request.
+     * @param requestAttempts The number of times the object has been requested including the latest request.
+     * 
+     * @return See description.
+     */
+    public static Date getNextRequestDate(Date requestDate, int requestAttempts)
+    {
+    	DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+    	long initialDelay = (cacheProperties == null) ? RETRY_INITIAL_DELAY_SEC : cacheProperties.getRequestRetryInitialDelayInSec(RETRY_INITIAL_DELAY_SEC);
+    	long maxDelay = (cacheProperties == null) ? RETRY_MAX_DELAY_SEC : cacheProperties.getRequestRetryMaxDelayInSec(RETRY_MAX_DELAY_SEC);
+    	
+    	// Limit the shift so that the delay cannot overflow for large numbers of attempts.
+    	long delay = initialDelay << Math.min(30, Math.max(0, requestAttempts-1));
+    	return DateUtils.dateAfter(requestDate, Math.min(delay, maxDelay) * 1000);
+    }
+    
+    /*
+     * Returns the maximum number of times a dependent object is requested before the requests stop until its parent
+     * expires. Read each time so that a reload of the properties takes effect.
+     */
+    private int getMaxRequestAttempts()
+    {
+    	DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+    	return (cacheProperties == null) ? RETRY_MAX_ATTEMPTS : cacheProperties.getRequestRetryMaxAttempts(RETRY_MAX_ATTEMPTS);
+    }
+    
+    /* Returns the number of request attempts of the given object once it is requested (again). */
+    private int getNextRequestAttempt(DOCObject docObject)
+    {
+    	return ((docObject.getRequestAttempts() == null) ? 0 : docObject.getRequestAttempts().intValue()) + 1;
+    }
+    
+    /*
+     * Populates the 'keyForDependentObject' of each DOCObject in the list with the key details of the object based on
+     * the flattened key value.
+     */
+    private void setKeyForDependentObjects(String sifObjectName, List<DOCObject> docList)
+    {
+    	SIFObjectKeyPlan keyPlan = metadataCache.getKeyPlan(sifObjectName);
+    	int numKeys = keyPlan.getKeyAccessors().length;
+    	for (DOCObject docObject : docList)
+    	{
+        	String[] keyComponents = new String[numKeys];       	
+        	if (StringUtils.isEmpty(keyPlan.getKeySeparator()))
+        	{
+        		keyComponents[0] = docObject.getObjectKeyValue();
+        	}
+        	else
+        	{
+        		String[] flatKeyComponents = docObject.getObjectKeyValue().split(keyPlan.getKeySeparator());
+        		System.arraycopy(flatKeyComponents, 0, keyComponents, 0, Math.min(numKeys, flatKeyComponents.length));
+        	}
+        	
+        	// Assign key component values to appropriate key value in the ordered list.
+        	docObject.setKeyForDependentObject(keyPlan.newKeyList(keyComponents));
+    	}
+    }
+    
+    /**
+     * This method gets all cached objects of a given type for a particular application and agent that have no 
+     * remaining dependencies. These are the candidates do be removed later and be processed by the appropriate 
+     * subscriber. If there are no Cached Objects without dependencies then an empty list is returned.
+     *  
+     * @param sifObjectName The type of cached objects to be returned.
+     * @param applicationId The application for which the objects shall be returned.
+     * @param agentId The agent for which to get the object list. 
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    public List<DOCache> getObjectsWithoutDependencies(String sifObjectName, String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
+    {
+    	List<DOCache> objectList = null;
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    		if (memoryTier != null)
+    		{
+    			objectList = memoryTier.getObjectsWithoutDependencies(sifObjectName, applicationId, agentId);
+    		}
+    		else
+    		{
+	    		tx = startTransaction();
+	        	objectList = docCacheDAO.getObjectsWithoutDependencies(tx, sifObjectName, applicationId, agentId);
+	        	tx.commit();
+    		}
+     	}
+    	catch (Exception ex) 
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to retrieve list of Cached Objects without dependencies for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", true, false);
+    	}
+   		return objectList;
+    }
+    
+    /**
+     * This method returns one page of the cached objects of a given type for a particular application and agent that
+     * have no remaining dependencies, ordered by their id. Only objects with an id greater than afterId are returned.
+     * To get the next page the id of the last object of the previous page is passed as afterId. If the in-memory tier
+     * is enabled then the objects are paged by the ids the tier assigns to them (see DOCMemoryTier). If there are no
+     * more objects then an empty list is returned.
+     * 
+     * @param sifObjectName The type of cached objects to be returned.
+     * @param applicationId The application for which the objects shall be returned.
+     * @param agentId The agent for which to get the object list. 
+     * @param afterId Only objects with a greater id are returned. If null the first page is returned.
+     * @param pageSize The maximum number of objects to return.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    public List<DOCache> getObjectsWithoutDependencies(String sifObjectName, String applicationId, String agentId, Long afterId, int pageSize) throws IllegalArgumentException, PersistenceException
+    {
+    	List<DOCache> objectList = null;
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    		if (memoryTier != null)
+    		{
+    			objectList = memoryTier.getObjectsWithoutDependencies(sifObjectName, applicationId, agentId, afterId, pageSize);
+    		}
+    		else
+    		{
+	    		tx = startTransaction();
+	        	objectList = docCacheDAO.getObjectsWithoutDependencies(tx, sifObjectName, applicationId, agentId, afterId, pageSize);
+	        	tx.commit();
+    		}
+     	}
+    	catch (Exception ex) 
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to retrieve page of Cached Objects without dependencies for application = '"+ applicationId + "', Sif Object = '" + sifObjectName + "'and agent = '" + agentId + "'.", true, false);
+    	}
+   		return objectList;
+    }
+    
+    /**
+     * This method returns all objects in the cache that have remaining dependencies but have an expiry date
+     * older than the current date and time. These are the candidates that need to either be removed or 
+     * re-requested by the agent. If there are no expired objects then an empty list is returned.
+     * 
+     * @param applicationId Only return expired objects for this application.
+     * @param agentId Only return expired object that were initially cached by this agent.
+     * 
+     * @return See description.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    public List<DOCache> getExpiredObjects(String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
+    {
+    	List<DOCache> objectList = null;
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    		if (memoryTier != null)
+    		{
+    			objectList = memoryTier.getExpiredObjects(applicationId, agentId);
+    		}
+    		else
+    		{
+	    		tx = startTransaction();
+	        	objectList = docCacheDAO.getExpiredObjects(tx, applicationId, agentId);
+	        	tx.commit();
+    		}
+     	}
+    	catch (Exception ex) 
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to retrieve list of expired Cached Objects for application = '"+ applicationId + "'and agent = '" + agentId + "'.", true, false);
+    	}
+   		return objectList;
+    }
+    
+    /**
+     * This method removes the given object and all its dependencies from the cache. If the object is null then
+     * no action is taken.
+     * 
+     * @param cacheObject The object to remove from the DO Cache.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void removeCachedObject(DOCache cacheObject)throws PersistenceException
+    {
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if (memoryTier != null)
+    	{
+    		if (cacheObject != null)
+    		{
+    			List<DOCObject> removedDependentObjects = getRemovedDependentObjectList();
+    			memoryTier.removeCachedObject(cacheObject, removedDependentObjects);
+    			removeFromDependencyKeyFilter(removedDependentObjects);
+    		}
+    		return;
+    	}
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		tx = startTransaction();
+    		List<DOCObject> removedDependentObjects = getRemovedDependentObjectList();
+        	docCacheDAO.removeCachedObject(tx, cacheObject, removedDependentObjects);
+        	tx.commit();
+        	removeFromDependencyKeyFilter(removedDependentObjects);
+     	}
+    	catch (Exception ex) 
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to remove cacheObject " + cacheObject + ".", true, false);
+    	}
+    }
+    
+    /**
+     * This method removes the given objects and all their dependencies from the cache within one transaction. The
+     * objects are removed with set based statements so that their dependencies don't need to be loaded. If the list
+     * is null or empty then no action is taken.
+     * 
+     * @param cacheObjects The objects to remove from the DO Cache.
+     * 
+     * @throws PersistenceException      A database error occurred.
+     */
+    public void removeCachedObjects(List<DOCache> cacheObjects)throws PersistenceException
+    {
+    	if ((cacheObjects == null) || cacheObjects.isEmpty())
+    	{
+    		return;
+    	}
+    	DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+    	if (memoryTier != null)
+    	{
+    		List<DOCObject> removedDependentObjects = getRemovedDependentObjectList();
+    		for (DOCache cacheObject : cacheObjects)
+    		{
+    			memoryTier.removeCachedObject(cacheObject, removedDependentObjects);
+    		}
+			removeFromDependencyKeyFilter(removedDependentObjects);
+    		return;
+    	}
+    	List<Long> ids = new ArrayList<Long>(cacheObjects.size());
+    	for (DOCache cacheObject : cacheObjects)
+    	{
+    		ids.add(cacheObject.getId());
+    	}
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		tx = startTransaction();
+    		List<DOCObject> removedDependentObjects = getRemovedDependentObjectList();
+        	docCacheDAO.removeCachedObjects(tx, ids, removedDependentObjects);
+        	tx.commit();
+        	removeFromDependencyKeyFilter(removedDependentObjects);
+     	}
+    	catch (Exception ex) 
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to remove cached objects with ids = " + ids + ".", true, false);
+    	}
+    }
+    
+    /**
+     * This method updates all Cached Objects and their dependencies according to the expiry strategy. Currently
+     * there are 2 strategies supported: EXPIRE and REQUEST. In case of EXPIRE the cached object and its 
+     * dependencies will be removed from the cache and a info message is logged. In case of REQUEST all dependent
+     * objects for each cached object will be marked as not requested (requested=false), so that it can be 
+     * requested again by the appropriate subscribers. The Cached Object will update its expiry date accordingly.
+     * 
+     * @param applicationId Only update/remove expired objects for this application.
+     * @param agentId Only update/remove expired object that were initially cached by this agent.
+     * 
+     * @throws IllegalArgumentException  Any of the parameters is null or empty.
+     * @throws PersistenceException      A database error occurred. Error is logged.
+     */
+    public void updateExpiredObjects(String applicationId, String agentId) throws IllegalArgumentException, PersistenceException
+    {
+    	checkMetadataCache();
+		if (StringUtils.isEmpty(applicationId) || StringUtils.isEmpty(agentId))
+		{
+			throw new IllegalArgumentException("Some of the following parameters are either null or empty: applicationId, agentId");
+		}
+		DOCMemoryTier memoryTier = DOCMemoryTier.getTier();
+		if (memoryTier != null)
+		{
+			updateExpiredObjects(memoryTier, applicationId, agentId);
+			return;
+		}
+		// Use the same point in time for the whole sweep so that objects reset in this sweep aren't seen again.
+		Date now = new Date();
+		List<Object[]> expiredSummary = null;
+    	BasicTransaction tx = null;	    	
+    	try
+    	{
+    		tx = startTransaction();
+    		expiredSummary = docCacheDAO.getExpiredObjectSummary(tx, applicationId, agentId, now);
+       		tx.commit();
+     	}
+    	catch (Exception ex) 
+    	{
+    		if (tx != null)
+    		{
+    			tx.rollback();
+    		}
+    		exceptionMapper(ex, "Unable to update the expiry startegy for all expired cached objects for application = "+applicationId+" and agent = "+agentId+". See previous error log entry for detail.", true, false);
+    	}
+    	
+    	// Should one test against the strategy in the metadata cache or what is in the DB?
+    	// If test against metadata cache then a simple restart of the agent would apply the new
+    	// strategy, while the DB value is 'sticky' until the next update cycle. Also objects marked as
+    	// 'EXPIRE' would expire while using the metadata cache would allow the expire value to override
+    	// immediately after restart.
+    	
+    	// This test uses the DB value...
+    	for (Object[] row : expiredSummary)
+    	{
+    		String sifObjectName = (String)row[0];
+    		String expiryStrategy = (String)row[1];
+    		if (SIFObject.EXPRIY_STARTEGY.EXPIRE.name().equals(expiryStrategy) || SIFObject.EXPRIY_STARTEGY.REQUEST.name().equals(expiryStrategy))
+    		{
+    			int numObjects = sweepExpiredObjects(sifObjectName, expiryStrategy, applicationId, agentId, now);
+    			logger.info(numObjects+" expired Cached Objects "+sifObjectName+" with expiry strategy "+expiryStrategy+" have been "+(SIFObject.EXPRIY_STARTEGY.EXPIRE.name().equals(expiryStrategy) ? "removed" : "reset to be requested again")+".");
+    		}
+    		else // Invalid expiry strategy.
+    		{
+    			logger.error("Invalid Expiry Strategy ("+expiryStrategy+") defined for "+row[2]+" Cached Objects "+sifObjectName+".");
+    		}
+    	}
+    }
+    
+    /*-----------------------------------------------------------------------------*/
+    /*-- Methods that operate on the SIFObject only but don't require a database --*/ 
+    /*-----------------------------------------------------------------------------*/
+    
+	/**
+	 * This method simply checks if the SIF object given by its name (i.e StudentSchoolEnrolment) has potential
+	 * dependencies based on the metadata that is available on the object. TRUE is returned if the object has
+	 * dependencies defined in the metadata cache. False is returned if there are no known dependencies based
+	 * on the metadata cache (i.e StudentPersonal has no dependencies where as the StudentSchoolEnrollment has the
+	 * student and school as dependencies.). If the sifObjectName is null or not known in the metadata cache then
+	 * FALSE is returned, indicating no caching required.
+	 * 
+	 * @param sifObjectName The name of the SIF Object to test for.
+	 * 
+	 * @return See description.
+	 */
+	public boolean hasPotentialDependencies(String sifObjectName)
+	{
+		if (metadataCache == null)
+		{
+			return false;
+		}
+		if (StringUtils.isEmpty(sifObjectName))
+		{
+			return false;
+		}
+		return metadataCache.hasDependencies(sifObjectName);
+	}
+
+	/**
+     * This method attempts to extract the primary key from the SIF Object as defined by the SIF Spec and flattens it.
+     * If the key is made up of more than one component the various components are separated by a separator as defined
+     * in the Metadata cache (generally a '|' character). The order of the key components is the same as the order of the
+     * key definition in the SIF Spec.
+     * 
+     * @param sifObject From which the primary key shall be extracted and flattened.
+     * 
+     * @return The flattened key of the SIFObject as described above.
+     * 
+     * @throws IllegalArgumentException Object is null or doesn't contain the primary key as expected by the SIF Spec.
+	 * @throws InvalidKeyException The primary key of the object is not set or accessible (i.e. value is null or empty).
+     */
+    public String extractFlatKey(SIFDataObject sifObject) throws IllegalArgumentException, InvalidKeyException
+    {
+		if (metadataCache != null) // we cannot determine info about object if cache is not enabled.
+		{
+			return extractFlatKey(sifObject, getKeyPlan(sifObject));
+		} 
+		else
+		{
+			throw new IllegalArgumentException("MetadataCache not inistialised. Cannot determine key for sif object.");
+		}
+    }
+    
+    /**
+     * This method checks SIF Object Cache if the given sifObject has dependencies and if so it will extract all dependencies
+     * and returns them. Each dependency is taken from the sifObject content by means of looking up the SIF Object cache and
+     * its object metadata information.
+     * 
+     * @throws PersistenceException If there are any errors with the underlying data store. Error is logged.
+     * @throws IllegalArgumentException Metadata Cache is not available. Error is logged.
+     * 
+     */
+    public List<DOCObject> extractDependentObjectsFromSIFObject(SIFDataObject sifObject) throws PersistenceException, IllegalArgumentException, InvalidKeyException
+    {
+    	checkMetadataCache();
+    	List<DOCObject> dependencies = null;
+    	
+    	try
+    	{
+    		if (sifObject != null)
+    		{
+    			SIFObjectKeyPlan keyPlan = metadataCache.getKeyPlan(sifObject.getElementDef().name());
+    			if ((keyPlan != null) && (keyPlan.getDependencyPlans().size() > 0))
+    			{
+    				dependencies = new ArrayList<DOCObject>();
+    				for (DependencyPlan dependencyPlan : keyPlan.getDependencyPlans())
+    				{
+    					extractDependentObjects(sifObject, keyPlan, dependencyPlan, dependencies);    					
+    				}
+    				if (dependencies.size() == 0) // can be the case for indicator dependencies
+    				{
+    					dependencies = null;
+    				}
+    			}		
+    		}
+    	}
+        catch (InvalidKeyException ex)
+        {
+            // error already logged accordingly. Just re-throw exception. We need to deal with this exception that way
+            // because we don't want to deal with it in the exceptionMapper().
+//            logger.error("Failed to determine dependencies for object:\n"+sifObject.toXML()+"\n"+ex.getMessage());
+            throw ex;
+        }
+    	catch (Exception ex)
+    	{
+    		exceptionMapper(ex, "Failed to determine dependencies for object:\n"+sifObject.toXML(), true, false);
+    	}
+		return dependencies;
+    }
+    
+    
+    /*---------------------*/
+    /*-- Private Methods --*/
+    /*---------------------*/
+
+    /*
+     * Sets the agent, zone, application, expiry info etc. of the given object and its dependent objects and records
+     * new dependent objects in the dependency key filter. Returns FALSE if the object has no dependencies and must
+     * therefore not be cached.
+     */
+    private boolean prepareForCache(DOCache sifObjectToCache, String agentId, String applicationId, String zoneId)
+    {
+    	if ((sifObjectToCache.getDependentObjects() == null) || ((sifObjectToCache.getDependentObjects().size() == 0)))
+    	{
+    		logger.info("The object '"+sifObjectToCache.getSifObjectName() + "' has no open dependencies. Will not cache it.");
+    		return false;
+    	}
+    	
+    	SIFObject cachedObj = metadataCache.getObjectMetadata(sifObjectToCache.getSifObjectName());
+    	
+    	//Iterate through object and set the agentId and zoneId where needed, as well as some other default parameters
+    	sifObjectToCache.setAgentId(agentId);
+    	sifObjectToCache.setZoneId(zoneId);
+    	sifObjectToCache.setApplicationId(applicationId);
+    	sifObjectToCache.setReceivedOn(new Date());
+    	sifObjectToCache.setRemainingDependencies(sifObjectToCache.getDependentObjects().size());
+    	sifObjectToCache.setExpiryDate(DateUtils.dateAfter(sifObjectToCache.getReceivedOn(), cachedObj.getDefaultExpiryInMinutes()*60*1000));
+    	sifObjectToCache.setExpiryStrategy(cachedObj.getDefaultExpiryStrategy());
+    	
+    	// Iterate through all dependent objects and set the application and zoneID
+    	for (DOCObject docObject : sifObjectToCache.getDependentObjects())
+    	{
+    		// ensure that the docObject has net yet been requested and only then update the information
+    		if (!docObject.getRequested())
+    		{
+    			// Don't assign the agent because we don't know which agent is responsible for requesting it. Instead
+    			// assign the application ID because whichever agent is responsible for the retrieval of this dependent
+    			// object must pick it up for that application.
+    			docObject.setZoneId(zoneId);
+    			docObject.setRequested(false);
+    			docObject.setApplicationId(applicationId);
+    		}
+    	}
+    	
+    	// Record new dependencies in the filter before they are written so that a concurrent lookup never misses them.
+    	DependencyKeyFilter filter = DependencyKeyFilter.getFilter();
+    	if (filter != null)
+    	{
+	    	for (DOCObject docObject : sifObjectToCache.getDependentObjects())
+	    	{
+	    		if (!docObject.isKnownToCache())
+	    		{
+	    			filter.add(docObject.getSifObjectName(), docObject.getObjectKeyValue(), docObject.getApplicationId(), docObject.getZoneId());
+	    		}
+	    	}
+    	}
+    	return true;
+    }
+
+    /*
+     * Updates the filter and releases the resolved objects once the removal of a dependency is committed.
+     */
+    private void afterDependencyRemoved(final DependencyKeyFilter filter, final DOCObject docObject, final int numParents, final ResolvedObjectQueue releaseQueue, final List<DOCache> resolvedObjects)
+    {
+    	UnitOfWork.afterCommit(new Runnable()
+    	{
+    		public void run()
+    		{
+	        	updateDependencyKeyFilter(filter, docObject, numParents);
+				if (releaseQueue != null)
+				{
+					releaseQueue.add(resolvedObjects);
+				}
+    		}
+    	});
+    }
+    
+    /*
+     * Records the outcome of a DOC lookup in the filter. If cached objects were waiting on the docObject then it has
+     * been removed from the DOC and therefore must be removed from the filter as well.
+     */
+    private void updateDependencyKeyFilter(DependencyKeyFilter filter, DOCObject docObject, int numParents)
+    {
+    	if (filter != null)
+    	{
+    		filter.recordLookup(numParents > 0);
+    		if (numParents > 0)
+    		{
+    			filter.remove(docObject.getSifObjectName(), docObject.getObjectKeyValue(), docObject.getApplicationId(), docObject.getZoneId());
+    		}
+    	}
+    }
+
+    /*
+     * Returns a list to collect the dependent objects removed along with cached objects if the filter is enabled,
+     * null otherwise.
+     */
+    private List<DOCObject> getRemovedDependentObjectList()
+    {
+    	return (DependencyKeyFilter.getFilter() != null) ? new ArrayList<DOCObject>() : null;
+    }
+    
+    /*
+     * Removes the given dependent objects from the filter once their removal from the DOC is committed. They have
+     * been removed together with the last cached object waiting on them.
+     */
+    private void removeFromDependencyKeyFilter(final List<DOCObject> removedDependentObjects)
+    {
+    	final DependencyKeyFilter filter = DependencyKeyFilter.getFilter();
+    	if ((filter == null) || (removedDependentObjects == null) || removedDependentObjects.isEmpty())
+    	{
+    		return;
+    	}
+    	UnitOfWork.afterCommit(new Runnable()
+    	{
+    		public void run()
+    		{
+    			for (DOCObject docObject : removedDependentObjects)
+    			{
+    				filter.remove(docObject.getSifObjectName(), docObject.getObjectKeyValue(), docObject.getApplicationId(), docObject.getZoneId());
+    			}
+    		}
+    	});
+    }
+
+    /*
+     * Removes (EXPIRE) or resets (REQUEST) the expired cached objects of the given type and expiry strategy. The 
+     * objects are processed in pages of ids, each page with set based statements in its own transaction so that no
+     * object is loaded and no transaction is held for long. Returns the number of processed objects.
+     */
+    private int sweepExpiredObjects(String sifObjectName, String expiryStrategy, String applicationId, String agentId, Date expiredBefore) throws PersistenceException
+    {
+    	boolean expire = SIFObject.EXPRIY_STARTEGY.EXPIRE.name().equals(expiryStrategy);
+    	SIFObject sifObjectMetadata = expire ? null : metadataCache.getObjectMetadata(sifObjectName);
+    	int pageSize = getExpiryPageSize();
+    	int numObjects = 0;
+    	Long afterId = null;
+    	List<Long> ids = null;
+    	do
+    	{
+	    	BasicTransaction tx = null;	    	
+	    	try
+	    	{
+	    		tx = startTransaction();
+	    		List<DOCObject> removedDependentObjects = null;
+	    		ids = docCacheDAO.getExpiredObjectIds(tx, sifObjectName, expiryStrategy, applicationId, agentId, expiredBefore, afterId, pageSize);
+	    		if (!ids.isEmpty())
+	    		{
+		    		if (expire)
+		    		{
+		    			removedDependentObjects = getRemovedDependentObjectList();
+		    			docCacheDAO.removeCachedObjects(tx, ids, removedDependentObjects);
+		    		}
+		    		else
+		    		{
+		    			// Reset the expiry date and strategy according to the object metadata cache values
+		    			docCacheDAO.resetExpiredObjects(tx, ids, DateUtils.dateAfter(new Date(), sifObjectMetadata.getDefaultExpiryInMinutes()*60*1000), sifObjectMetadata.getDefaultExpiryStrategy());
+		    		}
+		    		afterId = ids.get(ids.size()-1);
+		    		numObjects = numObjects + ids.size();
+	    		}
+	       		tx.commit();
+	       		removeFromDependencyKeyFilter(removedDependentObjects);
+	     	}
+	    	catch (Exception ex) 
+	    	{
+	    		if (tx != null)
+	    		{
+	    			tx.rollback();
+	    		}
+	    		exceptionMapper(ex, "Unable to update the expired cached objects "+sifObjectName+" with expiry strategy "+expiryStrategy+" for application = "+applicationId+" and agent = "+agentId+".", true, false);
+	    	}
+    	}
+    	while (ids.size() >= pageSize);
+    	return numObjects;
+    }
+    
+    /*
+     * Returns the number of expired objects processed in one transaction. Read each time so that a reload of the 
+     * properties takes effect.
+     */
+    private int getExpiryPageSize()
+    {
+    	DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+    	return (cacheProperties == null) ? EXPIRY_PAGE_SIZE : cacheProperties.getExpiryPageSize(EXPIRY_PAGE_SIZE);
+    }
+    
+    /*
+     * Same as updateExpiredObjects() above but operates on the in-memory tier of the DOC. The tier queues the
+     * changes to the database.
+     */
+    private void updateExpiredObjects(DOCMemoryTier memoryTier, String applicationId, String agentId)
+    {
+   		Date now = new Date();
+   		List<DOCObject> removedDependentObjects = getRemovedDependentObjectList();
+   		for (DOCache cachedObject : memoryTier.getExpiredObjects(applicationId, agentId))
+   		{
+   			if (cachedObject.getExpiryStrategy().equals(SIFObject.EXPRIY_STARTEGY.EXPIRE.name()))
+   			{
+   				memoryTier.removeCachedObject(cachedObject, removedDependentObjects);
+   			}
+   			else if (cachedObject.getExpiryStrategy().equals(SIFObject.EXPRIY_STARTEGY.REQUEST.name()))
+   			{
+   				SIFObject sifObjectMetadata = metadataCache.getObjectMetadata(cachedObject.getSifObjectName());
+   				memoryTier.resetExpiredObject(cachedObject, DateUtils.dateAfter(now, sifObjectMetadata.getDefaultExpiryInMinutes()*60*1000), sifObjectMetadata.getDefaultExpiryStrategy());
+   			}
+   			else // Invalid expiry strategy.
+   			{
+   				logger.error("Invalid Expiry Strategy ("+cachedObject.getExpiryStrategy()+") defined for Cached Object "+cachedObject.getSifObjectName()+" and Key = "+cachedObject.getObjectKeyValue()+".");
+   			}
+   		}
+   		removeFromDependencyKeyFilter(removedDependentObjects);
+    }
+
+	private void extractDependentObjects(SIFDataObject sifObject, SIFObjectKeyPlan sourcePlan, DependencyPlan dependencyPlan, List<DOCObject> dependencies) throws InvalidKeyException
+	{
+		DependentObjectInfo dependendObjInfo = dependencyPlan.getDependentObjectInfo();
+		if (dependendObjInfo.getListOfObjects())
+		{
+			// Deal with the case where there are many dependent objects of the same type (i.e. TeachingGroup->TeachingGroupStudent)
+			List<SIFElement> listObjects = (dependencyPlan.getListAccessor() == null) ? null : dependencyPlan.getListAccessor().getElementList(sifObject);
+			if (listObjects != null)
+			{
+				// Walk the list elements once and extract all keys relative to each list element.
+				int idx = 1;
+				for (SIFElement listObj : listObjects)
+				{
+                	DOCObject depObj = extractDependentObjectInfo(sifObject, listObj, dependendObjInfo.getXpathToList()+"["+idx+"]/", sourcePlan, dependencyPlan);
+                	if (depObj != null)// Found valid dependent object
+                	{
+                		dependencies.add(depObj);
+                	}
+                	idx++;
+				}
+				return;
+			}
+			
+			// The xPath to the list cannot be compiled. Let the ADK evaluate the xPath for each index.
+			int idx = 1;
+			String xpathToListObj = dependendObjInfo.getXpathToList()+"["+idx+"]";
+			try
+            {
+				Element listObj = sifObject.getElementOrAttribute(xpathToListObj);
+                while (listObj != null)
+                {
+                	if (!(listObj instanceof SIFElement))
+                	{
+                		throw new InvalidKeyException("The element/attribute '"+xpathToListObj+"' is not a list of elements. This is invalid.");
+                	}
+                	DOCObject depObj = extractDependentObjectInfo(sifObject, (SIFElement)listObj, xpathToListObj+"/", sourcePlan, dependencyPlan);
+                	if (depObj != null)// Found valid dependent object
+                	{
+                		dependencies.add(depObj);
+                	}
+                	idx++;
+                	xpathToListObj = dependendObjInfo.getXpathToList()+"["+idx+"]";
+                	listObj = sifObject.getElementOrAttribute(xpathToListObj);
+                }
+            }
+            catch (ADKSchemaException e)
+            {
+               throw new InvalidKeyException("Child object for element/attribute '"+xpathToListObj+"' doesn't exist. This is invalid.");
+            }
+		}
+		else
+		{
+			DOCObject depObj = extractDependentObjectInfo(sifObject, sifObject, "", sourcePlan, dependencyPlan);
+			if (depObj != null)// Found valid dependent object
+			{
+				dependencies.add(depObj);
+			}
+		}
+	}
+
+	/*
+	 * Extracts the dependent object described by the dependencyPlan. The keys are read relative to the context element,
+	 * which is the sifObject itself or an entry of a list of dependent objects. The contextXPath is the xPath to the
+	 * context element (incl. trailing '/') or an empty string if the context element is the sifObject.
+	 */
+	private DOCObject extractDependentObjectInfo(SIFDataObject sifObject, SIFElement context, String contextXPath, SIFObjectKeyPlan sourcePlan, DependencyPlan dependencyPlan) throws InvalidKeyException
+	{
+		SIFObjectKeyPlan parentPlan = dependencyPlan.getParentPlan();
+		
+		//First check if object is indicator: dependendObjInfo.getParentObject() == null
+		//If so extract the indicator value from actual SIFObject to determine what the parent object is then 
+		//check if it is a required dependency (maybe it is not and is marked as ignored).
+		//If it is ignored we don't set the parentPlan otherwise we get it from the dependencyPlan.
+		if (dependencyPlan.getDependentObjectInfo().getParentObject() == null) // indicator object
+		{
+		    ElementAccessor indicatorAccessor = dependencyPlan.getIndicatorAccessor();
+		    if (indicatorAccessor != null)
+		    {
+		        String parentName;
+                try
+                {
+                    parentName = indicatorAccessor.getValue(sifObject, context, contextXPath);
+                }
+                catch (ADKSchemaException e)
+                {
+                    throw new InvalidKeyException("The element/attribute '"+contextXPath+indicatorAccessor.getXpath()+"' does not exist. This an invalid object.");
+                }
+                if (parentName == null)
+                {
+                    throw new InvalidKeyException("There is no indicator defined for the Object "+ sourcePlan.getSifObjectName() + " with key of "+indicatorAccessor.getXpath());
+                }
+                if (StringUtils.isEmpty(parentName))
+                {
+                    throw new InvalidKeyException("The element/attribute '"+contextXPath+indicatorAccessor.getXpath()+"' is empty or null. This an invalid object.");                        
+                }
+                    
+                // Returns null if we need to ignore this dependency.
+                parentPlan = dependencyPlan.getIndicatorPlan(parentName);
+		    }
+		}
+		
+		// If parentPlan is still null then there is no dependency = > return null
+		if (parentPlan == null)
+		{
+		    return null;
+		}
+		
+		// Extract key values from actual SIF Object. This will throw an exception if anything is invalid. Error is already logged.
+		String[] keyValues = extractDependentKeyValuesFromSIFObject(sifObject, context, contextXPath, sourcePlan, dependencyPlan, parentPlan);
+		
+		// If we get here without exception all the key information is valid.
+		DOCObject depObj = new DOCObject();
+		depObj.setSifObjectName(parentPlan.getSifObjectName());
+		depObj.setKeyForDependentObject(parentPlan.newKeyList(keyValues));
+		
+		// Flatten key and store it in the appropriate property.
+		depObj.setObjectKeyValue(parentPlan.flattenKey(keyValues));
+		depObj.setRequested(Boolean.FALSE);
+		
+		return depObj;
+	}
+	
+	/*
+	 * Returns the foreign key values of the dependent object in the order of the key definition of the parent object.
+	 */
+	private String[] extractDependentKeyValuesFromSIFObject(SIFDataObject sifObject, SIFElement context, String contextXPath, SIFObjectKeyPlan sourcePlan, DependencyPlan dependencyPlan, SIFObjectKeyPlan parentPlan) throws InvalidKeyException
+	{
+	    String keyErrorMsg = null;
+	    ElementAccessor[] keyAccessors = dependencyPlan.getKeyAccessors();
+	    String[] keyValues = new String[keyAccessors.length];
+	    try
+	    {
+    		// The key components must match the key components of the parent object and be in the same sort_order.
+    		if (keyAccessors.length != parentPlan.getKeyAccessors().length)
+    		{
+    		    keyErrorMsg = "There number of key components of object ("+sourcePlan.getSifObjectName()+") doesn't match the number of key components of the dependent object ("+parentPlan.getSifObjectName()+").";
+    		}
+    		else
+    		{
+    			for (int i=0; i<keyAccessors.length; i++)
+    			{
+    				// extract the key value from the SIF Object based on the compiled xPath of dependent object info
+    				String value = keyAccessors[i].getValue(sifObject, context, contextXPath);
+    				if (value == null)
+    				{
+    				    keyErrorMsg = "The foreign key "+ contextXPath+keyAccessors[i].getXpath() + "for the Object "+ sourcePlan.getSifObjectName() + " does not exits.";
+    				}
+    				else if (StringUtils.notEmpty(value))
+    				{
+    					keyValues[i] = value;
+    				}
+    				else
+    				{
+    				    keyErrorMsg = "The foreign key "+ contextXPath+keyAccessors[i].getXpath() +" for the Object "+ sourcePlan.getSifObjectName() + " is null or empty";
+    				}
+    			}			
+    		}
+	    }
+	    catch (ADKSchemaException ex)
+        {
+	        keyErrorMsg = "Failed to extract dependend key from "+sourcePlan.getSifObjectName()+"\n"+sifObject.toXML();
+        }
+	    if (keyErrorMsg != null) // we had an issue in generating the depended key objects. 
+	    {
+	        logger.error(keyErrorMsg);
+	        throw new InvalidKeyException(keyErrorMsg);        
+	    }
+	    return keyValues;
+	}
+    
+	/*
+	 * This method attempts to extract the primary key of the given SIFObject. If it fails then an IllegalArgumentException is
+	 * returned and the error is logged accordingly.
+	 */
+	private String extractFlatKey(SIFDataObject sifObject, SIFObjectKeyPlan keyPlan)  throws IllegalArgumentException, InvalidKeyException
+	{
+		boolean allKeysHaveValue = true;
+		ElementAccessor[] keyAccessors = keyPlan.getKeyAccessors();
+		String[] keyValues = new String[keyAccessors.length];
+		try
+		{
+			for (int i=0; i<keyAccessors.length; i++)
+			{
+				// extract the key value from the SIF Object based on the compiled xPath of the key
+				String value = keyAccessors[i].getValue(sifObject, sifObject, "");
+				if (value == null)
+				{
+					logger.error("There is no key defined for the Object "+ sifObject.getElementDef().name() + " with key of "+keyAccessors[i].getXpath());
+					allKeysHaveValue = false;
+				}
+				else if (StringUtils.notEmpty(value))
+				{
+					keyValues[i] = value;
+				}
+				else
+				{
+					logger.error("The key value for the Object "+ sifObject.getElementDef().name() + " with key of "+keyAccessors[i].getXpath() + " is null or empty");				        
+					allKeysHaveValue = false;
+				}
+			}
+			if (allKeysHaveValue)
+			{
+				return keyPlan.flattenKey(keyValues);
+			}
+			else
+			{
+	    		String errmsg = "Failed to extract and flatten primary key from "+sifObject.getElementDef().name()+". See prvious error log entry for details.";
+	    		logger.error(errmsg);
+	    		throw new InvalidKeyException(errmsg);
+			}
+		}
+		catch (ADKSchemaException ex)
+		{
+    		String errmsg = "Failed to extract and flatten primary key from "+sifObject.getElementDef().name();
+    		logger.error(errmsg);
+    		throw new InvalidKeyException(errmsg, ex);			
+		}
+	}
+	
+	private SIFObjectKeyPlan getKeyPlan(SIFDataObject sifObject) throws IllegalArgumentException
+	{
+		SIFObjectKeyPlan keyPlan = metadataCache.getKeyPlan(sifObject.getElementDef().name());
+		if (keyPlan == null)
+		{
+			String errorMsg = "No metadata available for SIF Object "+sifObject.getElementDef().name()+". Cannot determine key for sif object.";
+			logger.error(errorMsg);
+			throw new IllegalArgumentException(errorMsg);
+		}
+		return keyPlan;
+	}
+	
+	private void checkMetadataCache() throws IllegalArgumentException
+	{
+		if (metadataCache == null) // we cannot determine info about object if cache is not enabled.
+		{
+			String errorMsg = "MetadataCache not inistialised. Cannot execute requested service method in DOCService class.";
+			logger.error(errorMsg);
+   			throw new IllegalArgumentException(errorMsg);
+   		}
+	}
+	
+	/*
+	 * This method takes the given exception and simply re-throws it if it is a IllegalArgumentException, PersistenceException, InvalidKeyException.
+	 * Any other exception is mapped to a persistence exception since this service mainly deals with DB operations.
+	 * The given errorMsg is added to the IllegalArgumentException or PersistenceException if addErrorMsgToStandardEx is
+	 * true. If the exception is any other type then the error message is added regardless addErrorMsgToStandardEx parameter.
+	 * The errorMsg is logged if logError is set to true.
+	 */
+	private void exceptionMapper(Exception ex, String errorMsg, boolean logError, boolean addErrorMsgToStandardEx) throws IllegalArgumentException, PersistenceException
+	{
+		if (logError)
+		{
+			logger.error(errorMsg, ex);
+		}
+		if (ex instanceof IllegalArgumentException)
+		{
+			if (addErrorMsgToStandardEx)
+			{
+				throw new IllegalArgumentException(errorMsg, ex);
+			}
+			throw (IllegalArgumentException)ex;				
+		}
+		if 	(ex instanceof PersistenceException)
+		{
+			if (addErrorMsgToStandardEx)
+			{
+				throw new PersistenceException(errorMsg, ex);
+			}
+			throw (PersistenceException)ex;			
+		}
+//        if (ex instanceof InvalidKeyException)
+//        {
+//            if (addErrorMsgToStandardEx)
+//            {
+//                throw new InvalidKeyException(errorMsg, ex);
+//            }
+//            throw (InvalidKeyException)ex;
+//        }
+        
+		// If we get here the ex is of any other type
+		throw new PersistenceException(errorMsg, ex);
+	}
+	
+}
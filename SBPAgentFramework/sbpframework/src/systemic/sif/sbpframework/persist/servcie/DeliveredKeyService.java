@@ -0,0 +1,144 @@
+/*
+ * DeliveredKeyService.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.persist.servcie;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.PersistenceException;
+
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.dao.BaseDAO;
+import systemic.sif.sbpframework.persist.dao.DeliveredKeyDAO;
+import systemic.sif.sbpframework.persist.model.DeliveredKey;
+
+/**
+ * This service maintains the keys of the objects that have been handed on for processing (see DeliveredKeyIndex).
+ */
+public class DeliveredKeyService extends DBService
+{
+	private DeliveredKeyDAO deliveredKeyDAO = new DeliveredKeyDAO();
+
+	@Override
+	public BaseDAO getDAO()
+	{
+		return deliveredKeyDAO;
+	}
+
+	/**
+	 * This method inserts the given keys that don't exist, yet and removes the given keys to remove in one
+	 * transaction. Either list can be null or empty.
+	 *
+	 * @param keysToAdd The keys to insert.
+	 * @param keysToRemove The keys to remove.
+	 *
+	 * @throws IllegalArgumentException Any of the key properties of a key is empty or null. Nothing is changed.
+	 * @throws PersistenceException There is an issue with the underlying database. Nothing is changed.
+	 */
+	public void updateDeliveredKeys(List<DeliveredKey> keysToAdd, List<DeliveredKey> keysToRemove) throws IllegalArgumentException, PersistenceException
+	{
+		BasicTransaction tx = null;
+		try
+		{
+			tx = startTransaction();
+			if (keysToAdd != null)
+			{
+				for (DeliveredKey deliveredKey : keysToAdd)
+				{
+					deliveredKeyDAO.insertKey(tx, deliveredKey);
+				}
+			}
+			if (keysToRemove != null)
+			{
+				for (DeliveredKey deliveredKey : keysToRemove)
+				{
+					deliveredKeyDAO.removeKey(tx, deliveredKey);
+				}
+			}
+			tx.commit();
+		}
+		catch (RuntimeException ex)
+		{
+			if (tx != null)
+			{
+				tx.rollback();
+			}
+			if ((ex instanceof IllegalArgumentException) || (ex instanceof PersistenceException))
+			{
+				throw ex;
+			}
+			throw new PersistenceException("Failed to update the delivered keys.", ex);
+		}
+	}
+
+	/**
+	 * This method removes the keys of the given application that have been delivered before the given date.
+	 *
+	 * @param applicationId The application for which the keys shall be removed.
+	 * @param deliveredBefore Keys delivered before this date are removed.
+	 *
+	 * @return The number of keys removed.
+	 *
+	 * @throws IllegalArgumentException applicationId is empty or null or deliveredBefore is null. Nothing is changed.
+	 * @throws PersistenceException There is an issue with the underlying database. Nothing is changed.
+	 */
+	public int removeExpiredDeliveredKeys(String applicationId, Date deliveredBefore) throws IllegalArgumentException, PersistenceException
+	{
+		BasicTransaction tx = startTransaction();
+		try
+		{
+			int numRemoved = deliveredKeyDAO.removeExpiredKeys(tx, applicationId, deliveredBefore);
+			tx.commit();
+			return numRemoved;
+		}
+		catch (RuntimeException ex)
+		{
+			tx.rollback();
+			throw ex;
+		}
+	}
+
+	/**
+	 * This method returns one page of the delivered keys of the given application.
+	 *
+	 * @param applicationId The application for which the keys shall be returned.
+	 * @param deliveredAfter Only keys delivered after this date are returned. If null then all keys are returned.
+	 * @param firstResult The index of the first key to return.
+	 * @param maxResults The maximum number of keys to return.
+	 *
+	 * @return The keys of the page. An empty list if there are no more keys.
+	 *
+	 * @throws IllegalArgumentException applicationId is empty or null.
+	 * @throws PersistenceException There is an issue with the underlying database.
+	 */
+	public List<DeliveredKey> retrieveDeliveredKeys(String applicationId, Date deliveredAfter, int firstResult, int maxResults) throws IllegalArgumentException, PersistenceException
+	{
+		BasicTransaction tx = startTransaction();
+		try
+		{
+			List<DeliveredKey> keys = deliveredKeyDAO.retrieveKeys(tx, applicationId, deliveredAfter, firstResult, maxResults);
+			tx.commit();
+			return keys;
+		}
+		catch (RuntimeException ex)
+		{
+			tx.rollback();
+			throw ex;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * DependencyCheck.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.subscriber;
+
+import java.util.List;
+
+import openadk.library.SIFDataObject;
+import systemic.sif.sbpframework.persist.model.SIFObjectKey;
+
+/**
+ * This class holds one dependent object that must be checked against the target system with the method
+ * SBPBaseSubscriber.doObjectsExistInTargetSystem(). The parameters are the same as the ones of the method
+ * SBPBaseSubscriber.doesObjectExistInTargetSystem(). The result of the check is set with setExists().
+ */
+public class DependencyCheck
+{
+	private final String sifObjectName;
+	private final String flatKey;
+	private final List<SIFObjectKey> keyValues;
+	private final SIFDataObject sifObject;
+	private Boolean exists = null;
+
+	public DependencyCheck(String sifObjectName, String flatKey, List<SIFObjectKey> keyValues, SIFDataObject sifObject)
+	{
+		this.sifObjectName = sifObjectName;
+		this.flatKey = flatKey;
+		this.keyValues = keyValues;
+		this.sifObject = sifObject;
+	}
+
+	/**
+	 * Returns the name of the dependent SIF Object (i.e. StudentPersonal, SchoolInfo etc).
+	 */
+	public String getSifObjectName()
+	{
+		return sifObjectName;
+	}
+
+	/**
+	 * Returns the key of the dependent SIF Object as one string the same way as it is stored in the DOC.
+	 */
+	public String getFlatKey()
+	{
+		return flatKey;
+	}
+
+	/**
+	 * Returns the key of the dependent SIF Object in the order defined by the SIF specification.
+	 */
+	public List<SIFObjectKey> getKeyValues()
+	{
+		return keyValues;
+	}
+
+	/**
+	 * Returns the SIF Object as delivered from the ZIS that depends on the object to check. If several received
+	 * objects depend on the same object then this is the first of them. This is null for the dependent objects that
+	 * are checked when a sync window is closed.
+	 */
+	public SIFDataObject getSifObject()
+	{
+		return sifObject;
+	}
+
+	/**
+	 * Returns TRUE if the dependent object exists in the target system, FALSE if it doesn't exist and null if it has
+	 * not been checked.
+	 */
+	public Boolean getExists()
+	{
+		return exists;
+	}
+
+	public void setExists(boolean exists)
+	{
+		this.exists = Boolean.valueOf(exists);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "sifObjectName = " + sifObjectName +
+		"\nflatKey = " + flatKey +
+		"\nkeyValues = " + keyValues +
+		"\nexists = " + exists;
+	}
+}
@@ -1,516 +1,2079 @@
-/*
- * SBPBaseSubscriber.java
- * Created: 08/10/2011
- *
- * Copyright 2011 Systemic Pty Ltd
- * 
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *    http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software distributed under the License 
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied.
- * See the License for the specific language governing permissions and limitations under the License.
- */
-
-package systemic.sif.sbpframework.subscriber;
-
-import java.util.Date;
-import java.util.Iterator;
-import java.util.List;
-
-import javax.persistence.PersistenceException;
-
-import openadk.library.ElementDef;
-import openadk.library.EventAction;
-import openadk.library.Query;
-import openadk.library.SIFDataObject;
-import openadk.library.Zone;
-import systemic.sif.sbpframework.common.utils.SIFObjectUtils;
-import systemic.sif.sbpframework.exception.InvalidKeyException;
-import systemic.sif.sbpframework.persist.model.DOCObject;
-import systemic.sif.sbpframework.persist.model.DOCache;
-import systemic.sif.sbpframework.persist.model.SIFObject;
-import systemic.sif.sbpframework.persist.model.SIFObjectKey;
-import systemic.sif.sbpframework.persist.servcie.DOCService;
-import systemic.sif.sifcommon.mapping.MappingInfo;
-
-/**
- * This class implements some of the functionality defined in the Australian SBP. This are all infrastructure level
- * functions and include: Start-up Sync Control through a DB and a dependent Object cache. For details please refer to
- * the SBP Agent Framework Developer's Guide.<p><p>
- * 
- * <b>Note:</b><p>
- * Subscribers that are part of the SBP must extend this SBPBaseSubscriber. If your agent deals with other SIF objects 
- * than the ones defined in the SBP then you should extends the SBPNoDOCSubscriber class for these objects and not this
- * class. If you use this class for any other SIF objects than defined in the SBP the behaviour is unknown, most likely
- * will cause your agent to crash.
- * 
- * @author Joerg Huber
- *
- */
-public abstract class SBPBaseSubscriber extends SyncSubscriber
-{
-	/* The Service for the Dependent Object Cache*/
-	private DOCService service = new DOCService();
-	
-	/**
-	 * This method needs to be implemented by the actual subscriber developer. It shall check if the dependent
-	 * object given by the sifObjectName parameter and the key given by the keyValues does exist in the target 
-	 * system. If it exists then TRUE must be returned if it doesn't exist then FALSE must be returned.<p>
-	 * If the DOC is enabled and this method returns TRUE for the given sifObjectName and keyValues then the
-	 * SIF Object given by the sifObject parameter will be cached and its dependent objects will automatically be
-	 * requested by an appropriate subscriber (which can be a subscriber in another agent).<p><p>
-	 * 
-	 * The keyValues holds the primary key (name as xpath and value) of the dependent SIF Object. In most cases 
-	 * this is a SIF refId, but in some cases can be something else. The keyValues parameter is a list of key 
-	 * values in case the primary key is made up of a compound key. The list will be in the correct order as 
-	 * defined by the SIF specification.<p><p>
-	 * 
-	 * The parameter sifObjectName and keyValues are extracted from the sifObject. The sifObject is provided for
-	 * convenience. There might be the need to get other information out of the sifObject parameter to implement
-	 * this method successfully and therefore the availability of this parameter.<p><p>
-	 * 
-	 * Example of parameters: StudentSchoolEnrollment
-	 * <code>
-	 * <StudentSchoolEnrollment RefId="A8C3D3E34B359D75101D00AA001A1652">
-  	 *   <StudentPersonalRefId>D3E34B359D75101A8C3D00AA001A1652</StudentPersonalRefId>
-     *   <SchoolInfoRefId>A4E33E359D99101A8C3D00AA001BB76E</SchoolInfoRefId>
-     *   <MembershipType>01</MembershipType>
-	 *    .....
-	 * </StudentSchoolEnrollment>
-	 * </code>
-	 * <p><p>
-	 * For the above example object the 'sifObject' parameter would be StudentSchoolEnrollment object.
-	 * The 'doesObjectExistInTargetSystem()' method would be called twice for the above object by the 
-	 * SBPBaseSubscriber because there are 2 dependent objects: <p>
-	 * - The Student with RefId=D3E34B359D75101A8C3D00AA001A1652<p>
-	 * - The School with RefId=A4E33E359D99101A8C3D00AA001BB76E<p><p>
-	 * 
-	 * The sifObjectName and keyValues parameters for the two calls would be:<p>
-	 * 1st Call (Student): sifObjectName=StudentPersonal<p>
-	 *                     keyValues[0].xpathToKey=@RefId, keyValues[0].keyValue=D3E34B359D75101A8C3D00AA001A1652<p>
-	 * 2nd Call (School) : sifObjectName=SchoolInfo<p>
-	 *                     keyValues[0].xpathToKey=@RefId, keyValues[0].keyValue=A4E33E359D99101A8C3D00AA001BB76E<p><p>
-	 * 
-	 * @param sifObjectName Name of the dependent SIF Object (i.e. StudentPersonal, SchoolInfo etc).
-	 * @param keyValues List of key values. Name of Key is an xpath into the dependent SIF Object, value is the 
-	 *                  actual value of key as extracted from the sifObject parameter.
-	 * @param sifObject The SIF Object as delivered from the ZIS.
-	 * 
-	 * @return See description
-	 */
-	public abstract boolean doesObjectExistInTargetSystem(String sifObjectName, List<SIFObjectKey> keyValues, SIFDataObject sifObject);
-	
-	/**
-	 * This method is called if the processing of the object failed due to invalid key data. Key data is either the object's primary key or
-	 * the foreign keys of the referenced objects if they are marked as a dependency to be resolved in the Dependent Object Cache. Typical 
-	 * reasons for an invalid primary or foreign key are:<br/><br/>
-	 * 
-	 * - Key element/attribute (i.e. refId) missing<br/>
-	 * - Key element/attribute (i.e. refId) null or empty<br/><br/>
-	 * 
-	 * This method will be called as part of processEvent() or processResponse() method if the key conditions are not met when processing
-	 * a SIF Event or SIF Response. The offending object is passed to the 'sifObject' parameter of this method. If the failure is caused by
-	 * processing and event then the 'isEvent' parameter is set to TRUE and the 'eventAction' will hold ADD, CHANGE or DELETE to indicate the
-	 * event type. If the failure is cause by processing a response then the 'isEvent' parameter is set to FALSE and the 'eventAction' is null.
-	 * The cause of the failure is part of the'invalidKeyException' parameter. Since this parameter is an exception, the error message can
-	 * be retrieved with the standard invalidKeyException.getMessage() method. It is up to the implementation if something else should be
-	 * done with the exception.
-	 * 
-	 * @param sifObject The object that caused the error, i.e. has invalid primary or foreign keys.
-	 * @param zone The zone from which the object was received.
-	 * @param isEvent Set to TRUE if the error occurred during event processing. FALSE if the error occurred during response processing.
-	 * @param eventAction If the error occurred during event processing then this value will hold the event action such as ADD, CHANGE or DELETE.
-	 *                    If the error occurred during response processing then this value will set to null!
-	 * @param invalidKeyException Holds information about the invalid key(s).
-	 */
-    public abstract void onKeyError(SIFDataObject sifObject, Zone zone, boolean isEvent, EventAction eventAction, InvalidKeyException invalidKeyException);
-	
-	/**
-	 * Default constructor<p>
-	 * Initialises the subscriber and also checks if the object this subscriber is responsible for is supported by
-	 * the DOC. If not then a IllegalArgumentException is raised and the error is logged.
-	 * 
-	 * @param subscriberID The unique ID of the subscriber (ie. StudentPersonalSubscriber).
-	 * @param dtd The dtd for which this subscriber is responsible for.
-	 */
-	public SBPBaseSubscriber(String subscriberID, ElementDef dtd) throws IllegalArgumentException
-	{
-        super(subscriberID, dtd);
-        
-        // Check if the given SIF Object is supported by the DOC. IF not we must throw an exception
-        SIFObject obj = metadataCache.getObjectMetadata(getDtd().name());
-        if (obj == null) //not known to DOC
-        {
-            String errorMsg = getDtd().name()+" is not a SIF Object Type that is supported by this subscriber class. Use SBPNoDOCSubscriber class instead.";
-            logger.error("\n################################# ERROR ###################################\n"+errorMsg+"\n###########################################################################\n");
-            throw new IllegalArgumentException(errorMsg);
-        }
-		
-        logger.debug(BANNER+getClass().getSimpleName()+" Subscriber created for object = '"+getDtd().name()+"'."+BANNER);
-	}
-	
-    /*---------------------------------------------------------*/
-    /*- Housekeeping Methods for the SBP Subscriber Behaviour -*/
-    /*---------------------------------------------------------*/
-
-	/**
-     * Sends a SIF Query for all dependent objects that are in the cache for this subscriber and application.
-     * This will iterate through all zones of this agent to ensure that all dependent objects that have been
-     * received from various zones are requested.<p>
-     * This method must only run if this subscriber is responsible for a SIF Object that has other SIF objects
-     * with a dependency on this object. For example the StudentPersonal is such an object because a number of 
-     * other SIF objects depend upon the StudentPersonal such as the StudentSchoolEnrollment, 
-     * StudentContactRelationship etc.
-     * 
-     */
-    public void requestDependentObjects()
-    {
-        if (metadataCache.isDependedUpon(getDtd().name()))
-        {
-            logger.debug(BANNER+getClass().getSimpleName()+" Subscriber attempts to request pending objects...: "+new Date()+BANNER);
-            try
-            {
-                for (Zone zone : getZones())
-                {
-                    List<DOCObject> objectToRequest = service.getNotYetRequestedObjects(getDtd().name(), getApplicationID(), zone.getZoneId());
-                    for (DOCObject docObj : objectToRequest)
-                    {
-                        // Use an inner try-block so that individually failed query requests don't stop others of being issued.
-                        try
-                        {
-                            Query query = SIFObjectUtils.makeQueryFromXPathValueList(getDtd(), getAgentConfig().getVersion(), docObj.getKeyForDependentObject());
-                            zone.query(query);// Send the query to the Zone.
-                            
-                            // Now we need to update the docObject to indicate that query has been issued.
-                            service.markDependentObjectAsRequested(docObj, getAgentID(), zone.getZoneId());
-                        }
-                        catch (Exception ex)
-                        {
-                            logger.error("Failed to issue query for Cached Object:\n"+docObj, ex);
-                        }
-                    }
-                }
-            }
-            catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
-            {
-                logger.error("Failed to retrive lis of not yet requested objects for subscriber: "+getDtd().name(), ex);            
-            }
-        }
-//      else
-//      {
-//          logger.debug(BANNER+getClass().getSimpleName()+" Subscriber is not required to request pending objects because no objects depend on this one: "+new Date()+BANNER);         
-//      }
-    }
-    
-    /**
-     * Should be called every so often. This method will check if there are cached objects that have no 
-     * dependencies any more. If so the object can be processed by this subscriber and then removed from 
-     * the cache. This process is only required for objects that have dependencies such as StaffAssignment.
-     * For objects without dependencies such as StudentPersonal there is no need to run this method.
-     */
-    public void processObjectsWithoutDependencies()
-    {
-        if (metadataCache.hasDependencies(getDtd().name()))
-        {
-            logger.debug(BANNER+getClass().getSimpleName()+" Subscriber attempts to process objects with no remaining dependencies...: "+new Date()+BANNER);
-            List<DOCache> cachedObjectList = null;
-            try
-            {
-                cachedObjectList = service.getObjectsWithoutDependencies(getDtd().name(), getApplicationID(), getAgentID());
-            }
-            catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
-            {
-                logger.error("Failed to retrive list of Cached Objects without any dependencies for subscriber: "+getDtd().name(), ex);         
-                cachedObjectList = null;
-            }
-            if (cachedObjectList != null)
-            {
-                for (DOCache cachedObject : cachedObjectList)
-                {
-                    SIFDataObject sifObject =  SIFObjectUtils.getSIFObjectFromXML(cachedObject.getObjectXML());
-                    if (sifObject != null)
-                    {
-                        if (cachedObject.getIsEvent()) // Event Object
-                        {
-                            pushSIFEventToProcessQueue(sifObject, getZoneByID(cachedObject.getZoneId()), null, EventAction.valueOf(cachedObject.getEventType()));
-                        }
-                        else // Response Object
-                        {
-                            pushSIFObjectToProcessQueue(sifObject, getZoneByID(cachedObject.getZoneId()), null);
-                        }
-                        service.removeCachedObject(cachedObject);
-                    }
-                    else
-                    {
-                        logger.error("Failed to push the cached object to the processing queues. See previous error log entry for details. Cached object with issue:\n"+cachedObject);
-                    }
-                }
-            }
-        }
-//      else
-//      {
-//          logger.debug(BANNER+getClass().getSimpleName()+" Subscriber does not need to process objects with no remaining dependencies because this Object does not have dependencies: "+new Date()+BANNER);
-//      }
-    }
-
-    /*--------------------------------------------------------------------------------*/
-	/*- Overridden Methods of the SIFCommon Framework to implement the SBP Behaviour -*/
-	/*--------------------------------------------------------------------------------*/
-
-	/*
-	 * Override the preProcessEvent. This allows to check if objects needs caching and if so then the event 
-	 * does not need to be processed further at this stage.
-	 * 
-	 * @see systemic.sif.sifcommon.subscriber.BaseSubscriber#preProcessEvent(Event event, Zone zone, MappingInfo mappingInfo)
-	 */
-	@Override
-	protected boolean preProcessEvent(SIFDataObject sifObject, EventAction eventAction, Zone zone, MappingInfo mappingInfo)
-    {
-	    try
-	    {
-    		//Check if object required caching.
-    		boolean cached = cacheEventIfRequired(sifObject, eventAction, zone);
-    		
-    		// If it was cached then we do not want to do any more processing.
-    		if (cached)
-    		{
-    			logger.debug(eventAction.name()+" Event for Object "+sifObject.getElementDef().name()+" was cached or has already been cached. No futher action performed.");
-    			return false;
-    		}
-    		
-    		// If we get here then the event was not cached or did not require caching. It still might be that there
-    		// are other objects in the cache that had a dependency on the object of this event. Remove these
-    		// dependencies. Only do this if it is not a DELETE event.
-        	if (!EventAction.DELETE.name().equals(service.hasPotentialDependencies(eventAction.name())))
-        	{
-    			logger.debug("Check and remove dependency for "+eventAction.name()+" Event on Object "+sifObject.getElementDef().name()+".");
-        		removeDependencies(sifObject, zone);
-        	}
-    		
-    		// Tell the BaseSubscriber to perform the standard processing with this event (i.e. send it to appropriate
-    		// queue.
-    		return true;
-	    }
-	    catch (InvalidKeyException ex)
-	    {
-	        onKeyError(sifObject, zone, true, eventAction, ex);
-	        return false;
-	    }
-    }
-    
-	/*
-	 * Override the preProcessQueryResults. This allows to check if objects needs caching and if so then the 
-	 * object  does not need to be processed further at this stage.
-	 * 
-	 * @see systemic.sif.sifcommon.subscriber.BaseSubscriber#preProcessQueryResults(openadk.library.SIFDataObject, openadk.library.Zone, systemic.sif.sifcommon.mapping.MappingInfo)
-	 */
-	 
-	@Override
-	protected boolean preProcessQueryResults(SIFDataObject sifObject, Zone zone, MappingInfo mappingInfo)
-	{
-        try
-        {
-    		//Check if object required caching.
-    		boolean cached = cacheObjectIfRequired(sifObject, zone);
-    		
-    		// If it was cached then we do not want to do any more processing.
-    		if (cached)
-    		{
-    			logger.debug("Object "+sifObject.getElementDef().name()+" was cached or has already been cached. No futher action performed.");
-    			return false;
-    		}
-    		
-    		// If we get here then the object was not cached or did not require caching. It still might be that there
-    		// are other objects in the cache that had a dependency on this object. Remove these dependencies.
-    		logger.debug("Check and remove dependency on Object "+sifObject.getElementDef().name()+".");
-    		removeDependencies(sifObject, zone);
-    		
-    		// Tell the BaseSubscriber to perform the standard processing with this object (i.e. send it to appropriate queue.
-        	return true;		
-        }
-        catch (InvalidKeyException ex)
-        {
-            onKeyError(sifObject, zone, false, null, ex);
-            return false;
-        }
-	}
-
-	/*--------------------------------------------------*/
-	/*- Private Methods to implement the SBP Behaviour -*/
-	/*--------------------------------------------------*/
-    
-    /*
-     * Needs to be called for responses. Check if object has dependencies, if so call abstract method
-     * doesObjectExistInTargetSystem() for each dependent object and if there are still remaining dependencies
-     * the object needs to be cached with the remaining dependencies.
-     * If the object has been cached then true is returned otherwise false is returned. False indicates that
-     * there was no need to cache the object because is has no outstanding dependencies.
-     * 
-     * @throws InvalidKeyException Object has invalid primary or foreign key to cause an issue in the DOCache. Error already logged.
-     * @throws PersistenceException DOCache cannot be accessed successfully. Error already logged.
-
-     */
-    private boolean cacheObjectIfRequired(SIFDataObject sifObject, Zone zone) throws PersistenceException, InvalidKeyException
-    {
-    	boolean cached = false;
-    	if (sifObject == null)
-    	{
-    		return false;
-    	}
-    	
-    	if (service.hasPotentialDependencies(sifObject.getElementDef().name()))
-    	{
-    		// Next we test if the object is already in the cache. If so we don't need to cache at all.
-    		String flatKey = service.extractFlatKey(sifObject);
-    		DOCache cachedObject = service.retrieveCachedObject(sifObject.getElementDef().name(), flatKey, getApplicationID(), zone.getZoneId(), false);
-    		if (cachedObject == null) // not in cache, yet.
-    		{  		
-	    		List<DOCObject> remainingDependencies = getRemainingDependencies(sifObject, zone.getZoneId());
-	    		if (remainingDependencies != null) // we have dependencies => cache object
-	    		{
-	    			cached = cacheObject(sifObject, flatKey, false, null, remainingDependencies, zone);
-	    		}
-    		}
-    		else // already in cache => mark it as cached.
-    		{
-    			cached = true;
-    		}
-    	}
-    	return cached;
-    }
-    
-    /*
-     * Needs to be called for events. Check if event object has dependencies, if so call abstract method
-     * doesObjectExistInTargetSystem() for each dependent object and if there are still remaining dependencies
-     * the event needs to be cached with the remaining dependencies.
-     * If the object within the event has been cached then true is returned otherwise false is returned. 
-     * False indicates that there was no need to cache the object because is has no outstanding dependencies.
-     * 
-     * NOTE: Only ADD and UPDATE events need to be dealt with that way. DELETE events don't require any of this.
-     *       If the event type is DELETE then false is returned as no caching is required for delete events.
-     * 
-     * @throws InvalidKeyException Object has invalid primary or foreign key to cause an issue in the DOCache. Error already logged.
-     * @throws PersistenceException DOCache cannot be accessed successfully. Error already logged.
-     */
-    private boolean cacheEventIfRequired(SIFDataObject sifObject, EventAction eventAction, Zone zone) throws PersistenceException, InvalidKeyException
-    {
-    	boolean cached = false;
-    	if (sifObject == null)
-    	{
-    		return false;
-    	}
-    	if (!EventAction.DELETE.name().equals(service.hasPotentialDependencies(eventAction.name())))
-    	{
-        	if (service.hasPotentialDependencies(sifObject.getElementDef().name()))
-        	{
-        		// Next we test if the object is already in the cache. If so we don't need to cache at all.
-        		String flatKey = service.extractFlatKey(sifObject);
-        		DOCache cachedObject = service.retrieveCachedObject(sifObject.getElementDef().name(), flatKey, getApplicationID(), zone.getZoneId(), false);
-        		if (cachedObject == null) // not in cache, yet.
-        		{  		
-    	    		List<DOCObject> remainingDependencies = getRemainingDependencies(sifObject, zone.getZoneId());
-    	    		if (remainingDependencies != null) // we have dependencies => cache object
-    	    		{
-    	    			cached = cacheObject(sifObject, flatKey, true, eventAction, remainingDependencies, zone);
-    	    		}
-        		}
-        		else // already in cache => mark it as cached.
-        		{
-        			cached = true;
-        		}
-        	}    		
-    	}
-    	return cached;
-    }
-    
-    /*
-     * This method checks if the given object, that has been received by a given subscriber and zone is an
-     * object for which we have other objects in the cache that depend on this one. If so these dependencies
-     * will be removed and this object will be processed as normal.
-     */
-    private void removeDependencies(SIFDataObject sifObject, Zone zone)
-    {
-    	try
-    	{
-    		service.checkAndRemoveDependency(sifObject, getApplicationID(), zone.getZoneId());
-    	}
-    	catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
-    	{
-			logger.error("Failed to check or remove dependencies for the object:\n"+sifObject.toXML(), ex);    		
-    	}
-    }
-    
-    /*
-     * This method gets all dependencies for the given sifObject from the object itself and then looks up the
-     * DOCache and marks the already known dependencies in the cache. For all new dependencies the abstract method
-     * doesObjectExistInTargetSystem() of this class is called to determine if the dependent objects are unknown
-     * in the target system. All dependencies that are returned with TRUE from the abstract method are then 
-     * removed from the dependency list as they don't need to be requested. The final dependency list is then 
-     * returned. If there are no remaining dependencies then null is returned.
-     * 
-     * @throws InvalidKeyException Object has invalid primary or foreign key to cause an issue in the DOCache. Error already logged.
-     * @throws PersistenceException DOCache cannot be accessed successfully. Error already logged.
-     */
-    private List<DOCObject> getRemainingDependencies(SIFDataObject sifObject, String zoneId) throws PersistenceException, InvalidKeyException
-    {
-    	List<DOCObject> dependencies = service.getDependenciesFromSIFObjectAndCache(sifObject, getApplicationID(), zoneId);
-    	if (dependencies != null)
-    	{
-    		for (Iterator<DOCObject> i=dependencies.iterator(); i.hasNext();)
-    		{
-    			DOCObject obj = i.next();
-    			
-    			// Check if object is an already known dependency in the cache. If so there is no need to check
-    			// in the target as it would have been checked before and therefore made it to the cache.
-    			if ((obj.getId() == null) || (obj.getId().longValue()<=0))
-    			{
-    				//check in target. If it does exist we can remove it from the dependency list.
-    				if (doesObjectExistInTargetSystem(obj.getSifObjectName(), obj.getKeyForDependentObject(), sifObject))
-    				{
-    					i.remove();
-    				}
-    			}
-    		}
-    		if (dependencies.size() == 0) // no remaining dependencies
-    		{
-    			dependencies = null;
-    		}
-    	}
-    	
-    	return dependencies;
-    }
-
-    /*
-     * This method stores the actual SIF Object with its dependencies in the cache.
-     */
-	private boolean cacheObject(SIFDataObject sifObject, String flatKey, boolean isEvent, EventAction eventAction, List<DOCObject> dependencies, Zone zone)
-	{
-		boolean success = true;
-		DOCache cachedObject = new DOCache();
-		cachedObject.setSifObjectName(sifObject.getElementDef().name());
-		cachedObject.setIsEvent(isEvent);
-		if (eventAction != null)
-		{
-			cachedObject.setEventType(eventAction.name());
-		}
-		cachedObject.setObjectKeyValue(flatKey);
-		cachedObject.setObjectXML(sifObject.toXML());
-		cachedObject.setDependentObjectsAsList(dependencies);
-		try
-		{
-			service.cacheObject(cachedObject, getAgentID(), getApplicationID(), zone.getZoneId());
-		}
-		catch (Exception ex)
-		{
-			logger.error("Faled to cache SIF Object.\n:"+cachedObject, ex);
-			success = false;
-		}
-		return success;
-	}
-
-}
+/*
+ * SBPBaseSubscriber.java
+ * Created: 08/10/2011
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License 
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.subscriber;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.persistence.PersistenceException;
+
+import openadk.library.ElementDef;
+import openadk.library.EventAction;
+import openadk.library.Query;
+import openadk.library.SIFDataObject;
+import openadk.library.Zone;
+import systemic.sif.sbpframework.common.utils.DOCKeyLocks;
+import systemic.sif.sbpframework.common.utils.DOCacheProperties;
+import systemic.sif.sbpframework.common.utils.DeliveredKeyIndex;
+import systemic.sif.sbpframework.common.utils.MicroBatcher;
+import systemic.sif.sbpframework.common.utils.ResolvedObjectQueue;
+import systemic.sif.sbpframework.common.utils.SIFObjectKeyPlan;
+import systemic.sif.sbpframework.common.utils.SIFObjectUtils;
+import systemic.sif.sbpframework.common.utils.SyncWindowRegistry;
+import systemic.sif.sbpframework.common.utils.TargetSystemCheckCache;
+import systemic.sif.sbpframework.common.utils.ZoneRequestDispatcher;
+import systemic.sif.sbpframework.exception.InvalidKeyException;
+import systemic.sif.sbpframework.persist.common.UnitOfWork;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.model.SIFObject;
+import systemic.sif.sbpframework.persist.model.SIFObjectKey;
+import systemic.sif.sbpframework.persist.servcie.DOCGroupCommitter;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+import systemic.sif.sifcommon.mapping.MappingInfo;
+
+/**
+ * This class implements some of the functionality defined in the Australian SBP. This are all infrastructure level
+ * functions and include: Start-up Sync Control through a DB and a dependent Object cache. For details please refer to
+ * the SBP Agent Framework Developer's Guide.<p><p>
+ * 
+ * <b>Note:</b><p>
+ * Subscribers that are part of the SBP must extend this SBPBaseSubscriber. If your agent deals with other SIF objects 
+ * than the ones defined in the SBP then you should extends the SBPNoDOCSubscriber class for these objects and not this
+ * class. If you use this class for any other SIF objects than defined in the SBP the behaviour is unknown, most likely
+ * will cause your agent to crash.
+ * 
+ * @author Joerg Huber
+ *
+ */
+public abstract class SBPBaseSubscriber extends SyncSubscriber
+{
+	/* The Service for the Dependent Object Cache*/
+	private DOCService service = new DOCService();
+	
+	private static final int DEFAULT_RESOLVED_PAGE_SIZE = 500;
+	
+	/* Number of released objects removed from the DOC in one transaction. Bounds the objects delivered twice if a removal fails. */
+	private static final int RELEASE_CHUNK_SIZE = 20;
+	
+	/* Ensures that resolved objects are not selected for release by the periodic scan and the release queue at the same time. */
+	private final Object releaseLock = new Object();
+	
+	/* The keys (see DOCKeyLocks.getKey()) of the cached objects that are being released. Guarded by itself. */
+	private final Set<String> releasingKeys = new HashSet<String>();
+	
+	/* Collects the objects of query responses so that their DOC lookups are done for many objects at once. Null if disabled. */
+	private volatile MicroBatcher<ReceivedObject> resolveBatcher = null;
+	
+	/* The open sync windows of this subscriber by zone ID (see 'cache.sync.window.enabled'). */
+	private final Map<String, SyncWindow> syncWindows = new HashMap<String, SyncWindow>();
+	
+	/* Set to false once doObjectsExistInTargetSystem() has returned FALSE, i.e. is not implemented by the subscriber. */
+	private volatile boolean batchChecksSupported = true;
+	
+	/**
+	 * This method needs to be implemented by the actual subscriber developer. It shall check if the dependent
+	 * object given by the sifObjectName parameter and the key given by the keyValues does exist in the target 
+	 * system. If it exists then TRUE must be returned if it doesn't exist then FALSE must be returned.<p>
+	 * If the DOC is enabled and this method returns TRUE for the given sifObjectName and keyValues then the
+	 * SIF Object given by the sifObject parameter will be cached and its dependent objects will automatically be
+	 * requested by an appropriate subscriber (which can be a subscriber in another agent).<p><p>
+	 * 
+	 * The keyValues holds the primary key (name as xpath and value) of the dependent SIF Object. In most cases 
+	 * this is a SIF refId, but in some cases can be something else. The keyValues parameter is a list of key 
+	 * values in case the primary key is made up of a compound key. The list will be in the correct order as 
+	 * defined by the SIF specification.<p><p>
+	 * 
+	 * The parameter sifObjectName and keyValues are extracted from the sifObject. The sifObject is provided for
+	 * convenience. There might be the need to get other information out of the sifObject parameter to implement
+	 * this method successfully and therefore the availability of this parameter.<p><p>
+	 * 
+	 * Example of parameters: StudentSchoolEnrollment
+	 * <code>
+	 * <StudentSchoolEnrollment RefId="A8C3D3E34B359D75101D00AA001A1652">
+  	 *   <StudentPersonalRefId>D3E34B359D75101A8C3D00AA001A1652</StudentPersonalRefId>
+     *   <SchoolInfoRefId>A4E33E359D99101A8C3D00AA001BB76E</SchoolInfoRefId>
+     *   <MembershipType>01</MembershipType>
+	 *    .....
+	 * </StudentSchoolEnrollment>
+	 * </code>
+	 * <p><p>
+	 * For the above example object the 'sifObject' parameter would be StudentSchoolEnrollment object.
+	 * The 'doesObjectExistInTargetSystem()' method would be called twice for the above object by the 
+	 * SBPBaseSubscriber because there are 2 dependent objects: <p>
+	 * - The Student with RefId=D3E34B359D75101A8C3D00AA001A1652<p>
+	 * - The School with RefId=A4E33E359D99101A8C3D00AA001BB76E<p><p>
+	 * 
+	 * The sifObjectName and keyValues parameters for the two calls would be:<p>
+	 * 1st Call (Student): sifObjectName=StudentPersonal<p>
+	 *                     keyValues[0].xpathToKey=@RefId, keyValues[0].keyValue=D3E34B359D75101A8C3D00AA001A1652<p>
+	 * 2nd Call (School) : sifObjectName=SchoolInfo<p>
+	 *                     keyValues[0].xpathToKey=@RefId, keyValues[0].keyValue=A4E33E359D99101A8C3D00AA001BB76E<p><p>
+	 * 
+	 * If the subscriber implements doObjectsExistInTargetSystem() then this method is only called for the dependent
+	 * objects that have not been checked by that method.<p><p>
+	 * 
+	 * @param sifObjectName Name of the dependent SIF Object (i.e. StudentPersonal, SchoolInfo etc).
+	 * @param keyValues List of key values. Name of Key is an xpath into the dependent SIF Object, value is the 
+	 *                  actual value of key as extracted from the sifObject parameter.
+	 * @param sifObject The SIF Object as delivered from the ZIS. This is null for the dependent objects that are checked
+	 *                  when a sync window is closed (see 'cache.sync.window.enabled' property) as the window only
+	 *                  holds the keys of the dependent objects.
+	 * 
+	 * @return See description
+	 */
+	public abstract boolean doesObjectExistInTargetSystem(String sifObjectName, List<SIFObjectKey> keyValues, SIFDataObject sifObject);
+	
+	/**
+	 * This method can be overridden by the actual subscriber developer to check many dependent objects against the
+	 * target system at once rather than one by one with doesObjectExistInTargetSystem() (i.e. with one SQL query
+	 * using an IN condition per object type). It is called with all dependent objects of a received object or of a 
+	 * batch of received objects (see 'cache.resolve.batch.size' property) that are not known to the DOC, yet. Each 
+	 * dependent object is given once only.<p><p>
+	 * 
+	 * The checks are grouped by the name of the dependent SIF Object (i.e. StudentPersonal, SchoolInfo etc). Each 
+	 * DependencyCheck holds the same values as passed to doesObjectExistInTargetSystem(). The implementation must 
+	 * set the result of each check with DependencyCheck.setExists(). For checks without a result 
+	 * doesObjectExistInTargetSystem() is called.<p><p>
+	 * 
+	 * The default implementation returns FALSE. In this case doesObjectExistInTargetSystem() is called for each
+	 * check and this method is not called again.
+	 * 
+	 * @param checksByObjectName The dependent objects to check grouped by their SIF Object name.
+	 * 
+	 * @return TRUE if this method is implemented, FALSE if doesObjectExistInTargetSystem() shall be used instead.
+	 */
+	public boolean doObjectsExistInTargetSystem(Map<String, List<DependencyCheck>> checksByObjectName)
+	{
+		return false;
+	}
+	
+	/**
+	 * This method can be overridden by the actual subscriber developer to return the keys of all objects of this 
+	 * subscriber's type that exist in the target system for the given zone. It is called once per zone at startup if 
+	 * the delivered key index is enabled (see 'cache.delivered.index.enabled' property) and other SIF Objects can 
+	 * depend on this subscriber's type. Objects depending on the returned objects are then not checked against the 
+	 * DOC or the target system. Each element holds the key values of one object in the order defined by the SIF 
+	 * specification (the same order as the keyValues passed to doesObjectExistInTargetSystem()).<p><p>
+	 * 
+	 * The returned keys are not stored in the DOC, so this method should iterate over the target system rather than 
+	 * load all keys into memory at once. The default implementation returns null, i.e. no keys.
+	 * 
+	 * @param zone The zone for which the keys shall be returned.
+	 * 
+	 * @return An iterator over the key values of the objects in the target system. Can be null.
+	 */
+	public Iterator<String[]> getObjectKeysInTargetSystem(Zone zone)
+	{
+		return null;
+	}
+	
+	/**
+	 * This method is called if the processing of the object failed due to invalid key data. Key data is either the object's primary key or
+	 * the foreign keys of the referenced objects if they are marked as a dependency to be resolved in the Dependent Object Cache. Typical 
+	 * reasons for an invalid primary or foreign key are:<br/><br/>
+	 * 
+	 * - Key element/attribute (i.e. refId) missing<br/>
+	 * - Key element/attribute (i.e. refId) null or empty<br/><br/>
+	 * 
+	 * This method will be called as part of processEvent() or processResponse() method if the key conditions are not met when processing
+	 * a SIF Event or SIF Response. The offending object is passed to the 'sifObject' parameter of this method. If the failure is caused by
+	 * processing and event then the 'isEvent' parameter is set to TRUE and the 'eventAction' will hold ADD, CHANGE or DELETE to indicate the
+	 * event type. If the failure is cause by processing a response then the 'isEvent' parameter is set to FALSE and the 'eventAction' is null.
+	 * The cause of the failure is part of the'invalidKeyException' parameter. Since this parameter is an exception, the error message can
+	 * be retrieved with the standard invalidKeyException.getMessage() method. It is up to the implementation if something else should be
+	 * done with the exception.
+	 * 
+	 * @param sifObject The object that caused the error, i.e. has invalid primary or foreign keys.
+	 * @param zone The zone from which the object was received.
+	 * @param isEvent Set to TRUE if the error occurred during event processing. FALSE if the error occurred during response processing.
+	 * @param eventAction If the error occurred during event processing then this value will hold the event action such as ADD, CHANGE or DELETE.
+	 *                    If the error occurred during response processing then this value will set to null!
+	 * @param invalidKeyException Holds information about the invalid key(s).
+	 */
+    public abstract void onKeyError(SIFDataObject sifObject, Zone zone, boolean isEvent, EventAction eventAction, InvalidKeyException invalidKeyException);
+	
+	/**
+	 * Default constructor<p>
+	 * Initialises the subscriber and also checks if the object this subscriber is responsible for is supported by
+	 * the DOC. If not then a IllegalArgumentException is raised and the error is logged.
+	 * 
+	 * @param subscriberID The unique ID of the subscriber (ie. StudentPersonalSubscriber).
+	 * @param dtd The dtd for which this subscriber is responsible for.
+	 */
+	public SBPBaseSubscriber(String subscriberID, ElementDef dtd) throws IllegalArgumentException
+	{
+        super(subscriberID, dtd);
+        
+        // Check if the given SIF Object is supported by the DOC. IF not we must throw an exception
+        SIFObject obj = metadataCache.getObjectMetadata(getDtd().name());
+        if (obj == null) //not known to DOC
+        {
+            String errorMsg = getDtd().name()+" is not a SIF Object Type that is supported by this subscriber class. Use SBPNoDOCSubscriber class instead.";
+            logger.error("\n################################# ERROR ###################################\n"+errorMsg+"\n###########################################################################\n");
+            throw new IllegalArgumentException(errorMsg);
+        }
+        
+        // Objects without potential dependencies are never cached so there is nothing to look up in batches.
+        if (service.hasPotentialDependencies(getDtd().name()))
+        {
+        	DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+        	int batchSize = (cacheProperties == null) ? 1 : cacheProperties.getResolveBatchSize(100);
+        	if (batchSize > 1)
+        	{
+        		resolveBatcher = new MicroBatcher<ReceivedObject>(subscriberID, batchSize, cacheProperties.getResolveBatchLingerMillis(50), new MicroBatcher.BatchProcessor<ReceivedObject>()
+        		{
+        			public void process(List<ReceivedObject> batch)
+        			{
+        				processReceivedObjects(batch, null);
+        			}
+        		});
+        	}
+        }
+		
+        logger.debug(BANNER+getClass().getSimpleName()+" Subscriber created for object = '"+getDtd().name()+"'."+BANNER);
+	}
+	
+    /*---------------------------------------------------------*/
+    /*- Housekeeping Methods for the SBP Subscriber Behaviour -*/
+    /*---------------------------------------------------------*/
+
+	/**
+     * Sends a SIF Query for all dependent objects that are in the cache for this subscriber and application.
+     * This will iterate through all zones of this agent to ensure that all dependent objects that have been
+     * received from various zones are requested.<p>
+     * This method must only run if this subscriber is responsible for a SIF Object that has other SIF objects
+     * with a dependency on this object. For example the StudentPersonal is such an object because a number of 
+     * other SIF objects depend upon the StudentPersonal such as the StudentSchoolEnrollment, 
+     * StudentContactRelationship etc.<p>
+     * 
+     * Dependent objects that have been requested before but have not been received within the retry delay are 
+     * requested again along with the ones not requested, yet (see 'cache.request.retry.*' properties).<p>
+     * 
+     * Dependent objects of a zone are requested in batches of up to 'cache.request.batch.size' objects. All objects 
+     * of a batch are requested with one SIF Query (keys combined with OR) and are marked as requested together. If
+     * the number of objects to request in a zone reaches 'cache.request.bulk.threshold' then all objects of this 
+     * type are requested with the sync query of this subscriber instead (see makeSyncQuery()).<p>
+     * 
+     * If the request dispatcher is enabled the queries are handed to the dispatcher which sends them to the zone
+     * concurrently and rate limited. The objects are marked as requested once their query has been sent. Zones that
+     * are not connected or that still have requests of this subscriber pending are skipped until the next run.
+     */
+    public void requestDependentObjects()
+    {
+        if (metadataCache.isDependedUpon(getDtd().name()))
+        {
+            logger.debug(BANNER+getClass().getSimpleName()+" Subscriber attempts to request pending objects...: "+new Date()+BANNER);
+            try
+            {
+                int batchSize = getRequestBatchSize();
+                int bulkThreshold = getRequestBulkThreshold();
+                ZoneRequestDispatcher dispatcher = ZoneRequestDispatcher.getDispatcher();
+                for (Zone zone : getZones())
+                {
+                    if ((dispatcher != null) && !isReadyForRequests(dispatcher, zone))
+                    {
+                        continue;
+                    }
+                    List<DOCObject> objectToRequest = service.getNotYetRequestedObjects(getDtd().name(), getApplicationID(), zone.getZoneId());
+                    objectToRequest.addAll(service.getStaleRequestedObjects(getDtd().name(), getApplicationID(), zone.getZoneId()));
+                    if ((bulkThreshold > 0) && (objectToRequest.size() >= bulkThreshold))
+                    {
+                        requestAllObjects(dispatcher, zone, objectToRequest);
+                        continue;
+                    }
+                    for (int i=0; i<objectToRequest.size(); i=i+batchSize)
+                    {
+                        List<DOCObject> batch = objectToRequest.subList(i, Math.min(objectToRequest.size(), i+batchSize));
+                        
+                        // Use an inner try-block so that individually failed query requests don't stop others of being issued.
+                        try
+                        {
+                            List<List<SIFObjectKey>> keyList = new ArrayList<List<SIFObjectKey>>(batch.size());
+                            for (DOCObject docObj : batch)
+                            {
+                                keyList.add(docObj.getKeyForDependentObject());
+                            }
+                            Query query = SIFObjectUtils.makeQueryFromKeyList(getDtd(), getAgentConfig().getVersion(), keyList);
+                            if (!sendRequest(dispatcher, zone, query, batch))
+                            {
+                                break; // Zone went down or its queue is full. Remaining objects are requested next time.
+                            }
+                        }
+                        catch (Exception ex)
+                        {
+                            logger.error("Failed to issue query for "+batch.size()+" Cached Objects. First object of batch:\n"+batch.get(0), ex);
+                        }
+                    }
+                    if ((dispatcher != null) && logger.isDebugEnabled())
+                    {
+                        logger.debug("Request dispatcher statistics: "+dispatcher.getStatistics(zone.getZoneId()));
+                    }
+                }
+            }
+            catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
+            {
+                logger.error("Failed to retrive lis of not yet requested objects for subscriber: "+getDtd().name(), ex);            
+            }
+        }
+//      else
+//      {
+//          logger.debug(BANNER+getClass().getSimpleName()+" Subscriber is not required to request pending objects because no objects depend on this one: "+new Date()+BANNER);         
+//      }
+    }
+    
+    /**
+     * Should be called every so often. This method will check if there are cached objects that have no 
+     * dependencies any more. If so the object can be processed by this subscriber and then removed from 
+     * the cache. This process is only required for objects that have dependencies such as StaffAssignment.
+     * For objects without dependencies such as StudentPersonal there is no need to run this method.<p>
+     * 
+     * If the resolved object queue is enabled then most objects are released by processResolvedObjects() as soon as
+     * their last dependency is removed. This method then only acts as a safety net for objects that were not queued.
+     */
+    public void processObjectsWithoutDependencies()
+    {
+        closeExpiredSyncWindows();
+        if (metadataCache.hasDependencies(getDtd().name()))
+        {
+            logger.debug(BANNER+getClass().getSimpleName()+" Subscriber attempts to process objects with no remaining dependencies...: "+new Date()+BANNER);
+            
+            // Objects are loaded, pushed to the processing queues and removed from the DOC one page at a time so
+            // that no more than one page of objects (including their XML) is held in memory.
+            ResolvedObjectQueue releaseQueue = ResolvedObjectQueue.getQueue();
+            int pageSize = getResolvedPageSize();
+            Long afterId = null;
+            boolean morePages = true;
+            while (morePages)
+            {
+                List<DOCache> cachedObjectList = null;
+                try
+                {
+                    cachedObjectList = service.getObjectsWithoutDependencies(getDtd().name(), getApplicationID(), getAgentID(), afterId, pageSize);
+                }
+                catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
+                {
+                    logger.error("Failed to retrive list of Cached Objects without any dependencies for subscriber: "+getDtd().name(), ex);         
+                    cachedObjectList = null;
+                }
+                if ((cachedObjectList == null) || cachedObjectList.isEmpty())
+                {
+                    break;
+                }
+                
+                List<DOCache> markedObjects = null;
+                synchronized (releaseLock)
+                {
+                    if (releaseQueue != null)
+                    {
+                        for (DOCache cachedObject : cachedObjectList)
+                        {
+                            releaseQueue.discard(cachedObject);
+                        }
+                    }
+                    markedObjects = markForRelease(cachedObjectList);
+                }
+                morePages = releaseCachedObjects(markedObjects);
+                
+                afterId = cachedObjectList.get(cachedObjectList.size()-1).getId();
+                morePages = morePages && (cachedObjectList.size() >= pageSize) && (afterId != null);
+            }
+        }
+//      else
+//      {
+//          logger.debug(BANNER+getClass().getSimpleName()+" Subscriber does not need to process objects with no remaining dependencies because this Object does not have dependencies: "+new Date()+BANNER);
+//      }
+    }
+
+    /**
+     * This method processes the cached objects of this subscriber that have been put on the resolved object queue
+     * because their last dependency has been removed. It is triggered by the queue as soon as objects are added, so 
+     * that resolved objects don't have to wait for the next run of processObjectsWithoutDependencies(). If the queue
+     * is not enabled then no action is taken.
+     */
+    public void processResolvedObjects()
+    {
+        ResolvedObjectQueue releaseQueue = ResolvedObjectQueue.getQueue();
+        if (releaseQueue == null)
+        {
+            return;
+        }
+        // Only the keys are queued. The objects are loaded one page at a time so that no more than one page of
+        // objects (including their XML) is held in memory.
+        int pageSize = getResolvedPageSize();
+        for (Map.Entry<String, List<String>> zoneKeys : releaseQueue.drain(getDtd().name(), getApplicationID(), getAgentID()).entrySet())
+        {
+            List<String> flatKeys = zoneKeys.getValue();
+            for (int i=0; i<flatKeys.size(); i=i+pageSize)
+            {
+                List<String> keyPage = flatKeys.subList(i, Math.min(flatKeys.size(), i+pageSize));
+                List<DOCache> markedObjects = null;
+                synchronized (releaseLock)
+                {
+                    List<DOCache> cachedObjectList = new ArrayList<DOCache>();
+                    try
+                    {
+                        // The periodic scan may have released an object after it was resolved but before it was 
+                        // queued. Such objects are no longer in the DOC.
+                        Map<String, DOCache> cachedObjects = service.retrieveCachedObjects(getDtd().name(), keyPage, getApplicationID(), zoneKeys.getKey());
+                        for (String flatKey : keyPage)
+                        {
+                            DOCache cachedObject = cachedObjects.get(flatKey);
+                            if (cachedObject != null)
+                            {
+                                cachedObjectList.add(cachedObject);
+                            }
+                        }
+                    }
+                    catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
+                    {
+                        logger.error("Failed to load "+keyPage.size()+" resolved Cached Objects "+getDtd().name()+" for zone "+zoneKeys.getKey()+". They are left to the periodic processing of objects without dependencies.", ex);
+                        continue;
+                    }
+                    markedObjects = markForRelease(cachedObjectList);
+                }
+                releaseCachedObjects(markedObjects);
+            }
+        }
+    }
+
+    /**
+     * Processes the objects of query responses that are still collected for batch processing and stops collecting
+     * objects. Objects received after this call are processed one by one as they are received. This method is called
+     * by the SBPSubscriberAgent when it is stopped.
+     */
+    public void shutdownResolveBatcher()
+    {
+    	MicroBatcher<ReceivedObject> batcher = resolveBatcher;
+    	if (batcher != null)
+    	{
+    		resolveBatcher = null;
+    		batcher.shutdown();
+    	}
+    }
+
+    /**
+     * Adds the keys of all objects of this subscriber's type that exist in the target system to the DeliveredKeyIndex
+     * (see getObjectKeysInTargetSystem()). Nothing is done if the index is disabled or if no other object type can
+     * depend on this subscriber's type. Keys with the wrong number of values are skipped. This method is called by the
+     * SBPSubscriberAgent at startup.
+     * 
+     * @return The number of keys added.
+     */
+    public int loadObjectKeysInTargetSystem()
+    {
+    	DeliveredKeyIndex index = DeliveredKeyIndex.getIndex();
+    	String sifObjectName = getDtd().name();
+    	SIFObjectKeyPlan keyPlan = metadataCache.getKeyPlan(sifObjectName);
+    	if ((index == null) || (keyPlan == null) || !metadataCache.isDependedUpon(sifObjectName))
+    	{
+    		return 0;
+    	}
+    	
+    	int numKeys = 0;
+    	for (Zone zone : getZones())
+    	{
+    		int skipped = 0;
+    		try
+    		{
+    			Iterator<String[]> keys = getObjectKeysInTargetSystem(zone);
+    			while ((keys != null) && keys.hasNext())
+    			{
+    				String[] keyValues = keys.next();
+    				if ((keyValues == null) || (keyValues.length != keyPlan.getKeyAccessors().length))
+    				{
+    					skipped++;
+    					continue;
+    				}
+    				index.addExisting(sifObjectName, keyPlan.flattenKey(keyValues), zone.getZoneId());
+    				numKeys++;
+    			}
+    		}
+    		catch (Exception ex)
+    		{
+    			logger.error("Failed to load the keys of the "+sifObjectName+" objects in the target system for zone '"+zone.getZoneId()+"'. The keys loaded so far are used.", ex);
+    		}
+    		if (skipped > 0)
+    		{
+    			logger.warn(skipped+" keys of "+sifObjectName+" objects in the target system for zone '"+zone.getZoneId()+"' don't have "+keyPlan.getKeyAccessors().length+" key values and are skipped.");
+    		}
+    	}
+    	return numKeys;
+    }
+
+    /**
+     * Closes all open sync windows of this subscriber. The dependent objects recorded by the windows are checked
+     * against the target system (see closeSyncWindow()). This method is called by the SBPSubscriberAgent when it is
+     * stopped.
+     */
+    public void closeSyncWindows()
+    {
+    	List<String> zoneIds = null;
+    	synchronized (syncWindows)
+    	{
+    		zoneIds = new ArrayList<String>(syncWindows.keySet());
+    	}
+    	for (String zoneId : zoneIds)
+    	{
+    		closeSyncWindow(zoneId);
+    	}
+    }
+
+    /*
+     * Override the default. If the sync window is enabled for this subscriber (see 'cache.sync.window.enabled') then
+     * the new dependencies of the objects of the sync response are not checked against the target system one by one.
+     * Only their keys are recorded until the response has been consumed. They are then checked in one pass (see
+     * closeSyncWindow()).
+     * @see systemic.sif.sbpframework.subscriber.SyncSubscriber#syncStarted(openadk.library.Zone)
+     */
+    @Override
+    protected void syncStarted(Zone zone)
+    {
+    	DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+    	SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+    	if ((cacheProperties == null) || (registry == null) || !service.hasPotentialDependencies(getDtd().name()) || !cacheProperties.getSyncWindowEnabled(getDtd().name()))
+    	{
+    		return;
+    	}
+    	
+    	// A window still open from a previous sync of the zone is closed first.
+    	closeSyncWindow(zone.getZoneId());
+    	SyncWindow window = new SyncWindow(cacheProperties.getSyncWindowMaxObjects(100000), cacheProperties.getSyncWindowMaxMinutes(30));
+    	synchronized (syncWindows)
+    	{
+    		syncWindows.put(zone.getZoneId(), window);
+    	}
+    	registry.openWindow(zone.getZoneId());
+    	logger.info(BANNER+getClass().getSimpleName()+" opened sync window for zone = '"+zone.getZoneId()+"'."+BANNER);
+    }
+
+    /*
+     * Override the default. The objects of the sync response that are still collected for batch processing are 
+     * processed and the sync window is closed straight away, so that they are known to the DOC before the objects 
+     * that depend on them are synced.
+     * @see systemic.sif.sbpframework.subscriber.SyncSubscriber#syncResponseConsumed(openadk.library.Zone)
+     */
+    @Override
+    protected void syncResponseConsumed(Zone zone)
+    {
+    	MicroBatcher<ReceivedObject> batcher = resolveBatcher;
+    	if (batcher != null)
+    	{
+    		batcher.flush();
+    	}
+    	closeSyncWindow(zone.getZoneId());
+    }
+
+    /*--------------------------------------------------------------------------------*/
+	/*- Overridden Methods of the SIFCommon Framework to implement the SBP Behaviour -*/
+	/*--------------------------------------------------------------------------------*/
+
+	/*
+	 * Override the preProcessEvent. This allows to check if objects needs caching and if so then the event 
+	 * does not need to be processed further at this stage.
+	 * 
+	 * @see systemic.sif.sifcommon.subscriber.BaseSubscriber#preProcessEvent(Event event, Zone zone, MappingInfo mappingInfo)
+	 */
+	@Override
+	protected boolean preProcessEvent(final SIFDataObject sifObject, final EventAction eventAction, final Zone zone, final MappingInfo mappingInfo)
+    {
+		MessageCheck check = new MessageCheck()
+		{
+			public boolean run()
+			{
+				return checkEvent(sifObject, eventAction, zone);
+			}
+		};
+		Runnable push = new Runnable()
+		{
+			public void run()
+			{
+				pushSIFEventToProcessQueue(sifObject, zone, mappingInfo, eventAction);
+			}
+		};
+		return checkAndHandOn(sifObject, zone, check, push);
+    }
+    
+	/*
+	 * Override the preProcessQueryResults. This allows to check if objects needs caching and if so then the 
+	 * object  does not need to be processed further at this stage.
+	 * If the batch processing is enabled (see 'cache.resolve.batch.size') the object is collected with other received
+	 * objects and false is returned. The object is then pushed to the processing queue with its batch if it is not 
+	 * cached (see processReceivedObjects()).
+	 * If a sync window is open for the zone the new dependencies of the object are not checked against the target
+	 * system. The object is cached with them and they are checked when the window is closed (see syncStarted()).
+	 * 
+	 * @see systemic.sif.sifcommon.subscriber.BaseSubscriber#preProcessQueryResults(openadk.library.SIFDataObject, openadk.library.Zone, systemic.sif.sifcommon.mapping.MappingInfo)
+	 */
+	 
+	@Override
+	protected boolean preProcessQueryResults(final SIFDataObject sifObject, final Zone zone, final MappingInfo mappingInfo)
+	{
+		final SyncWindow window = (sifObject == null) ? null : getSyncWindow(zone.getZoneId());
+		MicroBatcher<ReceivedObject> batcher = resolveBatcher;
+		if ((batcher != null) && (sifObject != null) && batcher.add(new ReceivedObject(sifObject, zone, mappingInfo, window)))
+		{
+			return false;
+		}
+		
+		MessageCheck check = new MessageCheck()
+		{
+			public boolean run()
+			{
+				return checkQueryResult(sifObject, zone, window);
+			}
+		};
+		Runnable push = new Runnable()
+		{
+			public void run()
+			{
+				pushSIFObjectToProcessQueue(sifObject, zone, mappingInfo);
+			}
+		};
+		return checkAndHandOn(sifObject, zone, check, push);
+	}
+
+	/*--------------------------------------------------*/
+	/*- Private Methods to implement the SBP Behaviour -*/
+	/*--------------------------------------------------*/
+	
+	/*
+	 * Performs the checks of preProcessEvent(). Returns TRUE if the event shall be processed by the subscriber.
+	 */
+	private boolean checkEvent(SIFDataObject sifObject, EventAction eventAction, Zone zone)
+	{
+	    try
+	    {
+	    	// A deleted object must be checked against the target system again.
+	    	if (EventAction.DELETE.equals(eventAction))
+	    	{
+	    		forgetTargetSystemCheck(sifObject, zone);
+	    	}
+	    	
+    		//Check if object required caching.
+    		boolean cached = cacheEventIfRequired(sifObject, eventAction, zone);
+    		
+    		// If it was cached then we do not want to do any more processing.
+    		if (cached)
+    		{
+    			logger.debug(eventAction.name()+" Event for Object "+sifObject.getElementDef().name()+" was cached or has already been cached. No futher action performed.");
+    			return false;
+    		}
+    		
+    		// If we get here then the event was not cached or did not require caching. It still might be that there
+    		// are other objects in the cache that had a dependency on the object of this event. Remove these
+    		// dependencies. Only do this if it is not a DELETE event.
+        	if (!EventAction.DELETE.name().equals(service.hasPotentialDependencies(eventAction.name())))
+        	{
+    			logger.debug("Check and remove dependency for "+eventAction.name()+" Event on Object "+sifObject.getElementDef().name()+".");
+        		removeDependencies(sifObject, zone, eventAction);
+        	}
+    		
+    		// Tell the BaseSubscriber to perform the standard processing with this event (i.e. send it to appropriate
+    		// queue.
+    		return true;
+	    }
+	    catch (InvalidKeyException ex)
+	    {
+	        onKeyError(sifObject, zone, true, eventAction, ex);
+	        return false;
+	    }
+    }
+	
+	/*
+	 * Performs the checks of preProcessQueryResults(). Returns TRUE if the object shall be processed by the subscriber.
+	 * The window is the sync window of the zone or null if none is open.
+	 */
+	private boolean checkQueryResult(SIFDataObject sifObject, Zone zone, SyncWindow window)
+	{
+        try
+        {
+    		//Check if object required caching.
+    		boolean cached = cacheObjectIfRequired(sifObject, zone, window);
+    		
+    		// If it was cached then we do not want to do any more processing.
+    		if (cached)
+    		{
+    			logger.debug("Object "+sifObject.getElementDef().name()+" was cached or has already been cached. No futher action performed.");
+    			return false;
+    		}
+    		
+    		// If we get here then the object was not cached or did not require caching. It still might be that there
+    		// are other objects in the cache that had a dependency on this object. Remove these dependencies.
+    		logger.debug("Check and remove dependency on Object "+sifObject.getElementDef().name()+".");
+    		removeDependencies(sifObject, zone, null);
+    		
+    		// Tell the BaseSubscriber to perform the standard processing with this object (i.e. send it to appropriate queue.
+        	return true;		
+        }
+        catch (InvalidKeyException ex)
+        {
+            onKeyError(sifObject, zone, false, null, ex);
+            return false;
+        }
+	}
+	
+	/*
+	 * Runs the given check of a received object or event with the key locks (see checkWithKeyLocks()). If the resolved
+	 * object queue is enabled then the objects resolved by the check are only released once the received object has
+	 * been pushed to the processing queue, so that they are never processed before the object they depend on. In this
+	 * case the object is pushed here with the given push and FALSE is returned, so that the BaseSubscriber doesn't
+	 * push it again. Otherwise the result of the check is returned.
+	 */
+	private boolean checkAndHandOn(SIFDataObject sifObject, Zone zone, MessageCheck check, Runnable push)
+	{
+		ResolvedObjectQueue releaseQueue = ResolvedObjectQueue.getQueue();
+		if ((releaseQueue == null) || !releaseQueue.holdObjects())
+		{
+			return checkWithKeyLocks(sifObject, zone, check);
+		}
+		try
+		{
+			if (checkWithKeyLocks(sifObject, zone, check))
+			{
+				push.run();
+			}
+			return false;
+		}
+		finally
+		{
+			releaseQueue.releaseHeldObjects();
+		}
+	}
+	
+	/*
+	 * Runs the given check of a received object or event (see checkInUnitOfWork()) while holding the key locks of the
+	 * object and its dependencies (see DOCKeyLocks), so that no other thread makes a DOC decision for any of these
+	 * objects at the same time. The locks are held until the DOC changes of the check are committed.
+	 */
+	private boolean checkWithKeyLocks(SIFDataObject sifObject, Zone zone, MessageCheck check)
+	{
+		DOCKeyLocks keyLocks = DOCKeyLocks.getLocks();
+		if ((keyLocks == null) || (sifObject == null))
+		{
+			return checkInUnitOfWork(check, check);
+		}
+		
+		List<String> keys = getLockKeys(sifObject, zone.getZoneId());
+		ReentrantLock[] lockedStripes = lockKeys(keyLocks, keys, keys.isEmpty() ? keys : keys.subList(0, 1));
+		try
+		{
+			return checkInUnitOfWork(check, check);
+		}
+		finally
+		{
+			keyLocks.unlock(lockedStripes);
+		}
+	}
+	
+	/*
+	 * Locks the given keys (see DOCKeyLocks). If one of the given object keys belongs to an object that is being released
+	 * by this subscriber (see releaseCachedObjects()) then the locks are given up until that release is done, so that a
+	 * newer message for the object is only checked once the released object is pushed and removed from the DOC.
+	 */
+	private ReentrantLock[] lockKeys(DOCKeyLocks keyLocks, List<String> keys, Collection<String> objectKeys)
+	{
+		while (true)
+		{
+			ReentrantLock[] lockedStripes = keyLocks.lock(keys);
+			synchronized (releasingKeys)
+			{
+				if (Collections.disjoint(releasingKeys, objectKeys))
+				{
+					return lockedStripes;
+				}
+				keyLocks.unlock(lockedStripes);
+				try
+				{
+					releasingKeys.wait();
+				}
+				catch (InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+					logger.warn("Interrupted while waiting for the release of a cached "+getDtd().name()+" object. The message is checked without waiting.");
+					return keyLocks.lock(keys);
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Returns the keys of the given object and of its dependencies as used by the DOCKeyLocks. If the object has an 
+	 * invalid key then only the keys extracted so far are returned. The key error is reported by the check itself.
+	 */
+	private List<String> getLockKeys(SIFDataObject sifObject, String zoneId)
+	{
+		List<String> keys = new ArrayList<String>();
+		String sifObjectName = sifObject.getElementDef().name();
+		try
+		{
+			keys.add(DOCKeyLocks.getKey(sifObjectName, service.extractFlatKey(sifObject), zoneId));
+			if (service.hasPotentialDependencies(sifObjectName))
+			{
+				for (DOCObject docObject : service.extractDependentObjectsFromSIFObject(sifObject))
+				{
+					keys.add(DOCKeyLocks.getKey(docObject.getSifObjectName(), docObject.getObjectKeyValue(), zoneId));
+				}
+			}
+		}
+		catch (Exception ex) // should only be InvalidKeyException
+		{
+			logger.debug("Not all keys of the "+sifObjectName+" object can be locked: "+ex.getMessage());
+		}
+		return keys;
+	}
+	
+	/*
+	 * Runs the given check of a received object or event. If enabled (see 'cache.unit.of.work.enabled') all DOC lookups
+	 * and changes of the check share one transaction that is committed once the check is done. If that commit fails 
+	 * or a DOC call of the check has already rolled back the unit of work (all further DOC calls of the check then fail)
+	 * then all changes of the check are rolled back and the retry check is run without a unit of work, the same as if
+	 * the unit of work was disabled. Returns the result of the check.
+	 */
+	private boolean checkInUnitOfWork(MessageCheck check, MessageCheck retry)
+	{
+		DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+		// With group commit the changes are committed by the group committer and not within the unit of work.
+		if ((cacheProperties == null) || !cacheProperties.getUnitOfWorkEnabled() || (DOCGroupCommitter.getCommitter() != null) || !UnitOfWork.begin())
+		{
+			return check.run();
+		}
+		
+		boolean result = false;
+		boolean completed = false;
+		boolean committed = true;
+		try
+		{
+			result = check.run();
+			completed = true;
+		}
+		finally
+		{
+			committed = UnitOfWork.end(completed);
+		}
+		if (!committed)
+		{
+			logger.warn("Failed to commit the DOC changes for an object of type "+getDtd().name()+". The object is checked again without a unit of work.");
+			result = retry.run();
+		}
+		return result;
+	}
+    
+    /*
+     * Needs to be called for responses. Check if object has dependencies, if so call abstract method
+     * doesObjectExistInTargetSystem() for each dependent object and if there are still remaining dependencies
+     * the object needs to be cached with the remaining dependencies.
+     * If the object has been cached then true is returned otherwise false is returned. False indicates that
+     * there was no need to cache the object because is has no outstanding dependencies.
+     * If the window is not null then the new dependencies are recorded in the sync window rather than checked.
+     * 
+     * @throws InvalidKeyException Object has invalid primary or foreign key to cause an issue in the DOCache. Error already logged.
+     * @throws PersistenceException DOCache cannot be accessed successfully. Error already logged.
+
+     */
+    private boolean cacheObjectIfRequired(SIFDataObject sifObject, Zone zone, SyncWindow window) throws PersistenceException, InvalidKeyException
+    {
+    	boolean cached = false;
+    	if (sifObject == null)
+    	{
+    		return false;
+    	}
+    	
+    	if (service.hasPotentialDependencies(sifObject.getElementDef().name()))
+    	{
+    		// Next we test if the object is already in the cache. If so we don't need to cache at all.
+    		String flatKey = service.extractFlatKey(sifObject);
+    		DOCache cachedObject = service.retrieveCachedObject(sifObject.getElementDef().name(), flatKey, getApplicationID(), zone.getZoneId(), false);
+    		if (cachedObject == null) // not in cache, yet.
+    		{  		
+	    		List<DOCObject> remainingDependencies = getRemainingDependencies(sifObject, zone.getZoneId(), window);
+	    		if (remainingDependencies != null) // we have dependencies => cache object
+	    		{
+	    			cached = cacheObject(sifObject, flatKey, false, null, remainingDependencies, zone);
+	    		}
+    		}
+    		else // already in cache => mark it as cached.
+    		{
+    			cached = true;
+    		}
+    	}
+    	return cached;
+    }
+    
+    /*
+     * This method does the same as preProcessQueryResults() for each of the given objects but looks up the DOC for all 
+     * objects at once: One lookup for the objects that are already cached and one lookup for the dependencies that are 
+     * already known to the DOC. The objects that need to be cached are then cached together in one transaction and all
+     * other objects are pushed to the processing queue in the order received. If the batch lookup fails then each 
+     * object is processed on its own. The results of doesObjectExistInTargetSystem() are kept in the given 
+     * targetChecks for further batches if it is not null.
+     * The batch lookups and the caching of the batch are not part of a unit of work (see checkInUnitOfWork()). They 
+     * are shared by all objects of the batch. Only the removal of the dependencies on each object that is handed on
+     * is run in a unit of work of its own. Objects processed on their own use a unit of work as usual.
+     */
+    private void processReceivedObjects(List<ReceivedObject> receivedObjects, Map<String, Boolean> targetChecks)
+    {
+    	// Objects of different zones are looked up separately as the DOC entries are per zone.
+    	Map<String, List<ReceivedObject>> objectsByZone = new HashMap<String, List<ReceivedObject>>();
+    	for (ReceivedObject receivedObject : receivedObjects)
+    	{
+    		List<ReceivedObject> zoneObjects = objectsByZone.get(receivedObject.zone.getZoneId());
+    		if (zoneObjects == null)
+    		{
+    			zoneObjects = new ArrayList<ReceivedObject>();
+    			objectsByZone.put(receivedObject.zone.getZoneId(), zoneObjects);
+    		}
+    		zoneObjects.add(receivedObject);
+    	}
+    	
+    	for (Map.Entry<String, List<ReceivedObject>> entry : objectsByZone.entrySet())
+    	{
+    		// The DOC decisions for the objects of the zone are made while holding the key locks of the objects and
+    		// their dependencies. The objects are pushed to the processing queue once the locks are released. The 
+    		// cached objects resolved by them are only released after that (see checkAndHandOn()).
+    		ResolvedObjectQueue releaseQueue = ResolvedObjectQueue.getQueue();
+    		boolean holding = (releaseQueue != null) && releaseQueue.holdObjects();
+    		try
+    		{
+    			resolveZoneObjects(entry.getValue(), entry.getKey(), targetChecks);
+    		}
+    		finally
+    		{
+    			if (holding)
+    			{
+    				releaseQueue.releaseHeldObjects();
+    			}
+    		}
+    	}
+    }
+    
+    /*
+     * Does the work of processReceivedObjects() for the given objects of the given zone.
+     */
+    private void resolveZoneObjects(List<ReceivedObject> zoneObjects, String zoneId, Map<String, Boolean> targetChecks)
+    {
+    	List<ReceivedObject> objectsToPush = new ArrayList<ReceivedObject>();
+    	boolean resolved = false;
+    	DOCKeyLocks keyLocks = DOCKeyLocks.getLocks();
+    	ReentrantLock[] lockedStripes = null;
+    	if (keyLocks != null)
+    	{
+    		List<String> keys = new ArrayList<String>();
+    		List<String> objectKeys = new ArrayList<String>(zoneObjects.size());
+    		for (ReceivedObject receivedObject : zoneObjects)
+    		{
+    			List<String> objectLockKeys = getLockKeys(receivedObject.sifObject, zoneId);
+    			if (!objectLockKeys.isEmpty())
+    			{
+    				objectKeys.add(objectLockKeys.get(0));
+    			}
+    			keys.addAll(objectLockKeys);
+    		}
+    		lockedStripes = lockKeys(keyLocks, keys, objectKeys);
+    	}
+    	try
+    	{
+    		resolved = resolveReceivedObjects(zoneObjects, zoneId, objectsToPush, targetChecks);
+    	}
+    	finally
+    	{
+    		if (keyLocks != null)
+    		{
+    			keyLocks.unlock(lockedStripes);
+    		}
+    	}
+    	
+    	if (resolved)
+    	{
+    		for (ReceivedObject receivedObject : objectsToPush)
+    		{
+    			pushSIFObjectToProcessQueue(receivedObject.sifObject, receivedObject.zone, receivedObject.mappingInfo);
+    		}
+    	}
+    	else // batch lookup failed => process object by object.
+    	{
+    		for (ReceivedObject receivedObject : zoneObjects)
+    		{
+    			if (!receivedObject.keyError) // already reported
+    			{
+    				processReceivedObject(receivedObject);
+    			}
+    		}
+    	}
+    }
+    
+    /*
+     * Looks up the DOC for the given objects of the given zone and caches the ones with remaining dependencies. The 
+     * dependencies on all other objects are removed and these objects are added to the objectsToPush in the order
+     * received. Returns FALSE if the batch lookup failed. In this case nothing has been cached or removed.
+     */
+    private boolean resolveReceivedObjects(List<ReceivedObject> receivedObjects, String zoneId, List<ReceivedObject> objectsToPush, Map<String, Boolean> targetChecks)
+    {
+    	List<ReceivedObject> zoneObjects = lookupReceivedObjects(receivedObjects, zoneId);
+    	if (zoneObjects == null)
+    	{
+    		return false;
+    	}
+    	
+    	// The dependencies of all objects that are not known to the DOC are checked against the target system at once.
+    	if (targetChecks == null)
+    	{
+    		targetChecks = new HashMap<String, Boolean>();
+    	}
+    	Map<String, DependencyCheck> checks = new LinkedHashMap<String, DependencyCheck>();
+    	for (ReceivedObject receivedObject : zoneObjects)
+    	{
+    		if (!receivedObject.cached && (receivedObject.dependencies != null) && (receivedObject.window == null))
+    		{
+    			for (DOCObject obj : receivedObject.dependencies)
+    			{
+    				addDependencyCheck(checks, obj, receivedObject.sifObject, zoneId, targetChecks);
+    			}
+    		}
+    	}
+    	runDependencyChecks(checks, zoneId, targetChecks);
+    	
+    	// Objects that need to be cached are collected and cached together at the end of the batch so that their
+    	// inserts are sent to the DOC in JDBC batches.
+    	List<ReceivedObject> objectsToCache = new ArrayList<ReceivedObject>();
+    	Set<String> flatKeysToCache = new HashSet<String>();
+    	for (ReceivedObject receivedObject : zoneObjects)
+    	{
+    		// An object that is received twice within the batch is only cached once.
+    		if (receivedObject.cached || flatKeysToCache.contains(receivedObject.flatKey))
+    		{
+    			logger.debug("Object "+getDtd().name()+" was cached or has already been cached. No futher action performed.");
+    			continue;
+    		}
+    		
+    		List<DOCObject> remainingDependencies = getRemainingDependencies(receivedObject.sifObject, receivedObject.dependencies, zoneId, targetChecks, receivedObject.window);
+    		if (remainingDependencies != null) // we have dependencies => cache object
+    		{
+    			receivedObject.cachedObject = createCachedObject(receivedObject.sifObject, receivedObject.flatKey, false, null, remainingDependencies);
+    			objectsToCache.add(receivedObject);
+    			flatKeysToCache.add(receivedObject.flatKey);
+    		}
+    		else
+    		{
+    			handOnReceivedObject(receivedObject, objectsToPush);
+    		}
+    	}
+    	cacheReceivedObjects(objectsToCache, zoneId, objectsToPush);
+    	return true;
+    }
+    
+    /*
+     * Looks up the DOC for all the given objects of the given zone. The flat key, the cached state and the dependencies 
+     * merged with the DOC are set for each object. Objects with an invalid key are reported with onKeyError() and are
+     * not part of the returned list. If the lookup fails then null is returned.
+     */
+    private List<ReceivedObject> lookupReceivedObjects(List<ReceivedObject> zoneObjects, String zoneId)
+    {
+    	try
+    	{
+    		List<ReceivedObject> validObjects = new ArrayList<ReceivedObject>(zoneObjects.size());
+    		List<String> flatKeys = new ArrayList<String>(zoneObjects.size());
+    		for (ReceivedObject receivedObject : zoneObjects)
+    		{
+    			try
+    			{
+    				receivedObject.flatKey = service.extractFlatKey(receivedObject.sifObject);
+    				validObjects.add(receivedObject);
+    				flatKeys.add(receivedObject.flatKey);
+    			}
+    	        catch (InvalidKeyException ex)
+    	        {
+    	        	receivedObject.keyError = true;
+    	            onKeyError(receivedObject.sifObject, receivedObject.zone, false, null, ex);
+    	        }
+    		}
+    		
+    		Map<String, DOCache> cachedObjects = service.retrieveCachedObjects(getDtd().name(), flatKeys, getApplicationID(), zoneId);
+    		List<ReceivedObject> resultObjects = new ArrayList<ReceivedObject>(validObjects.size());
+    		List<DOCObject> allDependencies = new ArrayList<DOCObject>();
+    		for (ReceivedObject receivedObject : validObjects)
+    		{
+    			receivedObject.cached = cachedObjects.containsKey(receivedObject.flatKey);
+    			if (!receivedObject.cached)
+    			{
+    				try
+    				{
+    					receivedObject.dependencies = removeDeliveredDependencies(service.extractDependentObjectsFromSIFObject(receivedObject.sifObject), zoneId);
+    					if (receivedObject.dependencies != null)
+    					{
+    						allDependencies.addAll(receivedObject.dependencies);
+    					}
+    				}
+        	        catch (InvalidKeyException ex)
+        	        {
+        	        	receivedObject.keyError = true;
+        	            onKeyError(receivedObject.sifObject, receivedObject.zone, false, null, ex);
+        	            continue;
+        	        }
+    			}
+    			resultObjects.add(receivedObject);
+    		}
+    		
+    		// Merge the dependencies of all objects at once and then assign the merged dependencies back to their objects.
+    		service.mergeWithCachedDependencies(allDependencies, getApplicationID(), zoneId);
+    		int index = 0;
+    		for (ReceivedObject receivedObject : resultObjects)
+    		{
+    			if (receivedObject.dependencies != null)
+    			{
+    				for (int i=0; i<receivedObject.dependencies.size(); i++)
+    				{
+    					receivedObject.dependencies.set(i, allDependencies.get(index++));
+    				}
+    			}
+    		}
+    		return resultObjects;
+    	}
+    	catch (Exception ex) // should only be IllegalArgumentException, PersistenceException
+    	{
+    		logger.error("Failed to look up the DOC for a batch of "+zoneObjects.size()+" "+getDtd().name()+" objects of zone '"+zoneId+"'. Objects are processed one by one.", ex);
+    		for (ReceivedObject receivedObject : zoneObjects)
+    		{
+    			receivedObject.flatKey = null;
+    			receivedObject.cached = false;
+    			receivedObject.dependencies = null;
+    		}
+    		return null;
+    	}
+    }
+    
+    /*
+     * Caches the given objects of the given zone with one DOC transaction. If this fails then each object is cached on
+     * its own. An object that can't be cached is handed on to the subscriber, the same as in preProcessQueryResults().
+     */
+    private void cacheReceivedObjects(List<ReceivedObject> objectsToCache, String zoneId, List<ReceivedObject> objectsToPush)
+    {
+    	if (objectsToCache.isEmpty())
+    	{
+    		return;
+    	}
+    	
+    	List<DOCache> cachedObjects = new ArrayList<DOCache>(objectsToCache.size());
+    	for (ReceivedObject receivedObject : objectsToCache)
+    	{
+    		cachedObjects.add(receivedObject.cachedObject);
+    	}
+    	try
+    	{
+    		service.cacheObjects(cachedObjects, getAgentID(), getApplicationID(), zoneId);
+    		return;
+    	}
+    	catch (Exception ex) // should only be IllegalArgumentException, PersistenceException
+    	{
+    		logger.error("Failed to cache a batch of "+cachedObjects.size()+" "+getDtd().name()+" objects of zone '"+zoneId+"'. Objects are cached one by one.", ex);
+    	}
+    	
+    	for (ReceivedObject receivedObject : objectsToCache)
+    	{
+    		if (!cacheObject(receivedObject.cachedObject, receivedObject.zone))
+    		{
+    			handOnReceivedObject(receivedObject, objectsToPush);
+    		}
+    	}
+    }
+    
+    /*
+     * Removes the dependencies on the given object that has not been cached and adds it to the objects to push to the
+     * processing queue.
+     */
+    private void handOnReceivedObject(final ReceivedObject receivedObject, List<ReceivedObject> objectsToPush)
+    {
+		logger.debug("Check and remove dependency on Object "+getDtd().name()+".");
+		MessageCheck check = new MessageCheck()
+		{
+			public boolean run()
+			{
+				removeDependencies(receivedObject.sifObject, receivedObject.zone, null);
+				return true;
+			}
+		};
+		checkInUnitOfWork(check, check);
+		objectsToPush.add(receivedObject);
+    }
+    
+    /*
+     * Processes one object of a batch for which the batch lookup failed exactly as preProcessQueryResults() does.
+     */
+    private void processReceivedObject(final ReceivedObject receivedObject)
+    {
+		MessageCheck check = new MessageCheck()
+		{
+			public boolean run()
+			{
+				return checkQueryResult(receivedObject.sifObject, receivedObject.zone, receivedObject.window);
+			}
+		};
+		
+		boolean process = false;
+		try
+		{
+			process = checkWithKeyLocks(receivedObject.sifObject, receivedObject.zone, check);
+		}
+    	catch (Exception ex) // should only be PersistenceException
+    	{
+    		logger.error("Failed to process the object:\n"+receivedObject.sifObject.toXML(), ex);
+    	}
+    	
+    	// Pushing blocks while the processing queue is full. This must not happen within the unit of work.
+    	if (process)
+    	{
+    		pushSIFObjectToProcessQueue(receivedObject.sifObject, receivedObject.zone, receivedObject.mappingInfo);
+    	}
+    }
+    
+    /*
+     * Needs to be called for events. Check if event object has dependencies, if so call abstract method
+     * doesObjectExistInTargetSystem() for each dependent object and if there are still remaining dependencies
+     * the event needs to be cached with the remaining dependencies.
+     * If the object within the event has been cached then true is returned otherwise false is returned. 
+     * False indicates that there was no need to cache the object because is has no outstanding dependencies.
+     * 
+     * NOTE: Only ADD and UPDATE events need to be dealt with that way. DELETE events don't require any of this.
+     *       If the event type is DELETE then false is returned as no caching is required for delete events.
+     * 
+     * @throws InvalidKeyException Object has invalid primary or foreign key to cause an issue in the DOCache. Error already logged.
+     * @throws PersistenceException DOCache cannot be accessed successfully. Error already logged.
+     */
+    private boolean cacheEventIfRequired(SIFDataObject sifObject, EventAction eventAction, Zone zone) throws PersistenceException, InvalidKeyException
+    {
+    	boolean cached = false;
+    	if (sifObject == null)
+    	{
+    		return false;
+    	}
+    	if (!EventAction.DELETE.name().equals(service.hasPotentialDependencies(eventAction.name())))
+    	{
+        	if (service.hasPotentialDependencies(sifObject.getElementDef().name()))
+        	{
+        		// Next we test if the object is already in the cache. If so we don't need to cache at all.
+        		String flatKey = service.extractFlatKey(sifObject);
+        		DOCache cachedObject = service.retrieveCachedObject(sifObject.getElementDef().name(), flatKey, getApplicationID(), zone.getZoneId(), false);
+        		if (cachedObject == null) // not in cache, yet.
+        		{  		
+    	    		List<DOCObject> remainingDependencies = getRemainingDependencies(sifObject, zone.getZoneId(), null);
+    	    		if (remainingDependencies != null) // we have dependencies => cache object
+    	    		{
+    	    			cached = cacheObject(sifObject, flatKey, true, eventAction, remainingDependencies, zone);
+    	    		}
+        		}
+        		else // already in cache => mark it as cached.
+        		{
+        			cached = true;
+        		}
+        	}    		
+    	}
+    	return cached;
+    }
+    
+    /*
+     * This method checks if the given object, that has been received by a given subscriber and zone is an
+     * object for which we have other objects in the cache that depend on this one. If so these dependencies
+     * will be removed and this object will be processed as normal. The object is added to the DeliveredKeyIndex
+     * unless it is a DELETE event. In this case it is removed from the index. The eventAction is null for responses.
+     */
+    private void removeDependencies(SIFDataObject sifObject, Zone zone, EventAction eventAction)
+    {
+    	// If no other object type can depend on this object then there is nothing to remove.
+    	if (!metadataCache.isDependedUpon(sifObject.getElementDef().name()))
+    	{
+    		return;
+    	}
+    	try
+    	{
+    		String sifObjectName = sifObject.getElementDef().name();
+    		String flatKey = service.extractFlatKey(sifObject);
+    		service.checkAndRemoveDependency(sifObjectName, flatKey, getApplicationID(), zone.getZoneId());
+    		
+    		// Objects received within a sync window may depend on this object (see closeSyncWindow()).
+    		SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+    		if ((registry != null) && registry.isRecording(zone.getZoneId()))
+    		{
+    			registry.recordProcessedKey(sifObjectName, flatKey, zone.getZoneId());
+    		}
+    		
+    		// If the object has been remembered as missing in the target system then this is no longer true.
+    		TargetSystemCheckCache checkCache = TargetSystemCheckCache.getCache();
+    		if (checkCache != null)
+    		{
+    			checkCache.removeMissing(sifObjectName, flatKey, zone.getZoneId());
+    		}
+    		
+    		updateDeliveredKeyIndex(sifObjectName, flatKey, zone.getZoneId(), eventAction);
+    	}
+    	catch (Exception ex) //  should only be IllegalArgumentException, PersistenceException
+    	{
+			logger.error("Failed to check or remove dependencies for the object:\n"+sifObject.toXML(), ex);    		
+    	}
+    }
+    
+    /*
+     * Removes the given object from the remembered checks against the target system (see TargetSystemCheckCache) and
+     * from the DeliveredKeyIndex.
+     */
+    private void forgetTargetSystemCheck(SIFDataObject sifObject, Zone zone) throws InvalidKeyException
+    {
+    	String sifObjectName = sifObject.getElementDef().name();
+    	TargetSystemCheckCache checkCache = TargetSystemCheckCache.getCache();
+    	DeliveredKeyIndex index = DeliveredKeyIndex.getIndex();
+    	if (((checkCache != null) || (index != null)) && metadataCache.isDependedUpon(sifObjectName))
+    	{
+    		String flatKey = service.extractFlatKey(sifObject);
+    		if (checkCache != null)
+    		{
+    			checkCache.remove(sifObjectName, flatKey, zone.getZoneId());
+    		}
+    		if (index != null)
+    		{
+    			index.remove(sifObjectName, flatKey, zone.getZoneId());
+    		}
+    	}
+    }
+    
+    /*
+     * Adds the given object that is handed on for processing to the DeliveredKeyIndex or removes it from the index if 
+     * it is a DELETE event. The eventAction is null for responses.
+     */
+    private void updateDeliveredKeyIndex(String sifObjectName, String flatKey, String zoneId, EventAction eventAction)
+    {
+    	DeliveredKeyIndex index = DeliveredKeyIndex.getIndex();
+    	if (index != null)
+    	{
+    		if (EventAction.DELETE.equals(eventAction))
+    		{
+    			index.remove(sifObjectName, flatKey, zoneId);
+    		}
+    		else
+    		{
+    			index.add(sifObjectName, flatKey, zoneId);
+    		}
+    	}
+    }
+    
+    /*
+     * Marks the given cached objects as being released and returns them. Objects that are already being released by
+     * another thread are not returned. The marks are set while holding the key locks of the objects, so that a message
+     * for the same object is either checked before the release or waits until the release is done (see lockKeys()).
+     * The locks are only held while marking. Must be called while holding the releaseLock.
+     */
+    private List<DOCache> markForRelease(List<DOCache> cachedObjectList)
+    {
+        List<String> keys = getReleaseKeys(cachedObjectList);
+        List<DOCache> markedObjects = new ArrayList<DOCache>(cachedObjectList.size());
+        DOCKeyLocks keyLocks = DOCKeyLocks.getLocks();
+        ReentrantLock[] lockedStripes = (keyLocks == null) ? null : keyLocks.lock(keys);
+        try
+        {
+            synchronized (releasingKeys)
+            {
+                for (int i=0; i<cachedObjectList.size(); i++)
+                {
+                    if (releasingKeys.add(keys.get(i)))
+                    {
+                        markedObjects.add(cachedObjectList.get(i));
+                    }
+                }
+            }
+        }
+        finally
+        {
+            if (keyLocks != null)
+            {
+                keyLocks.unlock(lockedStripes);
+            }
+        }
+        return markedObjects;
+    }
+    
+    /*
+     * Returns the keys of the given cached objects as used by the DOCKeyLocks and the releasingKeys.
+     */
+    private List<String> getReleaseKeys(List<DOCache> cachedObjectList)
+    {
+        List<String> keys = new ArrayList<String>(cachedObjectList.size());
+        for (DOCache cachedObject : cachedObjectList)
+        {
+            keys.add(DOCKeyLocks.getKey(cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getZoneId()));
+        }
+        return keys;
+    }
+    
+    /*
+     * This method pushes the given cached objects that have no remaining dependencies and have been marked for release
+     * (see markForRelease()) to the appropriate processing queues and removes them from the DOC in chunks of 
+     * RELEASE_CHUNK_SIZE objects, each chunk as soon as it is pushed. If a removal fails then no further objects are 
+     * pushed, so that at most one chunk is delivered again by the next release. Pushing blocks while the processing
+     * queue is full, so the release of objects can't get ahead of their processing. Objects that can't be parsed are
+     * left in the DOC. No key locks are held while pushing; the release marks of all given objects are cleared once
+     * this method is done.
+     * Returns FALSE if the objects could not be removed from the DOC.
+     */
+    private boolean releaseCachedObjects(List<DOCache> markedObjects)
+    {
+        try
+        {
+            return pushAndRemoveCachedObjects(markedObjects);
+        }
+        finally
+        {
+            List<String> keys = getReleaseKeys(markedObjects);
+            synchronized (releasingKeys)
+            {
+                releasingKeys.removeAll(keys);
+                releasingKeys.notifyAll();
+            }
+        }
+    }
+    
+    /*
+     * Does the work of releaseCachedObjects().
+     */
+    private boolean pushAndRemoveCachedObjects(List<DOCache> cachedObjectList)
+    {
+        SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+        TargetSystemCheckCache checkCache = TargetSystemCheckCache.getCache();
+        List<DOCache> releasedObjects = new ArrayList<DOCache>(RELEASE_CHUNK_SIZE);
+        for (DOCache cachedObject : cachedObjectList)
+        {
+            SIFDataObject sifObject =  SIFObjectUtils.getSIFObjectFromXML(cachedObject.getObjectXML());
+            if (sifObject != null)
+            {
+                if (cachedObject.getIsEvent()) // Event Object
+                {
+                    pushSIFEventToProcessQueue(sifObject, getZoneByID(cachedObject.getZoneId()), null, EventAction.valueOf(cachedObject.getEventType()));
+                }
+                else // Response Object
+                {
+                    pushSIFObjectToProcessQueue(sifObject, getZoneByID(cachedObject.getZoneId()), null);
+                }
+                releasedObjects.add(cachedObject);
+                if (registry != null)
+                {
+                    registry.recordProcessedKey(cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getZoneId());
+                }
+                if (checkCache != null)
+                {
+                    checkCache.removeMissing(cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getZoneId());
+                }
+                if (metadataCache.isDependedUpon(cachedObject.getSifObjectName()))
+                {
+                    updateDeliveredKeyIndex(cachedObject.getSifObjectName(), cachedObject.getObjectKeyValue(), cachedObject.getZoneId(), cachedObject.getIsEvent() ? EventAction.valueOf(cachedObject.getEventType()) : null);
+                }
+            }
+            else
+            {
+                logger.error("Failed to push the cached object to the processing queues. See previous error log entry for details. Cached object with issue:\n"+cachedObject);
+            }
+            if ((releasedObjects.size() >= RELEASE_CHUNK_SIZE) && !removeReleasedObjects(releasedObjects))
+            {
+                return false;
+            }
+        }
+        return removeReleasedObjects(releasedObjects);
+    }
+    
+    /*
+     * Removes the released objects from the DOC and clears the list. Returns FALSE if the objects could not be removed.
+     */
+    private boolean removeReleasedObjects(List<DOCache> releasedObjects)
+    {
+        try
+        {
+            service.removeCachedObjects(releasedObjects);
+            releasedObjects.clear();
+            return true;
+        }
+        catch (Exception ex) //  should only be PersistenceException
+        {
+            logger.error("Failed to remove "+releasedObjects.size()+" processed Cached Objects from the DOC for subscriber: "+getDtd().name(), ex);
+            return false;
+        }
+    }
+    
+    /*
+     * Requests all objects of this subscriber's type from the given zone with the sync query and marks the given
+     * dependent objects as requested as they are all covered by that query.
+     */
+    private void requestAllObjects(ZoneRequestDispatcher dispatcher, Zone zone, List<DOCObject> objectToRequest)
+    {
+        logger.info(BANNER+getClass().getSimpleName()+" Subscriber requests all objects in zone = '"+zone.getZoneId()+"' because "+objectToRequest.size()+" objects are pending to be requested."+BANNER);
+        try
+        {
+            sendRequest(dispatcher, zone, makeSyncQuery(zone), objectToRequest);
+        }
+        catch (Exception ex)
+        {
+            logger.error("Failed to issue query for all objects of type "+getDtd().name()+" in zone = '"+zone.getZoneId()+"'.", ex);
+        }
+    }
+    
+    /*
+     * Sends the query for the given dependent objects to the zone and marks the objects as requested once it has been
+     * sent. Without a dispatcher this is done straight away. With a dispatcher the query is queued and the objects are
+     * marked by the dispatcher thread after sending. Returns FALSE if the dispatcher didn't accept the query. In this
+     * case the objects are not marked as requested.
+     */
+    private boolean sendRequest(ZoneRequestDispatcher dispatcher, final Zone zone, Query query, List<DOCObject> objectToRequest) throws Exception
+    {
+        if (dispatcher == null)
+        {
+            zone.query(query);// Send the query to the Zone.
+            
+            // Now we need to update the docObjects to indicate that query has been issued.
+            service.markDependentObjectsAsRequested(objectToRequest, getAgentID(), zone.getZoneId());
+            return true;
+        }
+        
+        // Copy the list as it may be a view of a list that is reused before the dispatcher gets to it.
+        final List<DOCObject> requestedObjects = new ArrayList<DOCObject>(objectToRequest);
+        return dispatcher.submit(zone, getDtd().name(), query, new Runnable()
+        {
+            public void run()
+            {
+                service.markDependentObjectsAsRequested(requestedObjects, getAgentID(), zone.getZoneId());
+            }
+        });
+    }
+    
+    /*
+     * Returns TRUE if new requests of this subscriber can be given to the dispatcher for the given zone. This is not 
+     * the case if the zone is not connected or if requests from the previous run are still pending as the objects of
+     * these are not yet marked as requested and would be requested twice.
+     */
+    private boolean isReadyForRequests(ZoneRequestDispatcher dispatcher, Zone zone)
+    {
+        if (!zone.isConnected())
+        {
+            logger.debug("Zone '"+zone.getZoneId()+"' is not connected. Dependent objects of type "+getDtd().name()+" are requested once it is connected again.");
+            return false;
+        }
+        int pending = dispatcher.getPendingRequests(zone.getZoneId(), getDtd().name());
+        if (pending > 0)
+        {
+            logger.debug(pending+" requests for dependent objects of type "+getDtd().name()+" are still pending for zone '"+zone.getZoneId()+"'. Wait for next run.");
+            return false;
+        }
+        return true;
+    }
+    
+    /*
+     * Returns the number of pending dependent objects in a zone from which on all objects are requested with one
+     * query. 0 means never. Read each time so that a reload of the properties takes effect.
+     */
+    private int getRequestBulkThreshold()
+    {
+        DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+        return (cacheProperties == null) ? 0 : cacheProperties.getRequestBulkThreshold(getDtd().name(), 0);
+    }
+    
+    /*
+     * Returns the maximum number of dependent objects requested with one query. Read each time so that a reload of
+     * the properties takes effect.
+     */
+    private int getRequestBatchSize()
+    {
+        DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+        return (cacheProperties == null) ? 1 : Math.max(1, cacheProperties.getRequestBatchSize(getDtd().name(), 1));
+    }
+    
+    /*
+     * Returns the number of cached objects released in one page. Read each time so that a reload of the properties
+     * takes effect.
+     */
+    private int getResolvedPageSize()
+    {
+        DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+        return (cacheProperties == null) ? DEFAULT_RESOLVED_PAGE_SIZE : cacheProperties.getResolvedPageSize(DEFAULT_RESOLVED_PAGE_SIZE);
+    }
+    
+    /*
+     * This method gets all dependencies for the given sifObject from the object itself, drops the ones that are in the
+     * DeliveredKeyIndex and then looks up the DOCache and marks the already known dependencies in the cache. For all new dependencies the abstract method
+     * doesObjectExistInTargetSystem() of this class is called to determine if the dependent objects are unknown
+     * in the target system. All dependencies that are returned with TRUE from the abstract method are then 
+     * removed from the dependency list as they don't need to be requested. The final dependency list is then 
+     * returned. If there are no remaining dependencies then null is returned. If the window is not null then the new
+     * dependencies are recorded in the sync window rather than checked against the target system and remain.
+     * 
+     * @throws InvalidKeyException Object has invalid primary or foreign key to cause an issue in the DOCache. Error already logged.
+     * @throws PersistenceException DOCache cannot be accessed successfully. Error already logged.
+     */
+    private List<DOCObject> getRemainingDependencies(SIFDataObject sifObject, String zoneId, SyncWindow window) throws PersistenceException, InvalidKeyException
+    {
+    	List<DOCObject> dependencies = removeDeliveredDependencies(service.extractDependentObjectsFromSIFObject(sifObject), zoneId);
+    	service.mergeWithCachedDependencies(dependencies, getApplicationID(), zoneId);
+    	return getRemainingDependencies(sifObject, dependencies, zoneId, null, window);
+    }
+    
+    /*
+     * Removes the dependent objects that are in the DeliveredKeyIndex from the given list as they are known to the 
+     * target system and don't need to be looked up in the DOC or checked against the target system. Returns the given
+     * list which may be empty afterwards.
+     */
+    private List<DOCObject> removeDeliveredDependencies(List<DOCObject> dependencies, String zoneId)
+    {
+    	DeliveredKeyIndex index = DeliveredKeyIndex.getIndex();
+    	if ((index != null) && (dependencies != null))
+    	{
+    		for (Iterator<DOCObject> i=dependencies.iterator(); i.hasNext();)
+    		{
+    			DOCObject obj = i.next();
+    			if (index.contains(obj.getSifObjectName(), obj.getObjectKeyValue(), zoneId))
+    			{
+    				i.remove();
+    			}
+    		}
+    	}
+    	return dependencies;
+    }
+    
+    /*
+     * As above but for dependencies that have already been extracted from the sifObject and merged with the DOC. If
+     * targetChecks is not null then doesObjectExistInTargetSystem() is called only once for each dependent object in
+     * it (see existsInTargetSystem()).
+     */
+    private List<DOCObject> getRemainingDependencies(SIFDataObject sifObject, List<DOCObject> dependencies, String zoneId, Map<String, Boolean> targetChecks, SyncWindow window)
+    {
+    	if (dependencies != null)
+    	{
+    		// Within a sync window the new dependencies are only recorded. They are checked when the window is closed. 
+    		// Dependencies handed on while the window is open are resolved below as usual. If the window has been
+    		// closed or is full in the meantime then the dependencies are checked now.
+    		List<DOCObject> deferredDependencies = new ArrayList<DOCObject>();
+    		if (window != null)
+    		{
+        		SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+	    		for (Iterator<DOCObject> i=dependencies.iterator(); i.hasNext();)
+	    		{
+	    			DOCObject obj = i.next();
+	    			if (!obj.isKnownToCache() && ((registry == null) || !registry.isProcessed(obj.getSifObjectName(), obj.getObjectKeyValue(), zoneId)) && window.addDependency(obj))
+	    			{
+	    				i.remove();
+	    				deferredDependencies.add(obj);
+	    			}
+	    		}
+    		}
+    		
+    		// All new dependencies are checked against the target system at once.
+    		if (targetChecks == null)
+    		{
+    			targetChecks = new HashMap<String, Boolean>();
+    		}
+    		Map<String, DependencyCheck> checks = new LinkedHashMap<String, DependencyCheck>();
+    		for (DOCObject obj : dependencies)
+    		{
+    			addDependencyCheck(checks, obj, sifObject, zoneId, targetChecks);
+    		}
+    		runDependencyChecks(checks, zoneId, targetChecks);
+    		
+    		for (Iterator<DOCObject> i=dependencies.iterator(); i.hasNext();)
+    		{
+    			DOCObject obj = i.next();
+    			
+    			// Check if object is an already known dependency in the cache. If so there is no need to check
+    			// in the target as it would have been checked before and therefore made it to the cache.
+    			if (!obj.isKnownToCache())
+    			{
+    				//check in target. If it does exist we can remove it from the dependency list.
+    				if (existsInTargetSystem(obj, sifObject, zoneId, targetChecks))
+    				{
+    					i.remove();
+    				}
+    			}
+    		}
+    		dependencies.addAll(deferredDependencies);
+    		if (dependencies.size() == 0) // no remaining dependencies
+    		{
+    			dependencies = null;
+    		}
+    	}
+    	
+    	return dependencies;
+    }
+    
+    /*
+     * Adds the given dependent object to the checks against the target system unless it is known to the DOC, has been
+     * handed on for processing while a sync window is open in the zone or has already been checked (see 
+     * targetChecks and TargetSystemCheckCache). Each dependent object is only added once.
+     */
+    private void addDependencyCheck(Map<String, DependencyCheck> checks, DOCObject obj, SIFDataObject sifObject, String zoneId, Map<String, Boolean> targetChecks)
+    {
+    	if (obj.isKnownToCache())
+    	{
+    		return;
+    	}
+    	String key = obj.getSifObjectName()+"|"+obj.getObjectKeyValue();
+    	if (targetChecks.containsKey(key) || checks.containsKey(key))
+    	{
+    		return;
+    	}
+    	SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+    	if ((registry != null) && registry.isProcessed(obj.getSifObjectName(), obj.getObjectKeyValue(), zoneId))
+    	{
+    		return;
+    	}
+    	TargetSystemCheckCache checkCache = TargetSystemCheckCache.getCache();
+    	Boolean exists = (checkCache != null) ? checkCache.get(obj.getSifObjectName(), obj.getObjectKeyValue(), zoneId) : null;
+    	if (exists != null) // checked recently
+    	{
+    		targetChecks.put(key, exists);
+    		return;
+    	}
+    	checks.put(key, new DependencyCheck(obj.getSifObjectName(), obj.getObjectKeyValue(), obj.getKeyForDependentObject(), sifObject));
+    }
+    
+    /*
+     * Checks the given dependent objects against the target system with doObjectsExistInTargetSystem() and adds the
+     * results to the targetChecks and the TargetSystemCheckCache. Objects without a result are checked with 
+     * doesObjectExistInTargetSystem(). If the batch check is not implemented by this subscriber then all objects are 
+     * checked with doesObjectExistInTargetSystem().
+     */
+    private void runDependencyChecks(Map<String, DependencyCheck> checks, String zoneId, Map<String, Boolean> targetChecks)
+    {
+    	if (checks.isEmpty())
+    	{
+    		return;
+    	}
+    	
+    	if (batchChecksSupported)
+    	{
+    		Map<String, List<DependencyCheck>> checksByObjectName = new HashMap<String, List<DependencyCheck>>();
+    		for (DependencyCheck check : checks.values())
+    		{
+    			List<DependencyCheck> objectChecks = checksByObjectName.get(check.getSifObjectName());
+    			if (objectChecks == null)
+    			{
+    				objectChecks = new ArrayList<DependencyCheck>();
+    				checksByObjectName.put(check.getSifObjectName(), objectChecks);
+    			}
+    			objectChecks.add(check);
+    		}
+    		try
+    		{
+    			batchChecksSupported = doObjectsExistInTargetSystem(checksByObjectName);
+    		}
+    		catch (RuntimeException ex)
+    		{
+    			logger.error("Failed to check "+checks.size()+" dependent objects of "+getDtd().name()+" in the target system at once. Objects are checked one by one.", ex);
+    		}
+    	}
+    	
+    	TargetSystemCheckCache checkCache = TargetSystemCheckCache.getCache();
+    	for (Map.Entry<String, DependencyCheck> entry : checks.entrySet())
+    	{
+    		DependencyCheck check = entry.getValue();
+    		Boolean exists = check.getExists();
+    		if (exists == null)
+    		{
+    			exists = doesObjectExistInTargetSystem(check.getSifObjectName(), check.getKeyValues(), check.getSifObject());
+    		}
+    		targetChecks.put(entry.getKey(), exists);
+    		if (checkCache != null)
+    		{
+    			checkCache.put(check.getSifObjectName(), check.getFlatKey(), zoneId, exists);
+    		}
+    	}
+    }
+    
+    /*
+     * Returns TRUE if the given dependent object has been handed on for processing while a sync window is open in the
+     * zone (see SyncWindowRegistry) or if doesObjectExistInTargetSystem() returns TRUE for it. The result of 
+     * doesObjectExistInTargetSystem() is taken from and added to the given targetChecks if it is not null.
+     */
+    private boolean existsInTargetSystem(DOCObject obj, SIFDataObject sifObject, String zoneId, Map<String, Boolean> targetChecks)
+    {
+    	SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+    	if ((registry != null) && registry.isProcessed(obj.getSifObjectName(), obj.getObjectKeyValue(), zoneId))
+    	{
+    		return true;
+    	}
+    	if (targetChecks == null)
+    	{
+    		return doesObjectExistInTargetSystem(obj.getSifObjectName(), obj.getKeyForDependentObject(), sifObject);
+    	}
+    	
+    	String key = obj.getSifObjectName()+"|"+obj.getObjectKeyValue();
+    	Boolean exists = targetChecks.get(key);
+    	if (exists == null)
+    	{
+    		exists = doesObjectExistInTargetSystem(obj.getSifObjectName(), obj.getKeyForDependentObject(), sifObject);
+    		targetChecks.put(key, exists);
+    	}
+    	return exists;
+    }
+    
+    /*
+     * Returns the open sync window of the given zone or null if no window is open. If the window is full or has reached
+     * its maximum time it is closed and null is returned.
+     */
+    private SyncWindow getSyncWindow(String zoneId)
+    {
+    	synchronized (syncWindows)
+    	{
+    		SyncWindow window = syncWindows.get(zoneId);
+    		if ((window == null) || (!window.isFull() && !window.isExpired()))
+    		{
+    			return window;
+    		}
+    	}
+    	logger.info(BANNER+getClass().getSimpleName()+" sync window for zone = '"+zoneId+"' reached its maximum size or time. It is closed now."+BANNER);
+    	closeSyncWindow(zoneId);
+    	return null;
+    }
+    
+    /*
+     * Closes the sync windows of this subscriber that have reached their maximum time. This is required if the end of
+     * the sync response is not known (i.e. the initial sync is not ordered).
+     */
+    private void closeExpiredSyncWindows()
+    {
+    	List<String> zoneIds = new ArrayList<String>();
+    	synchronized (syncWindows)
+    	{
+    		for (Map.Entry<String, SyncWindow> entry : syncWindows.entrySet())
+    		{
+    			if (entry.getValue().isExpired())
+    			{
+    				zoneIds.add(entry.getKey());
+    			}
+    		}
+    	}
+    	for (String zoneId : zoneIds)
+    	{
+    		closeSyncWindow(zoneId);
+    	}
+    }
+    
+    /*
+     * Closes the sync window of the given zone if one is open. The dependent objects recorded by the window that have
+     * not been handed on in the meantime are checked against the target system in one pass. The ones that exist in
+     * the target system are removed from the DOC, so that the cached objects waiting on them are released.
+     * doesObjectExistInTargetSystem() is only called once for each distinct dependent object of the window and without
+     * the SIF Object that depends on it.
+     */
+    private void closeSyncWindow(String zoneId)
+    {
+    	SyncWindow window = null;
+    	synchronized (syncWindows)
+    	{
+    		window = syncWindows.remove(zoneId);
+    	}
+    	if (window == null)
+    	{
+    		return;
+    	}
+    	
+    	Collection<DOCObject> dependencies = window.close();
+    	Map<String, Boolean> targetChecks = new HashMap<String, Boolean>();
+    	int numRemoved = 0;
+    	try
+    	{
+    		Map<String, DependencyCheck> checks = new LinkedHashMap<String, DependencyCheck>();
+    		for (DOCObject obj : dependencies)
+    		{
+    			addDependencyCheck(checks, obj, null, zoneId, targetChecks);
+    		}
+    		runDependencyChecks(checks, zoneId, targetChecks);
+    		
+    		DOCKeyLocks keyLocks = DOCKeyLocks.getLocks();
+    		for (DOCObject obj : dependencies)
+    		{
+    			if (!Boolean.TRUE.equals(targetChecks.get(obj.getSifObjectName()+"|"+obj.getObjectKeyValue())))
+    			{
+    				continue;
+    			}
+    			ReentrantLock[] lockedStripes = (keyLocks == null) ? null : keyLocks.lock(Collections.singletonList(DOCKeyLocks.getKey(obj.getSifObjectName(), obj.getObjectKeyValue(), zoneId)));
+    			try
+    			{
+    				service.checkAndRemoveDependency(obj.getSifObjectName(), obj.getObjectKeyValue(), getApplicationID(), zoneId);
+    				numRemoved++;
+    			}
+    			finally
+    			{
+    				if (keyLocks != null)
+    				{
+    					keyLocks.unlock(lockedStripes);
+    				}
+    			}
+    		}
+    	}
+    	catch (Exception ex)
+    	{
+    		logger.error("Failed to check the dependent objects of the sync window of subscriber "+getDtd().name()+" for zone = '"+zoneId+"'. They are requested as usual.", ex);
+    	}
+    	finally
+    	{
+    		SyncWindowRegistry registry = SyncWindowRegistry.getRegistry();
+    		if (registry != null)
+    		{
+    			registry.closeWindow(zoneId);
+    		}
+    	}
+    	logger.info(BANNER+getClass().getSimpleName()+" closed sync window for zone = '"+zoneId+"': "+dependencies.size()+" dependent objects recorded, "+targetChecks.size()+" checked in the target system, "+numRemoved+" found and removed from the DOC."+BANNER);
+    }
+
+    /*
+     * This method stores the actual SIF Object with its dependencies in the cache.
+     */
+	private boolean cacheObject(SIFDataObject sifObject, String flatKey, boolean isEvent, EventAction eventAction, List<DOCObject> dependencies, Zone zone)
+	{
+		return cacheObject(createCachedObject(sifObject, flatKey, isEvent, eventAction, dependencies), zone);
+	}
+
+	/*
+	 * Creates the DOC entry for the given SIF Object and its dependencies.
+	 */
+	private DOCache createCachedObject(SIFDataObject sifObject, String flatKey, boolean isEvent, EventAction eventAction, List<DOCObject> dependencies)
+	{
+		DOCache cachedObject = new DOCache();
+		cachedObject.setSifObjectName(sifObject.getElementDef().name());
+		cachedObject.setIsEvent(isEvent);
+		if (eventAction != null)
+		{
+			cachedObject.setEventType(eventAction.name());
+		}
+		cachedObject.setObjectKeyValue(flatKey);
+		cachedObject.setObjectXML(sifObject.toXML());
+		cachedObject.setDependentObjectsAsList(dependencies);
+		return cachedObject;
+	}
+
+	private boolean cacheObject(DOCache cachedObject, Zone zone)
+	{
+		boolean success = true;
+		try
+		{
+			service.cacheObject(cachedObject, getAgentID(), getApplicationID(), zone.getZoneId());
+		}
+		catch (Exception ex)
+		{
+			logger.error("Faled to cache SIF Object.\n:"+cachedObject, ex);
+			success = false;
+		}
+		return success;
+	}
+
+
+	/*
+	 * A check of a received object or event that can be run within a unit of work (see checkInUnitOfWork()).
+	 */
+	private interface MessageCheck
+	{
+		public boolean run();
+	}
+	
+	/*
+	 * The new dependent objects of the objects of a sync response that are recorded while the sync of a zone is running
+	 * (see syncStarted()). Only the keys of the dependent objects are held, each one once. All methods are synchronized
+	 * as the window is used by the threads that check the received objects.
+	 */
+	private static class SyncWindow
+	{
+		private final Map<String, DOCObject> dependencies = new LinkedHashMap<String, DOCObject>();
+		private final int maxDependencies;
+		private final long closeAt;
+		private boolean closed = false;
+		
+		private SyncWindow(int maxDependencies, int maxMinutes)
+		{
+			this.maxDependencies = maxDependencies;
+			this.closeAt = System.currentTimeMillis() + (maxMinutes * 60000L);
+		}
+		
+		/*
+		 * Records the key of the given dependent object. Returns FALSE if the window is closed or full, so that the
+		 * dependent object must be checked straight away.
+		 */
+		private synchronized boolean addDependency(DOCObject obj)
+		{
+			String key = obj.getSifObjectName()+"|"+obj.getObjectKeyValue();
+			if (dependencies.containsKey(key))
+			{
+				return true;
+			}
+			if (closed || (dependencies.size() >= maxDependencies))
+			{
+				return false;
+			}
+			DOCObject dependency = new DOCObject();
+			dependency.setSifObjectName(obj.getSifObjectName());
+			dependency.setObjectKeyValue(obj.getObjectKeyValue());
+			dependency.setKeyForDependentObject(obj.getKeyForDependentObject());
+			dependencies.put(key, dependency);
+			return true;
+		}
+		
+		/*
+		 * Closes the window and returns the recorded dependent objects.
+		 */
+		private synchronized Collection<DOCObject> close()
+		{
+			closed = true;
+			return new ArrayList<DOCObject>(dependencies.values());
+		}
+		
+		private synchronized boolean isFull()
+		{
+			return dependencies.size() >= maxDependencies;
+		}
+		
+		private boolean isExpired()
+		{
+			return System.currentTimeMillis() >= closeAt;
+		}
+	}
+	
+	/*
+	 * An object of a query response collected for batch processing and the results of its DOC lookup.
+	 */
+	private static class ReceivedObject
+	{
+		private final SIFDataObject sifObject;
+		private final Zone zone;
+		private final MappingInfo mappingInfo;
+		private String flatKey = null;
+		private boolean cached = false;
+		private List<DOCObject> dependencies = null;
+		private boolean keyError = false;
+		private DOCache cachedObject = null;
+		private final SyncWindow window;
+		
+		private ReceivedObject(SIFDataObject sifObject, Zone zone, MappingInfo mappingInfo, SyncWindow window)
+		{
+			this.sifObject = sifObject;
+			this.zone = zone;
+			this.mappingInfo = mappingInfo;
+			this.window = window;
+		}
+	}
+}
@@ -0,0 +1,373 @@
+/*
+ * TestSyncCoordinator.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.common;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import openadk.library.Zone;
+import systemic.sif.sbpframework.common.utils.SIFObjectMetadataCache;
+import systemic.sif.sbpframework.common.utils.SyncCoordinator;
+import systemic.sif.sbpframework.persist.common.HibernateUtil;
+import systemic.sif.sbpframework.persist.model.DependentObjectInfo;
+import systemic.sif.sbpframework.persist.model.SIFObject;
+
+/**
+ * Tests the order in which the SyncCoordinator runs the syncs of dependent object types. The dependencies are taken
+ * from the SIF Object metadata. The syncs don't send real queries, they only record when they start and finish.<p>
+ * - Order: The syncs of five object types in two zones are submitted in reverse dependency order before the
+ *   coordinator is started. None runs before start(). Each sync only starts once the syncs of all synced object types
+ *   it depends upon, directly or indirectly, have finished in the same zone. A second submit of a waiting sync is
+ *   ignored.<p>
+ * - Cycle: SchoolInfo is made to depend on TeachingGroup, which depends on SchoolInfo. Both syncs run without waiting
+ *   for each other but still after the syncs of StudentPersonal and StaffPersonal.<p>
+ * - Parent wait: StudentSchoolEnrollment waits for StudentPersonal that is never synced. It is started after the parent
+ *   wait time.<p>
+ * - Response timeout: The StudentPersonal sync sends a query whose response never arrives. It is finished after the
+ *   response timeout and StudentSchoolEnrollment is started after it.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestSyncCoordinator
+{
+	private static final String STUDENT = "StudentPersonal";
+	private static final String SCHOOL = "SchoolInfo";
+	private static final String STAFF = "StaffPersonal";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String TEACHING_GROUP = "TeachingGroup";
+
+	private static final long SYNC_MILLIS = 100;
+	private static final long SHORT_WAIT_MILLIS = 500;
+	private static final long LONG_WAIT_MILLIS = 60000;
+	private static final long MAX_TEST_MILLIS = 10000;
+
+	private SIFObjectMetadataCache metadataCache = SIFObjectMetadataCache.getCache();
+
+	/* Start and finish times of the syncs. Key: <object type>|<zone ID> */
+	private final Map<String, Long> started = new ConcurrentHashMap<String, Long>();
+	private final Map<String, Long> finished = new ConcurrentHashMap<String, Long>();
+
+	public void testOrder() throws Exception
+	{
+		System.out.println("\n---- Order: five object types in two zones ----");
+		List<String> syncedObjectNames = Arrays.asList(ENROLMENT, TEACHING_GROUP, STUDENT, SCHOOL, STAFF);
+		List<Zone> zones = Arrays.asList(createZone("Zone1"), createZone("Zone2"));
+		SyncCoordinator coordinator = SyncCoordinator.createCoordinator(4, LONG_WAIT_MILLIS, LONG_WAIT_MILLIS);
+		try
+		{
+			for (String sifObjectName : syncedObjectNames)
+			{
+				for (Zone zone : zones)
+				{
+					coordinator.submit(sifObjectName, zone, new RecordingTask(sifObjectName, false));
+				}
+			}
+			coordinator.submit(ENROLMENT, zones.get(0), new RecordingTask("Duplicate"+ENROLMENT, false));
+			Thread.sleep(SHORT_WAIT_MILLIS);
+			if (!started.isEmpty())
+			{
+				System.out.println("FAILED: Expected no sync to run before the coordinator is started.");
+			}
+
+			coordinator.start(syncedObjectNames, metadataCache);
+			waitForSyncs(syncedObjectNames, zones);
+			checkOrder(syncedObjectNames, zones);
+			if (started.containsKey(getKey("Duplicate"+ENROLMENT, "Zone1")))
+			{
+				System.out.println("FAILED: Expected the second submit of "+ENROLMENT+" to be ignored.");
+			}
+			if (getRequiredParents(ENROLMENT, syncedObjectNames).isEmpty())
+			{
+				System.out.println("FAILED: Expected "+ENROLMENT+" to depend on other synced object types.");
+			}
+		}
+		finally
+		{
+			SyncCoordinator.removeCoordinator();
+		}
+	}
+
+	public void testCycle() throws Exception
+	{
+		System.out.println("\n---- Cycle: "+SCHOOL+" and "+TEACHING_GROUP+" depend on each other ----");
+		SIFObject school = metadataCache.getObjectMetadata(SCHOOL);
+		Set<DependentObjectInfo> originalDependencies = school.getDependentObjects();
+		Set<DependentObjectInfo> dependencies = new HashSet<DependentObjectInfo>();
+		if (originalDependencies != null)
+		{
+			dependencies.addAll(originalDependencies);
+		}
+		dependencies.add(new DependentObjectInfo(null, metadataCache.getObjectMetadata(TEACHING_GROUP), false, null));
+		school.setDependentObjects(dependencies);
+
+		List<String> syncedObjectNames = Arrays.asList(SCHOOL, TEACHING_GROUP, STUDENT, STAFF);
+		List<Zone> zones = Arrays.asList(createZone("Zone3"));
+		SyncCoordinator coordinator = SyncCoordinator.createCoordinator(4, LONG_WAIT_MILLIS, LONG_WAIT_MILLIS);
+		try
+		{
+			coordinator.start(syncedObjectNames, metadataCache);
+			for (String sifObjectName : syncedObjectNames)
+			{
+				coordinator.submit(sifObjectName, zones.get(0), new RecordingTask(sifObjectName, false));
+			}
+			waitForSyncs(syncedObjectNames, zones);
+			checkOrder(syncedObjectNames, zones);
+
+			for (String sifObjectName : Arrays.asList(SCHOOL, TEACHING_GROUP))
+			{
+				String key = getKey(sifObjectName, "Zone3");
+				if (!started.containsKey(key) || (started.get(key) < finished.get(getKey(STUDENT, "Zone3"))) || (started.get(key) < finished.get(getKey(STAFF, "Zone3"))))
+				{
+					System.out.println("FAILED: Expected "+sifObjectName+" to start after "+STUDENT+" and "+STAFF+".");
+				}
+			}
+		}
+		finally
+		{
+			SyncCoordinator.removeCoordinator();
+			school.setDependentObjects(originalDependencies);
+		}
+	}
+
+	public void testParentWait() throws Exception
+	{
+		System.out.println("\n---- Parent wait: "+STUDENT+" is never synced ----");
+		List<Zone> zones = Arrays.asList(createZone("Zone4"));
+		SyncCoordinator coordinator = SyncCoordinator.createCoordinator(4, LONG_WAIT_MILLIS, SHORT_WAIT_MILLIS);
+		try
+		{
+			long startTime = System.currentTimeMillis();
+			coordinator.start(Arrays.asList(STUDENT, ENROLMENT), metadataCache);
+			coordinator.submit(ENROLMENT, zones.get(0), new RecordingTask(ENROLMENT, false));
+			waitForSyncs(Arrays.asList(ENROLMENT), zones);
+
+			String key = getKey(ENROLMENT, "Zone4");
+			Long waited = started.containsKey(key) ? (started.get(key) - startTime) : null;
+			System.out.println(ENROLMENT+" started after "+waited+"ms");
+			if ((waited == null) || (waited < SHORT_WAIT_MILLIS) || !coordinator.isSyncFinished(ENROLMENT, "Zone4"))
+			{
+				System.out.println("FAILED: Expected "+ENROLMENT+" to be started after the parent wait time and to finish.");
+			}
+		}
+		finally
+		{
+			SyncCoordinator.removeCoordinator();
+		}
+	}
+
+	public void testResponseTimeout() throws Exception
+	{
+		System.out.println("\n---- Response timeout: no response to the "+STUDENT+" sync query ----");
+		List<String> syncedObjectNames = Arrays.asList(STUDENT, ENROLMENT);
+		List<Zone> zones = Arrays.asList(createZone("Zone5"));
+		SyncCoordinator coordinator = SyncCoordinator.createCoordinator(4, SHORT_WAIT_MILLIS, LONG_WAIT_MILLIS);
+		try
+		{
+			coordinator.start(syncedObjectNames, metadataCache);
+			coordinator.submit(ENROLMENT, zones.get(0), new RecordingTask(ENROLMENT, false));
+			coordinator.submit(STUDENT, zones.get(0), new RecordingTask(STUDENT, true));
+			waitForSyncs(syncedObjectNames, zones);
+
+			String studentKey = getKey(STUDENT, "Zone5");
+			String enrolmentKey = getKey(ENROLMENT, "Zone5");
+			Long waited = (started.containsKey(studentKey) && finished.containsKey(studentKey)) ? (finished.get(studentKey) - started.get(studentKey)) : null;
+			System.out.println(STUDENT+" finished after "+waited+"ms");
+			if ((waited == null) || (waited < SHORT_WAIT_MILLIS) || !coordinator.isSyncFinished(STUDENT, "Zone5"))
+			{
+				System.out.println("FAILED: Expected "+STUDENT+" to be finished after the response timeout.");
+			}
+			else if (!started.containsKey(enrolmentKey) || (started.get(enrolmentKey) < finished.get(studentKey)))
+			{
+				System.out.println("FAILED: Expected "+ENROLMENT+" to start after "+STUDENT+" timed out.");
+			}
+		}
+		finally
+		{
+			SyncCoordinator.removeCoordinator();
+		}
+	}
+
+	/*
+	 * Checks that each sync started after all syncs of the synced object types it depends upon have finished in
+	 * the same zone, unless they depend on each other.
+	 */
+	private void checkOrder(List<String> syncedObjectNames, List<Zone> zones)
+	{
+		for (Zone zone : zones)
+		{
+			List<String> order = new ArrayList<String>(syncedObjectNames);
+			final String zoneId = zone.getZoneId();
+			Collections.sort(order, new Comparator<String>()
+			{
+				public int compare(String name1, String name2)
+				{
+					return started.get(getKey(name1, zoneId)).compareTo(started.get(getKey(name2, zoneId)));
+				}
+			});
+			System.out.println("Start order in "+zoneId+": "+order);
+
+			for (String sifObjectName : syncedObjectNames)
+			{
+				long startTime = started.get(getKey(sifObjectName, zoneId));
+				for (String parent : getRequiredParents(sifObjectName, syncedObjectNames))
+				{
+					Long parentFinished = finished.get(getKey(parent, zoneId));
+					if ((parentFinished == null) || (parentFinished > startTime))
+					{
+						System.out.println("FAILED: Expected "+sifObjectName+" to start after "+parent+" finished in "+zoneId+".");
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the synced object types the given object type depends upon, directly or indirectly, without those that
+	 * also depend on the given object type.
+	 */
+	private Set<String> getRequiredParents(String sifObjectName, List<String> syncedObjectNames)
+	{
+		Set<String> parents = new HashSet<String>();
+		for (String ancestor : getAncestors(sifObjectName))
+		{
+			if (syncedObjectNames.contains(ancestor) && !ancestor.equals(sifObjectName) && !getAncestors(ancestor).contains(sifObjectName))
+			{
+				parents.add(ancestor);
+			}
+		}
+		return parents;
+	}
+
+	private Set<String> getAncestors(String sifObjectName)
+	{
+		Set<String> ancestors = new HashSet<String>();
+		List<String> toVisit = new ArrayList<String>(metadataCache.getDependencyObjectNames(sifObjectName));
+		while (!toVisit.isEmpty())
+		{
+			String ancestor = toVisit.remove(0);
+			if (ancestors.add(ancestor))
+			{
+				toVisit.addAll(metadataCache.getDependencyObjectNames(ancestor));
+			}
+		}
+		return ancestors;
+	}
+
+	private void waitForSyncs(List<String> syncedObjectNames, List<Zone> zones) throws InterruptedException
+	{
+		long endTime = System.currentTimeMillis() + MAX_TEST_MILLIS;
+		for (String sifObjectName : syncedObjectNames)
+		{
+			for (Zone zone : zones)
+			{
+				String key = getKey(sifObjectName, zone.getZoneId());
+				while (!finished.containsKey(key))
+				{
+					if (System.currentTimeMillis() > endTime)
+					{
+						throw new IllegalStateException("Sync of "+key+" not finished within "+MAX_TEST_MILLIS+"ms.");
+					}
+					Thread.sleep(20);
+				}
+			}
+		}
+	}
+
+	private String getKey(String sifObjectName, String zoneId)
+	{
+		return sifObjectName+"|"+zoneId;
+	}
+
+	/*
+	 * Only the zone ID is used by the coordinator. Messaging listeners are ignored.
+	 */
+	private Zone createZone(final String zoneId)
+	{
+		return (Zone)Proxy.newProxyInstance(Zone.class.getClassLoader(), new Class<?>[] {Zone.class}, new InvocationHandler()
+		{
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				if ("getZoneId".equals(method.getName()))
+				{
+					return zoneId;
+				}
+				if ("toString".equals(method.getName()))
+				{
+					return zoneId;
+				}
+				return null;
+			}
+		});
+	}
+
+	/*
+	 * Records the start and finish of a sync. If sendQuery is TRUE a message ID is returned for which no response ever
+	 * arrives.
+	 */
+	private class RecordingTask implements SyncCoordinator.SyncTask
+	{
+		private final String sifObjectName;
+		private final boolean sendQuery;
+
+		private RecordingTask(String sifObjectName, boolean sendQuery)
+		{
+			this.sifObjectName = sifObjectName;
+			this.sendQuery = sendQuery;
+		}
+
+		public String sendSyncQuery(Zone zone) throws Exception
+		{
+			started.put(getKey(sifObjectName, zone.getZoneId()), System.currentTimeMillis());
+			Thread.sleep(SYNC_MILLIS);
+			return sendQuery ? "MSG-"+sifObjectName+"-"+zone.getZoneId() : null;
+		}
+
+		public void syncResponseConsumed(Zone zone)
+		{
+			finished.put(getKey(sifObjectName, zone.getZoneId()), System.currentTimeMillis());
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		System.out.println("================================== Start TestSyncCoordinator ===============================");
+		try
+		{
+			TestSyncCoordinator tester = new TestSyncCoordinator();
+			tester.testOrder();
+			tester.testCycle();
+			tester.testParentWait();
+			tester.testResponseTimeout();
+			HibernateUtil.shutdown();
+		}
+		catch (Exception ex)
+		{
+			ex.printStackTrace();
+		}
+		System.out.println("================================== End TestSyncCoordinator ===============================");
+	}
+}
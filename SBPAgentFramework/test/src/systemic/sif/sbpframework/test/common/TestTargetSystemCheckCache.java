@@ -0,0 +1,168 @@
+/*
+ * TestTargetSystemCheckCache.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.common;
+
+import systemic.sif.sbpframework.common.utils.DOCacheProperties;
+import systemic.sif.sbpframework.common.utils.TargetSystemCheckCache;
+
+/**
+ * Tests the cache of the checks of dependent objects against the target system. The cache is created with a maximum
+ * of 3 existing and 3 missing objects per SIF Object type.<p>
+ * - Results: Existing and missing objects are remembered per object type and zone. A new result replaces the
+ *   previous one of the same object.<p>
+ * - LRU: A fourth existing object drops the least recently used one. Missing objects and other object types are not
+ *   affected.<p>
+ * - Invalidation: remove() forgets existing and missing objects, removeMissing() only missing ones.<p>
+ * - TTL: A result is forgotten once its time to live has passed. The time to live is read from the
+ *   'cache.target.check.*.ttl.seconds' properties of the object type 'TestTTLObject'. This case is only run if both
+ *   are at most 5 seconds, i.e. with 'cache.target.check.exists.ttl.seconds.TestTTLObject=2' and
+ *   'cache.target.check.missing.ttl.seconds.TestTTLObject=1' added to DOCache.properties.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestTargetSystemCheckCache
+{
+	private static final String STUDENT = "StudentPersonal";
+	private static final String STAFF = "StaffPersonal";
+	private static final String TTL_OBJECT = "TestTTLObject";
+	private static final String ZONE_ID = "Zone1";
+	private static final String ZONE_ID_2 = "Zone2";
+
+	private static final int MAX_ENTRIES = 3;
+	private static final int MAX_TTL_SEC = 5;
+
+	private TargetSystemCheckCache checkCache = null;
+
+	public TestTargetSystemCheckCache()
+	{
+		TargetSystemCheckCache.removeCache();
+		checkCache = TargetSystemCheckCache.createCache(MAX_ENTRIES);
+	}
+
+	public void testResults()
+	{
+		System.out.println("\n---- Results: existing and missing objects ----");
+		checkCache.put(STUDENT, "S1", ZONE_ID, true);
+		checkCache.put(STUDENT, "S2", ZONE_ID, false);
+		check("S1 exists", checkCache.get(STUDENT, "S1", ZONE_ID), Boolean.TRUE);
+		check("S2 is missing", checkCache.get(STUDENT, "S2", ZONE_ID), Boolean.FALSE);
+		check("S3 not checked", checkCache.get(STUDENT, "S3", ZONE_ID), null);
+		check("S1 in other zone", checkCache.get(STUDENT, "S1", ZONE_ID_2), null);
+		check("S1 of other object type", checkCache.get(STAFF, "S1", ZONE_ID), null);
+
+		checkCache.put(STUDENT, "S2", ZONE_ID, true);
+		check("S2 exists after new check", checkCache.get(STUDENT, "S2", ZONE_ID), Boolean.TRUE);
+		checkCache.put(STUDENT, "S2", ZONE_ID, false);
+		check("S2 is missing after new check", checkCache.get(STUDENT, "S2", ZONE_ID), Boolean.FALSE);
+	}
+
+	public void testLRU()
+	{
+		System.out.println("\n---- LRU: "+MAX_ENTRIES+" objects per object type ----");
+		checkCache.put(STAFF, "L1", ZONE_ID, true);
+		checkCache.put(STAFF, "L2", ZONE_ID, true);
+		checkCache.put(STAFF, "L3", ZONE_ID, true);
+		checkCache.put(STAFF, "M1", ZONE_ID, false);
+		checkCache.put(STUDENT, "L1", ZONE_ID, true);
+		checkCache.get(STAFF, "L1", ZONE_ID); // L2 is now the least recently used
+		checkCache.put(STAFF, "L4", ZONE_ID, true);
+
+		check("L1 used recently", checkCache.get(STAFF, "L1", ZONE_ID), Boolean.TRUE);
+		check("L2 least recently used", checkCache.get(STAFF, "L2", ZONE_ID), null);
+		check("L3", checkCache.get(STAFF, "L3", ZONE_ID), Boolean.TRUE);
+		check("L4", checkCache.get(STAFF, "L4", ZONE_ID), Boolean.TRUE);
+		check("M1 missing", checkCache.get(STAFF, "M1", ZONE_ID), Boolean.FALSE);
+		check("L1 of other object type", checkCache.get(STUDENT, "L1", ZONE_ID), Boolean.TRUE);
+	}
+
+	public void testInvalidation()
+	{
+		System.out.println("\n---- Invalidation: remove() and removeMissing() ----");
+		checkCache.put(STUDENT, "I1", ZONE_ID, true);
+		checkCache.put(STUDENT, "I2", ZONE_ID, false);
+		checkCache.put(STUDENT, "I3", ZONE_ID, true);
+		checkCache.put(STUDENT, "I4", ZONE_ID, false);
+
+		checkCache.removeMissing(STUDENT, "I1", ZONE_ID);
+		checkCache.removeMissing(STUDENT, "I2", ZONE_ID);
+		check("I1 exists after removeMissing()", checkCache.get(STUDENT, "I1", ZONE_ID), Boolean.TRUE);
+		check("I2 missing after removeMissing()", checkCache.get(STUDENT, "I2", ZONE_ID), null);
+
+		checkCache.remove(STUDENT, "I3", ZONE_ID);
+		checkCache.remove(STUDENT, "I4", ZONE_ID);
+		check("I3 exists after remove()", checkCache.get(STUDENT, "I3", ZONE_ID), null);
+		check("I4 missing after remove()", checkCache.get(STUDENT, "I4", ZONE_ID), null);
+
+		checkCache.remove("UnknownObject", "I1", ZONE_ID);
+		checkCache.removeMissing("UnknownObject", "I1", ZONE_ID);
+	}
+
+	public void testTTL() throws InterruptedException
+	{
+		DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+		int existsTTL = cacheProperties.getTargetCheckExistsTTLInSec(TTL_OBJECT, 600);
+		int missingTTL = cacheProperties.getTargetCheckMissingTTLInSec(TTL_OBJECT, 60);
+		System.out.println("\n---- TTL: exists = "+existsTTL+"s, missing = "+missingTTL+"s ----");
+		if ((existsTTL > MAX_TTL_SEC) || (missingTTL > MAX_TTL_SEC))
+		{
+			System.out.println("Skipped: Set both TTLs of "+TTL_OBJECT+" to at most "+MAX_TTL_SEC+"s to run this test.");
+			return;
+		}
+
+		checkCache.put(TTL_OBJECT, "T1", ZONE_ID, true);
+		checkCache.put(TTL_OBJECT, "T2", ZONE_ID, false);
+		check("T1 exists", checkCache.get(TTL_OBJECT, "T1", ZONE_ID), (existsTTL > 0) ? Boolean.TRUE : null);
+		check("T2 missing", checkCache.get(TTL_OBJECT, "T2", ZONE_ID), (missingTTL > 0) ? Boolean.FALSE : null);
+
+		Thread.sleep((Math.min(existsTTL, missingTTL) * 1000L) + 100);
+		check("T1 exists after "+Math.min(existsTTL, missingTTL)+"s", checkCache.get(TTL_OBJECT, "T1", ZONE_ID), (existsTTL > missingTTL) ? Boolean.TRUE : null);
+		check("T2 missing after "+Math.min(existsTTL, missingTTL)+"s", checkCache.get(TTL_OBJECT, "T2", ZONE_ID), (missingTTL > existsTTL) ? Boolean.FALSE : null);
+
+		Thread.sleep((Math.abs(existsTTL - missingTTL) * 1000L) + 100);
+		check("T1 exists after "+Math.max(existsTTL, missingTTL)+"s", checkCache.get(TTL_OBJECT, "T1", ZONE_ID), null);
+		check("T2 missing after "+Math.max(existsTTL, missingTTL)+"s", checkCache.get(TTL_OBJECT, "T2", ZONE_ID), null);
+	}
+
+	private void check(String caseName, Boolean result, Boolean expected)
+	{
+		System.out.println(caseName+": "+result);
+		if ((result == null) ? (expected != null) : !result.equals(expected))
+		{
+			System.out.println("FAILED: Expected "+expected+".");
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		System.out.println("================================== Start TestTargetSystemCheckCache ===============================");
+		try
+		{
+			TestTargetSystemCheckCache tester = new TestTargetSystemCheckCache();
+			tester.testResults();
+			tester.testLRU();
+			tester.testInvalidation();
+			tester.testTTL();
+			System.out.println("\nStatistics: "+TargetSystemCheckCache.getCache().getStatistics());
+			TargetSystemCheckCache.removeCache();
+		}
+		catch (Exception ex)
+		{
+			ex.printStackTrace();
+		}
+		System.out.println("================================== End TestTargetSystemCheckCache ===============================");
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * TestDeliveredKeyDAO.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.persist;
+
+import java.util.Date;
+import java.util.List;
+
+import systemic.sif.sbpframework.persist.dao.DeliveredKeyDAO;
+import systemic.sif.sbpframework.persist.model.DeliveredKey;
+
+/**
+ * Tests the keys of the delivered key index in the SCF_DELIVERED_KEY table (see DeliveredKeyDAO):<p>
+ * - Insert: A key inserted twice is only stored once.<p>
+ * - Expiry: Keys delivered before a given date are neither returned nor kept by removeExpiredKeys().<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestDeliveredKeyDAO extends DAOBaseTest
+{
+	private static final String APP_ID = "TestDeliveredKeyApp";
+	private static final String ZONE_ID = "TestZone";
+	private static final String STUDENT = "StudentPersonal";
+
+	private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+	private DeliveredKeyDAO deliveredKeyDAO = new DeliveredKeyDAO();
+
+	private void testInsert()
+	{
+		System.out.println("\n---- Insert: same key inserted twice ----");
+		Date now = new Date();
+		startTransaction(deliveredKeyDAO);
+		deliveredKeyDAO.insertKey(getTransaction(), createKey("K1", now));
+		deliveredKeyDAO.insertKey(getTransaction(), createKey("K2", now));
+		deliveredKeyDAO.insertKey(getTransaction(), createKey("K1", now));
+		commit();
+
+		List<DeliveredKey> keys = retrieveKeys(null);
+		System.out.println("Keys stored: "+keys.size());
+		if (keys.size() != 2)
+		{
+			System.out.println("FAILED: Expected 2 keys.");
+		}
+	}
+
+	private void testExpiry()
+	{
+		System.out.println("\n---- Expiry: one key delivered two days ago ----");
+		Date now = new Date();
+		startTransaction(deliveredKeyDAO);
+		deliveredKeyDAO.insertKey(getTransaction(), createKey("K3", new Date(now.getTime() - (2 * DAY_MILLIS))));
+		commit();
+
+		Date expiredBefore = new Date(now.getTime() - DAY_MILLIS);
+		List<DeliveredKey> keys = retrieveKeys(expiredBefore);
+		System.out.println("Keys not expired: "+keys.size());
+		if ((keys.size() != 2) || containsKey(keys, "K3"))
+		{
+			System.out.println("FAILED: Expected the expired key not to be returned.");
+		}
+
+		startTransaction(deliveredKeyDAO);
+		int numRemoved = deliveredKeyDAO.removeExpiredKeys(getTransaction(), APP_ID, expiredBefore);
+		commit();
+		keys = retrieveKeys(null);
+		System.out.println("Expired keys removed: "+numRemoved+", keys left: "+keys.size());
+		if ((numRemoved != 1) || (keys.size() != 2) || containsKey(keys, "K3"))
+		{
+			System.out.println("FAILED: Expected only the expired key to be removed.");
+		}
+	}
+
+	private void cleanup()
+	{
+		startTransaction(deliveredKeyDAO);
+		deliveredKeyDAO.removeExpiredKeys(getTransaction(), APP_ID, new Date(System.currentTimeMillis() + DAY_MILLIS));
+		commit();
+	}
+
+	private List<DeliveredKey> retrieveKeys(Date deliveredAfter)
+	{
+		startTransaction(deliveredKeyDAO);
+		List<DeliveredKey> keys = deliveredKeyDAO.retrieveKeys(getTransaction(), APP_ID, deliveredAfter, 0, 100);
+		commit();
+		return keys;
+	}
+
+	private boolean containsKey(List<DeliveredKey> keys, String flatKey)
+	{
+		for (DeliveredKey deliveredKey : keys)
+		{
+			if (flatKey.equals(deliveredKey.getObjectKeyValue()))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private DeliveredKey createKey(String flatKey, Date deliveredDate)
+	{
+		DeliveredKey deliveredKey = new DeliveredKey(STUDENT, flatKey, APP_ID, ZONE_ID);
+		deliveredKey.setDeliveredDate(deliveredDate);
+		return deliveredKey;
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestDeliveredKeyDAO ===============================");
+        try
+        {
+        	TestDeliveredKeyDAO tester = new TestDeliveredKeyDAO();
+        	tester.cleanup();
+        	tester.testInsert();
+        	tester.testExpiry();
+        	tester.cleanup();
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestDeliveredKeyDAO ===============================");
+    }
+}
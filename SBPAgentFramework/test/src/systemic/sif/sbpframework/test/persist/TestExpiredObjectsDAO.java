@@ -0,0 +1,245 @@
+/*
+ * TestExpiredObjectsDAO.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.persist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.model.SIFObject;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests the paged, set-based expiry sweep of the DOC. Seven StudentSchoolEnrollment objects X1 to X7 are cached, each
+ * waiting on its own StudentPersonal object, and made expired: X1 to X4 with the EXPIRE strategy, X5 to X7 with the
+ * REQUEST strategy. The students of X5 to X7 have been requested, the one of X7 is due to be requested again only in
+ * the future.<p>
+ * - Summary: getExpiredObjectSummary() counts 4 EXPIRE and 3 REQUEST objects.<p>
+ * - Paging: getExpiredObjectIds() with a page size of 3 returns all 4 EXPIRE ids in ascending order without duplicates.<p>
+ * - Sweep: DOCService.updateExpiredObjects() removes X1 to X4, resets the expiry date of X5 to X7 and marks the students
+ *   of X5 and X6 as not requested. The student of X7 stays requested. No expired objects are left.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestExpiredObjectsDAO extends DAOBaseTest
+{
+	private static final String APP_ID = "TestExpiryApp";
+	private static final String AGENT_ID = "TestAgent";
+	private static final String ZONE_ID = "TestZone";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	private static final int NUM_OBJECTS = 7;
+	private static final int NUM_EXPIRE = 4;
+	private static final int PAGE_SIZE = 3;
+
+	private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+	private static final String EXPIRE = SIFObject.EXPRIY_STARTEGY.EXPIRE.name();
+	private static final String REQUEST = SIFObject.EXPRIY_STARTEGY.REQUEST.name();
+
+	private DOCacheDAO docCacheDAO = new DOCacheDAO();
+	private DOCService service = new DOCService();
+
+	private void setup() throws Exception
+	{
+		for (int i=1; i<=NUM_OBJECTS; i++)
+		{
+			cacheEnrolment("X"+i, "T"+i);
+		}
+
+		Date now = new Date();
+		List<Long> requestedIds = new ArrayList<Long>();
+		Long notDueId = null;
+		startTransaction(docCacheDAO);
+		for (int i=1; i<=NUM_OBJECTS; i++)
+		{
+			DOCache cachedObject = docCacheDAO.retrieveCachedObject(getTransaction(), ENROLMENT, "X"+i, APP_ID, ZONE_ID, true);
+			cachedObject.setExpiryDate(new Date(now.getTime() - HOUR_MILLIS));
+			cachedObject.setExpiryStrategy((i <= NUM_EXPIRE) ? EXPIRE : REQUEST);
+			if (i == NUM_OBJECTS)
+			{
+				notDueId = cachedObject.getDependentObjects().iterator().next().getId();
+			}
+			else if (i > NUM_EXPIRE)
+			{
+				requestedIds.add(cachedObject.getDependentObjects().iterator().next().getId());
+			}
+		}
+		docCacheDAO.markDependentObjectsAsRequested(getTransaction(), requestedIds, AGENT_ID, ZONE_ID, now, 1, new Date(now.getTime() - HOUR_MILLIS));
+		docCacheDAO.markDependentObjectsAsRequested(getTransaction(), Collections.singletonList(notDueId), AGENT_ID, ZONE_ID, now, 1, new Date(now.getTime() + HOUR_MILLIS));
+		commit();
+	}
+
+	private void testSummary()
+	{
+		System.out.println("\n---- Summary: expired objects by strategy ----");
+		startTransaction(docCacheDAO);
+		List<Object[]> summary = docCacheDAO.getExpiredObjectSummary(getTransaction(), APP_ID, AGENT_ID, new Date());
+		commit();
+		long numExpire = 0;
+		long numRequest = 0;
+		for (Object[] row : summary)
+		{
+			System.out.println(row[0]+" "+row[1]+": "+row[2]);
+			if (EXPIRE.equals(row[1]))
+			{
+				numExpire = ((Number)row[2]).longValue();
+			}
+			else if (REQUEST.equals(row[1]))
+			{
+				numRequest = ((Number)row[2]).longValue();
+			}
+		}
+		if ((numExpire != NUM_EXPIRE) || (numRequest != NUM_OBJECTS - NUM_EXPIRE))
+		{
+			System.out.println("FAILED: Expected "+NUM_EXPIRE+" EXPIRE and "+(NUM_OBJECTS - NUM_EXPIRE)+" REQUEST objects.");
+		}
+	}
+
+	private void testPaging()
+	{
+		System.out.println("\n---- Paging: EXPIRE ids in pages of "+PAGE_SIZE+" ----");
+		Date now = new Date();
+		List<Long> allIds = new ArrayList<Long>();
+		int numPages = 0;
+		Long afterId = null;
+		List<Long> ids = null;
+		do
+		{
+			startTransaction(docCacheDAO);
+			ids = docCacheDAO.getExpiredObjectIds(getTransaction(), ENROLMENT, EXPIRE, APP_ID, AGENT_ID, now, afterId, PAGE_SIZE);
+			commit();
+			System.out.println("Page "+numPages+": "+ids);
+			if (!ids.isEmpty())
+			{
+				allIds.addAll(ids);
+				afterId = ids.get(ids.size()-1);
+				numPages++;
+			}
+		}
+		while (ids.size() >= PAGE_SIZE);
+
+		List<Long> sortedIds = new ArrayList<Long>(allIds);
+		Collections.sort(sortedIds);
+		boolean unique = (sortedIds.size() == new HashSet<Long>(sortedIds).size());
+		if ((allIds.size() != NUM_EXPIRE) || (numPages != 2) || !unique || !sortedIds.equals(allIds))
+		{
+			System.out.println("FAILED: Expected "+NUM_EXPIRE+" unique ascending ids in 2 pages.");
+		}
+	}
+
+	private void testSweep() throws Exception
+	{
+		System.out.println("\n---- Sweep: updateExpiredObjects() ----");
+		Date before = new Date();
+		service.updateExpiredObjects(APP_ID, AGENT_ID);
+
+		for (int i=1; i<=NUM_OBJECTS; i++)
+		{
+			startTransaction(docCacheDAO);
+			DOCache cachedObject = docCacheDAO.retrieveCachedObject(getTransaction(), ENROLMENT, "X"+i, APP_ID, ZONE_ID, true);
+			Boolean requested = null;
+			if ((cachedObject != null) && !cachedObject.getDependentObjects().isEmpty())
+			{
+				requested = cachedObject.getDependentObjects().iterator().next().getRequested();
+			}
+			commit();
+
+			if (i <= NUM_EXPIRE)
+			{
+				System.out.println("X"+i+" removed: "+(cachedObject == null));
+				if (cachedObject != null)
+				{
+					System.out.println("FAILED: Expected X"+i+" to be removed.");
+				}
+				continue;
+			}
+			System.out.println("X"+i+" expiry date: "+((cachedObject == null) ? null : cachedObject.getExpiryDate())+", student requested: "+requested);
+			if ((cachedObject == null) || !cachedObject.getExpiryDate().after(before))
+			{
+				System.out.println("FAILED: Expected X"+i+" to be kept with a new expiry date.");
+			}
+			else if (!Boolean.valueOf(i == NUM_OBJECTS).equals(requested))
+			{
+				System.out.println("FAILED: Expected the student of X"+i+" to be "+((i == NUM_OBJECTS) ? "still requested." : "no longer requested."));
+			}
+		}
+
+		startTransaction(docCacheDAO);
+		List<Object[]> summary = docCacheDAO.getExpiredObjectSummary(getTransaction(), APP_ID, AGENT_ID, new Date());
+		commit();
+		if (!summary.isEmpty())
+		{
+			System.out.println("FAILED: Expected no expired objects to be left.");
+		}
+	}
+
+	private void cleanup() throws Exception
+	{
+		for (int i=1; i<=NUM_OBJECTS; i++)
+		{
+			service.checkAndRemoveDependency(STUDENT, "T"+i, APP_ID, ZONE_ID);
+		}
+		service.removeCachedObjects(service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID));
+	}
+
+	private void cacheEnrolment(String enrolmentKey, String studentKey) throws Exception
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setRequested(false);
+		List<DOCObject> dependencies = new ArrayList<DOCObject>();
+		dependencies.add(student);
+		service.mergeWithCachedDependencies(dependencies, APP_ID, ZONE_ID);
+
+		DOCache cachedObject = new DOCache();
+		cachedObject.setSifObjectName(ENROLMENT);
+		cachedObject.setObjectKeyValue(enrolmentKey);
+		cachedObject.setIsEvent(false);
+		cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+		cachedObject.setDependentObjectsAsList(dependencies);
+		service.cacheObject(cachedObject, AGENT_ID, APP_ID, ZONE_ID);
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestExpiredObjectsDAO ===============================");
+        try
+        {
+        	TestExpiredObjectsDAO tester = new TestExpiredObjectsDAO();
+        	tester.cleanup();
+        	tester.setup();
+        	tester.testSummary();
+        	tester.testPaging();
+        	tester.testSweep();
+        	tester.cleanup();
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestExpiredObjectsDAO ===============================");
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * TestRemoveDependencyDAO.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.persist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests the set-based removal of a dependency with DOCacheDAO.removeDependency(). Three StudentSchoolEnrollment
+ * objects are cached: E1 waits on S1, E2 waits on S1 and S2 and E3 waits on S2.<p>
+ * - Remove S1: Two parents, only E1 is resolved. E2 loaded in the same session before the removal has one remaining
+ *   dependency afterwards.<p>
+ * - Remove S2: Two parents, E2 and E3 are resolved.<p>
+ * - Remove S1 again: No parents and no resolved objects.<p>
+ * After each removal the dependent object must no longer be in the DOC. Each test prints 'FAILED' if its outcome is
+ * not as expected.
+ */
+public class TestRemoveDependencyDAO extends DAOBaseTest
+{
+	private static final String APP_ID = "TestRemoveDependencyApp";
+	private static final String AGENT_ID = "TestAgent";
+	private static final String ZONE_ID = "TestZone";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	private DOCacheDAO docCacheDAO = new DOCacheDAO();
+	private DOCService service = new DOCService();
+
+	private void setup() throws Exception
+	{
+		cacheEnrolment("E1", "S1");
+		cacheEnrolment("E2", "S1", "S2");
+		cacheEnrolment("E3", "S2");
+	}
+
+	private void testRemoveFirst()
+	{
+		System.out.println("\n---- Remove S1: waited on by E1 and E2 ----");
+		List<Long> resolvedIds = new ArrayList<Long>();
+		startTransaction(docCacheDAO);
+		DOCache e2 = docCacheDAO.retrieveCachedObject(getTransaction(), ENROLMENT, "E2", APP_ID, ZONE_ID, true);
+		int numParents = docCacheDAO.removeDependency(getTransaction(), createStudent("S1"), resolvedIds);
+		List<DOCache> resolvedObjects = docCacheDAO.getCachedObjectKeys(getTransaction(), resolvedIds);
+		commit();
+
+		System.out.println("Parents: "+numParents+", resolved: "+getKeys(resolvedObjects)+", E2 remaining dependencies: "+e2.getRemainingDependencies());
+		if ((numParents != 2) || !getKeys(resolvedObjects).equals(Collections.singletonList("E1")))
+		{
+			System.out.println("FAILED: Expected two parents and E1 to be resolved.");
+		}
+		if (e2.getRemainingDependencies() != 1)
+		{
+			System.out.println("FAILED: Expected E2 in the session to be refreshed with one remaining dependency.");
+		}
+		checkRemoved("S1");
+	}
+
+	private void testRemoveSecond()
+	{
+		System.out.println("\n---- Remove S2: waited on by E2 and E3 ----");
+		List<Long> resolvedIds = new ArrayList<Long>();
+		startTransaction(docCacheDAO);
+		int numParents = docCacheDAO.removeDependency(getTransaction(), createStudent("S2"), resolvedIds);
+		List<DOCache> resolvedObjects = docCacheDAO.getCachedObjectKeys(getTransaction(), resolvedIds);
+		commit();
+
+		List<String> keys = getKeys(resolvedObjects);
+		Collections.sort(keys);
+		System.out.println("Parents: "+numParents+", resolved: "+keys);
+		if ((numParents != 2) || !keys.equals(Arrays.asList("E2", "E3")))
+		{
+			System.out.println("FAILED: Expected two parents and E2 and E3 to be resolved.");
+		}
+		checkRemoved("S2");
+
+		for (String key : keys)
+		{
+			startTransaction(docCacheDAO);
+			DOCache cachedObject = docCacheDAO.retrieveCachedObject(getTransaction(), ENROLMENT, key, APP_ID, ZONE_ID, true);
+			commit();
+			if ((cachedObject == null) || (cachedObject.getRemainingDependencies() != 0) || !cachedObject.getDependentObjects().isEmpty())
+			{
+				System.out.println("FAILED: Expected "+key+" to have no remaining dependencies.");
+			}
+		}
+	}
+
+	private void testRemoveAgain()
+	{
+		System.out.println("\n---- Remove S1 again: no longer waited on ----");
+		List<Long> resolvedIds = new ArrayList<Long>();
+		startTransaction(docCacheDAO);
+		int numParents = docCacheDAO.removeDependency(getTransaction(), createStudent("S1"), resolvedIds);
+		commit();
+		System.out.println("Parents: "+numParents+", resolved ids: "+resolvedIds);
+		if ((numParents != 0) || !resolvedIds.isEmpty())
+		{
+			System.out.println("FAILED: Expected no parents and no resolved objects.");
+		}
+	}
+
+	private void cleanup() throws Exception
+	{
+		service.checkAndRemoveDependency(STUDENT, "S1", APP_ID, ZONE_ID);
+		service.checkAndRemoveDependency(STUDENT, "S2", APP_ID, ZONE_ID);
+		service.removeCachedObjects(service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID));
+	}
+
+	private void checkRemoved(String studentKey)
+	{
+		startTransaction(docCacheDAO);
+		DOCObject docObject = docCacheDAO.getCachedDependentObject(getTransaction(), createStudent(studentKey));
+		commit();
+		if (docObject != null)
+		{
+			System.out.println("FAILED: Expected "+studentKey+" to be removed from the DOC.");
+		}
+	}
+
+	private void cacheEnrolment(String enrolmentKey, String... studentKeys) throws Exception
+	{
+		List<DOCObject> dependencies = new ArrayList<DOCObject>();
+		for (String studentKey : studentKeys)
+		{
+			DOCObject student = createStudent(studentKey);
+			student.setRequested(false);
+			dependencies.add(student);
+		}
+		service.mergeWithCachedDependencies(dependencies, APP_ID, ZONE_ID);
+
+		DOCache cachedObject = new DOCache();
+		cachedObject.setSifObjectName(ENROLMENT);
+		cachedObject.setObjectKeyValue(enrolmentKey);
+		cachedObject.setIsEvent(false);
+		cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+		cachedObject.setDependentObjectsAsList(dependencies);
+		service.cacheObject(cachedObject, AGENT_ID, APP_ID, ZONE_ID);
+	}
+
+	private DOCObject createStudent(String studentKey)
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setApplicationId(APP_ID);
+		student.setZoneId(ZONE_ID);
+		return student;
+	}
+
+	private List<String> getKeys(List<DOCache> cachedObjects)
+	{
+		List<String> keys = new ArrayList<String>();
+		for (DOCache cachedObject : cachedObjects)
+		{
+			keys.add(cachedObject.getObjectKeyValue());
+		}
+		return keys;
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestRemoveDependencyDAO ===============================");
+        try
+        {
+        	TestRemoveDependencyDAO tester = new TestRemoveDependencyDAO();
+        	tester.cleanup();
+        	tester.setup();
+        	tester.testRemoveFirst();
+        	tester.testRemoveSecond();
+        	tester.testRemoveAgain();
+        	tester.cleanup();
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestRemoveDependencyDAO ===============================");
+    }
+}
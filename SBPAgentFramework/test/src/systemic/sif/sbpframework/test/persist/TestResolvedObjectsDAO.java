@@ -0,0 +1,187 @@
+/*
+ * TestResolvedObjectsDAO.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.persist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests the paged release of resolved cached objects. The StudentSchoolEnrollment objects R1 to R5 wait on the
+ * StudentPersonal object U1, R6 waits on U2. U1 is removed, so R1 to R5 are resolved.<p>
+ * - Paging: getObjectsWithoutDependencies() with a page size of 2 returns R1 to R5 in 3 pages in ascending id order
+ *   while each page is removed before the next one is read, the same as the subscriber releases them. R6 is never
+ *   returned.<p>
+ * - Removal: removeCachedObjects() by id removes R6 together with U2 that no other object waits on.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestResolvedObjectsDAO extends DAOBaseTest
+{
+	private static final String APP_ID = "TestResolvedApp";
+	private static final String AGENT_ID = "TestAgent";
+	private static final String ZONE_ID = "TestZone";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	private static final int NUM_RESOLVED = 5;
+	private static final int PAGE_SIZE = 2;
+
+	private DOCacheDAO docCacheDAO = new DOCacheDAO();
+	private DOCService service = new DOCService();
+
+	private void setup() throws Exception
+	{
+		for (int i=1; i<=NUM_RESOLVED; i++)
+		{
+			cacheEnrolment("R"+i, "U1");
+		}
+		cacheEnrolment("R6", "U2");
+		service.checkAndRemoveDependency(STUDENT, "U1", APP_ID, ZONE_ID);
+	}
+
+	private void testPaging()
+	{
+		System.out.println("\n---- Paging: release resolved objects in pages of "+PAGE_SIZE+" ----");
+		List<String> releasedKeys = new ArrayList<String>();
+		List<Long> releasedIds = new ArrayList<Long>();
+		int numPages = 0;
+		Long afterId = null;
+		List<DOCache> page = null;
+		do
+		{
+			startTransaction(docCacheDAO);
+			page = docCacheDAO.getObjectsWithoutDependencies(getTransaction(), ENROLMENT, APP_ID, AGENT_ID, afterId, PAGE_SIZE);
+			List<Long> ids = new ArrayList<Long>();
+			for (DOCache cachedObject : page)
+			{
+				ids.add(cachedObject.getId());
+				releasedKeys.add(cachedObject.getObjectKeyValue());
+			}
+			int numRemoved = docCacheDAO.removeCachedObjects(getTransaction(), ids);
+			commit();
+			System.out.println("Page "+numPages+": "+ids+", removed: "+numRemoved);
+			if (numRemoved != ids.size())
+			{
+				System.out.println("FAILED: Expected all objects of the page to be removed.");
+			}
+			if (!page.isEmpty())
+			{
+				releasedIds.addAll(ids);
+				afterId = page.get(page.size()-1).getId();
+				numPages++;
+			}
+		}
+		while (page.size() >= PAGE_SIZE);
+
+		List<Long> sortedIds = new ArrayList<Long>(releasedIds);
+		Collections.sort(sortedIds);
+		System.out.println("Released: "+releasedKeys);
+		if ((releasedKeys.size() != NUM_RESOLVED) || (numPages != 3) || !sortedIds.equals(releasedIds) || releasedKeys.contains("R6"))
+		{
+			System.out.println("FAILED: Expected R1 to R5 to be released in 3 pages in ascending id order.");
+		}
+
+		startTransaction(docCacheDAO);
+		page = docCacheDAO.getObjectsWithoutDependencies(getTransaction(), ENROLMENT, APP_ID, AGENT_ID, null, PAGE_SIZE);
+		commit();
+		if (!page.isEmpty())
+		{
+			System.out.println("FAILED: Expected no resolved objects to be left.");
+		}
+	}
+
+	private void testRemoval()
+	{
+		System.out.println("\n---- Removal: R6 by id ----");
+		List<DOCObject> removedDependentObjects = new ArrayList<DOCObject>();
+		startTransaction(docCacheDAO);
+		DOCache r6 = docCacheDAO.retrieveCachedObject(getTransaction(), ENROLMENT, "R6", APP_ID, ZONE_ID, false);
+		int numRemoved = docCacheDAO.removeCachedObjects(getTransaction(), Collections.singletonList(r6.getId()), removedDependentObjects);
+		commit();
+
+		System.out.println("Removed: "+numRemoved+", removed dependent objects: "+removedDependentObjects.size());
+		if ((numRemoved != 1) || (removedDependentObjects.size() != 1) || !"U2".equals(removedDependentObjects.get(0).getObjectKeyValue()))
+		{
+			System.out.println("FAILED: Expected R6 to be removed together with U2.");
+		}
+
+		DOCObject u2 = new DOCObject();
+		u2.setSifObjectName(STUDENT);
+		u2.setObjectKeyValue("U2");
+		u2.setApplicationId(APP_ID);
+		u2.setZoneId(ZONE_ID);
+		startTransaction(docCacheDAO);
+		DOCObject docObject = docCacheDAO.getCachedDependentObject(getTransaction(), u2);
+		commit();
+		if (docObject != null)
+		{
+			System.out.println("FAILED: Expected U2 to be removed from the DOC.");
+		}
+	}
+
+	private void cleanup() throws Exception
+	{
+		service.checkAndRemoveDependency(STUDENT, "U1", APP_ID, ZONE_ID);
+		service.checkAndRemoveDependency(STUDENT, "U2", APP_ID, ZONE_ID);
+		service.removeCachedObjects(service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID));
+	}
+
+	private void cacheEnrolment(String enrolmentKey, String studentKey) throws Exception
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setRequested(false);
+		List<DOCObject> dependencies = new ArrayList<DOCObject>();
+		dependencies.add(student);
+		service.mergeWithCachedDependencies(dependencies, APP_ID, ZONE_ID);
+
+		DOCache cachedObject = new DOCache();
+		cachedObject.setSifObjectName(ENROLMENT);
+		cachedObject.setObjectKeyValue(enrolmentKey);
+		cachedObject.setIsEvent(false);
+		cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+		cachedObject.setDependentObjectsAsList(dependencies);
+		service.cacheObject(cachedObject, AGENT_ID, APP_ID, ZONE_ID);
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestResolvedObjectsDAO ===============================");
+        try
+        {
+        	TestResolvedObjectsDAO tester = new TestResolvedObjectsDAO();
+        	tester.cleanup();
+        	tester.setup();
+        	tester.testPaging();
+        	tester.testRemoval();
+        	tester.cleanup();
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestResolvedObjectsDAO ===============================");
+    }
+}
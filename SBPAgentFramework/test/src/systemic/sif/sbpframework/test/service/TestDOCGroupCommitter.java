@@ -0,0 +1,186 @@
+/*
+ * TestDOCGroupCommitter.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.servcie.DOCGroupCommitter;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests the group commit of the DOC writes (see DOCGroupCommitter). Several threads cache objects at the same time so
+ * that their writes are committed in one group:<p>
+ * - Group: All objects depend on the same student that is new to the DOC. The student must only be created once and
+ *   all objects must share it.<p>
+ * - Fallback: One of the writes of the group fails. The group is retried write by write, so that only the caller of
+ *   the bad write receives an error and all other objects are cached.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestDOCGroupCommitter extends ServiceBaseTest
+{
+	private static final String ZONE_ID = "SIFDemo";
+	private static final String APP_ID = "MyApp";
+	private static final String AGENT_ID = "SubscribingAgent";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	private static final int NUM_THREADS = 10;
+
+	/* Long enough for the writes of all threads to end up in the same group. */
+	private static final int MAX_GROUP_WAIT_MILLIS = 500;
+
+	private DOCService service = new DOCService();
+
+	public void testGroup() throws Exception
+	{
+		System.out.println("\n---- Group: "+NUM_THREADS+" objects depending on the same new student ----");
+		int numFailed = cacheConcurrently("G", "SG", -1);
+		Set<Long> studentIds = new HashSet<Long>();
+		int numCached = 0;
+		for (int i=0; i<NUM_THREADS; i++)
+		{
+			DOCache cachedObject = service.retrieveCachedObject(ENROLMENT, "G"+i, APP_ID, ZONE_ID, true);
+			if (cachedObject != null)
+			{
+				numCached++;
+				for (DOCObject docObject : cachedObject.getDependentObjects())
+				{
+					studentIds.add(docObject.getId());
+				}
+			}
+		}
+		System.out.println("Failed writes: "+numFailed+", cached objects: "+numCached+", student rows: "+studentIds.size());
+		if ((numFailed != 0) || (numCached != NUM_THREADS) || (studentIds.size() != 1))
+		{
+			System.out.println("FAILED: Expected all objects to be cached with one shared student.");
+		}
+	}
+
+	public void testFallback() throws Exception
+	{
+		System.out.println("\n---- Fallback: one bad write within a group of "+NUM_THREADS+" writes ----");
+		int badIndex = NUM_THREADS / 2;
+		int numFailed = cacheConcurrently("F", "SF", badIndex);
+		int numCached = 0;
+		for (int i=0; i<NUM_THREADS; i++)
+		{
+			if (service.retrieveCachedObject(ENROLMENT, "F"+i, APP_ID, ZONE_ID, false) != null)
+			{
+				numCached++;
+			}
+		}
+		System.out.println("Failed writes: "+numFailed+", cached objects: "+numCached);
+		if ((numFailed != 1) || (numCached != NUM_THREADS-1) || (service.retrieveCachedObject(ENROLMENT, "F"+badIndex, APP_ID, ZONE_ID, false) != null))
+		{
+			System.out.println("FAILED: Expected only the bad write to fail.");
+		}
+	}
+
+	public void cleanup() throws Exception
+	{
+		service.checkAndRemoveDependency(STUDENT, "SG", APP_ID, ZONE_ID);
+		service.checkAndRemoveDependency(STUDENT, "SF", APP_ID, ZONE_ID);
+		service.removeCachedObjects(service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID));
+	}
+
+	/*
+	 * Caches one enrolment per thread with the given key prefix, all depending on the given student. All threads start
+	 * at the same time. The write of the enrolment with the given badIndex fails. Returns the number of failed writes.
+	 */
+	private int cacheConcurrently(final String keyPrefix, final String studentKey, final int badIndex) throws InterruptedException
+	{
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(NUM_THREADS);
+		final AtomicInteger numFailed = new AtomicInteger(0);
+		for (int t=0; t<NUM_THREADS; t++)
+		{
+			final int index = t;
+			new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						start.await();
+						service.cacheObject(createEnrolment(keyPrefix+index, studentKey, index == badIndex), AGENT_ID, APP_ID, ZONE_ID);
+					}
+					catch (Exception ex)
+					{
+						System.out.println("Write of "+keyPrefix+index+" failed: "+ex.getMessage());
+						numFailed.incrementAndGet();
+					}
+					finally
+					{
+						done.countDown();
+					}
+				}
+			}, "Writer-"+t).start();
+		}
+		start.countDown();
+		done.await();
+		return numFailed.get();
+	}
+
+	/*
+	 * An invalid enrolment is of a class that is not mapped by Hibernate, so that its save fails.
+	 */
+	private DOCache createEnrolment(String enrolmentKey, String studentKey, boolean invalid)
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setRequested(false);
+		List<DOCObject> dependencies = new ArrayList<DOCObject>();
+		dependencies.add(student);
+
+		DOCache cachedObject = invalid ? new DOCache() {} : new DOCache();
+		cachedObject.setSifObjectName(ENROLMENT);
+		cachedObject.setObjectKeyValue(enrolmentKey);
+		cachedObject.setIsEvent(false);
+		cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+		cachedObject.setDependentObjectsAsList(dependencies);
+		return cachedObject;
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestDOCGroupCommitter ===============================");
+		try
+        {
+			DOCGroupCommitter.startCommitter(NUM_THREADS, MAX_GROUP_WAIT_MILLIS);
+			TestDOCGroupCommitter tester = new TestDOCGroupCommitter();
+        	tester.testGroup();
+        	tester.testFallback();
+        	tester.cleanup();
+        	DOCGroupCommitter.shutdownCommitter(5000);
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestDOCGroupCommitter ===============================");
+    }
+}
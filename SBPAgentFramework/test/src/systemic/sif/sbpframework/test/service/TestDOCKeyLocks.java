@@ -0,0 +1,288 @@
+/*
+ * TestDOCKeyLocks.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import systemic.sif.sbpframework.common.utils.DOCKeyLocks;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.servcie.DOCGroupCommitter;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Stress test of the DOC decisions made by several threads at the same time with the DOCKeyLocks. Each thread
+ * receives StudentSchoolEnrollment and StudentPersonal objects of a small set of keys in random order and makes the
+ * same decisions as the SBPBaseSubscriber: An enrollment is cached if it is not cached yet and its student is not in
+ * the target system, a student is added to the target system and the dependencies on it are removed. At the end the
+ * following must hold for each cached enrollment:<p>
+ * - remainingDependencies is the number of its dependent objects in the DOC.<p>
+ * - It doesn't wait on a student that is already in the target system.<p>
+ * Run with the argument 'nolocks' to run the same test without the key locks for comparison.
+ */
+public class TestDOCKeyLocks extends ServiceBaseTest
+{
+	private static final String ZONE_ID = "SIFDemo";
+	private static final String APP_ID = "MyApp";
+	private static final String AGENT_ID = "SubscribingAgent";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	private static final int NUM_THREADS = 8;
+	private static final int MESSAGES_PER_THREAD = 200;
+	private static final int NUM_ENROLMENTS = 40;
+	private static final int NUM_STUDENTS = 10;
+	
+	/* SQLite reports 'database is locked' if a reader and the group commit overlap. Such DOC calls are retried. */
+	private static final int MAX_ATTEMPTS = 10;
+
+	private DOCService service = new DOCService();
+	private DOCKeyLocks keyLocks = null;
+
+	/* The students that have been processed by the 'target system'. */
+	private Set<String> targetSystem = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	private AtomicInteger failures = new AtomicInteger(0);
+
+	public TestDOCKeyLocks(boolean useLocks)
+	{
+		if (useLocks)
+		{
+			keyLocks = DOCKeyLocks.createLocks(64);
+		}
+	}
+
+	public void runStressTest() throws Exception
+	{
+		final CountDownLatch done = new CountDownLatch(NUM_THREADS);
+		long startTime = System.currentTimeMillis();
+		for (int t=0; t<NUM_THREADS; t++)
+		{
+			final Random random = new Random(t);
+			new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						for (int i=0; i<MESSAGES_PER_THREAD; i++)
+						{
+							int enrolmentNo = random.nextInt(NUM_ENROLMENTS);
+							boolean isStudent = (random.nextInt(4) == 0);
+							boolean success = false;
+							for (int attempt=0; !success && (attempt<MAX_ATTEMPTS); attempt++)
+							{
+								if (isStudent)
+								{
+									success = receiveStudent("S"+(enrolmentNo % NUM_STUDENTS));
+								}
+								else
+								{
+									success = receiveEnrolment("E"+enrolmentNo, "S"+(enrolmentNo % NUM_STUDENTS));
+								}
+								if (!success)
+								{
+									pause(10*(attempt+1));
+								}
+							}
+							if (!success)
+							{
+								failures.incrementAndGet();
+							}
+						}
+					}
+					finally
+					{
+						done.countDown();
+					}
+				}
+			}, "Stress-"+t).start();
+		}
+		done.await();
+		System.out.println("Processed "+(NUM_THREADS*MESSAGES_PER_THREAD)+" messages in "+(System.currentTimeMillis()-startTime)+"ms. Failed DOC calls: "+failures.get());
+	}
+
+	public int checkInvariants() throws Exception
+	{
+		int violations = 0;
+		for (int i=0; i<NUM_ENROLMENTS; i++)
+		{
+			String key = "E"+i;
+			DOCache cachedObject = service.retrieveCachedObject(ENROLMENT, key, APP_ID, ZONE_ID, true);
+			if (cachedObject == null)
+			{
+				continue;
+			}
+			if (cachedObject.getRemainingDependencies() != cachedObject.getDependentObjects().size())
+			{
+				System.out.println("VIOLATION: "+key+" has remainingDependencies = "+cachedObject.getRemainingDependencies()+" but "+cachedObject.getDependentObjects().size()+" dependent objects.");
+				violations++;
+			}
+			for (DOCObject docObject : cachedObject.getDependentObjects())
+			{
+				if (targetSystem.contains(docObject.getObjectKeyValue()))
+				{
+					System.out.println("VIOLATION: "+key+" waits on "+docObject.getObjectKeyValue()+" which is already in the target system.");
+					violations++;
+				}
+			}
+		}
+		System.out.println("Invariant violations: "+violations);
+		return violations;
+	}
+
+	public void cleanup() throws Exception
+	{
+		for (int i=0; i<NUM_STUDENTS; i++)
+		{
+			service.checkAndRemoveDependency(STUDENT, "S"+i, APP_ID, ZONE_ID);
+		}
+		List<DOCache> resolvedObjects = service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID);
+		service.removeCachedObjects(resolvedObjects);
+	}
+
+	/*
+	 * Same decisions as SBPBaseSubscriber.cacheObjectIfRequired() with doesObjectExistInTargetSystem() answered by
+	 * the targetSystem. Returns FALSE if a DOC call failed.
+	 */
+	private boolean receiveEnrolment(String enrolmentKey, String studentKey)
+	{
+		ReentrantLock[] lockedStripes = lock(DOCKeyLocks.getKey(ENROLMENT, enrolmentKey, ZONE_ID), DOCKeyLocks.getKey(STUDENT, studentKey, ZONE_ID));
+		try
+		{
+			if (service.retrieveCachedObject(ENROLMENT, enrolmentKey, APP_ID, ZONE_ID, false) != null)
+			{
+				return true; // already cached
+			}
+
+			DOCObject student = new DOCObject();
+			student.setSifObjectName(STUDENT);
+			student.setObjectKeyValue(studentKey);
+			List<DOCObject> dependencies = new ArrayList<DOCObject>();
+			dependencies.add(student);
+			service.mergeWithCachedDependencies(dependencies, APP_ID, ZONE_ID);
+			if (!student.isKnownToCache() && targetSystem.contains(studentKey))
+			{
+				return true; // no remaining dependencies => processed straight away
+			}
+
+			DOCache cachedObject = new DOCache();
+			cachedObject.setSifObjectName(ENROLMENT);
+			cachedObject.setObjectKeyValue(enrolmentKey);
+			cachedObject.setIsEvent(false);
+			cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+			cachedObject.setDependentObjectsAsList(dependencies);
+			service.cacheObject(cachedObject, AGENT_ID, APP_ID, ZONE_ID);
+			return true;
+		}
+		catch (Exception ex)
+		{
+			return false;
+		}
+		finally
+		{
+			unlock(lockedStripes);
+		}
+	}
+
+	/*
+	 * Same decisions as SBPBaseSubscriber.removeDependencies(). The student is only added to the target system once the
+	 * dependencies on it are removed. Returns FALSE if a DOC call failed.
+	 */
+	private boolean receiveStudent(String studentKey)
+	{
+		ReentrantLock[] lockedStripes = lock(DOCKeyLocks.getKey(STUDENT, studentKey, ZONE_ID));
+		try
+		{
+			service.checkAndRemoveDependency(STUDENT, studentKey, APP_ID, ZONE_ID);
+			targetSystem.add(studentKey);
+			return true;
+		}
+		catch (Exception ex)
+		{
+			return false;
+		}
+		finally
+		{
+			unlock(lockedStripes);
+		}
+	}
+
+	private void pause(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ReentrantLock[] lock(String... keys)
+	{
+		List<String> keyList = new ArrayList<String>();
+		Collections.addAll(keyList, keys);
+		return (keyLocks == null) ? null : keyLocks.lock(keyList);
+	}
+
+	private void unlock(ReentrantLock[] lockedStripes)
+	{
+		if (keyLocks != null)
+		{
+			keyLocks.unlock(lockedStripes);
+		}
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestDOCKeyLocks ===============================");
+		try
+        {
+			boolean useLocks = !((args.length > 0) && "nolocks".equals(args[0]));
+
+			// SQLite only allows one writer at a time. The group commit serialises the writes of all threads.
+			DOCGroupCommitter.startCommitter(50, 5);
+        	TestDOCKeyLocks tester = new TestDOCKeyLocks(useLocks);
+        	System.out.println("Key locks enabled: "+useLocks);
+        	tester.runStressTest();
+        	int violations = tester.checkInvariants();
+        	tester.cleanup();
+        	DOCGroupCommitter.shutdownCommitter(5000);
+        	tester.shutdown();
+        	if (useLocks && (violations > 0))
+        	{
+        		System.out.println("FAILED: The DOC invariants don't hold with key locks.");
+        	}
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestDOCKeyLocks ===============================");
+    }
+}
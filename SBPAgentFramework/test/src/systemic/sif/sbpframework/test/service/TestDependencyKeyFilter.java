@@ -0,0 +1,375 @@
+/*
+ * TestDependencyKeyFilter.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import systemic.sif.sbpframework.common.utils.DOCKeyLocks;
+import systemic.sif.sbpframework.common.utils.DependencyKeyFilter;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.servcie.DOCGroupCommitter;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests the DependencyKeyFilter on its own and as it is maintained by the DOCService:<p>
+ * - Add/Remove: A key is reported as outstanding after it is added, no longer after it is removed and again after it
+ *   is added again. A key added for two cached objects is still outstanding after one removal.<p>
+ * - No false negatives: Of many keys added, all keys that have not been removed are reported as outstanding.<p>
+ * - DOC: Caching an object adds its dependencies, removing a dependency from the DOC removes it from the filter and
+ *   caching a new object waiting on it adds it again.<p>
+ * - Concurrent caching: Several threads cache new StudentSchoolEnrollment objects and remove the StudentPersonal
+ *   objects they wait on at the same time, with the same key locks as the SBPBaseSubscriber. Each student is added to
+ *   and removed from the filter many times. Right after an enrollment is cached and at the end every dependent object
+ *   in the DOC must be reported as outstanding by the filter.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestDependencyKeyFilter extends ServiceBaseTest
+{
+	private static final String ZONE_ID = "SIFDemo";
+	private static final String APP_ID = "MyApp";
+	private static final String AGENT_ID = "SubscribingAgent";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	private static final int NUM_KEYS = 10000;
+
+	private static final int NUM_THREADS = 8;
+	private static final int MESSAGES_PER_THREAD = 200;
+	private static final int NUM_STUDENTS = 10;
+
+	/* SQLite reports 'database is locked' if a reader and the group commit overlap. Such DOC calls are retried. */
+	private static final int MAX_ATTEMPTS = 10;
+
+	private DOCService service = new DOCService();
+	private DependencyKeyFilter filter = DependencyKeyFilter.createFilter(NUM_KEYS, 10);
+	private DOCKeyLocks keyLocks = DOCKeyLocks.createLocks(64);
+
+	private AtomicInteger failures = new AtomicInteger(0);
+	private AtomicInteger falseNegatives = new AtomicInteger(0);
+
+	/* The keys of the enrollments cached by testConcurrentCaching(). */
+	private List<String> cachedEnrolments = Collections.synchronizedList(new ArrayList<String>());
+
+	public void testAddRemove()
+	{
+		System.out.println("\n---- Add/Remove: add, remove and re-add one key ----");
+		boolean afterAdd = add("A1");
+		filter.remove(STUDENT, "A1", APP_ID, ZONE_ID);
+		boolean afterRemove = mightContain("A1");
+		boolean afterReAdd = add("A1");
+		System.out.println("After add: "+afterAdd+", after remove: "+afterRemove+", after re-add: "+afterReAdd);
+		if (!afterAdd || afterRemove || !afterReAdd)
+		{
+			System.out.println("FAILED: Expected the key to be outstanding after add and re-add only.");
+		}
+
+		add("A1");
+		filter.remove(STUDENT, "A1", APP_ID, ZONE_ID);
+		boolean afterOneRemove = mightContain("A1");
+		filter.remove(STUDENT, "A1", APP_ID, ZONE_ID);
+		System.out.println("Added twice, outstanding after one remove: "+afterOneRemove+", after two removes: "+mightContain("A1"));
+		if (!afterOneRemove || mightContain("A1"))
+		{
+			System.out.println("FAILED: Expected a key added twice to be outstanding until it is removed twice.");
+		}
+		if (filter.mightContain(STUDENT, "A1", "OtherApp", ZONE_ID) || filter.mightContain(ENROLMENT, "A1", APP_ID, ZONE_ID))
+		{
+			System.out.println("FAILED: Expected keys of other applications or object types not to be outstanding.");
+		}
+	}
+
+	public void testNoFalseNegatives()
+	{
+		System.out.println("\n---- No false negatives: add "+NUM_KEYS+" keys and remove every second one ----");
+		for (int i=0; i<NUM_KEYS; i++)
+		{
+			filter.add(STUDENT, "N"+i, APP_ID, ZONE_ID);
+		}
+		for (int i=0; i<NUM_KEYS; i=i+2)
+		{
+			filter.remove(STUDENT, "N"+i, APP_ID, ZONE_ID);
+		}
+		int falseNegatives = 0;
+		int falsePositives = 0;
+		for (int i=0; i<NUM_KEYS; i++)
+		{
+			boolean outstanding = mightContain("N"+i);
+			if ((i % 2 == 1) && !outstanding)
+			{
+				falseNegatives++;
+			}
+			else if ((i % 2 == 0) && outstanding)
+			{
+				falsePositives++;
+			}
+		}
+		System.out.println("False negatives: "+falseNegatives+", false positives: "+falsePositives+" of "+(NUM_KEYS/2)+" removed keys.");
+		if (falseNegatives > 0)
+		{
+			System.out.println("FAILED: Expected no outstanding key to be reported as not outstanding.");
+		}
+		for (int i=1; i<NUM_KEYS; i=i+2)
+		{
+			filter.remove(STUDENT, "N"+i, APP_ID, ZONE_ID);
+		}
+	}
+
+	public void testDOC() throws Exception
+	{
+		System.out.println("\n---- DOC: cache, remove and cache again an object waiting on S100 ----");
+		cacheEnrolment("E100", "S100");
+		boolean afterCache = mightContain("S100");
+		service.checkAndRemoveDependency(STUDENT, "S100", APP_ID, ZONE_ID);
+		boolean afterRemove = mightContain("S100");
+		cacheEnrolment("E101", "S100");
+		boolean afterReCache = mightContain("S100");
+		System.out.println("After cache: "+afterCache+", after removal: "+afterRemove+", after caching again: "+afterReCache);
+		if (!afterCache || afterRemove || !afterReCache)
+		{
+			System.out.println("FAILED: Expected the filter to follow the dependencies in the DOC.");
+		}
+
+		service.checkAndRemoveDependency(STUDENT, "S100", APP_ID, ZONE_ID);
+		DOCache cachedObject = service.retrieveCachedObject(ENROLMENT, "E101", APP_ID, ZONE_ID, true);
+		if ((cachedObject == null) || (cachedObject.getRemainingDependencies() != 0))
+		{
+			System.out.println("FAILED: Expected E101 to be resolved by the removal of S100.");
+		}
+	}
+
+	public void testConcurrentCaching() throws Exception
+	{
+		System.out.println("\n---- Concurrent caching: "+NUM_THREADS+" threads cache enrollments and remove students ----");
+		final CountDownLatch done = new CountDownLatch(NUM_THREADS);
+		for (int t=0; t<NUM_THREADS; t++)
+		{
+			final Random random = new Random(t);
+			final int threadNo = t;
+			new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						for (int i=0; i<MESSAGES_PER_THREAD; i++)
+						{
+							String studentKey = "S"+random.nextInt(NUM_STUDENTS);
+							boolean isStudent = (random.nextInt(4) == 0);
+							boolean success = false;
+							for (int attempt=0; !success && (attempt<MAX_ATTEMPTS); attempt++)
+							{
+								if (isStudent)
+								{
+									success = receiveStudent(studentKey);
+								}
+								else
+								{
+									success = receiveEnrolment("E"+threadNo+"-"+i, studentKey);
+								}
+								if (!success)
+								{
+									pause(10*(attempt+1));
+								}
+							}
+							if (!success)
+							{
+								failures.incrementAndGet();
+							}
+						}
+					}
+					finally
+					{
+						done.countDown();
+					}
+				}
+			}, "Filter-"+t).start();
+		}
+		done.await();
+
+		int numDependencies = 0;
+		for (String enrolmentKey : cachedEnrolments)
+		{
+			DOCache cachedObject = service.retrieveCachedObject(ENROLMENT, enrolmentKey, APP_ID, ZONE_ID, true);
+			if (cachedObject == null)
+			{
+				continue;
+			}
+			for (DOCObject docObject : cachedObject.getDependentObjects())
+			{
+				numDependencies++;
+				if (!mightContain(docObject.getObjectKeyValue()))
+				{
+					System.out.println(enrolmentKey+" waits on "+docObject.getObjectKeyValue()+" which the filter reports as not outstanding.");
+					falseNegatives.incrementAndGet();
+				}
+			}
+		}
+		System.out.println("Failed DOC calls: "+failures.get()+", dependencies in the DOC: "+numDependencies+", false negatives: "+falseNegatives.get());
+		if (falseNegatives.get() > 0)
+		{
+			System.out.println("FAILED: Expected every dependency in the DOC to be outstanding in the filter.");
+		}
+		System.out.println("Filter statistics: "+filter.getStatistics());
+	}
+
+	public void cleanup() throws Exception
+	{
+		for (int i=0; i<NUM_STUDENTS; i++)
+		{
+			service.checkAndRemoveDependency(STUDENT, "S"+i, APP_ID, ZONE_ID);
+		}
+		service.checkAndRemoveDependency(STUDENT, "S100", APP_ID, ZONE_ID);
+		List<DOCache> resolvedObjects = service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID);
+		service.removeCachedObjects(resolvedObjects);
+	}
+
+	/*
+	 * Same decisions as SBPBaseSubscriber.cacheObjectIfRequired() where the student is never in the target system.
+	 * Once the enrollment is cached its student must be outstanding in the filter. Returns FALSE if a DOC call failed.
+	 */
+	private boolean receiveEnrolment(String enrolmentKey, String studentKey)
+	{
+		ReentrantLock[] lockedStripes = lock(DOCKeyLocks.getKey(ENROLMENT, enrolmentKey, ZONE_ID), DOCKeyLocks.getKey(STUDENT, studentKey, ZONE_ID));
+		try
+		{
+			if (service.retrieveCachedObject(ENROLMENT, enrolmentKey, APP_ID, ZONE_ID, false) != null)
+			{
+				return true; // already cached by a failed attempt
+			}
+			cacheEnrolment(enrolmentKey, studentKey);
+			cachedEnrolments.add(enrolmentKey);
+			if (!mightContain(studentKey))
+			{
+				System.out.println(enrolmentKey+" has been cached but its student "+studentKey+" is not outstanding in the filter.");
+				falseNegatives.incrementAndGet();
+			}
+			return true;
+		}
+		catch (Exception ex)
+		{
+			return false;
+		}
+		finally
+		{
+			keyLocks.unlock(lockedStripes);
+		}
+	}
+
+	/*
+	 * Same decisions as SBPBaseSubscriber.removeDependencies(). Returns FALSE if a DOC call failed.
+	 */
+	private boolean receiveStudent(String studentKey)
+	{
+		ReentrantLock[] lockedStripes = lock(DOCKeyLocks.getKey(STUDENT, studentKey, ZONE_ID));
+		try
+		{
+			service.checkAndRemoveDependency(STUDENT, studentKey, APP_ID, ZONE_ID);
+			return true;
+		}
+		catch (Exception ex)
+		{
+			return false;
+		}
+		finally
+		{
+			keyLocks.unlock(lockedStripes);
+		}
+	}
+
+	private void cacheEnrolment(String enrolmentKey, String studentKey) throws Exception
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setRequested(false);
+		List<DOCObject> dependencies = new ArrayList<DOCObject>();
+		dependencies.add(student);
+		service.mergeWithCachedDependencies(dependencies, APP_ID, ZONE_ID);
+
+		DOCache cachedObject = new DOCache();
+		cachedObject.setSifObjectName(ENROLMENT);
+		cachedObject.setObjectKeyValue(enrolmentKey);
+		cachedObject.setIsEvent(false);
+		cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+		cachedObject.setDependentObjectsAsList(dependencies);
+		service.cacheObject(cachedObject, AGENT_ID, APP_ID, ZONE_ID);
+	}
+
+	private boolean add(String flatKey)
+	{
+		filter.add(STUDENT, flatKey, APP_ID, ZONE_ID);
+		return mightContain(flatKey);
+	}
+
+	private boolean mightContain(String flatKey)
+	{
+		return filter.mightContain(STUDENT, flatKey, APP_ID, ZONE_ID);
+	}
+
+	private void pause(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ReentrantLock[] lock(String... keys)
+	{
+		List<String> keyList = new ArrayList<String>();
+		Collections.addAll(keyList, keys);
+		return keyLocks.lock(keyList);
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestDependencyKeyFilter ===============================");
+		try
+        {
+			// SQLite only allows one writer at a time. The group commit serialises the writes of all threads.
+			DOCGroupCommitter.startCommitter(50, 5);
+        	TestDependencyKeyFilter tester = new TestDependencyKeyFilter();
+        	tester.cleanup();
+        	tester.testAddRemove();
+        	tester.testNoFalseNegatives();
+        	tester.testDOC();
+        	tester.testConcurrentCaching();
+        	tester.cleanup();
+        	DOCGroupCommitter.shutdownCommitter(5000);
+        	DependencyKeyFilter.removeFilter();
+        	DOCKeyLocks.removeLocks();
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestDependencyKeyFilter ===============================");
+    }
+}
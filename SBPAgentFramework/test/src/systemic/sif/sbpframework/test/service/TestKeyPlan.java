@@ -0,0 +1,426 @@
+/*
+ * TestKeyPlan.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import openadk.library.ADKException;
+import openadk.library.ADKSchemaException;
+import openadk.library.Element;
+import openadk.library.SIFDataObject;
+import openadk.library.SIFElement;
+import openadk.library.SIFParser;
+import systemic.sif.sbpframework.common.utils.ElementAccessor;
+import systemic.sif.sbpframework.common.utils.SIFObjectKeyPlan;
+import systemic.sif.sbpframework.common.utils.SIFObjectKeyPlan.DependencyPlan;
+import systemic.sif.sbpframework.common.utils.SIFObjectMetadataCache;
+import systemic.sif.sbpframework.exception.InvalidKeyException;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DependentKeyInfo;
+import systemic.sif.sbpframework.persist.model.DependentObjectInfo;
+import systemic.sif.sbpframework.persist.model.SIFObject;
+import systemic.sif.sbpframework.persist.model.SIFObjectKey;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests that the compiled key plans of the DOCService extract the same keys as the XPath lookups with
+ * SIFDataObject.getElementOrAttribute() over the SIF Object metadata. For each object the flat key and the dependent
+ * objects (name and flat key) are extracted both ways and must be equal. Where the XPath lookup fails with an
+ * InvalidKeyException the key plan must fail with it as well. Each key, indicator and list accessor of the key plan
+ * must also return the same values as the XPath lookup, for lists the same entries as 'xpathToList[idx]'.<p>
+ * - Key: Single key (StudentPersonal, TeachingGroup) and compound key (StudentContactRelationship).<p>
+ * - Dependencies: Simple and indicator dependencies (StudentSchoolEnrollment, Identity), also with a different
+ *   indicator object type and with a missing foreign key.<p>
+ * - List dependencies: TeachingGroup with three students and two teachers, with an empty student list, with a student
+ *   without a StudentPersonalRefId and with a teacher without a StaffPersonalRefId.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestKeyPlan extends ServiceBaseTest
+{
+	private static final String TEST_DATA_DIR = "testData/input/";
+	private static final String INVALID_KEY = "InvalidKeyException";
+
+	private DOCService service = new DOCService();
+	private SIFObjectMetadataCache metadataCache = SIFObjectMetadataCache.getCache();
+
+	public TestKeyPlan() throws ADKException
+	{
+		initADK();
+	}
+
+	public void testKeys()
+	{
+		System.out.println("\n---- Key: single and compound keys ----");
+		compare("StudentPersonal", loadSIFObjectFromFile("SingleStudentPersonal.xml"));
+		compare("TeachingGroup", loadSIFObjectFromFile("SingleTeachingGroup.xml"));
+		compare("StudentContactRelationship", loadSIFObjectFromFile("SingleStudentRelationship.xml"));
+	}
+
+	public void testDependencies()
+	{
+		System.out.println("\n---- Dependencies: simple and indicator dependencies ----");
+		String enrolment = loadXMLFileData(TEST_DATA_DIR+"SingleStudentSchoolEnrollment.xml");
+		compare("StudentSchoolEnrollment", parse(enrolment));
+		compare("StudentSchoolEnrollment, Advisor indicator StudentPersonal", parse(enrolment.replace("<Advisor SIF_RefObject=\"StaffPersonal\">", "<Advisor SIF_RefObject=\"StudentPersonal\">")));
+		compare("StudentSchoolEnrollment, no SchoolInfoRefId", parse(enrolment.replaceAll("<SchoolInfoRefId>.*</SchoolInfoRefId>", "")));
+
+		String identity = loadXMLFileData(TEST_DATA_DIR+"IdentityStaffPersonal.xml");
+		compare("Identity", parse(identity));
+		compare("Identity, indicator StudentPersonal", parse(identity.replace("SIF_RefObject=\"StaffPersonal\"", "SIF_RefObject=\"StudentPersonal\"")));
+	}
+
+	public void testListDependencies()
+	{
+		System.out.println("\n---- List dependencies: TeachingGroup ----");
+		// The sample has a teacher without StaffPersonalRefId. Complete it so that all list entries have a key. The
+		// SchoolInfo dependency fails both ways as the metadata xPath 'SchoolInfoRefID' is not known to the ADK, so the
+		// list entries are compared by the accessors.
+		String teacherRefId = "<StaffPersonalRefId>B359D3E34D75101A8C3D00AA001A1652</StaffPersonalRefId>";
+		String teachingGroup = loadXMLFileData(TEST_DATA_DIR+"SingleTeachingGroup.xml");
+		teachingGroup = teachingGroup.replace("<StaffLocalId>SMI1</StaffLocalId>", teacherRefId+"<StaffLocalId>SMI1</StaffLocalId>");
+
+		compare("TeachingGroup", parse(teachingGroup));
+		compare("TeachingGroup, empty student list", parse(teachingGroup.replaceAll("(?s)<StudentList>.*</StudentList>", "<StudentList/>")));
+		compare("TeachingGroup, student without StudentPersonalRefId", parse(teachingGroup.replace("<StudentPersonalRefId>02834EA9EDA12090347F83297E1C290D</StudentPersonalRefId>", "")));
+		compare("TeachingGroup, teacher without StaffPersonalRefId", parse(teachingGroup.replace(teacherRefId, "")));
+	}
+
+	/*
+	 * Extracts the key and dependencies of the given object with the DOCService and with the XPath lookups and prints
+	 * 'FAILED' if they are not the same.
+	 */
+	private void compare(String caseName, SIFDataObject sifObject)
+	{
+		if (sifObject == null)
+		{
+			System.out.println("FAILED: "+caseName+": Could not parse the object.");
+			return;
+		}
+
+		String flatKey;
+		String expectedFlatKey;
+		try
+		{
+			flatKey = service.extractFlatKey(sifObject);
+		}
+		catch (InvalidKeyException ex)
+		{
+			flatKey = INVALID_KEY;
+		}
+		try
+		{
+			expectedFlatKey = extractFlatKeyByXPath(sifObject);
+		}
+		catch (InvalidKeyException ex)
+		{
+			expectedFlatKey = INVALID_KEY;
+		}
+
+		List<String> dependencies;
+		List<String> expectedDependencies;
+		try
+		{
+			dependencies = getDependencyKeys(service.extractDependentObjectsFromSIFObject(sifObject));
+		}
+		catch (InvalidKeyException ex)
+		{
+			dependencies = null;
+		}
+		try
+		{
+			expectedDependencies = extractDependenciesByXPath(sifObject);
+		}
+		catch (InvalidKeyException ex)
+		{
+			expectedDependencies = null;
+		}
+
+		System.out.println(caseName+": key = "+flatKey+", dependencies = "+((dependencies == null) ? INVALID_KEY : dependencies));
+		if (!flatKey.equals(expectedFlatKey))
+		{
+			System.out.println("FAILED: Expected key "+expectedFlatKey+".");
+		}
+		if ((dependencies == null) ? (expectedDependencies != null) : !dependencies.equals(expectedDependencies))
+		{
+			System.out.println("FAILED: Expected dependencies "+((expectedDependencies == null) ? INVALID_KEY : expectedDependencies)+".");
+		}
+		compareAccessors(caseName, sifObject);
+	}
+
+	/*
+	 * Compares the value of each accessor of the key plan with the value of the XPath lookup. For list dependencies
+	 * every entry of the list is compared.
+	 */
+	private void compareAccessors(String caseName, SIFDataObject sifObject)
+	{
+		SIFObjectKeyPlan keyPlan = metadataCache.getKeyPlan(sifObject.getElementDef().name());
+		int numCompared = compareValues(caseName, sifObject, sifObject, "", keyPlan.getKeyAccessors());
+		int numListEntries = 0;
+		for (DependencyPlan dependencyPlan : keyPlan.getDependencyPlans())
+		{
+			ElementAccessor listAccessor = dependencyPlan.getListAccessor();
+			if (listAccessor == null)
+			{
+				numCompared += compareValues(caseName, sifObject, sifObject, "", dependencyPlan.getKeyAccessors());
+				numCompared += compareValues(caseName, sifObject, sifObject, "", dependencyPlan.getIndicatorAccessor());
+				continue;
+			}
+
+			List<SIFElement> listEntries = listAccessor.getElementList(sifObject);
+			int numEntries = 0;
+			while (getElementOrNull(sifObject, listAccessor.getXpath()+"["+(numEntries+1)+"]") != null)
+			{
+				numEntries++;
+			}
+			if (listEntries == null)
+			{
+				System.out.println("FAILED: "+caseName+": Expected "+listAccessor.getXpath()+" to be compiled.");
+				continue;
+			}
+			if (listEntries.size() != numEntries)
+			{
+				System.out.println("FAILED: "+caseName+": Expected "+numEntries+" entries in "+listAccessor.getXpath()+" but got "+listEntries.size()+".");
+				continue;
+			}
+			for (int i=0; i<numEntries; i++)
+			{
+				String contextXPath = listAccessor.getXpath()+"["+(i+1)+"]/";
+				if (listEntries.get(i) != getElementOrNull(sifObject, contextXPath.substring(0, contextXPath.length()-1)))
+				{
+					System.out.println("FAILED: "+caseName+": Expected entry "+contextXPath+" to be the same element.");
+				}
+				numCompared += compareValues(caseName, sifObject, listEntries.get(i), contextXPath, dependencyPlan.getKeyAccessors());
+				numCompared += compareValues(caseName, sifObject, listEntries.get(i), contextXPath, dependencyPlan.getIndicatorAccessor());
+			}
+			numListEntries += numEntries;
+		}
+		System.out.println(caseName+": compared "+numCompared+" accessor values, "+numListEntries+" list entries");
+	}
+
+	private int compareValues(String caseName, SIFDataObject sifObject, SIFElement context, String contextXPath, ElementAccessor... accessors)
+	{
+		int numCompared = 0;
+		for (ElementAccessor accessor : accessors)
+		{
+			if (accessor == null)
+			{
+				continue;
+			}
+			String value;
+			try
+			{
+				value = accessor.getValue(sifObject, context, contextXPath);
+			}
+			catch (ADKSchemaException ex)
+			{
+				value = INVALID_KEY;
+			}
+			Element element = getElementOrNull(sifObject, contextXPath+accessor.getXpath());
+			String expectedValue = (element == null) ? null : ((element.getTextValue() == null) ? "" : element.getTextValue());
+			if ((value == null) ? (expectedValue != null) : !value.equals(expectedValue))
+			{
+				System.out.println("FAILED: "+caseName+": Expected "+contextXPath+accessor.getXpath()+" = "+expectedValue+" but got "+value+".");
+			}
+			numCompared++;
+		}
+		return numCompared;
+	}
+
+	private Element getElementOrNull(SIFDataObject sifObject, String xpath)
+	{
+		try
+		{
+			return sifObject.getElementOrAttribute(xpath);
+		}
+		catch (ADKSchemaException ex)
+		{
+			return null;
+		}
+	}
+
+	private List<String> getDependencyKeys(List<DOCObject> dependencies)
+	{
+		List<String> keys = new ArrayList<String>();
+		if (dependencies != null)
+		{
+			for (DOCObject dependency : dependencies)
+			{
+				keys.add(dependency.getSifObjectName()+":"+dependency.getObjectKeyValue());
+			}
+		}
+		Collections.sort(keys);
+		return keys;
+	}
+
+	/*
+	 * Reference key extraction: Looks up every key component by its XPath in the metadata sort order.
+	 */
+	private String extractFlatKeyByXPath(SIFDataObject sifObject) throws InvalidKeyException
+	{
+		SIFObject metadata = metadataCache.getObjectMetadata(sifObject.getElementDef().name());
+		List<String> values = new ArrayList<String>();
+		for (SIFObjectKey key : metadata.getOrderedKeyList())
+		{
+			values.add(getValueByXPath(sifObject, key.getXpath()));
+		}
+		return flatten(values, metadata.getKeySeparator());
+	}
+
+	/*
+	 * Reference dependency extraction: List dependencies are looked up as 'xpathToList[idx]/xpath' for idx = 1, 2, ...
+	 * until there is no more list element.
+	 */
+	private List<String> extractDependenciesByXPath(SIFDataObject sifObject) throws InvalidKeyException
+	{
+		List<String> dependencies = new ArrayList<String>();
+		SIFObject metadata = metadataCache.getObjectMetadata(sifObject.getElementDef().name());
+		if ((metadata == null) || (metadata.getDependentObjects() == null))
+		{
+			return dependencies;
+		}
+		for (DependentObjectInfo dependentInfo : metadata.getDependentObjects())
+		{
+			if (Boolean.TRUE.equals(dependentInfo.getListOfObjects()))
+			{
+				for (int idx=1; getElementByXPath(sifObject, dependentInfo.getXpathToList()+"["+idx+"]") != null; idx++)
+				{
+					addDependencyByXPath(sifObject, dependentInfo, dependentInfo.getXpathToList()+"["+idx+"]/", dependencies);
+				}
+			}
+			else
+			{
+				addDependencyByXPath(sifObject, dependentInfo, "", dependencies);
+			}
+		}
+		Collections.sort(dependencies);
+		return dependencies;
+	}
+
+	private void addDependencyByXPath(SIFDataObject sifObject, DependentObjectInfo dependentInfo, String xpathPrefix, List<String> dependencies) throws InvalidKeyException
+	{
+		SIFObject parentObject = dependentInfo.getParentObject();
+		if (parentObject == null) // indicator dependency
+		{
+			DependentKeyInfo indicatorInfo = dependentInfo.getIndicatorField(true);
+			if (indicatorInfo == null)
+			{
+				return;
+			}
+			String parentName = getValueByXPath(sifObject, xpathPrefix+indicatorInfo.getXpath());
+			for (SIFObject validIndicator : indicatorInfo.getValidIndicatorList())
+			{
+				if (validIndicator.getName().equals(parentName))
+				{
+					parentObject = metadataCache.getObjectMetadata(parentName);
+					break;
+				}
+			}
+			if (parentObject == null) // not a dependency we wait for
+			{
+				return;
+			}
+		}
+
+		List<DependentKeyInfo> keyInfoList = dependentInfo.getOrderedKeyInfoList();
+		if (keyInfoList.size() != parentObject.getOrderedKeyList().size())
+		{
+			throw new InvalidKeyException("Key components of "+dependentInfo+" don't match the key of "+parentObject.getName());
+		}
+		List<String> values = new ArrayList<String>();
+		for (DependentKeyInfo keyInfo : keyInfoList)
+		{
+			values.add(getValueByXPath(sifObject, xpathPrefix+keyInfo.getXpath()));
+		}
+		dependencies.add(parentObject.getName()+":"+flatten(values, parentObject.getKeySeparator()));
+	}
+
+	private String getValueByXPath(SIFDataObject sifObject, String xpath) throws InvalidKeyException
+	{
+		Element element = getElementByXPath(sifObject, xpath);
+		String value = (element == null) ? null : element.getTextValue();
+		if ((value == null) || (value.length() == 0))
+		{
+			throw new InvalidKeyException("No value for "+xpath+" in "+sifObject.getElementDef().name());
+		}
+		return value;
+	}
+
+	private Element getElementByXPath(SIFDataObject sifObject, String xpath) throws InvalidKeyException
+	{
+		try
+		{
+			return sifObject.getElementOrAttribute(xpath);
+		}
+		catch (Exception ex)
+		{
+			throw new InvalidKeyException("Invalid XPath "+xpath+" for "+sifObject.getElementDef().name());
+		}
+	}
+
+	private String flatten(List<String> values, String separator)
+	{
+		StringBuffer flatKey = new StringBuffer();
+		for (String value : values)
+		{
+			if (flatKey.length() > 0)
+			{
+				flatKey.append(separator);
+			}
+			flatKey.append(value);
+		}
+		return flatKey.toString();
+	}
+
+	private SIFDataObject loadSIFObjectFromFile(String filename)
+	{
+		return parse(loadXMLFileData(TEST_DATA_DIR+filename));
+	}
+
+	private SIFDataObject parse(String sifXML)
+	{
+		try
+		{
+			return (sifXML == null) ? null : (SIFDataObject)SIFParser.newInstance().parse(sifXML);
+		}
+		catch (Exception ex)
+		{
+			ex.printStackTrace();
+			return null;
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		System.out.println("================================== Start TestKeyPlan ===============================");
+		try
+		{
+			TestKeyPlan tester = new TestKeyPlan();
+			tester.testKeys();
+			tester.testDependencies();
+			tester.testListDependencies();
+			tester.shutdown();
+		}
+		catch (Exception ex)
+		{
+			ex.printStackTrace();
+		}
+		System.out.println("================================== End TestKeyPlan ===============================");
+	}
+}
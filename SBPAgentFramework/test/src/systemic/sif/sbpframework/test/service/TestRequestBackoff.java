@@ -0,0 +1,234 @@
+/*
+ * TestRequestBackoff.java
+ *
+ * Copyright 2011 Systemic Pty Ltd
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package systemic.sif.sbpframework.test.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import systemic.sif.sbpframework.common.utils.DOCacheProperties;
+import systemic.sif.sbpframework.persist.common.BasicTransaction;
+import systemic.sif.sbpframework.persist.dao.DOCacheDAO;
+import systemic.sif.sbpframework.persist.model.DOCObject;
+import systemic.sif.sbpframework.persist.model.DOCache;
+import systemic.sif.sbpframework.persist.servcie.DOCService;
+
+/**
+ * Tests the re-request of unanswered dependent objects with exponential backoff:<p>
+ * - Delays: DOCService.getNextRequestDate() waits 'cache.request.retry.initial.delay.seconds' after the first request,
+ *   doubles the delay with each further request and never waits longer than 'cache.request.retry.max.delay.seconds',
+ *   also not for a very large number of attempts.<p>
+ * - Stale requests: A requested dependent object is only returned by getStaleRequestedObjects() once its next request
+ *   date has passed and only while it has been requested less than 'cache.request.retry.max.attempts' times. Each
+ *   request increments its request attempts.<p>
+ * Each test prints 'FAILED' if its outcome is not as expected.
+ */
+public class TestRequestBackoff extends ServiceBaseTest
+{
+	private static final String ZONE_ID = "SIFDemo";
+	private static final String APP_ID = "TestBackoffApp";
+	private static final String AGENT_ID = "SubscribingAgent";
+	private static final String ENROLMENT = "StudentSchoolEnrollment";
+	private static final String STUDENT = "StudentPersonal";
+
+	/* Same defaults as the DOCService. */
+	private static final int INITIAL_DELAY_SEC = 300;
+	private static final int MAX_DELAY_SEC = 3600;
+	private static final int MAX_ATTEMPTS = 3;
+
+	private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+	private DOCService service = new DOCService();
+	private DOCacheDAO docCacheDAO = new DOCacheDAO();
+
+	private long initialDelay = INITIAL_DELAY_SEC;
+	private long maxDelay = MAX_DELAY_SEC;
+	private int maxAttempts = MAX_ATTEMPTS;
+
+	public TestRequestBackoff()
+	{
+		DOCacheProperties cacheProperties = DOCacheProperties.getDOCacheProperties();
+		if (cacheProperties != null)
+		{
+			initialDelay = cacheProperties.getRequestRetryInitialDelayInSec(INITIAL_DELAY_SEC);
+			maxDelay = cacheProperties.getRequestRetryMaxDelayInSec(MAX_DELAY_SEC);
+			maxAttempts = cacheProperties.getRequestRetryMaxAttempts(MAX_ATTEMPTS);
+		}
+	}
+
+	public void testDelays()
+	{
+		System.out.println("\n---- Delays: initial delay = "+initialDelay+"s, max delay = "+maxDelay+"s ----");
+		Date requestDate = new Date();
+		long previousDelay = 0;
+		for (int attempts=1; attempts<=10; attempts++)
+		{
+			long delay = getDelay(requestDate, attempts);
+			long expected = Math.min(initialDelay * (1L << (attempts-1)), maxDelay);
+			System.out.println("Attempt "+attempts+": "+delay+"s");
+			if ((delay != expected) || (delay < previousDelay))
+			{
+				System.out.println("FAILED: Expected a delay of "+expected+"s after "+attempts+" attempts.");
+			}
+			previousDelay = delay;
+		}
+		long delay = getDelay(requestDate, 1000);
+		System.out.println("Attempt 1000: "+delay+"s");
+		if (delay != maxDelay)
+		{
+			System.out.println("FAILED: Expected the max delay for a very large number of attempts.");
+		}
+	}
+
+	public void testStaleRequests() throws Exception
+	{
+		System.out.println("\n---- Stale requests: max attempts = "+maxAttempts+" ----");
+		cacheEnrolment("BE1", "B1");
+		List<DOCObject> notYetRequested = service.getNotYetRequestedObjects(STUDENT, APP_ID, ZONE_ID);
+		if (notYetRequested.size() != 1)
+		{
+			System.out.println("FAILED: Expected B1 not to be requested yet.");
+			return;
+		}
+
+		Date before = new Date();
+		service.markDependentObjectsAsRequested(notYetRequested, AGENT_ID, ZONE_ID);
+		DOCObject b1 = retrieveStudent("B1");
+		System.out.println("Requested: attempts = "+b1.getRequestAttempts()+", next request date = "+b1.getNextRequestDate());
+		if (!Integer.valueOf(1).equals(b1.getRequestAttempts()) || (b1.getNextRequestDate().getTime() < before.getTime() + (initialDelay * 1000)))
+		{
+			System.out.println("FAILED: Expected one request attempt with the next request after the initial delay.");
+		}
+		int numStale = service.getStaleRequestedObjects(STUDENT, APP_ID, ZONE_ID).size();
+		System.out.println("Stale before the next request date: "+numStale);
+		if (numStale != 0)
+		{
+			System.out.println("FAILED: Expected B1 not to be requested again before its next request date.");
+		}
+
+		setRequestAttempts(b1, 1);
+		List<DOCObject> stale = service.getStaleRequestedObjects(STUDENT, APP_ID, ZONE_ID);
+		System.out.println("Stale after the next request date: "+stale.size());
+		if (maxAttempts <= 1)
+		{
+			if (!stale.isEmpty())
+			{
+				System.out.println("FAILED: Expected no re-requests with max attempts = "+maxAttempts+".");
+			}
+			return;
+		}
+		if (stale.size() != 1)
+		{
+			System.out.println("FAILED: Expected B1 to be requested again after its next request date.");
+			return;
+		}
+		service.markDependentObjectsAsRequested(stale, AGENT_ID, ZONE_ID);
+		b1 = retrieveStudent("B1");
+		long delay = (b1.getNextRequestDate().getTime() - b1.getRequestDate().getTime()) / 1000;
+		System.out.println("Requested again: attempts = "+b1.getRequestAttempts()+", delay = "+delay+"s");
+		if (!Integer.valueOf(2).equals(b1.getRequestAttempts()) || (delay != Math.min(2 * initialDelay, maxDelay)))
+		{
+			System.out.println("FAILED: Expected two request attempts with a doubled delay.");
+		}
+
+		setRequestAttempts(b1, maxAttempts);
+		numStale = service.getStaleRequestedObjects(STUDENT, APP_ID, ZONE_ID).size();
+		System.out.println("Stale after "+maxAttempts+" attempts: "+numStale);
+		if (numStale != 0)
+		{
+			System.out.println("FAILED: Expected B1 not to be requested more than "+maxAttempts+" times.");
+		}
+	}
+
+	public void cleanup() throws Exception
+	{
+		service.checkAndRemoveDependency(STUDENT, "B1", APP_ID, ZONE_ID);
+		service.removeCachedObjects(service.getObjectsWithoutDependencies(ENROLMENT, APP_ID, AGENT_ID));
+	}
+
+	private long getDelay(Date requestDate, int requestAttempts)
+	{
+		return (DOCService.getNextRequestDate(requestDate, requestAttempts).getTime() - requestDate.getTime()) / 1000;
+	}
+
+	/*
+	 * Sets the request attempts of the given dependent object and moves its next request date into the past.
+	 */
+	private void setRequestAttempts(DOCObject docObject, int requestAttempts)
+	{
+		Date now = new Date();
+		List<Long> ids = new ArrayList<Long>();
+		ids.add(docObject.getId());
+		BasicTransaction tx = new BasicTransaction();
+		tx.startTransaction();
+		docCacheDAO.markDependentObjectsAsRequested(tx, ids, AGENT_ID, ZONE_ID, new Date(now.getTime() - HOUR_MILLIS), requestAttempts, new Date(now.getTime() - 1000));
+		tx.commit();
+	}
+
+	private DOCObject retrieveStudent(String studentKey)
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setApplicationId(APP_ID);
+		student.setZoneId(ZONE_ID);
+		BasicTransaction tx = new BasicTransaction();
+		tx.startTransaction();
+		DOCObject docObject = docCacheDAO.getCachedDependentObject(tx, student);
+		tx.commit();
+		return docObject;
+	}
+
+	private void cacheEnrolment(String enrolmentKey, String studentKey) throws Exception
+	{
+		DOCObject student = new DOCObject();
+		student.setSifObjectName(STUDENT);
+		student.setObjectKeyValue(studentKey);
+		student.setRequested(false);
+		List<DOCObject> dependencies = new ArrayList<DOCObject>();
+		dependencies.add(student);
+		service.mergeWithCachedDependencies(dependencies, APP_ID, ZONE_ID);
+
+		DOCache cachedObject = new DOCache();
+		cachedObject.setSifObjectName(ENROLMENT);
+		cachedObject.setObjectKeyValue(enrolmentKey);
+		cachedObject.setIsEvent(false);
+		cachedObject.setObjectXML("<StudentSchoolEnrollment RefId=\""+enrolmentKey+"\"/>");
+		cachedObject.setDependentObjectsAsList(dependencies);
+		service.cacheObject(cachedObject, AGENT_ID, APP_ID, ZONE_ID);
+	}
+
+    public static void main(String[] args)
+    {
+		System.out.println("================================== Start TestRequestBackoff ===============================");
+		try
+        {
+        	TestRequestBackoff tester = new TestRequestBackoff();
+        	tester.cleanup();
+        	tester.testDelays();
+        	tester.testStaleRequests();
+        	tester.cleanup();
+        	tester.shutdown();
+        }
+        catch (Exception ex)
+        {
+            ex.printStackTrace();
+        }
+		System.out.println("================================== End TestRequestBackoff ===============================");
+    }
+}